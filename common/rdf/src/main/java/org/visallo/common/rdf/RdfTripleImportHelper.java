@@ -11,6 +11,7 @@ import org.visallo.core.model.graph.GraphRepository;
 import org.visallo.core.model.ontology.OntologyRepository;
 import org.visallo.core.model.properties.VisalloProperties;
 import org.visallo.core.model.workQueue.Priority;
+import org.visallo.core.model.workQueue.WorkQueueBatch;
 import org.visallo.core.model.workQueue.WorkQueueRepository;
 import org.visallo.core.security.VisalloVisibility;
 import org.visallo.core.security.VisibilityTranslator;
@@ -138,11 +139,13 @@ public class RdfTripleImportHelper {
             metricsManager.removeMetric(meterMetricName);
         }
 
-        graph.flush();
-
-        if (!disableWorkQueues) {
+        if (disableWorkQueues) {
+            graph.flush();
+        } else {
             LOGGER.info("pushing %d elements from RDF import on to work queue", elements.size());
-            workQueueRepository.pushElements(elements, priority);
+            try (WorkQueueBatch workQueueBatch = workQueueRepository.createBatch()) {
+                workQueueBatch.pushElements(elements, priority);
+            }
         }
 
         long endTime = System.currentTimeMillis();
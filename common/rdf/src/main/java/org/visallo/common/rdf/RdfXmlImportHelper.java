@@ -15,6 +15,7 @@ import org.visallo.core.ingest.graphProperty.GraphPropertyWorkData;
 import org.visallo.core.model.ontology.OntologyRepository;
 import org.visallo.core.model.properties.VisalloProperties;
 import org.visallo.core.model.workQueue.Priority;
+import org.visallo.core.model.workQueue.WorkQueueBatch;
 import org.visallo.core.model.workQueue.WorkQueueRepository;
 import org.visallo.core.model.workspace.WorkspaceRepository;
 import org.visallo.core.security.VisibilityTranslator;
@@ -110,19 +111,21 @@ public class RdfXmlImportHelper {
         graph.flush();
 
         if (!disableWorkQueues) {
-            LOGGER.debug("pushing vertices from RDF import on to work queue");
-            for (Vertex vertex : results.getVertices()) {
-                workQueueRepository.broadcastElement(vertex, workspaceId);
-                for (Property prop : vertex.getProperties()) {
-                    workQueueRepository.pushGraphPropertyQueue(vertex, prop, priority);
+            try (WorkQueueBatch workQueueBatch = workQueueRepository.createBatch()) {
+                LOGGER.debug("pushing vertices from RDF import on to work queue");
+                for (Vertex vertex : results.getVertices()) {
+                    workQueueBatch.broadcastElement(vertex, workspaceId);
+                    for (Property prop : vertex.getProperties()) {
+                        workQueueBatch.pushGraphPropertyQueue(vertex, prop, priority);
+                    }
                 }
-            }
 
-            LOGGER.debug("pushing edges from RDF import on to work queue");
-            for (Edge edge : results.getEdges()) {
-                workQueueRepository.broadcastElement(edge, workspaceId);
-                for (Property prop : edge.getProperties()) {
-                    workQueueRepository.pushGraphPropertyQueue(edge, prop, priority);
+                LOGGER.debug("pushing edges from RDF import on to work queue");
+                for (Edge edge : results.getEdges()) {
+                    workQueueBatch.broadcastElement(edge, workspaceId);
+                    for (Property prop : edge.getProperties()) {
+                        workQueueBatch.pushGraphPropertyQueue(edge, prop, priority);
+                    }
                 }
             }
         }
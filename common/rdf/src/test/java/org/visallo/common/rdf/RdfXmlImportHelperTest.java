@@ -51,6 +51,7 @@ public class RdfXmlImportHelperTest {
         VisibilityTranslator visibilityTranslator = new DirectVisibilityTranslator();
 
         when(user.getUserId()).thenReturn("user1");
+        when(workQueueRepository.createBatch()).thenCallRealMethod();
         rdfXmlImportHelper = new RdfXmlImportHelper(graph, workQueueRepository, ontologyRepository, workspaceRepository, visibilityTranslator);
         defaultVisibilitySource = "";
         sourceFileName = "test.rdf";
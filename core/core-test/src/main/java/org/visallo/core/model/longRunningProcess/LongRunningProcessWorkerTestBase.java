@@ -57,6 +57,7 @@ public class LongRunningProcessWorkerTestBase {
         when(metricsManager.counter(any())).thenReturn(mockCounter);
         when(metricsManager.timer(any())).thenReturn(mockTimer);
         when(metricsManager.meter(any())).thenReturn(mockMeter);
+        when(workQueueRepository.createBatch()).thenCallRealMethod();
     }
 
     protected void prepare(LongRunningProcessWorker worker) {
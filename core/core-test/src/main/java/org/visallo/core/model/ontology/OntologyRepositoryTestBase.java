@@ -59,6 +59,28 @@ public abstract class OntologyRepositoryTestBase extends VisalloInMemoryTestBase
         assertEquals(1, parentConcept.getProperties().size());
     }
 
+    @Test
+    public void testConceptHierarchyAndPropertyLookups() throws Exception {
+        loadHierarchyOwlFile();
+        Concept contact = getOntologyRepository().getConceptByIRI(TEST_HIERARCHY_IRI + "#contact");
+        Concept person = getOntologyRepository().getConceptByIRI(TEST_HIERARCHY_IRI + "#person");
+
+        List<Concept> personAndAllParents = getOntologyRepository().getConceptAndAllParents(person);
+        assertEquals(person.getIRI(), personAndAllParents.get(0).getIRI());
+        assertEquals(contact.getIRI(), personAndAllParents.get(1).getIRI());
+        assertEquals(OntologyRepository.ROOT_CONCEPT_IRI, personAndAllParents.get(personAndAllParents.size() - 1).getIRI());
+
+        Set<Concept> conceptsWithName = getOntologyRepository().getConceptsWithProperty(TEST_HIERARCHY_IRI + "#name");
+        assertEquals(1, conceptsWithName.size());
+        assertEquals(person.getIRI(), conceptsWithName.iterator().next().getIRI());
+        assertTrue(getOntologyRepository().getRelationshipsWithProperty(TEST_HIERARCHY_IRI + "#name").isEmpty());
+
+        Concept child = getOntologyRepository().getOrCreateConcept(person, TEST_HIERARCHY_IRI + "#child", "Child", null);
+        getOntologyRepository().clearCache();
+        assertTrue(getOntologyRepository().getConceptAndAllChildren(contact).contains(child));
+        assertEquals(child.getIRI(), getOntologyRepository().getConceptByIRI(child.getIRI()).getIRI());
+    }
+
     @Test
     public void dependenciesBetweenOntologyFilesShouldNotChangeParentProperties() throws Exception {
         loadTestOwlFile();
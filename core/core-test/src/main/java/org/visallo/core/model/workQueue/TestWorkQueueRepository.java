@@ -36,6 +36,7 @@ import static org.mockito.Mockito.when;
 public class TestWorkQueueRepository extends WorkQueueRepository {
     public List<JSONObject> broadcastJsonValues = new ArrayList<>();
     public Map<String, List<byte[]>> queues = new HashMap<>();
+    public int batchPushCount;
 
     public TestWorkQueueRepository(
             Graph graph,
@@ -60,12 +61,19 @@ public class TestWorkQueueRepository extends WorkQueueRepository {
         queue.add(data);
     }
 
+    @Override
+    public void pushOnQueue(String queueName, List<byte[]> data, Priority priority) {
+        batchPushCount++;
+        super.pushOnQueue(queueName, data, priority);
+    }
+
     public List<byte[]> getWorkQueue(String queueName) {
         return queues.get(queueName);
     }
 
     public void clearQueue() {
         queues.clear();
+        batchPushCount = 0;
     }
 
     @Override
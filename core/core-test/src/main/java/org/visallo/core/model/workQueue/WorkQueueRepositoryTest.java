@@ -148,4 +148,42 @@ public class WorkQueueRepositoryTest {
         assertEquals(3, message.getProperties().length);
     }
 
+    @Test
+    public void testWorkQueueBatch() {
+        Visibility visibility = new Visibility("");
+        Vertex v1 = graph.addVertex("v1", visibility, authorizations);
+        Vertex v2 = graph.addVertex("v2", visibility, authorizations);
+        Vertex v3 = graph.addVertex("v3", visibility, authorizations);
+
+        try (WorkQueueBatch batch = workQueueRepository.createBatch()) {
+            batch.pushElement(v1, Priority.NORMAL);
+            batch.pushElement(v2, Priority.NORMAL);
+            batch.pushElement(v3, Priority.LOW);
+            assertEquals(3, batch.size());
+            assertEquals(null, workQueueRepository.getWorkQueue(workQueueNames.getGraphPropertyQueueName()));
+            assertEquals(0, workQueueRepository.broadcastJsonValues.size());
+        }
+
+        assertEquals(2, workQueueRepository.batchPushCount);
+        List<byte[]> queue = workQueueRepository.getWorkQueue(workQueueNames.getGraphPropertyQueueName());
+        assertEquals(3, queue.size());
+        assertEquals("v1", GraphPropertyMessage.create(queue.get(0)).getGraphVertexId()[0]);
+        assertEquals("v3", GraphPropertyMessage.create(queue.get(2)).getGraphVertexId()[0]);
+        assertEquals(2, workQueueRepository.broadcastJsonValues.size());
+    }
+
+    @Test
+    public void testWorkQueueBatchFlushesWhenFull() {
+        Visibility visibility = new Visibility("");
+        Vertex v1 = graph.addVertex("v1", visibility, authorizations);
+        Vertex v2 = graph.addVertex("v2", visibility, authorizations);
+
+        WorkQueueBatch batch = workQueueRepository.createBatch().setMaxSize(1);
+        batch.pushElement(v1, Priority.NORMAL);
+        assertEquals(0, batch.size());
+        assertEquals(1, workQueueRepository.getWorkQueue(workQueueNames.getGraphPropertyQueueName()).size());
+        batch.pushElement(v2, Priority.NORMAL);
+        assertEquals(2, workQueueRepository.getWorkQueue(workQueueNames.getGraphPropertyQueueName()).size());
+        assertEquals(2, workQueueRepository.batchPushCount);
+    }
 }
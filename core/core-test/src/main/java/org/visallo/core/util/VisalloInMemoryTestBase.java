@@ -22,6 +22,7 @@ import org.visallo.core.model.termMention.TermMentionRepository;
 import org.visallo.core.model.user.*;
 import org.visallo.core.model.workQueue.TestWorkQueueRepository;
 import org.visallo.core.model.workQueue.WorkQueueRepository;
+import org.visallo.core.model.workspace.WorkspaceChangeIndex;
 import org.visallo.core.model.workspace.WorkspaceDiffHelper;
 import org.visallo.core.model.workspace.WorkspaceListener;
 import org.visallo.core.model.workspace.WorkspaceRepository;
@@ -60,6 +61,7 @@ public abstract class VisalloInMemoryTestBase {
     private FileSystemRepository fileSystemRepository;
     private LongRunningProcessRepository longRunningProcessRepository;
     private WorkQueueNames workQueueNames;
+    private WorkspaceChangeIndex workspaceChangeIndex;
 
     @Before
     public void before() {
@@ -85,6 +87,7 @@ public abstract class VisalloInMemoryTestBase {
         fileSystemRepository = null;
         longRunningProcessRepository = null;
         workQueueNames = null;
+        workspaceChangeIndex = null;
     }
 
     protected WorkspaceRepository getWorkspaceRepository() {
@@ -115,9 +118,18 @@ public abstract class VisalloInMemoryTestBase {
                 return VisalloInMemoryTestBase.this.getWorkspaceListeners();
             }
         };
+        workspaceRepository.setWorkspaceChangeIndex(getWorkspaceChangeIndex());
         return workspaceRepository;
     }
 
+    protected WorkspaceChangeIndex getWorkspaceChangeIndex() {
+        if (workspaceChangeIndex != null) {
+            return workspaceChangeIndex;
+        }
+        workspaceChangeIndex = new WorkspaceChangeIndex(getSimpleOrmSession(), getConfiguration());
+        return workspaceChangeIndex;
+    }
+
     protected Collection<WorkspaceListener> getWorkspaceListeners() {
         return new ArrayList<>();
     }
@@ -393,6 +405,7 @@ public abstract class VisalloInMemoryTestBase {
                 getTermMentionRepository(),
                 getWorkQueueRepository()
         );
+        graphRepository.setWorkspaceChangeIndex(getWorkspaceChangeIndex());
         return graphRepository;
     }
 
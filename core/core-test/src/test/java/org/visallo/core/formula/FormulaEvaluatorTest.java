@@ -7,22 +7,28 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
 import org.vertexium.*;
 import org.vertexium.inmemory.InMemoryGraph;
 import org.visallo.core.config.Configuration;
 import org.visallo.core.config.ConfigurationLoader;
 import org.visallo.core.config.HashMapConfigurationLoader;
 import org.visallo.core.model.ontology.OntologyRepository;
+import org.visallo.web.clientapi.model.ClientApiOntology;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.TimeZone;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
 public class FormulaEvaluatorTest {
@@ -30,6 +36,7 @@ public class FormulaEvaluatorTest {
     private FormulaEvaluator.UserContext userContext;
     private Graph graph;
     private Authorizations authorizations;
+    private Configuration configuration;
 
     @Mock
     private OntologyRepository ontologyRepository;
@@ -41,7 +48,7 @@ public class FormulaEvaluatorTest {
 
         Map<String, String> map = new HashMap<>();
         ConfigurationLoader configurationLoader = new HashMapConfigurationLoader(map);
-        Configuration configuration = configurationLoader.createConfiguration();
+        configuration = configurationLoader.createConfiguration();
 
         Locale locale = Locale.getDefault();
         String timeZone = "America/New_York";
@@ -63,9 +70,15 @@ public class FormulaEvaluatorTest {
             }
 
             @Override
-            protected String toJson(VertexiumObject vertexiumObject, String workspaceId, Authorizations authorizations) {
+            protected Object toJavaScript(
+                    VertexiumObject vertexiumObject,
+                    String workspaceId,
+                    Authorizations authorizations,
+                    Context context,
+                    Scriptable scope
+            ) {
                 if (vertexiumObject != null) {
-                    return super.toJson(vertexiumObject, workspaceId, authorizations);
+                    return super.toJavaScript(vertexiumObject, workspaceId, authorizations, context, scope);
                 }
                 return vertexJson;
             }
@@ -83,11 +96,32 @@ public class FormulaEvaluatorTest {
         assertTrue(evaluator.getConfigurationJson(Locale.getDefault()).length() > 0);
     }
 
+    @Test
+    public void testOntologyJsonIsCachedUntilTheOntologyChanges() {
+        FormulaEvaluator ontologyEvaluator = new FormulaEvaluator(configuration, ontologyRepository);
+        try {
+            when(ontologyRepository.getClientApiObject()).thenReturn(new ClientApiOntology());
+            String ontologyJson = ontologyEvaluator.getOntologyJson();
+            assertSame(ontologyJson, ontologyEvaluator.getOntologyJson());
+
+            when(ontologyRepository.getClientApiObject()).thenReturn(new ClientApiOntology());
+            assertNotSame(ontologyJson, ontologyEvaluator.getOntologyJson());
+        } finally {
+            ontologyEvaluator.close();
+        }
+    }
+
     @Test
     public void testEvaluateTitleFormula() {
         assertEquals("Prop A Value, Prop B Value", evaluator.evaluateTitleFormula(null, userContext, authorizations));
     }
 
+    @Test
+    public void testEvaluateTitleFormulas() {
+        List<String> titles = evaluator.evaluateTitleFormulas(Arrays.<VertexiumObject>asList(null, null, null), userContext, authorizations);
+        assertEquals(Collections.nCopies(3, "Prop A Value, Prop B Value"), titles);
+    }
+
     @Test
     public void testEvaluateSubtitleFormula() {
         assertEquals("Prop C Value", evaluator.evaluateSubtitleFormula(null, userContext, authorizations));
@@ -77,6 +77,7 @@ public class FileImportTest {
         visibilityTranslator = new DirectVisibilityTranslator();
         authorizations = graph.createAuthorizations();
 
+        when(workQueueRepository.createBatch()).thenCallRealMethod();
         when(ontologyRepository.getRequiredPropertyByIntent(PROP1_NAME)).thenReturn(ontologyProperty);
         when(ontologyProperty.getVisalloProperty()).thenReturn(new IntegerVisalloProperty(PROP1_NAME));
 
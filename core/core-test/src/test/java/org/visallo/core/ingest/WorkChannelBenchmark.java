@@ -0,0 +1,143 @@
+package org.visallo.core.ingest;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the hand off throughput of {@link WorkChannel} and the synchronized {@link LinkedList} with wait/notifyAll
+ * that WorkerBase used before, with one producer feeding 1, 4 and 16 worker threads as a spout feeds the workers. This
+ * is not run as part of the build, run the main method to see the results.
+ */
+public class WorkChannelBenchmark {
+    private static final int CAPACITY = 1000;
+    private static final int WARMUP_ITEMS = 1000000;
+    private static final int ITEMS = 5000000;
+    private static final int[] WORKER_COUNTS = new int[]{1, 4, 16};
+
+    public static void main(String[] args) throws InterruptedException {
+        for (int workers : WORKER_COUNTS) {
+            run(workers, new WorkChannelQueue(new WorkChannel<>(CAPACITY)));
+            run(workers, new MonitorQueue(CAPACITY));
+        }
+    }
+
+    private static void run(int workers, Queue queue) throws InterruptedException {
+        measure(workers, queue, WARMUP_ITEMS);
+        long time = measure(workers, queue, ITEMS);
+        System.out.println(String.format(
+                "%-17s %2d workers  %6d ns/item  %10d items/s",
+                queue.getName(),
+                workers,
+                time / ITEMS,
+                ITEMS * TimeUnit.SECONDS.toNanos(1) / time
+        ));
+    }
+
+    private static long measure(int workerCount, Queue queue, int items) throws InterruptedException {
+        AtomicLong consumed = new AtomicLong();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    while (consumed.get() < items) {
+                        if (queue.poll(10, TimeUnit.MILLISECONDS) != null) {
+                            consumed.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+
+        Integer item = 1;
+        long startTime = System.nanoTime();
+        for (int i = 0; i < items; i++) {
+            queue.put(item);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return System.nanoTime() - startTime;
+    }
+
+    private interface Queue {
+        String getName();
+
+        void put(Integer item) throws InterruptedException;
+
+        Integer poll(long timeout, TimeUnit unit) throws InterruptedException;
+    }
+
+    private static class WorkChannelQueue implements Queue {
+        private final WorkChannel<Integer> channel;
+
+        WorkChannelQueue(WorkChannel<Integer> channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public String getName() {
+            return "WorkChannel";
+        }
+
+        @Override
+        public void put(Integer item) throws InterruptedException {
+            channel.put(item);
+        }
+
+        @Override
+        public Integer poll(long timeout, TimeUnit unit) throws InterruptedException {
+            return channel.poll(timeout, unit);
+        }
+    }
+
+    /**
+     * The hand off WorkerBase used before {@link WorkChannel}. The producer adds an item, wakes the workers and then
+     * waits while the queue is full.
+     */
+    private static class MonitorQueue implements Queue {
+        private final java.util.Queue<Integer> queue = new LinkedList<>();
+        private final int capacity;
+
+        MonitorQueue(int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public String getName() {
+            return "synchronized wait";
+        }
+
+        @Override
+        public void put(Integer item) throws InterruptedException {
+            synchronized (queue) {
+                queue.add(item);
+                queue.notifyAll();
+                while (queue.size() >= capacity) {
+                    queue.wait();
+                }
+            }
+        }
+
+        @Override
+        public Integer poll(long timeout, TimeUnit unit) throws InterruptedException {
+            synchronized (queue) {
+                if (queue.size() == 0) {
+                    queue.wait(unit.toMillis(timeout));
+                }
+                if (queue.size() == 0) {
+                    return null;
+                }
+                Integer item = queue.remove();
+                queue.notifyAll();
+                return item;
+            }
+        }
+    }
+}
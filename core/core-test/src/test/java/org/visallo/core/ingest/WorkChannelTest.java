@@ -0,0 +1,129 @@
+package org.visallo.core.ingest;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class WorkChannelTest {
+    @Test
+    public void testCapacityIsExact() {
+        assertEquals(1, new WorkChannel<String>(0).getCapacity());
+        assertEquals(16, new WorkChannel<String>(16).getCapacity());
+
+        WorkChannel<String> channel = new WorkChannel<>(5);
+        assertEquals(5, channel.getCapacity());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(channel.offer("item" + i));
+        }
+        assertFalse(channel.offer("item5"));
+        assertEquals(5, channel.size());
+        assertEquals("item0", channel.poll());
+        assertTrue(channel.offer("item5"));
+        assertFalse(channel.offer("item6"));
+    }
+
+    @Test
+    public void testOfferAndPollInOrder() {
+        WorkChannel<String> channel = new WorkChannel<>(4);
+        assertTrue(channel.offer("a"));
+        assertTrue(channel.offer("b"));
+        assertTrue(channel.offer("c"));
+        assertTrue(channel.offer("d"));
+        assertFalse(channel.offer("e"));
+        assertEquals(4, channel.size());
+
+        assertEquals("a", channel.poll());
+        assertTrue(channel.offer("e"));
+        assertEquals("b", channel.poll());
+        assertEquals("c", channel.poll());
+        assertEquals("d", channel.poll());
+        assertEquals("e", channel.poll());
+        assertNull(channel.poll());
+        assertEquals(0, channel.size());
+    }
+
+    @Test
+    public void testPollTimesOutWhenEmpty() throws InterruptedException {
+        WorkChannel<String> channel = new WorkChannel<>(1);
+        assertNull(channel.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testOfferTimesOutWhenFull() throws InterruptedException {
+        WorkChannel<String> channel = new WorkChannel<>(1);
+        assertTrue(channel.offer("a", 10, TimeUnit.MILLISECONDS));
+        assertFalse(channel.offer("b", 10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testCloseWakesBlockedConsumer() throws InterruptedException {
+        WorkChannel<String> channel = new WorkChannel<>(1);
+        Thread consumer = new Thread(() -> {
+            try {
+                assertNull(channel.poll(1, TimeUnit.MINUTES));
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        consumer.start();
+        Thread.sleep(50);
+        channel.close();
+        consumer.join(5000);
+        assertFalse(consumer.isAlive());
+        assertFalse(channel.put("a"));
+    }
+
+    @Test
+    public void testMultipleProducersAndConsumers() throws InterruptedException {
+        int producerCount = 4;
+        int consumerCount = 4;
+        int itemsPerProducer = 10000;
+        WorkChannel<Long> channel = new WorkChannel<>(8);
+        AtomicLong consumedSum = new AtomicLong();
+        AtomicLong consumedCount = new AtomicLong();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producerCount; p++) {
+            threads.add(new Thread(() -> {
+                try {
+                    for (long i = 1; i <= itemsPerProducer; i++) {
+                        assertTrue(channel.put(i));
+                    }
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+        for (int c = 0; c < consumerCount; c++) {
+            threads.add(new Thread(() -> {
+                try {
+                    while (consumedCount.get() < producerCount * itemsPerProducer) {
+                        Long item = channel.poll(10, TimeUnit.MILLISECONDS);
+                        if (item != null) {
+                            consumedSum.addAndGet(item);
+                            consumedCount.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join(30000);
+        }
+
+        long expectedSum = producerCount * ((long) itemsPerProducer * (itemsPerProducer + 1) / 2);
+        assertEquals(producerCount * itemsPerProducer, consumedCount.get());
+        assertEquals(expectedSum, consumedSum.get());
+        assertNull(channel.poll());
+    }
+}
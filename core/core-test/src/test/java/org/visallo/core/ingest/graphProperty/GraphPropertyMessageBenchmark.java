@@ -0,0 +1,89 @@
+package org.visallo.core.ingest.graphProperty;
+
+import org.visallo.core.model.workQueue.Priority;
+
+/**
+ * Compares the size and encode/decode time of the JSON and binary {@link GraphPropertyMessage} formats. This is not
+ * run as part of the build, run the main method to see the results.
+ */
+public class GraphPropertyMessageBenchmark {
+    private static final int WARMUP_ITERATIONS = 200000;
+    private static final int ITERATIONS = 1000000;
+
+    public static void main(String[] args) {
+        run("single property", createSinglePropertyMessage());
+        run("multiple properties", createMultiplePropertiesMessage());
+    }
+
+    private static void run(String name, GraphPropertyMessage message) {
+        for (GraphPropertyMessage.Format format : GraphPropertyMessage.Format.values()) {
+            byte[] data = message.toBytes(format);
+            measure(message, format, WARMUP_ITERATIONS);
+            long[] results = measure(message, format, ITERATIONS);
+            System.out.println(String.format(
+                    "%-20s %-6s %5d bytes/message  encode %6d ns/op  decode %6d ns/op",
+                    name,
+                    format,
+                    data.length,
+                    results[0] / ITERATIONS,
+                    results[1] / ITERATIONS
+            ));
+        }
+    }
+
+    private static long[] measure(GraphPropertyMessage message, GraphPropertyMessage.Format format, int iterations) {
+        byte[] data = null;
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            data = message.toBytes(format);
+        }
+        long encodeTime = System.nanoTime() - startTime;
+
+        int check = 0;
+        startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            check += GraphPropertyMessage.create(data).getPriority().ordinal();
+        }
+        long decodeTime = System.nanoTime() - startTime;
+        if (check < 0) {
+            throw new IllegalStateException();
+        }
+        return new long[]{encodeTime, decodeTime};
+    }
+
+    private static GraphPropertyMessage createSinglePropertyMessage() {
+        return new GraphPropertyMessage()
+                .setPriority(Priority.NORMAL)
+                .setWorkspaceId("WORKSPACE_b2f4c1d2e3f4a5b6c7d8e9f0a1b2c3d4")
+                .setVisibilitySource("")
+                .setPropertyKey("org.visallo.core.ingest.FileImport")
+                .setPropertyName("http://visallo.org#raw")
+                .setStatus(ElementOrPropertyStatus.UPDATE)
+                .setGraphVertexId(new String[]{"a8b5f3e2c1d04e7f9a6b3c2d1e0f9a8b"});
+    }
+
+    private static GraphPropertyMessage createMultiplePropertiesMessage() {
+        String[] propertyNames = new String[]{
+                "http://visallo.org#raw",
+                "http://visallo.org#contentHash",
+                "http://visallo.org#fileName",
+                "http://visallo.org#modifiedDate",
+                "http://visallo.org#modifiedBy",
+                "http://visallo.org#visibilityJson"
+        };
+        GraphPropertyMessage.Property[] properties = new GraphPropertyMessage.Property[propertyNames.length];
+        for (int i = 0; i < properties.length; i++) {
+            properties[i] = new GraphPropertyMessage.Property()
+                    .setPropertyKey("org.visallo.core.ingest.FileImport")
+                    .setPropertyName(propertyNames[i])
+                    .setStatus(ElementOrPropertyStatus.UPDATE)
+                    .setBeforeActionTimestamp(i % 2 == 0 ? null : 1480000000000L + i);
+        }
+        return new GraphPropertyMessage()
+                .setPriority(Priority.HIGH)
+                .setWorkspaceId("WORKSPACE_b2f4c1d2e3f4a5b6c7d8e9f0a1b2c3d4")
+                .setVisibilitySource("")
+                .setGraphVertexId(new String[]{"a8b5f3e2c1d04e7f9a6b3c2d1e0f9a8b"})
+                .setProperties(properties);
+    }
+}
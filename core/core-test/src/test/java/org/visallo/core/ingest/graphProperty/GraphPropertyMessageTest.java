@@ -2,10 +2,14 @@ package org.visallo.core.ingest.graphProperty;
 
 import org.json.JSONObject;
 import org.junit.Test;
+import org.visallo.core.exception.VisalloException;
 import org.visallo.core.model.workQueue.Priority;
 import org.visallo.core.util.JSONUtil;
 
+import java.util.Arrays;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class GraphPropertyMessageTest {
@@ -180,4 +184,79 @@ public class GraphPropertyMessageTest {
                 JSONUtil.areEqual(new JSONObject(jsonString), new JSONObject(message.toJsonString()))
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testBinaryRoundTrip() {
+        GraphPropertyMessage message = new GraphPropertyMessage()
+                .setPriority(Priority.LOW)
+                .setWorkspaceId("wsTest")
+                .setVisibilitySource("visibilitySourceValue")
+                .setPropertyKey("key1")
+                .setPropertyName("name1")
+                .setStatus(ElementOrPropertyStatus.DELETION)
+                .setBeforeActionTimestamp(1480000000000L)
+                .setGraphVertexId(new String[]{"v1", "v2"})
+                .setGraphEdgeId(new String[]{"e1"});
+        message.setTraceEnabled(true);
+
+        byte[] data = message.toBytes(GraphPropertyMessage.Format.BINARY);
+        assertEquals(GraphPropertyMessageBinaryFormat.MAGIC, data[0]);
+        assertTrue(data.length < message.toBytes().length);
+
+        GraphPropertyMessage result = GraphPropertyMessage.create(data);
+        assertTrue(
+                new JSONObject(result.toJsonString()).toString(2),
+                JSONUtil.areEqual(new JSONObject(message.toJsonString()), new JSONObject(result.toJsonString()))
+        );
+    }
+
+    @Test
+    public void testBinaryRoundTripMultipleProperties() {
+        GraphPropertyMessage.Property property1 = new GraphPropertyMessage.Property()
+                .setPropertyKey("key1")
+                .setPropertyName("http://visallo.org#name")
+                .setStatus(ElementOrPropertyStatus.UPDATE);
+        GraphPropertyMessage.Property property2 = new GraphPropertyMessage.Property()
+                .setPropertyKey("key1")
+                .setPropertyName("http://visallo.org#name")
+                .setStatus(ElementOrPropertyStatus.HIDDEN)
+                .setBeforeActionTimestamp(-1L);
+        GraphPropertyMessage message = new GraphPropertyMessage()
+                .setPriority(Priority.HIGH)
+                .setGraphVertexId(new String[]{"v1"})
+                .setProperties(new GraphPropertyMessage.Property[]{property1, property2});
+
+        GraphPropertyMessage result = GraphPropertyMessage.create(message.toBytes(GraphPropertyMessage.Format.BINARY));
+        assertNull(result.getWorkspaceId());
+        assertNull(result.getGraphEdgeId());
+        assertNull(result.getBeforeActionTimestamp());
+        assertEquals(2, result.getProperties().length);
+        assertEquals("http://visallo.org#name", result.getProperties()[1].getPropertyName());
+        assertEquals("key1", result.getProperties()[1].getPropertyKey());
+        assertEquals(ElementOrPropertyStatus.HIDDEN, result.getProperties()[1].getStatus());
+        assertNull(result.getProperties()[0].getBeforeActionTimestamp());
+        assertEquals(-1L, result.getProperties()[1].getBeforeActionTimestamp().longValue());
+        assertTrue(
+                new JSONObject(result.toJsonString()).toString(2),
+                JSONUtil.areEqual(new JSONObject(message.toJsonString()), new JSONObject(result.toJsonString()))
+        );
+    }
+
+    @Test(expected = VisalloException.class)
+    public void testBinaryUnsupportedVersion() {
+        byte[] data = new GraphPropertyMessage()
+                .setPriority(Priority.NORMAL)
+                .toBytes(GraphPropertyMessage.Format.BINARY);
+        data[1] = 99;
+        GraphPropertyMessage.create(data);
+    }
+
+    @Test(expected = VisalloException.class)
+    public void testBinaryTruncated() {
+        byte[] data = new GraphPropertyMessage()
+                .setPriority(Priority.NORMAL)
+                .setGraphVertexId(new String[]{"v1"})
+                .toBytes(GraphPropertyMessage.Format.BINARY);
+        GraphPropertyMessage.create(Arrays.copyOf(data, data.length - 1));
+    }
+}
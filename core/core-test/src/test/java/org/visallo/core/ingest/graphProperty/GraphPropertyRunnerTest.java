@@ -172,6 +172,35 @@ public class GraphPropertyRunnerTest {
         assertThat(next.getValue(), is(prop.getValue()));
     }
 
+    @Test
+    public void testWorkerInterestLimitsWhichPropertiesAreChecked() throws Exception {
+        TestCountingGPWStub countingGPWStub = new TestCountingGPWStub();
+        countingGPWStub.interest = new GraphPropertyWorkerInterest()
+                .addPropertyNames(PROP_NAME + "0")
+                .setStatuses(ElementOrPropertyStatus.UPDATE);
+
+        GraphPropertyMessage message = createVertexIdJSONGPWMessage(VERTEX_ID);
+        inflateVertexAndAddToGraph(VERTEX_ID, 11L);
+        runTests(countingGPWStub, message);
+
+        assertThat(countingGPWStub.isExecutingCount.get(), is(2L));
+        assertThat(countingGPWStub.isHandledCount.get(), is(2L));
+    }
+
+    @Test
+    public void testWorkerInterestInStatusesSkipsOtherStatuses() throws Exception {
+        TestCountingGPWStub countingGPWStub = new TestCountingGPWStub();
+        countingGPWStub.interest = new GraphPropertyWorkerInterest()
+                .setStatuses(ElementOrPropertyStatus.DELETION);
+
+        GraphPropertyMessage message = createVertexIdJSONGPWMessage(VERTEX_ID);
+        inflateVertexAndAddToGraph(VERTEX_ID, 11L);
+        runTests(countingGPWStub, message);
+
+        assertThat(countingGPWStub.isExecutingCount.get(), is(0L));
+        assertThat(countingGPWStub.isHandledCount.get(), is(0L));
+    }
+
     private void testMultiElementMessage(int numMessages, int numProperties, GraphPropertyMessage message) throws Exception {
         TestCountingGPWStub countingGPWStub = new TestCountingGPWStub();
         runTests(countingGPWStub, message);
@@ -241,6 +270,12 @@ public class GraphPropertyRunnerTest {
         public AtomicLong isHandledCount = new AtomicLong(0);
         public AtomicLong isExecutingCount = new AtomicLong(0);
         public Set<Property> workedOnProperties = Sets.newHashSet();
+        public GraphPropertyWorkerInterest interest = new GraphPropertyWorkerInterest();
+
+        @Override
+        public GraphPropertyWorkerInterest getInterest() {
+            return interest;
+        }
 
         @Override
         public void execute(InputStream in, GraphPropertyWorkData data) throws Exception {
@@ -0,0 +1,105 @@
+package org.visallo.core.ingest.graphProperty;
+
+import org.junit.Test;
+import org.vertexium.Element;
+import org.vertexium.Property;
+import org.visallo.core.model.ontology.Concept;
+
+import java.io.InputStream;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GraphPropertyWorkerTest {
+    @Test
+    public void testRegexWorkerInterest() {
+        GraphPropertyWorkerInterest interest = GraphPropertyWorkerRoutingTable.getInterest(new TestRegexWorker());
+        assertFalse(interest.matchesStatic("http://visallo.org/test#name", ElementOrPropertyStatus.DELETION));
+        assertTrue(interest.matchesStatic("http://visallo.org/test#name", ElementOrPropertyStatus.UPDATE));
+    }
+
+    @Test
+    public void testRegexWorkerOverridingDeleteHandledIsRoutedEverything() {
+        GraphPropertyWorkerInterest interest = GraphPropertyWorkerRoutingTable.getInterest(new TestDeleteHandlingRegexWorker());
+        assertTrue(interest.matchesStatic("http://visallo.org/test#name", ElementOrPropertyStatus.DELETION));
+        assertTrue(interest.matchesStatic("http://visallo.org/test#name", ElementOrPropertyStatus.HIDDEN));
+        assertTrue(interest.getMimeTypePrefixes().isEmpty());
+        assertFalse(interest.isPropertyRequired());
+    }
+
+    @Test
+    public void testMimeTypeWorkerOverridingIsHandledIsRoutedEverything() {
+        assertFalse(GraphPropertyWorkerRoutingTable.getInterest(new TestMimeTypeWorker()).matchesStatic("http://visallo.org/test#name", ElementOrPropertyStatus.HIDDEN));
+
+        GraphPropertyWorkerInterest interest = GraphPropertyWorkerRoutingTable.getInterest(new TestMimeTypeWorker() {
+            @Override
+            public boolean isHandled(Element element, Property property) {
+                return property == null;
+            }
+        });
+        assertTrue(interest.matchesStatic("http://visallo.org/test#name", ElementOrPropertyStatus.HIDDEN));
+        assertFalse(interest.isPropertyRequired());
+    }
+
+    @Test
+    public void testConcreteWorkerOverridingIsHiddenHandledIsRoutedEverything() {
+        GraphPropertyWorkerInterest interest = GraphPropertyWorkerRoutingTable.getInterest(new TestNarrowWorker());
+        assertFalse(interest.matchesStatic("http://visallo.org/test#other", ElementOrPropertyStatus.UPDATE));
+        assertTrue(interest.matchesStatic("http://visallo.org/test#name", ElementOrPropertyStatus.UPDATE));
+
+        interest = GraphPropertyWorkerRoutingTable.getInterest(new TestNarrowWorker() {
+            @Override
+            public boolean isHiddenHandled(Element element, Property property) {
+                return true;
+            }
+        });
+        assertTrue(interest.matchesStatic("http://visallo.org/test#other", ElementOrPropertyStatus.HIDDEN));
+    }
+
+    private static class TestRegexWorker extends RegexGraphPropertyWorker {
+        public TestRegexWorker() {
+            super("[0-9]+");
+        }
+
+        @Override
+        protected Concept getConcept() {
+            return null;
+        }
+    }
+
+    private static class TestDeleteHandlingRegexWorker extends TestRegexWorker {
+        @Override
+        public boolean isDeleteHandled(Element element, Property property) {
+            return true;
+        }
+    }
+
+    private static class TestMimeTypeWorker extends MimeTypeGraphPropertyWorker {
+        public TestMimeTypeWorker() {
+            super(null);
+        }
+
+        @Override
+        protected String getMimeType(InputStream in, String fileName) {
+            return null;
+        }
+    }
+
+    private static class TestNarrowWorker extends GraphPropertyWorker {
+        @Override
+        public GraphPropertyWorkerInterest getInterest() {
+            return new GraphPropertyWorkerInterest()
+                    .addPropertyNames("http://visallo.org/test#name")
+                    .setStatuses(ElementOrPropertyStatus.UPDATE);
+        }
+
+        @Override
+        public boolean isHandled(Element element, Property property) {
+            return property != null && "http://visallo.org/test#name".equals(property.getName());
+        }
+
+        @Override
+        public void execute(InputStream in, GraphPropertyWorkData data) {
+        }
+    }
+}
@@ -8,17 +8,23 @@ import org.mockito.runners.MockitoJUnitRunner;
 import org.visallo.core.config.Configuration;
 import org.visallo.core.exception.VisalloException;
 import org.visallo.core.ingest.WorkerSpout;
+import org.visallo.core.ingest.WorkerTuple;
 import org.visallo.core.ingest.graphProperty.WorkerItem;
 import org.visallo.core.model.workQueue.WorkQueueRepository;
 import org.visallo.core.status.JmxMetricsManager;
 import org.visallo.core.status.StatusServer;
 import org.visallo.core.util.VisalloLogger;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.fail;
 import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.eq;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
 public class WorkerBaseTest {
@@ -67,6 +73,60 @@ public class WorkerBaseTest {
         assertEquals(1, nextTupleExceptionCount);
     }
 
+    @Test
+    public void testProcessThreadCount_itemsInFlightConcurrently() throws Exception {
+        when(configuration.getBoolean(eq(Configuration.STATUS_ENABLED), anyBoolean())).thenReturn(false);
+        when(configuration.getInt(eq(ConcurrentTestWorker.class.getName() + ".processThreadCount"), anyInt())).thenReturn(2);
+        when(configuration.getInt(eq(ConcurrentTestWorker.class.getName() + ".tupleQueueSize"), anyInt())).thenReturn(10);
+        when(workQueueRepository.createWorkerSpout(eq("test"))).thenReturn(workerSpout);
+        WorkerTuple tuple1 = new WorkerTuple("1", new byte[0]);
+        WorkerTuple tuple2 = new WorkerTuple("2", new byte[0]);
+        AtomicInteger nextTupleCount = new AtomicInteger();
+        when(workerSpout.nextTuple()).thenAnswer(invocation -> {
+            switch (nextTupleCount.getAndIncrement()) {
+                case 0:
+                    return tuple1;
+                case 1:
+                    return tuple2;
+                default:
+                    Thread.sleep(10);
+                    return null;
+            }
+        });
+
+        ConcurrentTestWorker testWorker = new ConcurrentTestWorker(workQueueRepository, configuration, 2);
+        testWorker.run();
+
+        assertEquals(0, testWorker.timedOutCount.get());
+        verify(workerSpout, timeout(1000)).ack(tuple1);
+        verify(workerSpout, timeout(1000)).ack(tuple2);
+        verify(workerSpout, never()).fail(any(WorkerTuple.class));
+    }
+
+    private class ConcurrentTestWorker extends TestWorker {
+        private final CountDownLatch inFlightLatch;
+        private final AtomicInteger processedCount = new AtomicInteger();
+        private final AtomicInteger timedOutCount = new AtomicInteger();
+        private final int expectedCount;
+
+        protected ConcurrentTestWorker(WorkQueueRepository workQueueRepository, Configuration configuration, int expectedCount) {
+            super(workQueueRepository, configuration);
+            this.expectedCount = expectedCount;
+            this.inFlightLatch = new CountDownLatch(expectedCount);
+        }
+
+        @Override
+        protected void process(TestWorkerItem workerItem) throws Exception {
+            inFlightLatch.countDown();
+            if (!inFlightLatch.await(10, TimeUnit.SECONDS)) {
+                timedOutCount.incrementAndGet();
+            }
+            if (processedCount.incrementAndGet() == expectedCount) {
+                stop();
+            }
+        }
+    }
+
     private class TestWorker extends WorkerBase<TestWorkerItem> {
         protected TestWorker(WorkQueueRepository workQueueRepository, Configuration configuration) {
             super(workQueueRepository, configuration, new JmxMetricsManager());
@@ -0,0 +1,92 @@
+package org.visallo.core.model.graph;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.vertexium.*;
+import org.vertexium.search.SearchIndex;
+import org.visallo.core.exception.VisalloException;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GraphReindexServiceTest {
+    private GraphReindexService graphReindexService;
+    private Graph graph;
+    private Map<String, Object> metadata = new HashMap<>();
+
+    @Mock
+    private SearchIndex searchIndex;
+
+    @Mock
+    private Vertex vertex;
+
+    @Mock
+    private Authorizations authorizations;
+
+    @Before
+    public void before() {
+        graph = mock(Graph.class, withSettings().extraInterfaces(GraphWithSearchIndex.class));
+        when(((GraphWithSearchIndex) graph).getSearchIndex()).thenReturn(searchIndex);
+        when(graph.getVerticesInRange(any(Range.class), eq(authorizations))).thenReturn(Collections.singletonList(vertex));
+        when(graph.getMetadata(anyString())).thenAnswer(invocation -> metadata.get((String) invocation.getArguments()[0]));
+        doAnswer(invocation -> metadata.put((String) invocation.getArguments()[0], invocation.getArguments()[1]))
+                .when(graph).setMetadata(anyString(), any());
+        graphReindexService = new GraphReindexService(graph);
+    }
+
+    @Test
+    public void testSplitIdRange() {
+        List<GraphReindexService.IdRange> ranges = GraphReindexService.splitIdRange("a", "c");
+        assertEquals(2, ranges.size());
+        assertEquals("a:b", ranges.get(0).getKey());
+        assertEquals("b:c", ranges.get(1).getKey());
+
+        ranges = GraphReindexService.splitIdRange(null, null);
+        assertEquals(63, ranges.size());
+        assertEquals(":0", ranges.get(0).getKey());
+        assertEquals("z:", ranges.get(62).getKey());
+    }
+
+    @Test
+    public void testResumeSkipsCompletedRanges() {
+        doThrow(new RuntimeException("failed")).doNothing()
+                .when(searchIndex).addElements(eq(graph), any(Iterable.class), eq(authorizations));
+        try {
+            graphReindexService.reindex(ElementType.VERTEX, 10, 1, false, "a", "c", authorizations);
+            fail("Expected " + VisalloException.class.getSimpleName());
+        } catch (VisalloException ex) {
+            // expected, range a:b failed
+        }
+        verify(searchIndex, times(2)).addElements(eq(graph), any(Iterable.class), eq(authorizations));
+
+        graphReindexService.reindex(ElementType.VERTEX, 10, 2, false, "c", "e", authorizations);
+        verify(searchIndex, times(2 + 2)).addElements(eq(graph), any(Iterable.class), eq(authorizations));
+
+        graphReindexService.reindex(ElementType.VERTEX, 10, 2, true, "a", "c", authorizations);
+        verify(searchIndex, times(2 + 2 + 1)).addElements(eq(graph), any(Iterable.class), eq(authorizations));
+    }
+
+    @Test
+    public void testCompletedReindexClearsCheckpoints() {
+        graphReindexService.reindex(ElementType.VERTEX, 10, 2, false, "a", "c", authorizations);
+        verify(searchIndex, times(2)).addElements(eq(graph), any(Iterable.class), eq(authorizations));
+        assertEquals(false, metadata.get(GraphReindexService.CHECKPOINT_METADATA_KEY_PREFIX + "VERTEX.a:b"));
+        assertEquals(false, metadata.get(GraphReindexService.CHECKPOINT_METADATA_KEY_PREFIX + "VERTEX.b:c"));
+
+        graphReindexService.reindex(ElementType.VERTEX, 10, 2, true, "a", "c", authorizations);
+        verify(searchIndex, times(2 + 2)).addElements(eq(graph), any(Iterable.class), eq(authorizations));
+    }
+}
@@ -1,10 +1,21 @@
 package org.visallo.core.model.lock;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
 import org.junit.Test;
+import org.visallo.core.exception.VisalloException;
+import org.visallo.core.status.MetricsManager;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
 
 public class SingleJvmLockRepositoryTest extends LockRepositoryTestBase {
     @Test
@@ -25,6 +36,165 @@ public class SingleJvmLockRepositoryTest extends LockRepositoryTestBase {
         startThreadsWaitForMessagesThenStopThreads(threads, messages, 2);
     }
 
+    @Test
+    public void testTimedLockGivesUpWhileTheLockIsHeld() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> lockRepository.lock("lockOne", () -> {
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        holder.setDaemon(true);
+        holder.start();
+        locked.await();
+
+        try {
+            lockRepository.lock("lockOne", 100, TimeUnit.MILLISECONDS, () -> true);
+            fail("Expected " + LockTimeoutException.class.getSimpleName());
+        } catch (LockTimeoutException ex) {
+            assertEquals("lockOne", ex.getLockName());
+        }
+        assertTrue(lockRepository.lock("lockTwo", 100, TimeUnit.MILLISECONDS, () -> true));
+
+        release.countDown();
+        holder.join();
+        assertTrue(lockRepository.lock("lockOne", 1, TimeUnit.SECONDS, () -> true));
+    }
+
+    @Test
+    public void testSharedLocksRunInParallel() throws Exception {
+        int readerCount = 4;
+        CountDownLatch allReading = new CountDownLatch(readerCount);
+        List<Boolean> results = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < readerCount; i++) {
+            Thread reader = new Thread(() -> results.add(lockRepository.lock("lockOne", LockMode.SHARED, () -> {
+                allReading.countDown();
+                // only returns true if every reader holds the lock at the same time
+                return allReading.await(10, TimeUnit.SECONDS);
+            })));
+            reader.setDaemon(true);
+            readers.add(reader);
+            reader.start();
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertEquals(Collections.nCopies(readerCount, true), results);
+    }
+
+    @Test
+    public void testExclusiveLockExcludesSharedLocks() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread reader = new Thread(() -> lockRepository.lock("lockOne", LockMode.SHARED, () -> {
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        reader.setDaemon(true);
+        reader.start();
+        locked.await();
+
+        assertTrue(lockRepository.lock("lockOne", LockMode.SHARED, 100, TimeUnit.MILLISECONDS, () -> true));
+        try {
+            lockRepository.lock("lockOne", LockMode.EXCLUSIVE, 100, TimeUnit.MILLISECONDS, () -> true);
+            fail("Expected " + LockTimeoutException.class.getSimpleName());
+        } catch (LockTimeoutException ex) {
+            assertEquals("lockOne", ex.getLockName());
+        }
+
+        release.countDown();
+        reader.join();
+        assertTrue(lockRepository.lock("lockOne", LockMode.EXCLUSIVE, 1, TimeUnit.SECONDS, () -> true));
+    }
+
+    @Test
+    public void testSharedLocksWaitForExclusiveLock() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread writer = new Thread(() -> lockRepository.lock("lockOne", () -> {
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        writer.setDaemon(true);
+        writer.start();
+        locked.await();
+
+        try {
+            lockRepository.lock("lockOne", LockMode.SHARED, 100, TimeUnit.MILLISECONDS, () -> true);
+            fail("Expected " + LockTimeoutException.class.getSimpleName());
+        } catch (LockTimeoutException ex) {
+            assertEquals("lockOne", ex.getLockName());
+        }
+
+        release.countDown();
+        writer.join();
+        assertTrue(lockRepository.lock("lockOne", LockMode.SHARED, 1, TimeUnit.SECONDS, () -> true));
+    }
+
+    @Test
+    public void testMetricsNamePrefixIsComputedOnce() throws Exception {
+        MetricsManager metricsManager = mock(MetricsManager.class);
+        Counter timeouts = new Counter();
+        when(metricsManager.getNamePrefix(any())).thenReturn("prefix.");
+        when(metricsManager.counter(anyString())).thenAnswer(invocation -> new Counter());
+        when(metricsManager.counter("prefix.WORKSPACE.exclusive.timeouts")).thenReturn(timeouts);
+        when(metricsManager.timer(anyString())).thenAnswer(invocation -> new Timer());
+        lockRepository.setMetricsManager(metricsManager);
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> lockRepository.lock("WORKSPACE_a", () -> lockRepository.lock("lockOne", () -> {
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        })));
+        holder.setDaemon(true);
+        holder.start();
+        locked.await();
+
+        for (String lockName : new String[]{"WORKSPACE_a", "lockOne", "WORKSPACE_a"}) {
+            try {
+                lockRepository.lock(lockName, 10, TimeUnit.MILLISECONDS, () -> true);
+                fail("Expected " + LockTimeoutException.class.getSimpleName());
+            } catch (LockTimeoutException ex) {
+                assertEquals(lockName, ex.getLockName());
+            }
+        }
+        release.countDown();
+        holder.join();
+
+        verify(metricsManager, times(1)).getNamePrefix(lockRepository);
+        assertEquals(2, timeouts.getCount());
+    }
+
+    @Test
+    public void testReentrantLockModes() {
+        assertTrue(lockRepository.lock("lockOne", () -> lockRepository.lock("lockOne", LockMode.SHARED, () -> true)));
+        try {
+            lockRepository.lock("lockOne", LockMode.SHARED, () -> lockRepository.lock("lockOne", () -> true));
+            fail("Expected " + VisalloException.class.getSimpleName());
+        } catch (VisalloException ex) {
+            // a shared holder cannot wait for the exclusive lock
+        }
+        assertTrue(lockRepository.lock("lockOne", 1, TimeUnit.SECONDS, () -> true));
+    }
+
     @Override
     protected LockRepository createLockRepository() {
         return new SingleJvmLockRepository();
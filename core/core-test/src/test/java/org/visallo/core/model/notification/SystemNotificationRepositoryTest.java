@@ -0,0 +1,71 @@
+package org.visallo.core.model.notification;
+
+import com.v5analytics.simpleorm.InMemorySimpleOrmSession;
+import com.v5analytics.simpleorm.SimpleOrmContext;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.visallo.core.model.user.UserRepository;
+import org.visallo.core.user.User;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SystemNotificationRepositoryTest {
+    private SystemNotificationRepository systemNotificationRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private SimpleOrmContext simpleOrmContext;
+
+    @Mock
+    private User user;
+
+    @Before
+    public void before() {
+        systemNotificationRepository = new SystemNotificationRepository(new InMemorySimpleOrmSession(), userRepository);
+        when(userRepository.getSimpleOrmContext(eq(user))).thenReturn(simpleOrmContext);
+    }
+
+    @Test
+    public void testChangesAreVisibleImmediately() {
+        long now = new Date().getTime();
+        assertEquals(0, systemNotificationRepository.getActiveNotifications(user).size());
+
+        SystemNotification notification = systemNotificationRepository.createNotification(
+                SystemNotificationSeverity.INFORMATIONAL,
+                "Current",
+                "Message 1",
+                null,
+                new Date(now - 1000),
+                null,
+                user
+        );
+        systemNotificationRepository.createNotification(
+                SystemNotificationSeverity.INFORMATIONAL,
+                "Future",
+                "Message 2",
+                null,
+                new Date(now + 60 * 1000),
+                null,
+                user
+        );
+
+        List<SystemNotification> activeNotifications = systemNotificationRepository.getActiveNotifications(user);
+        assertEquals(1, activeNotifications.size());
+        assertEquals("Current", activeNotifications.get(0).getTitle());
+        assertEquals(1, systemNotificationRepository.getFutureNotifications(new Date(now + 120 * 1000), user).size());
+
+        systemNotificationRepository.endNotification(notification, user);
+        assertEquals(0, systemNotificationRepository.getActiveNotifications(user).size());
+    }
+}
@@ -17,6 +17,8 @@ import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.eq;
 import static org.powermock.api.mockito.PowerMockito.when;
 
@@ -92,6 +94,43 @@ public class UserNotificationRepositoryTest {
         assertEquals("Current", activeNotifications.get(0).getTitle());
     }
 
+    @Test
+    public void testGetActiveNotificationsMigratesLegacyRowKeys() {
+        Date sentDate = new Date(new Date().getTime() - 1000);
+        UserNotification legacyNotification = new UserNotification("user1", "Legacy", "Message 1", null, null, sentDate, null);
+        String legacyRowKey = Long.toString(sentDate.getTime()) + ":uuid1";
+        legacyNotification.setId(legacyRowKey);
+        simpleOrmSession.save(legacyNotification, "", simpleOrmContext);
+
+        when(userRepository.getSimpleOrmContext(eq(user1))).thenReturn(simpleOrmContext);
+
+        List<UserNotification> activeNotifications = userNotificationRepository.getActiveNotifications(user1)
+                .collect(Collectors.toList());
+        assertEquals(1, activeNotifications.size());
+        assertEquals("Legacy", activeNotifications.get(0).getTitle());
+        assertTrue(activeNotifications.get(0).getId().startsWith("user1:"));
+        assertTrue(activeNotifications.get(0).getId().endsWith(":uuid1"));
+        assertNull(simpleOrmSession.findById(UserNotification.class, legacyRowKey, simpleOrmContext));
+    }
+
+    @Test
+    public void testMarkReadWithLegacyId() {
+        Date sentDate = new Date(new Date().getTime() - 1000);
+        UserNotification legacyNotification = new UserNotification("user1", "Legacy", "Message 1", null, null, sentDate, null);
+        String legacyRowKey = Long.toString(sentDate.getTime()) + ":uuid1";
+        legacyNotification.setId(legacyRowKey);
+        simpleOrmSession.save(legacyNotification, "", simpleOrmContext);
+
+        when(userRepository.getSimpleOrmContext(eq(user1))).thenReturn(simpleOrmContext);
+
+        userNotificationRepository.markRead(new String[]{legacyRowKey}, user1);
+
+        UserNotification notification = userNotificationRepository.getNotification(legacyRowKey, user1);
+        assertTrue(notification.getId().startsWith("user1:"));
+        assertTrue(notification.isMarkedRead());
+        assertEquals(0, userNotificationRepository.getActiveNotifications(user1).count());
+    }
+
     @Test
     public void testGetActiveNotificationsInDateRange() {
         List<UserNotification> activeNotifications;
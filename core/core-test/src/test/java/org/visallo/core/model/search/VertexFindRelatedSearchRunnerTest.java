@@ -45,4 +45,28 @@ public class VertexFindRelatedSearchRunnerTest extends SearchRunnerTestBase {
         VertexFindRelatedSearchResults results = vertexFindRelatedSearchRunner.run(searchOptions, user, authorizations);
         assertEquals(2, size(results.getVertexiumObjects()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSearchCountsVerticesBeyondMaxVerticesToReturn() throws Exception {
+        Vertex v1 = graph.prepareVertex("v1", visibility).save(authorizations);
+        Vertex v2 = graph.prepareVertex("v2", visibility).save(authorizations);
+        Vertex v3 = graph.prepareVertex("v3", visibility).save(authorizations);
+        Vertex v4 = graph.prepareVertex("v4", visibility).save(authorizations);
+        graph.addEdge("e1", v1, v2, "label1", visibility, authorizations);
+        graph.addEdge("e2", v1, v3, "label1", visibility, authorizations);
+        graph.addEdge("e3", v4, v1, "label1", visibility, authorizations);
+        graph.addEdge("e4", v4, v2, "label1", visibility, authorizations);
+        graph.flush();
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("graphVertexIds[]", new String[]{"v1", "v4"});
+        parameters.put("maxVerticesToReturn", 2L);
+        parameters.put("q", "*");
+        parameters.put("filter", new JSONArray());
+        SearchOptions searchOptions = new SearchOptions(parameters, "workspace1");
+
+        VertexFindRelatedSearchResults results = vertexFindRelatedSearchRunner.run(searchOptions, user, authorizations);
+        assertEquals(2, size(results.getVertexiumObjects()));
+        assertEquals(4, results.getCount());
+    }
+}
@@ -6,7 +6,9 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.vertexium.Authorizations;
 import org.vertexium.Graph;
+import org.vertexium.inmemory.InMemoryGraph;
 import org.visallo.core.config.Configuration;
 import org.visallo.core.config.HashMapConfigurationLoader;
 import org.visallo.core.model.notification.UserNotificationRepository;
@@ -20,6 +22,7 @@ import java.util.Map;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.when;
 
@@ -84,4 +87,29 @@ public class UserPropertyAuthorizationRepositoryTest {
         Set<String> privileges = userPropertyAuthorizationRepository.getAuthorizations(user);
         assertEquals(Sets.newHashSet(authorizationsArray), privileges);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGraphAuthorizationsAreSharedUntilTheUserAuthorizationsChange() {
+        Map config = new HashMap();
+        config.put(UserPropertyAuthorizationRepository.CONFIGURATION_PREFIX + ".defaultAuthorizations", "");
+        UserPropertyAuthorizationRepository repository = new UserPropertyAuthorizationRepository(
+                InMemoryGraph.create(),
+                ontologyRepository,
+                new HashMapConfigurationLoader(config).createConfiguration(),
+                userNotificationRepository,
+                workQueueRepository,
+                graphAuthorizationRepository
+        );
+        when(user.getUserId()).thenReturn("user1");
+        when(user.getProperty(eq(UserPropertyAuthorizationRepository.AUTHORIZATIONS_PROPERTY_IRI))).thenReturn("a");
+
+        Authorizations authorizations = repository.getGraphAuthorizations(user, "workspace1");
+        assertSame(authorizations, repository.getGraphAuthorizations(user, "workspace1"));
+        assertEquals(Sets.newHashSet("a", "workspace1"), Sets.newHashSet(authorizations.getAuthorizations()));
+        assertEquals(Sets.newHashSet("a"), Sets.newHashSet(repository.getGraphAuthorizations(user).getAuthorizations()));
+
+        when(user.getProperty(eq(UserPropertyAuthorizationRepository.AUTHORIZATIONS_PROPERTY_IRI))).thenReturn("a,b");
+        authorizations = repository.getGraphAuthorizations(user, "workspace1");
+        assertEquals(Sets.newHashSet("a", "b", "workspace1"), Sets.newHashSet(authorizations.getAuthorizations()));
+    }
+}
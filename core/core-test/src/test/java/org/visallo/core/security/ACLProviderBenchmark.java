@@ -0,0 +1,127 @@
+package org.visallo.core.security;
+
+import org.visallo.core.model.ontology.Concept;
+import org.visallo.core.model.ontology.OntologyPropertyDefinition;
+import org.visallo.core.model.ontology.OntologyRepository;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.user.User;
+import org.visallo.core.util.VisalloInMemoryTestBase;
+import org.visallo.web.clientapi.model.*;
+
+import java.util.Collections;
+
+/**
+ * Measures {@link ACLProvider#appendACL(ClientApiObject, User)} on a synthetic search response of 1,000 vertices
+ * whose concepts have 40 ontology properties. This is not run as part of the build, run the main method to see the
+ * results.
+ */
+public class ACLProviderBenchmark extends VisalloInMemoryTestBase {
+    private static final int ELEMENT_COUNT = 1000;
+    private static final int PARENT_PROPERTY_COUNT = 30;
+    private static final int CHILD_PROPERTY_COUNT = 10;
+    private static final int PROPERTIES_PER_ELEMENT = 10;
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int ITERATIONS = 50;
+    private static final String IRI_PREFIX = "http://visallo.org/benchmark#";
+
+    public static void main(String[] args) {
+        ACLProviderBenchmark benchmark = new ACLProviderBenchmark();
+        benchmark.before();
+        benchmark.run();
+    }
+
+    private void run() {
+        OntologyRepository ontologyRepository = getOntologyRepository();
+        Concept parent = ontologyRepository.getOrCreateConcept(ontologyRepository.getEntityConcept(), IRI_PREFIX + "parent", "Parent", null);
+        Concept child = ontologyRepository.getOrCreateConcept(parent, IRI_PREFIX + "child", "Child", null);
+        createProperties(parent, "parentProperty", PARENT_PROPERTY_COUNT);
+        createProperties(child, "childProperty", CHILD_PROPERTY_COUNT);
+        ontologyRepository.clearCache();
+
+        User user = getUserRepository().findOrAddUser("benchmark", "Benchmark", "benchmark@visallo.com", "password");
+        setPrivileges(user, Privilege.newSet(Privilege.READ, Privilege.EDIT, Privilege.COMMENT));
+        ClientApiElementSearchResponse response = createResponse(child);
+
+        ACLProvider elementIndependent = new AllowAllAclProvider(
+                getGraph(),
+                getUserRepository(),
+                ontologyRepository,
+                getPrivilegeRepository()
+        );
+        ACLProvider elementDependent = new AllowAllAclProvider(
+                getGraph(),
+                getUserRepository(),
+                ontologyRepository,
+                getPrivilegeRepository()
+        ) {
+            @Override
+            protected boolean isElementIndependent() {
+                return false;
+            }
+        };
+
+        run("element independent", elementIndependent, response, user, false);
+        run("element dependent", elementDependent, response, user, false);
+        run("appendACL per element", elementDependent, response, user, true);
+    }
+
+    private void run(String name, ACLProvider aclProvider, ClientApiElementSearchResponse response, User user, boolean perElement) {
+        measure(aclProvider, response, user, perElement, WARMUP_ITERATIONS);
+        long time = measure(aclProvider, response, user, perElement, ITERATIONS);
+        System.out.println(String.format(
+                "%-22s %6d us/response  %5d ns/element",
+                name,
+                time / ITERATIONS / 1000,
+                time / ITERATIONS / ELEMENT_COUNT
+        ));
+    }
+
+    private long measure(ACLProvider aclProvider, ClientApiElementSearchResponse response, User user, boolean perElement, int iterations) {
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            if (perElement) {
+                // a new context per call, so decisions are only shared within one element's properties
+                for (ClientApiVertexiumObject element : response.getElements()) {
+                    aclProvider.appendACL(element, user);
+                }
+            } else {
+                aclProvider.appendACL(response, user);
+            }
+        }
+        return System.nanoTime() - startTime;
+    }
+
+    private void createProperties(Concept concept, String namePrefix, int count) {
+        for (int i = 0; i < count; i++) {
+            OntologyPropertyDefinition propertyDefinition = new OntologyPropertyDefinition(
+                    Collections.singletonList(concept),
+                    IRI_PREFIX + namePrefix + i,
+                    namePrefix + " " + i,
+                    PropertyType.STRING
+            );
+            getOntologyRepository().getOrCreateProperty(propertyDefinition);
+        }
+    }
+
+    private ClientApiElementSearchResponse createResponse(Concept concept) {
+        ClientApiElementSearchResponse response = new ClientApiElementSearchResponse();
+        for (int i = 0; i < ELEMENT_COUNT; i++) {
+            ClientApiVertex vertex = new ClientApiVertex();
+            vertex.setId("v" + i);
+            vertex.getProperties().add(createProperty("", VisalloProperties.CONCEPT_TYPE.getPropertyName(), concept.getIRI()));
+            for (int p = 0; p < PROPERTIES_PER_ELEMENT; p++) {
+                vertex.getProperties().add(createProperty("k" + i, IRI_PREFIX + "parentProperty" + p, "value " + p));
+            }
+            response.getElements().add(vertex);
+        }
+        return response;
+    }
+
+    private static ClientApiProperty createProperty(String key, String name, Object value) {
+        ClientApiProperty property = new ClientApiProperty();
+        property.setKey(key);
+        property.setName(name);
+        property.setValue(value);
+        return property;
+    }
+}
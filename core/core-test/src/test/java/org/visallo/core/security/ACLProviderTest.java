@@ -318,6 +318,32 @@ public class ACLProviderTest {
         assertThat(apiElement.getAcl().isDeleteable(), equalTo(false));
     }
 
+    @Test
+    public void appendAclShouldReuseOntologyDecisionsAcrossElements() {
+        ACLProvider allowAllAclProvider = new AllowAllAclProvider(
+                graph,
+                userRepository,
+                ontologyRepository,
+                privilegeRepository
+        );
+        ClientApiVertexMultipleResponse response = new ClientApiVertexMultipleResponse();
+        response.getVertices().add(ClientApiConverter.toClientApiVertex(vertex, null, null));
+        response.getVertices().add(ClientApiConverter.toClientApiVertex(vertex, null, null));
+
+        allowAllAclProvider.appendACL(response, user1);
+
+        for (ClientApiVertex apiVertex : response.getVertices()) {
+            assertThat(apiVertex.getUpdateable(), equalTo(true));
+            assertThat(apiVertex.getDeleteable(), equalTo(true));
+            assertThat(apiVertex.getAcl().isUpdateable(), equalTo(true));
+            assertThat(apiVertex.getAcl().getPropertyAcls().size(), equalTo(0));
+            for (ClientApiProperty property : apiVertex.getProperties()) {
+                assertThat(property.isUpdateable(), equalTo(true));
+            }
+        }
+        verify(ontologyRepository, times(1)).getConceptByIRI("parent");
+    }
+
     private void appendAclShouldPopulateClientApiElementAcl(Element element) {
         ClientApiElement apiElement = null;
         if (element instanceof Vertex) {
@@ -0,0 +1,107 @@
+package org.visallo.core.util;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+import org.junit.Before;
+import org.junit.Test;
+import org.visallo.core.config.HashMapConfigurationLoader;
+import org.visallo.core.exception.VisalloException;
+import org.visallo.core.status.MetricsManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class ProcessRunnerTest {
+    private ProcessRunner processRunner;
+
+    @Before
+    public void before() {
+        Map<String, String> config = new HashMap<>();
+        config.put(ProcessRunner.CONFIG_MAX_CONCURRENT_PROCESSES + ".sh", "1");
+        processRunner = new ProcessRunner();
+        processRunner.setConfiguration(new HashMapConfigurationLoader(config).createConfiguration());
+    }
+
+    @Test
+    public void testExecuteToString() {
+        assertEquals("hello\n", processRunner.executeToString("echo", new String[]{"hello"}));
+    }
+
+    @Test
+    public void testExecuteAsync() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Process process = processRunner.executeAsync("echo", new String[]{"hello"}, out, "test: ").get();
+        assertEquals(0, process.exitValue());
+        assertEquals("hello\n", out.toString("UTF-8"));
+    }
+
+    @Test
+    public void testNonZeroReturnCode() throws Exception {
+        try {
+            processRunner.executeAsync("false", new String[0], null, "test: ").get();
+            fail("Expected " + ExecutionException.class.getSimpleName());
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof VisalloException);
+        }
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        long startTime = System.currentTimeMillis();
+        try {
+            processRunner.executeAsync(null, "sleep", new String[]{"10"}, null, "test: ", 100, TimeUnit.MILLISECONDS).get();
+            fail("Expected " + ExecutionException.class.getSimpleName());
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof VisalloException);
+        }
+        assertTrue(System.currentTimeMillis() - startTime < 5000);
+    }
+
+    @Test
+    public void testMetricsArePerProgram() throws Exception {
+        MetricsManager metricsManager = mock(MetricsManager.class);
+        Timer timer = new Timer();
+        when(metricsManager.getNamePrefix(any())).thenReturn("prefix.");
+        when(metricsManager.timer(anyString())).thenReturn(timer);
+        when(metricsManager.counter(anyString())).thenAnswer(invocation -> new Counter());
+        processRunner.setMetricsManager(metricsManager);
+
+        for (int i = 0; i < 3; i++) {
+            processRunner.executeToString("echo", new String[]{"hello"});
+        }
+
+        verify(metricsManager, times(1)).getNamePrefix(processRunner);
+        verify(metricsManager, times(1)).timer("prefix.echo.runtime");
+        verify(metricsManager, times(1)).counter("prefix.echo.exitCode.0");
+        assertEquals(6, timer.getCount());
+    }
+
+    @Test
+    public void testMaxConcurrentProcesses() throws Exception {
+        File dir = Files.createTempDirectory("processRunnerTest").toFile();
+        File lockDir = new File(dir, "lock");
+        // mkdir fails if another process holds the directory, so this only succeeds if the processes run one at a time
+        String script = "mkdir " + lockDir.getAbsolutePath() + " && sleep 0.1 && rmdir " + lockDir.getAbsolutePath();
+        List<CompletableFuture<Process>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(processRunner.executeAsync("sh", new String[]{"-c", script}, null, "test: "));
+        }
+        for (CompletableFuture<Process> future : futures) {
+            assertEquals(0, future.get().exitValue());
+        }
+        assertTrue(dir.delete());
+    }
+}
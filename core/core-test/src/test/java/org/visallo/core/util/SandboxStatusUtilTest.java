@@ -0,0 +1,83 @@
+package org.visallo.core.util;
+
+import org.junit.Test;
+import org.vertexium.Metadata;
+import org.vertexium.Property;
+import org.vertexium.Visibility;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.web.clientapi.model.SandboxStatus;
+import org.visallo.web.clientapi.model.VisibilityJson;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SandboxStatusUtilTest {
+    private static final String WORKSPACE_ID = "WORKSPACE_1";
+
+    @Test
+    public void testGetPropertySandboxStatuses() {
+        List<Property> properties = Arrays.asList(
+                createProperty("k1", "name1", null),
+                createProperty("k1", "name1", WORKSPACE_ID),
+                createProperty("k2", "name1", WORKSPACE_ID),
+                createProperty("k1", "name2", WORKSPACE_ID),
+                createProperty("k1", "name2", "WORKSPACE_2"),
+                createProperty("k3", "name3", WORKSPACE_ID)
+        );
+
+        SandboxStatus[] sandboxStatuses = SandboxStatusUtil.getPropertySandboxStatuses(properties, WORKSPACE_ID);
+        assertArrayEquals(new SandboxStatus[]{
+                SandboxStatus.PUBLIC,
+                SandboxStatus.PUBLIC_CHANGED,
+                SandboxStatus.PRIVATE,
+                SandboxStatus.PUBLIC_CHANGED,
+                SandboxStatus.PUBLIC,
+                SandboxStatus.PRIVATE
+        }, sandboxStatuses);
+    }
+
+    @Test
+    public void testGetPropertySandboxStatusesManyValues() {
+        List<Property> properties = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            properties.add(createProperty("k" + (i % 10), "name", i < 10 ? null : WORKSPACE_ID));
+        }
+
+        SandboxStatus[] sandboxStatuses = SandboxStatusUtil.getPropertySandboxStatuses(properties, WORKSPACE_ID);
+        for (int i = 0; i < sandboxStatuses.length; i++) {
+            assertSame(i < 10 ? SandboxStatus.PUBLIC : SandboxStatus.PUBLIC_CHANGED, sandboxStatuses[i]);
+        }
+    }
+
+    @Test
+    public void testVisibilityJsonCacheReturnsSharedInstance() {
+        VisibilityJson visibilityJson = new VisibilityJson("a");
+        visibilityJson.addWorkspace(WORKSPACE_ID);
+        String visibilityJsonString = ClientApiConverter.clientApiToString(visibilityJson);
+
+        VisibilityJson cached = VisibilityJsonCache.get(visibilityJsonString);
+        assertSame(cached, VisibilityJsonCache.get(new String(visibilityJsonString)));
+        assertSame(SandboxStatus.PRIVATE, SandboxStatus.getFromVisibilityJsonString(cached, WORKSPACE_ID));
+    }
+
+    private static Property createProperty(String key, String name, String workspaceId) {
+        Metadata metadata = new Metadata();
+        VisibilityJson visibilityJson = new VisibilityJson("");
+        if (workspaceId != null) {
+            visibilityJson.addWorkspace(workspaceId);
+        }
+        VisalloProperties.VISIBILITY_JSON_METADATA.setMetadata(metadata, visibilityJson, new Visibility(""));
+
+        Property property = mock(Property.class);
+        when(property.getKey()).thenReturn(key);
+        when(property.getName()).thenReturn(name);
+        when(property.getMetadata()).thenReturn(metadata);
+        return property;
+    }
+}
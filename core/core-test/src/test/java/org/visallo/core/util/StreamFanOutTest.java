@@ -0,0 +1,104 @@
+package org.visallo.core.util;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class StreamFanOutTest {
+    @Test
+    public void testReadsInMemory() throws Exception {
+        byte[] data = createMockData(100);
+        try (StreamFanOut fanOut = new StreamFanOut(new ByteArrayInputStream(data), new String[]{"a", "b"}, 1000, ".data")) {
+            fanOut.fill();
+            assertNull(fanOut.getFile());
+
+            InputStream[] readers = fanOut.getReaders();
+            assertEquals(data[0] & 0xff, readers[0].read());
+            byte[] rest = IOUtils.toByteArray(readers[0]);
+            assertEquals(data.length - 1, rest.length);
+            assertArrayEquals(data, IOUtils.toByteArray(readers[1]));
+
+            readers[0].close();
+            readers[1].close();
+            fanOut.awaitReadersClosed();
+        }
+    }
+
+    @Test
+    public void testReadsSpilledToFile() throws Exception {
+        byte[] data = createMockData(10000);
+        File file;
+        try (StreamFanOut fanOut = new StreamFanOut(new ByteArrayInputStream(data), new String[]{"a", "b"}, 100, ".data")) {
+            fanOut.fill();
+            file = fanOut.getFile();
+            assertNotNull(file);
+            assertArrayEquals(data, FileUtils.readFileToByteArray(file));
+            assertArrayEquals(data, IOUtils.toByteArray(fanOut.getReaders()[0]));
+            assertArrayEquals(data, IOUtils.toByteArray(fanOut.getReaders()[1]));
+        }
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void testFillToFile() throws Exception {
+        byte[] data = createMockData(100);
+        try (StreamFanOut fanOut = new StreamFanOut(new ByteArrayInputStream(data), new String[]{"a"}, 1000, ".data")) {
+            File file = fanOut.fillToFile();
+            assertArrayEquals(data, FileUtils.readFileToByteArray(file));
+            assertArrayEquals(data, IOUtils.toByteArray(fanOut.getReaders()[0]));
+        }
+    }
+
+    @Test
+    public void testConcurrentReadersWhileFilling() throws Exception {
+        byte[] data = createMockData(3 * 1024 * 1024);
+        int readerCount = 4;
+        String[] names = new String[readerCount];
+        for (int i = 0; i < readerCount; i++) {
+            names[i] = "reader" + i;
+        }
+        try (StreamFanOut fanOut = new StreamFanOut(new ByteArrayInputStream(data), names, 1024, ".data")) {
+            List<byte[]> results = new ArrayList<>();
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < readerCount; i++) {
+                InputStream reader = fanOut.getReaders()[i];
+                results.add(null);
+                int index = i;
+                Thread thread = new Thread(() -> {
+                    try {
+                        results.set(index, IOUtils.toByteArray(reader));
+                        reader.close();
+                    } catch (Exception ex) {
+                        throw new RuntimeException(ex);
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+
+            fanOut.fill();
+            fanOut.awaitReadersClosed();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            for (byte[] result : results) {
+                assertArrayEquals(data, result);
+            }
+        }
+    }
+
+    private byte[] createMockData(int len) {
+        byte[] data = new byte[len];
+        new Random(len).nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,127 @@
+package org.visallo.model.queue.inmemory;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.vertexium.Graph;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.exception.VisalloException;
+import org.visallo.core.ingest.WorkerSpout;
+import org.visallo.core.ingest.WorkerTuple;
+import org.visallo.core.model.WorkQueueNames;
+import org.visallo.core.model.workQueue.Priority;
+import org.visallo.core.status.model.QueueStatus;
+import org.visallo.core.status.model.Status;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class InMemoryWorkQueueRepositoryTest {
+    private InMemoryWorkQueueRepository workQueueRepository;
+    private String queueName;
+
+    @Mock
+    private Graph graph;
+
+    @Mock
+    private WorkQueueNames workQueueNames;
+
+    @Mock
+    private Configuration configuration;
+
+    @Before
+    public void before() {
+        when(configuration.getInt(InMemoryWorkQueueRepository.CAPACITY, InMemoryWorkQueueRepository.DEFAULT_CAPACITY)).thenReturn(2);
+        when(configuration.getLong(InMemoryWorkQueueRepository.PUSH_TIMEOUT_MS, InMemoryWorkQueueRepository.DEFAULT_PUSH_TIMEOUT_MS)).thenReturn(10L);
+        when(configuration.getLong(InMemoryWorkQueueRepository.NEXT_TUPLE_TIMEOUT_MS, InMemoryWorkQueueRepository.DEFAULT_NEXT_TUPLE_TIMEOUT_MS)).thenReturn(10L);
+        workQueueRepository = new InMemoryWorkQueueRepository(graph, workQueueNames, configuration);
+        queueName = "test-" + UUID.randomUUID().toString();
+    }
+
+    @Test
+    public void testPriorityOrder() throws Exception {
+        WorkerSpout spout = workQueueRepository.createWorkerSpout(queueName);
+        workQueueRepository.pushOnQueue(queueName, new byte[]{1}, Priority.LOW);
+        workQueueRepository.pushOnQueue(queueName, new byte[]{2}, Priority.HIGH);
+
+        List<byte[]> queue = InMemoryWorkQueueRepository.getQueue(queueName);
+        assertEquals(2, queue.size());
+        assertArrayEquals(new byte[]{2}, queue.get(0));
+
+        assertArrayEquals(new byte[]{2}, spout.nextTuple().getData());
+        workQueueRepository.pushOnQueue(queueName, new byte[]{3}, Priority.NORMAL);
+        assertArrayEquals(new byte[]{3}, spout.nextTuple().getData());
+        assertArrayEquals(new byte[]{1}, spout.nextTuple().getData());
+        assertNull(spout.nextTuple());
+    }
+
+    @Test
+    public void testSamePriorityIsFifo() throws Exception {
+        WorkerSpout spout = workQueueRepository.createWorkerSpout(queueName);
+        workQueueRepository.pushOnQueue(queueName, new byte[]{1}, Priority.HIGH);
+        workQueueRepository.pushOnQueue(queueName, new byte[]{2}, Priority.HIGH);
+
+        assertArrayEquals(new byte[]{1}, spout.nextTuple().getData());
+        assertArrayEquals(new byte[]{2}, spout.nextTuple().getData());
+    }
+
+    @Test
+    public void testNextTupleWakesOnPush() throws Exception {
+        WorkerSpout spout = workQueueRepository.createWorkerSpout(queueName);
+        Thread producer = new Thread(() -> {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException ex) {
+                throw new RuntimeException(ex);
+            }
+            workQueueRepository.pushOnQueue(queueName, new byte[]{1}, Priority.NORMAL);
+        });
+        producer.start();
+        WorkerTuple tuple = null;
+        for (int i = 0; i < 100 && tuple == null; i++) {
+            tuple = spout.nextTuple();
+        }
+        producer.join();
+        assertNotNull(tuple);
+        assertArrayEquals(new byte[]{1}, tuple.getData());
+    }
+
+    @Test
+    public void testCapacity() throws Exception {
+        WorkerSpout spout = workQueueRepository.createWorkerSpout(queueName);
+        workQueueRepository.pushOnQueue(queueName, new byte[]{1}, Priority.NORMAL);
+        workQueueRepository.pushOnQueue(queueName, new byte[]{2}, Priority.NORMAL);
+        try {
+            workQueueRepository.pushOnQueue(queueName, new byte[]{3}, Priority.NORMAL);
+            fail("expected the push to time out");
+        } catch (VisalloException ex) {
+            // expected
+        }
+
+        spout.nextTuple();
+        workQueueRepository.pushOnQueue(queueName, new byte[]{3}, Priority.NORMAL);
+        assertEquals(2, InMemoryWorkQueueRepository.getQueue(queueName).size());
+    }
+
+    @Test
+    public void testQueuesStatus() {
+        workQueueRepository.pushOnQueue(queueName, new byte[]{1}, Priority.HIGH);
+        workQueueRepository.pushOnQueue(queueName, new byte[]{2}, Priority.LOW);
+
+        QueueStatus status = (QueueStatus) workQueueRepository.getQueuesStatus().get(queueName);
+        assertEquals(2, getCount(status, "messages"));
+        assertEquals(1, getCount(status, "messages.high"));
+        assertEquals(0, getCount(status, "messages.normal"));
+        assertEquals(1, getCount(status, "messages.low"));
+    }
+
+    private long getCount(QueueStatus status, String name) {
+        return ((Status.CounterMetric) status.getMetrics().get(name)).getCount();
+    }
+}
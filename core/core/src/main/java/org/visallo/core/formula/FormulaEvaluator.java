@@ -2,11 +2,7 @@ package org.visallo.core.formula;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.google.inject.Inject;
-import org.apache.commons.io.IOUtils;
-import org.mozilla.javascript.Context;
-import org.mozilla.javascript.Function;
-import org.mozilla.javascript.Scriptable;
-import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.*;
 import org.vertexium.Authorizations;
 import org.vertexium.VertexiumObject;
 import org.visallo.core.config.Configuration;
@@ -20,16 +16,12 @@ import org.visallo.web.clientapi.model.ClientApiOntology;
 import org.visallo.web.clientapi.model.ClientApiVertexiumObject;
 import org.visallo.web.clientapi.util.ObjectMapperFactory;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.HashMap;
-import java.util.Locale;
-import java.util.Map;
-import java.util.ResourceBundle;
+import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Evaluates JavaScript formulas (title, subtitle, etc) using Java's Rhino JavaScript interpreter.
@@ -37,14 +29,18 @@ import java.util.concurrent.Executors;
 public class FormulaEvaluator {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(FormulaEvaluator.class);
     public static final String CONFIGURATION_PARAMETER_MAX_THREADS = FormulaEvaluator.class.getName() + ".max.threads";
-    public static final int CONFIGURATION_DEFAULT_MAX_THREADS = 1;
+    public static final String CONFIGURATION_PARAMETER_OPTIMIZATION_LEVEL = FormulaEvaluator.class.getName() + ".optimizationLevel";
+    public static final int CONFIGURATION_DEFAULT_MAX_THREADS = Runtime.getRuntime().availableProcessors();
+    public static final int CONFIGURATION_DEFAULT_OPTIMIZATION_LEVEL = 9;
     private Configuration configuration;
     private OntologyRepository ontologyRepository;
     private ExecutorService executorService;
+    private final int optimizationLevel;
+    private volatile OntologyJson ontologyJson;
 
-    private static final ThreadLocal<Map<String, Scriptable>> threadLocalScope = new ThreadLocal<Map<String, Scriptable>>() {
+    private static final ThreadLocal<Map<String, ScopeEntry>> threadLocalScope = new ThreadLocal<Map<String, ScopeEntry>>() {
         @Override
-        protected Map<String, Scriptable> initialValue() {
+        protected Map<String, ScopeEntry> initialValue() {
             return new HashMap<>();
         }
     };
@@ -58,6 +54,10 @@ public class FormulaEvaluator {
                 CONFIGURATION_PARAMETER_MAX_THREADS,
                 CONFIGURATION_DEFAULT_MAX_THREADS
         ));
+        optimizationLevel = configuration.getInt(
+                CONFIGURATION_PARAMETER_OPTIMIZATION_LEVEL,
+                CONFIGURATION_DEFAULT_OPTIMIZATION_LEVEL
+        );
     }
 
     public void close() {
@@ -68,6 +68,33 @@ public class FormulaEvaluator {
         return evaluateFormula("Title", vertexiumObject, null, null, userContext, authorizations);
     }
 
+    /**
+     * Evaluates the titles of many objects at once. All evaluations are queued on the evaluator threads before any
+     * result is awaited, so they run concurrently. Titles are returned in the order of the objects.
+     */
+    public List<String> evaluateTitleFormulas(
+            List<? extends VertexiumObject> vertexiumObjects,
+            UserContext userContext,
+            Authorizations authorizations
+    ) {
+        List<Future<String>> futures = new ArrayList<>(vertexiumObjects.size());
+        for (VertexiumObject vertexiumObject : vertexiumObjects) {
+            futures.add(executorService.submit(new FormulaEvaluatorCallable(
+                    "Title",
+                    vertexiumObject,
+                    null,
+                    null,
+                    userContext,
+                    authorizations
+            )));
+        }
+        List<String> titles = new ArrayList<>(futures.size());
+        for (Future<String> future : futures) {
+            titles.add(getResult("Title", future));
+        }
+        return titles;
+    }
+
     public String evaluateTimeFormula(VertexiumObject vertexiumObject, UserContext userContext, Authorizations authorizations) {
         return evaluateFormula("Time", vertexiumObject, null, null, userContext, authorizations);
     }
@@ -103,8 +130,12 @@ public class FormulaEvaluator {
                 authorizations
         );
 
+        return getResult(type, executorService.submit(evaluationCallable));
+    }
+
+    private String getResult(String type, Future<String> future) {
         try {
-            return executorService.submit(evaluationCallable).get();
+            return future.get();
         } catch (InterruptedException e) {
             LOGGER.error(type + " evaluation interrupted", e);
         } catch (ExecutionException e) {
@@ -114,24 +145,27 @@ public class FormulaEvaluator {
         return "Unable to Evaluate " + type;
     }
 
+    /**
+     * Returns this thread's scope for the user's locale and time zone. Scopes are built once per thread and rebuilt
+     * when the ontology changes, the JavaScript formatters cache the ontology they were first given.
+     */
     public Scriptable getScriptable(UserContext userContext) {
-        Map<String, Scriptable> scopes = threadLocalScope.get();
+        Map<String, ScopeEntry> scopes = threadLocalScope.get();
 
         String mapKey = userContext.locale.toString() + userContext.timeZone;
-        Scriptable scope = scopes.get(mapKey);
-        if (scope == null) {
-            scope = setupContext(getOntologyJson(), getConfigurationJson(userContext.locale), userContext.timeZone);
-            scopes.put(mapKey, scope);
-        } else {
-            scope.put("ONTOLOGY_JSON", scope, Context.toObject(getOntologyJson(), scope));
+        String ontologyJson = getOntologyJson();
+        ScopeEntry entry = scopes.get(mapKey);
+        // the ontology json is cached, so this is usually a reference comparison
+        if (entry == null || !entry.ontologyJson.equals(ontologyJson)) {
+            Scriptable scope = setupContext(ontologyJson, getConfigurationJson(userContext.locale), userContext.timeZone);
+            entry = new ScopeEntry(scope, ontologyJson);
+            scopes.put(mapKey, entry);
         }
-        return scope;
+        return entry.scope;
     }
 
     private Scriptable setupContext(String ontologyJson, String configurationJson, String timeZone) {
-        Context context = Context.enter();
-        context.setLanguageVersion(Context.VERSION_1_8);
-        context.setOptimizationLevel(-1);
+        Context context = enterContext();
 
         RequireJsSupport browserSupport = new RequireJsSupport();
 
@@ -156,6 +190,19 @@ public class FormulaEvaluator {
         return scope;
     }
 
+    /**
+     * The executor threads enter a context the first time they evaluate a formula and keep it.
+     */
+    private Context enterContext() {
+        Context context = Context.getCurrentContext();
+        if (context == null) {
+            context = Context.enter();
+            context.setLanguageVersion(Context.VERSION_1_8);
+            context.setOptimizationLevel(optimizationLevel);
+        }
+        return context;
+    }
+
     private void loadJavaScript(ScriptableObject scope) {
         evaluateFile(scope, "libs/underscore.js");
         evaluateFile(scope, "libs/r.js");
@@ -163,13 +210,21 @@ public class FormulaEvaluator {
         evaluateFile(scope, "loader.js");
     }
 
+    /**
+     * Returns the ontology as JSON. The JSON is cached until the repository returns a different ontology object.
+     */
     protected String getOntologyJson() {
-        ClientApiOntology result = ontologyRepository.getClientApiObject();
-        try {
-            return ObjectMapperFactory.getInstance().writeValueAsString(result);
-        } catch (JsonProcessingException ex) {
-            throw new VisalloException("Could not evaluate JSON: " + result, ex);
+        ClientApiOntology ontology = ontologyRepository.getClientApiObject();
+        OntologyJson cached = ontologyJson;
+        if (cached == null || cached.ontology != ontology) {
+            try {
+                cached = new OntologyJson(ontology, ObjectMapperFactory.getInstance().writeValueAsString(ontology));
+            } catch (JsonProcessingException ex) {
+                throw new VisalloException("Could not evaluate JSON: " + ontology, ex);
+            }
+            ontologyJson = cached;
         }
+        return cached.json;
     }
 
     protected String getConfigurationJson(Locale locale) {
@@ -178,20 +233,51 @@ public class FormulaEvaluator {
 
     private void evaluateFile(ScriptableObject scope, String filename) {
         LOGGER.debug("evaluating file: %s", filename);
-        try (InputStream is = FormulaEvaluator.class.getResourceAsStream(filename)) {
-            if (is == null) {
-                throw new VisalloException("File not found " + filename);
-            }
-
-            Context.getCurrentContext().evaluateString(scope, IOUtils.toString(is), filename, 0, null);
-        } catch (IOException ex) {
-            throw new VisalloException("Could not read file: " + filename, ex);
-        }
+        Context context = Context.getCurrentContext();
+        RequireJsSupport.getScript(context, FormulaEvaluator.class, filename).exec(context, scope);
     }
 
-    protected String toJson(VertexiumObject vertexiumObject, String workspaceId, Authorizations authorizations) {
+    /**
+     * Returns the element passed to the formula functions, a JSON string or a JavaScript object.
+     */
+    protected Object toJavaScript(
+            VertexiumObject vertexiumObject,
+            String workspaceId,
+            Authorizations authorizations,
+            Context context,
+            Scriptable scope
+    ) {
         ClientApiVertexiumObject v = ClientApiConverter.toClientApi(vertexiumObject, workspaceId, authorizations);
-        return v.toString();
+        Object value = ObjectMapperFactory.getInstance().convertValue(v, Object.class);
+        return toNative(value, context, scope);
+    }
+
+    private static Object toNative(Object value, Context context, Scriptable scope) {
+        if (value instanceof Map) {
+            Scriptable result = context.newObject(scope);
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                ScriptableObject.putProperty(result, entry.getKey().toString(), toNative(entry.getValue(), context, scope));
+            }
+            return result;
+        }
+        if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            Object[] elements = new Object[list.size()];
+            for (int i = 0; i < elements.length; i++) {
+                elements[i] = toNative(list.get(i), context, scope);
+            }
+            return context.newArray(scope, elements);
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof byte[]) {
+            return Base64.getEncoder().encodeToString((byte[]) value);
+        }
+        if (value == null || value instanceof String || value instanceof Boolean) {
+            return value;
+        }
+        return value.toString();
     }
 
     public static class UserContext {
@@ -252,17 +338,38 @@ public class FormulaEvaluator {
         public String call() throws Exception {
             Scriptable scope = getScriptable(userContext);
             Context context = Context.getCurrentContext();
-            String json = toJson(vertexiumObject, userContext.getWorkspaceId(), authorizations);
-            Function function = (Function) scope.get("evaluate" + fieldName + "FormulaJson", scope);
+            Object element = toJavaScript(vertexiumObject, userContext.getWorkspaceId(), authorizations, context, scope);
+            String functionName = "evaluate" + fieldName + (element instanceof String ? "FormulaJson" : "Formula");
+            Function function = (Function) scope.get(functionName, scope);
             Object result = function.call(
                     context,
                     scope,
                     scope,
-                    new Object[]{json, propertyKey, propertyName}
+                    new Object[]{element, propertyKey, propertyName}
             );
 
             String strResult = (String) context.jsToJava(result, String.class);
             return strResult;
         }
     }
+
+    private static class ScopeEntry {
+        private final Scriptable scope;
+        private final String ontologyJson;
+
+        private ScopeEntry(Scriptable scope, String ontologyJson) {
+            this.scope = scope;
+            this.ontologyJson = ontologyJson;
+        }
+    }
+
+    private static class OntologyJson {
+        private final ClientApiOntology ontology;
+        private final String json;
+
+        private OntologyJson(ClientApiOntology ontology, String json) {
+            this.ontology = ontology;
+            this.json = json;
+        }
+    }
 }
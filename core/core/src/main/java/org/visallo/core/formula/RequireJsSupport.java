@@ -1,10 +1,7 @@
 package org.visallo.core.formula;
 
 import org.apache.commons.io.IOUtils;
-import org.mozilla.javascript.Context;
-import org.mozilla.javascript.Function;
-import org.mozilla.javascript.Scriptable;
-import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.*;
 import org.visallo.core.exception.VisalloException;
 import org.visallo.core.util.VisalloLogger;
 import org.visallo.core.util.VisalloLoggerFactory;
@@ -12,11 +9,14 @@ import org.visallo.core.util.VisalloLoggerFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @SuppressWarnings("unused")
 public class RequireJsSupport extends ScriptableObject {
     private static final long serialVersionUID = 1L;
     private static VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(RequireJsSupport.class);
+    private static final Map<String, Script> scripts = new ConcurrentHashMap<>();
 
     @Override
     public String getClassName() {
@@ -57,13 +57,44 @@ public class RequireJsSupport extends ScriptableObject {
     }
 
     private void processSource(Context cx, String filename) throws IOException {
-        String fileContents = getFileContents(filename);
-        cx.evaluateString(this, fileContents, filename, 1, null);
+        getScript(cx, RequireJsSupport.class, filename).exec(cx, this);
+    }
+
+    /**
+     * Returns the compiled script for a resource. Scripts are compiled once per optimization level and shared by
+     * all scopes and threads.
+     */
+    static Script getScript(Context cx, Class<?> resourceClass, String filename) {
+        String key = cx.getOptimizationLevel() + ":" + resourceClass.getName() + ":" + filename;
+        return scripts.computeIfAbsent(key, k -> compile(cx, filename, getFileContents(resourceClass, filename)));
+    }
+
+    private static Script compile(Context cx, String filename, String fileContents) {
+        int optimizationLevel = cx.getOptimizationLevel();
+        try {
+            return cx.compileString(fileContents, filename, 1, null);
+        } catch (EvaluatorException ex) {
+            if (optimizationLevel < 0) {
+                throw ex;
+            }
+            // the class file format limits method size, some libraries only run interpreted
+            LOGGER.debug("could not compile %s, falling back to the interpreter: %s", filename, ex.getMessage());
+            cx.setOptimizationLevel(-1);
+            try {
+                return cx.compileString(fileContents, filename, 1, null);
+            } finally {
+                cx.setOptimizationLevel(optimizationLevel);
+            }
+        }
     }
 
     private String getFileContents(String file) {
+        return getFileContents(RequireJsSupport.class, file);
+    }
+
+    private static String getFileContents(Class<?> resourceClass, String file) {
         LOGGER.debug("reading file: %s", file);
-        try (InputStream is = RequireJsSupport.class.getResourceAsStream(file)) {
+        try (InputStream is = resourceClass.getResourceAsStream(file)) {
             if (is == null) {
                 throw new VisalloException("File not found: " + file);
             }
@@ -14,6 +14,7 @@ import org.visallo.core.model.properties.types.PropertyMetadata;
 import org.visallo.core.model.properties.types.VisalloProperty;
 import org.visallo.core.model.properties.types.VisalloPropertyUpdate;
 import org.visallo.core.model.workQueue.Priority;
+import org.visallo.core.model.workQueue.WorkQueueBatch;
 import org.visallo.core.model.workQueue.WorkQueueRepository;
 import org.visallo.core.model.workspace.Workspace;
 import org.visallo.core.model.workspace.WorkspaceRepository;
@@ -88,7 +89,7 @@ public class FileImport {
         int totalFileCount = files.length;
         int fileCount = 0;
         int importedFileCount = 0;
-        try {
+        try (WorkQueueBatch workQueueBatch = workQueueRepository.createBatch()) {
             for (File f : files) {
                 if (f.getName().startsWith(".") || f.length() == 0) {
                     continue;
@@ -101,7 +102,6 @@ public class FileImport {
                 try {
                     ClientApiImportProperty[] properties = null;
                     boolean findExistingByFileHash = true;
-                    boolean addToWorkspace = false;
                     importFile(
                             f,
                             queueDuplicates,
@@ -109,11 +109,11 @@ public class FileImport {
                             properties,
                             visibilitySource,
                             workspace,
-                            addToWorkspace,
                             findExistingByFileHash,
                             priority,
                             user,
-                            authorizations
+                            authorizations,
+                            workQueueBatch
                     );
                     importedFileCount++;
                 } catch (Exception ex) {
@@ -204,6 +204,36 @@ public class FileImport {
         Priority priority,
         User user,
         Authorizations authorizations
+    ) throws Exception {
+        try (WorkQueueBatch workQueueBatch = workQueueRepository.createBatch()) {
+            return importFile(
+                    f,
+                    queueDuplicates,
+                    conceptId,
+                    properties,
+                    visibilitySource,
+                    workspace,
+                    findExistingByFileHash,
+                    priority,
+                    user,
+                    authorizations,
+                    workQueueBatch
+            );
+        }
+    }
+
+    private Vertex importFile(
+            File f,
+            boolean queueDuplicates,
+            String conceptId,
+            ClientApiImportProperty[] properties,
+            String visibilitySource,
+            Workspace workspace,
+            boolean findExistingByFileHash,
+            Priority priority,
+            User user,
+            Authorizations authorizations,
+            WorkQueueBatch workQueueBatch
     ) throws Exception {
         Vertex vertex;
         ensureInitialized();
@@ -226,8 +256,8 @@ public class FileImport {
                                 vertex.getId(),
                                 user
                         );
-                        workQueueRepository.broadcastElement(vertex, workspace.getWorkspaceId());
-                        workQueueRepository.pushGraphPropertyQueue(
+                        workQueueBatch.broadcastElement(vertex, workspace.getWorkspaceId());
+                        workQueueBatch.pushGraphPropertyQueue(
                                 vertex,
                                 MULTI_VALUE_KEY,
                                 VisalloProperties.RAW.getPropertyName(),
@@ -236,7 +266,7 @@ public class FileImport {
                                 priority
                         );
                     } else {
-                        workQueueRepository.pushGraphPropertyQueue(
+                        workQueueBatch.pushGraphPropertyQueue(
                                 vertex,
                                 MULTI_VALUE_KEY,
                                 VisalloProperties.RAW.getPropertyName(),
@@ -342,8 +372,8 @@ public class FileImport {
 
             LOGGER.debug("File %s imported. vertex id: %s", f.getAbsolutePath(), vertex.getId());
             LOGGER.debug("pushing %s on to %s queue", vertex.getId(), workQueueNames.getGraphPropertyQueueName());
-            this.workQueueRepository.broadcastElement(vertex, workspaceId);
-            this.workQueueRepository.pushGraphVisalloPropertyQueue(
+            workQueueBatch.broadcastElement(vertex, workspaceId);
+            workQueueBatch.pushGraphVisalloPropertyQueue(
                     vertex,
                     changedProperties,
                     workspace == null ? null : workspace.getWorkspaceId(),
@@ -389,25 +419,28 @@ public class FileImport {
         ensureInitialized();
 
         List<Vertex> vertices = new ArrayList<>();
-        for (FileOptions file : files) {
-            if (isSupportingFile(file.getFile())) {
-                LOGGER.debug("Skipping file: %s (supporting file)", file.getFile().getAbsolutePath());
-                continue;
+        try (WorkQueueBatch workQueueBatch = workQueueRepository.createBatch()) {
+            for (FileOptions file : files) {
+                if (isSupportingFile(file.getFile())) {
+                    LOGGER.debug("Skipping file: %s (supporting file)", file.getFile().getAbsolutePath());
+                    continue;
+                }
+                LOGGER.debug("Processing file: %s", file.getFile().getAbsolutePath());
+                Vertex vertex = importFile(
+                        file.getFile(),
+                        true,
+                        file.getConceptId(),
+                        file.getProperties(),
+                        file.getVisibilitySource(),
+                        workspace,
+                        findExistingByFileHash,
+                        priority,
+                        user,
+                        authorizations,
+                        workQueueBatch
+                );
+                vertices.add(vertex);
             }
-            LOGGER.debug("Processing file: %s", file.getFile().getAbsolutePath());
-            Vertex vertex = importFile(
-                    file.getFile(),
-                    true,
-                    file.getConceptId(),
-                    file.getProperties(),
-                    file.getVisibilitySource(),
-                    workspace,
-                    findExistingByFileHash,
-                    priority,
-                    user,
-                    authorizations
-            );
-            vertices.add(vertex);
         }
         return vertices;
     }
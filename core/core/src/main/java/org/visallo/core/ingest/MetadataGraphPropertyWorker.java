@@ -1,7 +1,9 @@
 package org.visallo.core.ingest;
 
+import org.visallo.core.ingest.graphProperty.ElementOrPropertyStatus;
 import org.visallo.core.ingest.graphProperty.GraphPropertyWorkData;
 import org.visallo.core.ingest.graphProperty.GraphPropertyWorker;
+import org.visallo.core.ingest.graphProperty.GraphPropertyWorkerInterest;
 import org.visallo.core.model.Description;
 import org.visallo.core.model.Name;
 import org.visallo.core.model.properties.VisalloProperties;
@@ -89,6 +91,13 @@ public class MetadataGraphPropertyWorker extends GraphPropertyWorker {
         }
     }
 
+    @Override
+    public GraphPropertyWorkerInterest getInterest() {
+        return new GraphPropertyWorkerInterest()
+                .setEntireElementOnly(true)
+                .setStatuses(ElementOrPropertyStatus.UPDATE);
+    }
+
     @Override
     public boolean isHandled(Element element, Property property) {
         if (property != null) {
@@ -0,0 +1,239 @@
+package org.visallo.core.ingest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded multi-producer/multi-consumer hand off used to pass work between worker threads.
+ *
+ * Items are stored in a pre-allocated ring buffer where each slot carries a sequence number, so
+ * {@link #offer(Object)} and {@link #poll()} never lock or allocate. The lock and conditions are only
+ * touched when a thread has to block because the channel is empty or full and another thread is
+ * actually waiting. The ring buffer is sized to a power of two, but the channel never holds more than
+ * the requested capacity.
+ */
+public class WorkChannel<T> {
+    private static final int SPIN_TRIES = 100;
+    private final Object[] buffer;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final int capacity;
+    private final AtomicLong enqueuePosition = new AtomicLong();
+    private final AtomicLong dequeuePosition = new AtomicLong();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final AtomicInteger notEmptyWaiters = new AtomicInteger();
+    private final AtomicInteger notFullWaiters = new AtomicInteger();
+    private volatile boolean closed;
+
+    /**
+     * @param capacity The maximum number of items the channel can hold, at least one.
+     */
+    public WorkChannel(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        int size = 1;
+        while (size < this.capacity) {
+            size <<= 1;
+        }
+        this.buffer = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Adds an item without blocking.
+     *
+     * @return false, if the channel is full.
+     */
+    public boolean offer(T item) {
+        if (item == null) {
+            throw new NullPointerException("item cannot be null");
+        }
+        long position = enqueuePosition.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (position - dequeuePosition.get() >= capacity) {
+                    return false;
+                }
+                if (enqueuePosition.compareAndSet(position, position + 1)) {
+                    buffer[index] = item;
+                    sequences.set(index, position + 1);
+                    signalIfWaiting(notEmptyWaiters, notEmpty);
+                    return true;
+                }
+                position = enqueuePosition.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = enqueuePosition.get();
+            }
+        }
+    }
+
+    /**
+     * Removes an item without blocking.
+     *
+     * @return null, if the channel is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        long position = dequeuePosition.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (dequeuePosition.compareAndSet(position, position + 1)) {
+                    T item = (T) buffer[index];
+                    buffer[index] = null;
+                    sequences.set(index, position + mask + 1);
+                    signalIfWaiting(notFullWaiters, notFull);
+                    return item;
+                }
+                position = dequeuePosition.get();
+            } else if (difference < 0) {
+                return null;
+            } else {
+                position = dequeuePosition.get();
+            }
+        }
+    }
+
+    /**
+     * Adds an item, waiting up to the given time for space to become available.
+     *
+     * @return false, if the timeout elapsed or the channel was closed before the item could be added.
+     */
+    public boolean offer(T item, long timeout, TimeUnit unit) throws InterruptedException {
+        for (int i = 0; i < SPIN_TRIES; i++) {
+            if (offer(item)) {
+                return true;
+            }
+            Thread.yield();
+        }
+
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            notFullWaiters.incrementAndGet();
+            try {
+                while (!offer(item)) {
+                    if (nanos <= 0 || closed) {
+                        return false;
+                    }
+                    nanos = notFull.awaitNanos(nanos);
+                }
+                return true;
+            } finally {
+                notFullWaiters.decrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds an item, waiting as long as needed for space to become available.
+     *
+     * @return false, if the channel was closed before the item could be added.
+     */
+    public boolean put(T item) throws InterruptedException {
+        while (!closed) {
+            if (offer(item, Long.MAX_VALUE, TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes an item, waiting up to the given time for one to become available.
+     *
+     * @return null, if the timeout elapsed or the channel was closed while empty.
+     */
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        T item;
+        for (int i = 0; i < SPIN_TRIES; i++) {
+            if ((item = poll()) != null) {
+                return item;
+            }
+            Thread.yield();
+        }
+
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            notEmptyWaiters.incrementAndGet();
+            try {
+                while ((item = poll()) == null) {
+                    if (nanos <= 0 || closed) {
+                        return null;
+                    }
+                    nanos = notEmpty.awaitNanos(nanos);
+                }
+                return item;
+            } finally {
+                notEmptyWaiters.decrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wakes up all blocked threads and causes future blocking calls to return immediately. Items already in the
+     * channel can still be removed.
+     */
+    public void close() {
+        closed = true;
+        lock.lock();
+        try {
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * The number of items in the channel. Only an estimate while other threads are adding or removing items.
+     */
+    public int size() {
+        while (true) {
+            long dequeue = dequeuePosition.get();
+            long enqueue = enqueuePosition.get();
+            if (dequeue == dequeuePosition.get()) {
+                return (int) Math.max(0, Math.min(enqueue - dequeue, capacity));
+            }
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private void signalIfWaiting(AtomicInteger waiters, Condition condition) {
+        if (waiters.get() == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            condition.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
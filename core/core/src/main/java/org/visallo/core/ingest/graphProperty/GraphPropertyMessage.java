@@ -139,7 +139,13 @@ public class GraphPropertyMessage {
         return this;
     }
 
+    /**
+     * Creates a message from either the JSON or the binary format, see {@link Format}.
+     */
     public static GraphPropertyMessage create(byte[] data) {
+        if (GraphPropertyMessageBinaryFormat.isBinary(data)) {
+            return GraphPropertyMessageBinaryFormat.decode(data);
+        }
         try {
             GraphPropertyMessage message = mapper.readValue(data, GraphPropertyMessage.class);
             checkNotNull(message.getPriority(), "priority cannot be null");
@@ -159,14 +165,30 @@ public class GraphPropertyMessage {
     }
 
     public byte[] toBytes() {
+        return toBytes(Format.JSON);
+    }
+
+    public byte[] toBytes(Format format) {
+        checkNotNull(getPriority(), "priority cannot be null");
+        if (format == Format.BINARY) {
+            return GraphPropertyMessageBinaryFormat.encode(this);
+        }
         try {
-            checkNotNull(getPriority(), "priority cannot be null");
             return mapper.writeValueAsBytes(this);
         } catch (JsonProcessingException e) {
             throw new VisalloException("Could not write " + this.getClass().getName(), e);
         }
     }
 
+    /**
+     * Wire formats understood by {@link #create(byte[])}. Consumers detect the format of each message so producers
+     * can be switched to {@link #BINARY} once every consumer has been upgraded.
+     */
+    public enum Format {
+        JSON,
+        BINARY
+    }
+
     public static class Property {
         private String propertyKey;
         private String propertyName;
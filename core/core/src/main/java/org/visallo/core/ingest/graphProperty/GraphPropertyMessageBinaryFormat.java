@@ -0,0 +1,273 @@
+package org.visallo.core.ingest.graphProperty;
+
+import org.visallo.core.exception.VisalloException;
+import org.visallo.core.model.workQueue.Priority;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of {@link GraphPropertyMessage}.
+ * <p>
+ * A message starts with {@link #MAGIC}, which can never start a JSON document, followed by a version byte. Numbers
+ * are written as unsigned LEB128 varints, timestamps are zigzag encoded first. Strings are interned per message: the
+ * first occurrence is written inline and later occurrences refer back to it by index, so repeated property names and
+ * keys in multi property messages are only written once. Enums are written by ordinal, new values must only be
+ * appended and any other change to the layout requires a new version.
+ */
+class GraphPropertyMessageBinaryFormat {
+    static final byte MAGIC = (byte) 0xB1;
+    static final byte VERSION_1 = 1;
+    private static final int FLAG_TRACE_ENABLED = 0x01;
+    private static final int FLAG_BEFORE_ACTION_TIMESTAMP = 0x02;
+    private static final int PROPERTY_FLAG_BEFORE_ACTION_TIMESTAMP = 0x01;
+    private static final Priority[] PRIORITIES = Priority.values();
+    private static final ElementOrPropertyStatus[] STATUSES = ElementOrPropertyStatus.values();
+
+    private GraphPropertyMessageBinaryFormat() {
+
+    }
+
+    static boolean isBinary(byte[] data) {
+        return data != null && data.length > 0 && data[0] == MAGIC;
+    }
+
+    static byte[] encode(GraphPropertyMessage message) {
+        Writer out = new Writer();
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION_1);
+
+        int flags = 0;
+        if (message.isTraceEnabled()) {
+            flags |= FLAG_TRACE_ENABLED;
+        }
+        if (message.getBeforeActionTimestamp() != null) {
+            flags |= FLAG_BEFORE_ACTION_TIMESTAMP;
+        }
+        out.writeVarInt(flags);
+        out.writeVarInt(message.getPriority().ordinal());
+        out.writeString(message.getWorkspaceId());
+        out.writeString(message.getVisibilitySource());
+        out.writeString(message.getPropertyKey());
+        out.writeString(message.getPropertyName());
+        out.writeStatus(message.getStatus());
+        if (message.getBeforeActionTimestamp() != null) {
+            out.writeVarLong(zigZag(message.getBeforeActionTimestamp()));
+        }
+        out.writeStringArray(message.getGraphVertexId());
+        out.writeStringArray(message.getGraphEdgeId());
+
+        GraphPropertyMessage.Property[] properties = message.getProperties();
+        if (properties == null) {
+            out.writeVarInt(0);
+        } else {
+            out.writeVarInt(properties.length + 1);
+            for (GraphPropertyMessage.Property property : properties) {
+                Long beforeActionTimestamp = property.getBeforeActionTimestamp();
+                out.writeVarInt(beforeActionTimestamp == null ? 0 : PROPERTY_FLAG_BEFORE_ACTION_TIMESTAMP);
+                out.writeString(property.getPropertyKey());
+                out.writeString(property.getPropertyName());
+                out.writeStatus(property.getStatus());
+                if (beforeActionTimestamp != null) {
+                    out.writeVarLong(zigZag(beforeActionTimestamp));
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    static GraphPropertyMessage decode(byte[] data) {
+        if (!isBinary(data) || data.length < 2) {
+            throw new VisalloException("Not a binary " + GraphPropertyMessage.class.getSimpleName());
+        }
+        if (data[1] != VERSION_1) {
+            throw new VisalloException("Unsupported " + GraphPropertyMessage.class.getSimpleName() + " version: " + data[1]);
+        }
+        try {
+            Reader in = new Reader(data, 2);
+            GraphPropertyMessage message = new GraphPropertyMessage();
+            int flags = in.readVarInt();
+            message.setTraceEnabled((flags & FLAG_TRACE_ENABLED) != 0);
+            message.setPriority(PRIORITIES[in.readVarInt()]);
+            message.setWorkspaceId(in.readString());
+            message.setVisibilitySource(in.readString());
+            message.setPropertyKey(in.readString());
+            message.setPropertyName(in.readString());
+            message.setStatus(in.readStatus());
+            if ((flags & FLAG_BEFORE_ACTION_TIMESTAMP) != 0) {
+                message.setBeforeActionTimestamp(unZigZag(in.readVarLong()));
+            }
+            message.setGraphVertexId(in.readStringArray());
+            message.setGraphEdgeId(in.readStringArray());
+
+            int propertyCount = in.readVarInt();
+            if (propertyCount > 0) {
+                GraphPropertyMessage.Property[] properties = new GraphPropertyMessage.Property[propertyCount - 1];
+                for (int i = 0; i < properties.length; i++) {
+                    int propertyFlags = in.readVarInt();
+                    GraphPropertyMessage.Property property = new GraphPropertyMessage.Property();
+                    property.setPropertyKey(in.readString());
+                    property.setPropertyName(in.readString());
+                    property.setStatus(in.readStatus());
+                    if ((propertyFlags & PROPERTY_FLAG_BEFORE_ACTION_TIMESTAMP) != 0) {
+                        property.setBeforeActionTimestamp(unZigZag(in.readVarLong()));
+                    }
+                    properties[i] = property;
+                }
+                message.setProperties(properties);
+            }
+            return message;
+        } catch (IndexOutOfBoundsException ex) {
+            throw new VisalloException("Malformed binary " + GraphPropertyMessage.class.getSimpleName(), ex);
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static class Writer {
+        private final Map<String, Integer> strings = new HashMap<>();
+        private byte[] buffer = new byte[256];
+        private int length;
+
+        private void ensureCapacity(int additional) {
+            if (length + additional > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + additional));
+            }
+        }
+
+        private void writeByte(int b) {
+            ensureCapacity(1);
+            buffer[length++] = (byte) b;
+        }
+
+        private void writeVarInt(int value) {
+            writeVarLong(value & 0xffffffffL);
+        }
+
+        private void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7fL) != 0) {
+                buffer[length++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            buffer[length++] = (byte) value;
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, length);
+        }
+
+        /**
+         * 0 is null, odd values refer to a previously written string and even values are followed by the UTF-8 bytes
+         * of a new string.
+         */
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index != null) {
+                writeVarInt((index << 1) | 1);
+                return;
+            }
+            strings.put(value, strings.size());
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt((bytes.length + 1) << 1);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, length, bytes.length);
+            length += bytes.length;
+        }
+
+        private void writeStringArray(String[] values) {
+            if (values == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(values.length + 1);
+            for (String value : values) {
+                writeString(value);
+            }
+        }
+
+        private void writeStatus(ElementOrPropertyStatus status) {
+            writeVarInt(status == null ? 0 : status.ordinal() + 1);
+        }
+    }
+
+    private static class Reader {
+        private final byte[] data;
+        private final List<String> strings = new ArrayList<>();
+        private int position;
+
+        private Reader(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        private int readVarInt() {
+            return (int) readVarLong();
+        }
+
+        private long readVarLong() {
+            long result = 0;
+            int shift = 0;
+            while (true) {
+                byte b = data[position++];
+                result |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+                shift += 7;
+                if (shift > 63) {
+                    throw new VisalloException("Malformed varint in binary " + GraphPropertyMessage.class.getSimpleName());
+                }
+            }
+        }
+
+        private String readString() {
+            int tag = readVarInt();
+            if (tag == 0) {
+                return null;
+            }
+            if ((tag & 1) != 0) {
+                return strings.get(tag >>> 1);
+            }
+            int length = (tag >>> 1) - 1;
+            if (length < 0 || position + length > data.length) {
+                throw new ArrayIndexOutOfBoundsException(position + length);
+            }
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            strings.add(value);
+            return value;
+        }
+
+        private String[] readStringArray() {
+            int count = readVarInt();
+            if (count == 0) {
+                return null;
+            }
+            String[] values = new String[count - 1];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readString();
+            }
+            return values;
+        }
+
+        private ElementOrPropertyStatus readStatus() {
+            int value = readVarInt();
+            return value == 0 ? null : STATUSES[value - 1];
+        }
+    }
+}
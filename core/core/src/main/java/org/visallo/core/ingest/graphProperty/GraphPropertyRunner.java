@@ -4,7 +4,6 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.vertexium.*;
 import org.vertexium.property.StreamingPropertyValue;
@@ -44,14 +43,15 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
     private Graph graph;
     private Authorizations authorizations;
     private List<GraphPropertyThreadedWrapper> workerWrappers = Lists.newArrayList();
+    private volatile GraphPropertyWorkerRoutingTable routingTable = new GraphPropertyWorkerRoutingTable(ImmutableList.of());
     private User user;
     private UserRepository userRepository;
     private WorkQueueNames workQueueNames;
     private Configuration configuration;
     private VisibilityTranslator visibilityTranslator;
     private AtomicLong lastProcessedPropertyTime = new AtomicLong(0);
-    private List<GraphPropertyWorker> graphPropertyWorkers = Lists.newArrayList();
     private boolean prepareWorkersCalled;
+    private final int streamingSpillThreshold;
 
     @Inject
     protected GraphPropertyRunner(
@@ -64,6 +64,10 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
         super(workQueueRepository, configuration, metricsManager);
         this.statusRepository = statusRepository;
         this.authorizationRepository = authorizationRepository;
+        this.streamingSpillThreshold = configuration.getInt(
+                getClass().getName() + ".streamingSpillThreshold",
+                StreamFanOut.DEFAULT_SPILL_THRESHOLD
+        );
     }
 
     @Override
@@ -133,6 +137,10 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
             }
         }
 
+        int workerQueueSize = configuration.getInt(
+                getClass().getName() + ".workerQueueSize",
+                Math.max(GraphPropertyThreadedWrapper.DEFAULT_MAX_QUEUED_WORK, getProcessThreadCount())
+        );
         boolean failedToPrepareAtLeastOneGraphPropertyWorker = false;
         List<GraphPropertyThreadedWrapper> wrappers = Lists.newArrayList();
         for (GraphPropertyWorker worker : workers) {
@@ -144,7 +152,7 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
                 failedToPrepareAtLeastOneGraphPropertyWorker = true;
             }
 
-            GraphPropertyThreadedWrapper wrapper = new GraphPropertyThreadedWrapper(worker);
+            GraphPropertyThreadedWrapper wrapper = new GraphPropertyThreadedWrapper(worker, workerQueueSize);
             InjectHelper.inject(wrapper);
             wrappers.add(wrapper);
             Thread thread = new Thread(wrapper);
@@ -154,7 +162,6 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
         }
 
         this.addGraphPropertyThreadedWrappers(wrappers);
-        this.graphPropertyWorkers.addAll(workers);
 
         if (failedToPrepareAtLeastOneGraphPropertyWorker) {
             throw new VisalloException(
@@ -164,10 +171,11 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
 
     public void addGraphPropertyThreadedWrappers(List<GraphPropertyThreadedWrapper> wrappers) {
         this.workerWrappers.addAll(wrappers);
+        this.routingTable = new GraphPropertyWorkerRoutingTable(this.workerWrappers);
     }
 
     public void addGraphPropertyThreadedWrappers(GraphPropertyThreadedWrapper... wrappers) {
-        this.workerWrappers.addAll(Lists.newArrayList(wrappers));
+        addGraphPropertyThreadedWrappers(Lists.newArrayList(wrappers));
     }
 
     private List<TermMentionFilter> loadTermMentionFilters() {
@@ -438,12 +446,13 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
             List<GraphPropertyThreadedWrapper> interestedWorkerWrappers,
             GraphPropertyWorkData workData
     ) throws Exception {
-        for (GraphPropertyThreadedWrapper interestedWorkerWrapper1 : interestedWorkerWrappers) {
-            interestedWorkerWrapper1.enqueueWork(null, workData);
+        List<GraphPropertyThreadedWrapper.Work> works = new ArrayList<>(interestedWorkerWrappers.size());
+        for (GraphPropertyThreadedWrapper interestedWorkerWrapper : interestedWorkerWrappers) {
+            works.add(interestedWorkerWrapper.enqueueWork(null, workData));
         }
 
-        for (GraphPropertyThreadedWrapper interestedWorkerWrapper : interestedWorkerWrappers) {
-            interestedWorkerWrapper.dequeueResult(true);
+        for (GraphPropertyThreadedWrapper.Work work : works) {
+            work.dequeueResult(true);
         }
     }
 
@@ -454,32 +463,24 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
     ) throws Exception {
         String[] workerNames = graphPropertyThreadedWrapperToNames(interestedWorkerWrappers);
         InputStream in = streamingPropertyValue.getInputStream();
-        File tempFile = null;
-        try {
-            boolean requiresLocalFile = isLocalFileRequired(interestedWorkerWrappers);
-            if (requiresLocalFile) {
-                tempFile = copyToTempFile(in, workData);
-                in = new FileInputStream(tempFile);
+        try (StreamFanOut fanOut = new StreamFanOut(in, workerNames, streamingSpillThreshold, getTempFileSuffix(workData))) {
+            if (isLocalFileRequired(interestedWorkerWrappers)) {
+                workData.setLocalFile(fanOut.fillToFile());
             }
 
-            TeeInputStream teeInputStream = new TeeInputStream(in, workerNames);
+            List<GraphPropertyThreadedWrapper.Work> works = new ArrayList<>(interestedWorkerWrappers.size());
             for (int i = 0; i < interestedWorkerWrappers.size(); i++) {
-                interestedWorkerWrappers.get(i).enqueueWork(teeInputStream.getTees()[i], workData);
+                works.add(interestedWorkerWrappers.get(i).enqueueWork(fanOut.getReaders()[i], workData));
             }
-            teeInputStream.loopUntilTeesAreClosed();
-            for (GraphPropertyThreadedWrapper interestedWorkerWrapper : interestedWorkerWrappers) {
-                interestedWorkerWrapper.dequeueResult(false);
-            }
-        } finally {
-            if (tempFile != null) {
-                if (!tempFile.delete()) {
-                    LOGGER.warn("Could not delete temp file %s", tempFile.getAbsolutePath());
-                }
+            fanOut.fill();
+            fanOut.awaitReadersClosed();
+            for (GraphPropertyThreadedWrapper.Work work : works) {
+                work.dequeueResult(false);
             }
         }
     }
 
-    private File copyToTempFile(InputStream in, GraphPropertyWorkData workData) throws IOException {
+    private String getTempFileSuffix(GraphPropertyWorkData workData) {
         String fileExt = null;
         String fileName = VisalloProperties.FILE_NAME.getOnlyPropertyValue(workData.getElement());
         if (fileName != null) {
@@ -488,15 +489,7 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
         if (fileExt == null) {
             fileExt = "data";
         }
-        File tempFile = File.createTempFile("graphPropertyBolt", fileExt);
-        workData.setLocalFile(tempFile);
-        try (OutputStream tempFileOut = new FileOutputStream(tempFile)) {
-            IOUtils.copy(in, tempFileOut);
-        } finally {
-            in.close();
-
-        }
-        return tempFile;
+        return fileExt;
     }
 
     private boolean isLocalFileRequired(List<GraphPropertyThreadedWrapper> interestedWorkerWrappers) {
@@ -513,13 +506,18 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
             Property property,
             ElementOrPropertyStatus status
     ) {
+        List<GraphPropertyThreadedWrapper> candidates = routingTable.getCandidates(element, property, status);
+        if (candidates.size() == 0) {
+            return candidates;
+        }
+
         Set<String> graphPropertyWorkerWhiteList = IterableUtils.toSet(VisalloProperties.GRAPH_PROPERTY_WORKER_WHITE_LIST.getPropertyValues(
                 element));
         Set<String> graphPropertyWorkerBlackList = IterableUtils.toSet(VisalloProperties.GRAPH_PROPERTY_WORKER_BLACK_LIST.getPropertyValues(
                 element));
 
         List<GraphPropertyThreadedWrapper> interestedWorkers = new ArrayList<>();
-        for (GraphPropertyThreadedWrapper wrapper : workerWrappers) {
+        for (GraphPropertyThreadedWrapper wrapper : candidates) {
             String graphPropertyWorkerName = wrapper.getWorker().getClass().getName();
             if (graphPropertyWorkerWhiteList.size() > 0 && !graphPropertyWorkerWhiteList.contains(
                     graphPropertyWorkerName)) {
@@ -667,7 +665,8 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
             return true;
         }
 
-        for (GraphPropertyWorker worker : this.getAllGraphPropertyWorkers()) {
+        for (GraphPropertyThreadedWrapper wrapper : routingTable.getCandidates(element, property, status)) {
+            GraphPropertyWorker worker = wrapper.getWorker();
             try {
                 if (status == ElementOrPropertyStatus.DELETION && worker.isDeleteHandled(element, property)) {
                     return true;
@@ -715,10 +714,6 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
         return canHandle(element, property, status);
     }
 
-    private Collection<GraphPropertyWorker> getAllGraphPropertyWorkers() {
-        return Lists.newArrayList(this.graphPropertyWorkers);
-    }
-
     public static List<StoppableRunnable> startThreaded(int threadCount, User user) {
         List<StoppableRunnable> stoppables = new ArrayList<>();
 
@@ -5,6 +5,7 @@ import com.codahale.metrics.Timer;
 import com.google.inject.Inject;
 import org.vertexium.Element;
 import org.visallo.core.exception.VisalloException;
+import org.visallo.core.ingest.WorkChannel;
 import org.visallo.core.status.MetricsManager;
 import org.visallo.core.status.PausableTimerContext;
 import org.visallo.core.status.PausableTimerContextAware;
@@ -18,26 +19,39 @@ import org.visallo.core.util.VisalloLoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.*;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 public class GraphPropertyThreadedWrapper implements Runnable {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(GraphPropertyThreadedWrapper.class);
     private static final int DEQUEUE_TIMEOUT_MS = 30 * 1000;
     private static final int DEQUEUE_LOG_MESSAGE_FREQUENCY_MS = 10 * 1000;
     private static final int DEQUEUE_WARN_THRESHOLD_MS = 30 * 1000;
+    public static final int DEFAULT_MAX_QUEUED_WORK = 10;
     private final GraphPropertyWorker worker;
+    private final WorkChannel<Work> workItems;
 
     public GraphPropertyThreadedWrapper(GraphPropertyWorker worker) {
+        this(worker, DEFAULT_MAX_QUEUED_WORK);
+    }
+
+    /**
+     * @param maxQueuedWork The maximum number of work items waiting for this worker. Callers of
+     *                      {@link #enqueueWork(InputStream, GraphPropertyWorkData)} will block once this is reached.
+     */
+    public GraphPropertyThreadedWrapper(GraphPropertyWorker worker, int maxQueuedWork) {
         this.worker = worker;
+        this.workItems = new WorkChannel<>(maxQueuedWork);
     }
 
     private Counter totalProcessedCounter = null;
     private Counter processingCounter;
     private Counter totalErrorCounter;
     private Timer processingTimeTimer;
-    private boolean stopped;
-    private final Queue<Work> workItems = new LinkedList<>();
-    private final Queue<WorkResult> workResults = new LinkedList<>();
+    private volatile boolean stopped;
     private MetricsManager metricsManager;
 
     @Override
@@ -47,13 +61,9 @@ public class GraphPropertyThreadedWrapper implements Runnable {
         stopped = false;
         try {
             while (!stopped) {
-                Work work;
-                synchronized (workItems) {
-                    if (workItems.size() == 0) {
-                        workItems.wait(1000);
-                        continue;
-                    }
-                    work = workItems.remove();
+                Work work = workItems.poll(1000, TimeUnit.MILLISECONDS);
+                if (work == null) {
+                    continue;
                 }
                 InputStream in = work.getIn();
                 String workerClassName = this.worker.getClass().getName();
@@ -79,27 +89,18 @@ public class GraphPropertyThreadedWrapper implements Runnable {
                         totalProcessedCounter.inc();
                         timerContext.stop();
                     }
-                    synchronized (workResults) {
-                        workResults.add(new WorkResult(null));
-                        workResults.notifyAll();
-                    }
+                    work.setResult(new WorkResult(null));
                 } catch (Throwable ex) {
                     LOGGER.error("failed to complete work (%s): %s", workerClassName, elementId, ex);
                     totalErrorCounter.inc();
-                    synchronized (workResults) {
-                        workResults.add(new WorkResult(ex));
-                        workResults.notifyAll();
-                    }
+                    work.setResult(new WorkResult(ex));
                 } finally {
                     try {
                         if (in != null) {
                             in.close();
                         }
                     } catch (IOException ex) {
-                        synchronized (workResults) {
-                            workResults.add(new WorkResult(ex));
-                            workResults.notifyAll();
-                        }
+                        work.setResult(new WorkResult(ex));
                     }
                 }
             }
@@ -137,51 +138,26 @@ public class GraphPropertyThreadedWrapper implements Runnable {
         }
     }
 
-    public void enqueueWork(InputStream in, GraphPropertyWorkData data) {
-        synchronized (workItems) {
-            workItems.add(new Work(in, data));
-            workItems.notifyAll();
-        }
-    }
-
-    public WorkResult dequeueResult(boolean waitForever) {
-        synchronized (workResults) {
-            if (workResults.size() == 0) {
-                Date startTime = new Date();
-                Date lastMessageTime = new Date();
-                while (workResults.size() == 0 && (waitForever || (getElapsedTime(startTime) < DEQUEUE_TIMEOUT_MS))) {
-                    try {
-                        if (getElapsedTime(lastMessageTime) > DEQUEUE_LOG_MESSAGE_FREQUENCY_MS) {
-                            String message = String.format(
-                                    "Worker \"%s\" has zero results. Waiting for results. (startTime: %s, elapsedTime: %ds, thread: %s)",
-                                    worker.getClass().getName(),
-                                    startTime,
-                                    getElapsedTime(startTime) / 1000,
-                                    Thread.currentThread().getName()
-                            );
-                            if (getElapsedTime(startTime) > DEQUEUE_WARN_THRESHOLD_MS) {
-                                LOGGER.warn("%s", message);
-                            } else {
-                                LOGGER.debug("%s", message);
-                            }
-                            lastMessageTime = new Date();
-                        }
-                        workResults.wait(1000);
-                    } catch (InterruptedException ex) {
-                        throw new VisalloException("Failed to wait for worker " + worker.getClass().getName(), ex);
-                    }
-                }
+    /**
+     * Queues work for this worker, blocking if the work queue is full. The returned
+     * {@link Work} is used to wait for the result of this item only, which allows work from multiple
+     * {@link GraphPropertyWorkerItem}s to be in flight at the same time.
+     */
+    public Work enqueueWork(InputStream in, GraphPropertyWorkData data) {
+        Work work = new Work(in, data);
+        try {
+            if (!workItems.put(work)) {
+                throw new VisalloException("Worker " + worker.getClass().getName() + " is stopped");
             }
-            return workResults.remove();
+        } catch (InterruptedException ex) {
+            throw new VisalloException("Failed to enqueue work for worker " + worker.getClass().getName(), ex);
         }
-    }
-
-    private long getElapsedTime(Date date) {
-        return new Date().getTime() - date.getTime();
+        return work;
     }
 
     public void stop() {
         stopped = true;
+        workItems.close();
     }
 
     public GraphPropertyWorker getWorker() {
@@ -198,11 +174,13 @@ public class GraphPropertyThreadedWrapper implements Runnable {
         return status;
     }
 
-    private class Work {
+    public class Work {
         private final InputStream in;
         private final GraphPropertyWorkData data;
+        private volatile WorkResult result;
+        private volatile Thread waiter;
 
-        public Work(InputStream in, GraphPropertyWorkData data) {
+        private Work(InputStream in, GraphPropertyWorkData data) {
             this.in = in;
             this.data = data;
         }
@@ -214,6 +192,60 @@ public class GraphPropertyThreadedWrapper implements Runnable {
         private GraphPropertyWorkData getData() {
             return data;
         }
+
+        private void setResult(WorkResult result) {
+            if (this.result != null) {
+                return;
+            }
+            this.result = result;
+            Thread waiter = this.waiter;
+            if (waiter != null) {
+                LockSupport.unpark(waiter);
+            }
+        }
+
+        public WorkResult dequeueResult(boolean waitForever) {
+            WorkResult result = this.result;
+            if (result != null) {
+                return result;
+            }
+            waiter = Thread.currentThread();
+            try {
+                long startTime = System.currentTimeMillis();
+                long lastMessageTime = startTime;
+                while ((result = this.result) == null && (waitForever || (getElapsedTime(startTime) < DEQUEUE_TIMEOUT_MS))) {
+                    if (getElapsedTime(lastMessageTime) > DEQUEUE_LOG_MESSAGE_FREQUENCY_MS) {
+                        String message = String.format(
+                                "Worker \"%s\" has zero results. Waiting for results. (startTime: %s, elapsedTime: %ds, thread: %s)",
+                                worker.getClass().getName(),
+                                new Date(startTime),
+                                getElapsedTime(startTime) / 1000,
+                                Thread.currentThread().getName()
+                        );
+                        if (getElapsedTime(startTime) > DEQUEUE_WARN_THRESHOLD_MS) {
+                            LOGGER.warn("%s", message);
+                        } else {
+                            LOGGER.debug("%s", message);
+                        }
+                        lastMessageTime = System.currentTimeMillis();
+                    }
+                    LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+                    if (Thread.interrupted()) {
+                        throw new VisalloException("Failed to wait for worker " + worker.getClass().getName());
+                    }
+                }
+            } finally {
+                waiter = null;
+            }
+            if (result == null) {
+                throw new VisalloException("Timed out waiting for worker " + worker.getClass().getName());
+            }
+            return result;
+        }
+    }
+
+    private static long getElapsedTime(long startTime) {
+        return System.currentTimeMillis() - startTime;
     }
 
     public static class WorkResult {
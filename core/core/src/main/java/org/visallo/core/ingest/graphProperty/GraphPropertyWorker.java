@@ -63,6 +63,17 @@ public abstract class GraphPropertyWorker {
         getWorkQueueRepository().pushTextUpdated(data.getElement().getId(), data.getPriority());
     }
 
+    /**
+     * Declares which properties, concept types, mime types and statuses this worker could handle. Workers outside
+     * of the declared interest are never asked {@link #isHandled(Element, Property)} and friends, which saves a call
+     * per worker for every element and property that is queued or processed. Called once when the worker is
+     * registered. The default interest matches everything. The declared interest is also ignored, and everything
+     * routed to the worker, when one of the isHandled methods is overridden in a subclass of the declaring class.
+     */
+    public GraphPropertyWorkerInterest getInterest() {
+        return new GraphPropertyWorkerInterest();
+    }
+
     public abstract boolean isHandled(Element element, Property property);
 
     public boolean isDeleteHandled(Element element, Property property) {
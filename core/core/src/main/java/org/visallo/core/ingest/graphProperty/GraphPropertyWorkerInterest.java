@@ -0,0 +1,171 @@
+package org.visallo.core.ingest.graphProperty;
+
+import org.vertexium.Element;
+import org.vertexium.Property;
+import org.vertexium.Vertex;
+import org.visallo.core.model.properties.VisalloProperties;
+
+import java.util.*;
+
+/**
+ * Static description of the elements and properties a {@link GraphPropertyWorker} could be interested in. This is
+ * used by {@link GraphPropertyRunner} and {@link org.visallo.core.model.workQueue.WorkQueueRepository} to skip
+ * calling {@link GraphPropertyWorker#isHandled(Element, Property)} and friends on workers that can not possibly be
+ * interested. Interest is only a pre-filter, the isHandled methods are still called for matching workers.
+ *
+ * An empty interest (the default) matches everything.
+ */
+public class GraphPropertyWorkerInterest {
+    private final Set<String> propertyNames = new HashSet<>();
+    private final Set<String> conceptTypes = new HashSet<>();
+    private final Set<String> mimeTypePrefixes = new HashSet<>();
+    private final Set<ElementOrPropertyStatus> statuses = EnumSet.allOf(ElementOrPropertyStatus.class);
+    private boolean propertyRequired;
+    private boolean entireElementOnly;
+
+    /**
+     * Only properties with one of these names will be routed to the worker.
+     */
+    public GraphPropertyWorkerInterest addPropertyNames(String... propertyNames) {
+        Collections.addAll(this.propertyNames, propertyNames);
+        return this;
+    }
+
+    /**
+     * Only vertices with one of these concept types will be routed to the worker. Edges are never routed to a worker
+     * which declares concept types.
+     */
+    public GraphPropertyWorkerInterest addConceptTypes(String... conceptTypes) {
+        Collections.addAll(this.conceptTypes, conceptTypes);
+        return this;
+    }
+
+    /**
+     * Only properties with mime type metadata starting with one of these prefixes will be routed to the worker.
+     * Implies {@link #setPropertyRequired(boolean)}.
+     */
+    public GraphPropertyWorkerInterest addMimeTypePrefixes(String... mimeTypePrefixes) {
+        Collections.addAll(this.mimeTypePrefixes, mimeTypePrefixes);
+        this.propertyRequired = true;
+        return this;
+    }
+
+    /**
+     * Only messages with one of these statuses will be routed to the worker. For example a worker which does not
+     * override {@link GraphPropertyWorker#isDeleteHandled(Element, Property)} should not include
+     * {@link ElementOrPropertyStatus#DELETION}.
+     */
+    public GraphPropertyWorkerInterest setStatuses(ElementOrPropertyStatus... statuses) {
+        this.statuses.clear();
+        Collections.addAll(this.statuses, statuses);
+        return this;
+    }
+
+    /**
+     * If true the worker is not called for entire elements (a null property).
+     */
+    public GraphPropertyWorkerInterest setPropertyRequired(boolean propertyRequired) {
+        this.propertyRequired = propertyRequired;
+        return this;
+    }
+
+    /**
+     * If true the worker is only called for entire elements (a null property).
+     */
+    public GraphPropertyWorkerInterest setEntireElementOnly(boolean entireElementOnly) {
+        this.entireElementOnly = entireElementOnly;
+        return this;
+    }
+
+    public Set<String> getPropertyNames() {
+        return Collections.unmodifiableSet(propertyNames);
+    }
+
+    public Set<String> getConceptTypes() {
+        return Collections.unmodifiableSet(conceptTypes);
+    }
+
+    public Set<String> getMimeTypePrefixes() {
+        return Collections.unmodifiableSet(mimeTypePrefixes);
+    }
+
+    public Set<ElementOrPropertyStatus> getStatuses() {
+        return Collections.unmodifiableSet(statuses);
+    }
+
+    public boolean isPropertyRequired() {
+        return propertyRequired;
+    }
+
+    public boolean isEntireElementOnly() {
+        return entireElementOnly;
+    }
+
+    /**
+     * Checks the parts of the interest which only depend on the property name and status.
+     *
+     * @param propertyName The name of the property or null for an entire element.
+     */
+    public boolean matchesStatic(String propertyName, ElementOrPropertyStatus status) {
+        if (!statuses.contains(status)) {
+            return false;
+        }
+        if (propertyName == null) {
+            return !propertyRequired;
+        }
+        if (entireElementOnly) {
+            return false;
+        }
+        return propertyNames.isEmpty() || propertyNames.contains(propertyName);
+    }
+
+    /**
+     * Checks the parts of the interest which depend on the element or property values.
+     */
+    public boolean matchesDynamic(Element element, Property property) {
+        if (!conceptTypes.isEmpty()) {
+            if (!(element instanceof Vertex)) {
+                return false;
+            }
+            String conceptType = VisalloProperties.CONCEPT_TYPE.getPropertyValue(element);
+            if (conceptType == null || !conceptTypes.contains(conceptType)) {
+                return false;
+            }
+        }
+        if (!mimeTypePrefixes.isEmpty()) {
+            if (property == null || property.getMetadata() == null) {
+                return false;
+            }
+            String mimeType = VisalloProperties.MIME_TYPE_METADATA.getMetadataValueOrDefault(property.getMetadata(), null);
+            if (mimeType == null || !startsWithAny(mimeType, mimeTypePrefixes)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean hasDynamicConditions() {
+        return !conceptTypes.isEmpty() || !mimeTypePrefixes.isEmpty();
+    }
+
+    private static boolean startsWithAny(String value, Set<String> prefixes) {
+        for (String prefix : prefixes) {
+            if (value.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "GraphPropertyWorkerInterest{" +
+                "propertyNames=" + propertyNames +
+                ", conceptTypes=" + conceptTypes +
+                ", mimeTypePrefixes=" + mimeTypePrefixes +
+                ", statuses=" + statuses +
+                ", propertyRequired=" + propertyRequired +
+                ", entireElementOnly=" + entireElementOnly +
+                '}';
+    }
+}
@@ -0,0 +1,132 @@
+package org.visallo.core.ingest.graphProperty;
+
+import com.google.common.collect.ImmutableList;
+import org.vertexium.Element;
+import org.vertexium.Property;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of {@link GraphPropertyThreadedWrapper}s by the (property name, status) pairs their workers declared
+ * interest in through {@link GraphPropertyWorker#getInterest()}. Candidate lists are computed the first time a pair
+ * is seen and reused afterwards, preserving the order the wrappers were registered in.
+ */
+public class GraphPropertyWorkerRoutingTable {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(GraphPropertyWorkerRoutingTable.class);
+    private static final String[] IS_HANDLED_METHOD_NAMES = new String[]{
+            "isHandled",
+            "isDeleteHandled",
+            "isHiddenHandled",
+            "isUnhiddenHandled"
+    };
+    private final List<Route> routes;
+    private final Map<ElementOrPropertyStatus, List<Route>> entireElementRoutes = new EnumMap<>(ElementOrPropertyStatus.class);
+    private final Map<ElementOrPropertyStatus, Map<String, List<Route>>> propertyRoutes = new EnumMap<>(ElementOrPropertyStatus.class);
+
+    public GraphPropertyWorkerRoutingTable(List<GraphPropertyThreadedWrapper> wrappers) {
+        List<Route> routes = new ArrayList<>(wrappers.size());
+        for (GraphPropertyThreadedWrapper wrapper : wrappers) {
+            routes.add(new Route(wrapper, getInterest(wrapper.getWorker())));
+        }
+        this.routes = ImmutableList.copyOf(routes);
+
+        for (ElementOrPropertyStatus status : ElementOrPropertyStatus.values()) {
+            entireElementRoutes.put(status, findRoutes(null, status));
+            propertyRoutes.put(status, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * The interest a worker declares only describes the isHandled methods visible to the class declaring it. A
+     * subclass which overrides one of them, for example a plugin extending a built-in worker, gets every message.
+     */
+    static GraphPropertyWorkerInterest getInterest(GraphPropertyWorker worker) {
+        try {
+            if (!isHandledOverriddenBelowInterest(worker.getClass())) {
+                GraphPropertyWorkerInterest interest = worker.getInterest();
+                if (interest != null) {
+                    return interest;
+                }
+            }
+        } catch (Throwable ex) {
+            LOGGER.warn("Could not get interest of graph property worker %s, routing everything to it", worker.getClass().getName(), ex);
+        }
+        return new GraphPropertyWorkerInterest();
+    }
+
+    private static boolean isHandledOverriddenBelowInterest(Class<? extends GraphPropertyWorker> workerClass)
+            throws NoSuchMethodException {
+        Class<?> interestClass = workerClass.getMethod("getInterest").getDeclaringClass();
+        for (String methodName : IS_HANDLED_METHOD_NAMES) {
+            Class<?> declaringClass = workerClass.getMethod(methodName, Element.class, Property.class).getDeclaringClass();
+            if (declaringClass != interestClass && interestClass.isAssignableFrom(declaringClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the wrappers whose workers may be interested in the element/property. The returned wrappers still need
+     * to be checked using the worker's isHandled methods.
+     */
+    public List<GraphPropertyThreadedWrapper> getCandidates(Element element, Property property, ElementOrPropertyStatus status) {
+        if (status == null) {
+            status = ElementOrPropertyStatus.UPDATE;
+        }
+        List<Route> statusRoutes;
+        if (property == null) {
+            statusRoutes = entireElementRoutes.get(status);
+        } else {
+            final ElementOrPropertyStatus routeStatus = status;
+            statusRoutes = propertyRoutes.get(status).computeIfAbsent(
+                    property.getName(),
+                    propertyName -> findRoutes(propertyName, routeStatus)
+            );
+        }
+
+        List<GraphPropertyThreadedWrapper> results = new ArrayList<>(statusRoutes.size());
+        for (Route route : statusRoutes) {
+            if (!route.hasDynamicConditions || route.interest.matchesDynamic(element, property)) {
+                results.add(route.wrapper);
+            }
+        }
+        return results;
+    }
+
+    public List<GraphPropertyThreadedWrapper> getWrappers() {
+        List<GraphPropertyThreadedWrapper> results = new ArrayList<>(routes.size());
+        for (Route route : routes) {
+            results.add(route.wrapper);
+        }
+        return results;
+    }
+
+    private List<Route> findRoutes(String propertyName, ElementOrPropertyStatus status) {
+        List<Route> results = new ArrayList<>();
+        for (Route route : routes) {
+            if (route.interest.matchesStatic(propertyName, status)) {
+                results.add(route);
+            }
+        }
+        return ImmutableList.copyOf(results);
+    }
+
+    private static class Route {
+        private final GraphPropertyThreadedWrapper wrapper;
+        private final GraphPropertyWorkerInterest interest;
+        private final boolean hasDynamicConditions;
+
+        private Route(GraphPropertyThreadedWrapper wrapper, GraphPropertyWorkerInterest interest) {
+            this.wrapper = wrapper;
+            this.interest = interest;
+            this.hasDynamicConditions = interest.hasDynamicConditions();
+        }
+    }
+}
@@ -49,6 +49,13 @@ public abstract class MimeTypeGraphPropertyWorker extends GraphPropertyWorker {
         }
     }
 
+    @Override
+    public GraphPropertyWorkerInterest getInterest() {
+        return new GraphPropertyWorkerInterest()
+                .setPropertyRequired(true)
+                .setStatuses(ElementOrPropertyStatus.UPDATE);
+    }
+
     @Override
     public boolean isHandled(Element element, Property property) {
         if (property == null) {
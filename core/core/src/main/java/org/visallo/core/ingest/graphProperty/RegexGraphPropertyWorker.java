@@ -67,6 +67,13 @@ public abstract class RegexGraphPropertyWorker extends GraphPropertyWorker {
         pushTextUpdated(data);
     }
 
+    @Override
+    public GraphPropertyWorkerInterest getInterest() {
+        return new GraphPropertyWorkerInterest()
+                .addMimeTypePrefixes("text")
+                .setStatuses(ElementOrPropertyStatus.UPDATE);
+    }
+
     @Override
     public boolean isHandled(Element element, Property property) {
         if (property == null) {
@@ -3,6 +3,7 @@ package org.visallo.core.model;
 import com.codahale.metrics.Counter;
 import org.visallo.core.config.Configuration;
 import org.visallo.core.exception.VisalloException;
+import org.visallo.core.ingest.WorkChannel;
 import org.visallo.core.ingest.WorkerSpout;
 import org.visallo.core.ingest.WorkerTuple;
 import org.visallo.core.ingest.graphProperty.WorkerItem;
@@ -12,8 +13,9 @@ import org.visallo.core.status.StatusServer;
 import org.visallo.core.util.VisalloLogger;
 import org.visallo.core.util.VisalloLoggerFactory;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public abstract class WorkerBase<TWorkerItem extends WorkerItem> {
     private final boolean statusEnabled;
@@ -24,9 +26,9 @@ public abstract class WorkerBase<TWorkerItem extends WorkerItem> {
     private WorkQueueRepository workQueueRepository;
     private volatile boolean shouldRun;
     private StatusServer statusServer = null;
-    private final Queue<WorkerItemWrapper> tupleQueue = new LinkedList<>();
-    private final int tupleQueueSize;
-    private Thread processThread;
+    private final WorkChannel<WorkerItemWrapper> tupleQueue;
+    private final int processThreadCount;
+    private final List<Thread> processThreads = new ArrayList<>();
 
     protected WorkerBase(
             WorkQueueRepository workQueueRepository,
@@ -36,7 +38,8 @@ public abstract class WorkerBase<TWorkerItem extends WorkerItem> {
         this.workQueueRepository = workQueueRepository;
         this.metricsManager = metricsManager;
         this.exitOnNextTupleFailure = configuration.getBoolean(getClass().getName() + ".exitOnNextTupleFailure", true);
-        this.tupleQueueSize = configuration.getInt(getClass().getName() + ".tupleQueueSize", 10);
+        this.tupleQueue = new WorkChannel<>(configuration.getInt(getClass().getName() + ".tupleQueueSize", 10));
+        this.processThreadCount = Math.max(1, configuration.getInt(getClass().getName() + ".processThreadCount", 1));
         this.statusEnabled = configuration.getBoolean(Configuration.STATUS_ENABLED, Configuration.STATUS_ENABLED_DEFAULT);
         this.queueSizeMetricName = metricsManager.getNamePrefix(this) + "queue-size-" + Thread.currentThread().getId();
         this.queueSizeMetric = metricsManager.counter(queueSizeMetricName);
@@ -57,51 +60,64 @@ public abstract class WorkerBase<TWorkerItem extends WorkerItem> {
         if (statusEnabled) {
             statusServer = createStatusServer();
         }
-        startProcessThread(logger, workerSpout);
+        startProcessThreads(logger, workerSpout);
         pollWorkerSpout(logger, workerSpout);
     }
 
-    private void startProcessThread(VisalloLogger logger, WorkerSpout workerSpout) {
-        processThread = new Thread(() -> {
-            while (shouldRun) {
-                WorkerItemWrapper workerItemWrapper = null;
-                try {
-                    synchronized (tupleQueue) {
-                        do {
-                            while (shouldRun && tupleQueue.size() == 0) {
-                                tupleQueue.wait();
-                            }
-                            if (!shouldRun) {
-                                return;
-                            }
-                            if (tupleQueue.size() > 0) {
-                                workerItemWrapper = tupleQueue.remove();
-                                queueSizeMetric.dec();
-                                tupleQueue.notifyAll();
-                            }
-                        } while (shouldRun && workerItemWrapper == null);
-                    }
-                } catch (Exception ex) {
-                    throw new VisalloException("Could not get next workerItem", ex);
-                }
-                if (!shouldRun) {
-                    return;
-                }
-                try {
-                    logger.debug("start processing");
-                    long startTime = System.currentTimeMillis();
-                    process(workerItemWrapper.getWorkerItem());
-                    long endTime = System.currentTimeMillis();
-                    logger.debug("completed processing in (%dms)", endTime - startTime);
-                    workerSpout.ack(workerItemWrapper.getWorkerTuple());
-                } catch (Throwable ex) {
-                    logger.error("Could not process tuple: %s", workerItemWrapper, ex);
-                    workerSpout.fail(workerItemWrapper.getWorkerTuple());
-                }
+    /**
+     * Starts {@link #getProcessThreadCount()} threads which take items off of the tuple queue. When more than one
+     * process thread is configured multiple items are in flight at once and each item is acked or failed
+     * independently as soon as its own processing completes.
+     */
+    private void startProcessThreads(VisalloLogger logger, WorkerSpout workerSpout) {
+        String threadNamePrefix = Thread.currentThread().getName() + "-process";
+        for (int i = 0; i < processThreadCount; i++) {
+            Thread processThread = new Thread(() -> processTuples(logger, workerSpout));
+            processThread.setName(processThreadCount == 1 ? threadNamePrefix : threadNamePrefix + "-" + i);
+            processThreads.add(processThread);
+            processThread.start();
+        }
+    }
+
+    private void processTuples(VisalloLogger logger, WorkerSpout workerSpout) {
+        while (shouldRun) {
+            WorkerItemWrapper workerItemWrapper;
+            try {
+                workerItemWrapper = tupleQueue.poll(1, TimeUnit.SECONDS);
+            } catch (Exception ex) {
+                throw new VisalloException("Could not get next workerItem", ex);
+            }
+            if (!shouldRun) {
+                return;
+            }
+            if (workerItemWrapper == null) {
+                continue;
+            }
+            queueSizeMetric.dec();
+            try {
+                logger.debug("start processing");
+                long startTime = System.currentTimeMillis();
+                process(workerItemWrapper.getWorkerItem());
+                long endTime = System.currentTimeMillis();
+                logger.debug("completed processing in (%dms)", endTime - startTime);
+                ack(workerSpout, workerItemWrapper.getWorkerTuple());
+            } catch (Throwable ex) {
+                logger.error("Could not process tuple: %s", workerItemWrapper, ex);
+                fail(workerSpout, workerItemWrapper.getWorkerTuple());
             }
-        });
-        processThread.setName(Thread.currentThread().getName() + "-process");
-        processThread.start();
+        }
+    }
+
+    private void ack(WorkerSpout workerSpout, WorkerTuple workerTuple) {
+        synchronized (workerSpout) {
+            workerSpout.ack(workerTuple);
+        }
+    }
+
+    private void fail(WorkerSpout workerSpout, WorkerTuple workerTuple) {
+        synchronized (workerSpout) {
+            workerSpout.fail(workerTuple);
+        }
     }
 
     private void pollWorkerSpout(VisalloLogger logger, WorkerSpout workerSpout) throws InterruptedException {
@@ -131,13 +147,9 @@ public abstract class WorkerBase<TWorkerItem extends WorkerItem> {
             if (workerItemWrapper == null) {
                 continue;
             }
-            synchronized (tupleQueue) {
-                tupleQueue.add(workerItemWrapper);
-                queueSizeMetric.inc();
-                tupleQueue.notifyAll();
-                while (shouldRun && tupleQueue.size() >= tupleQueueSize) {
-                    tupleQueue.wait();
-                }
+            queueSizeMetric.inc();
+            if (!tupleQueue.put(workerItemWrapper)) {
+                queueSizeMetric.dec();
             }
         }
     }
@@ -166,15 +178,16 @@ public abstract class WorkerBase<TWorkerItem extends WorkerItem> {
         if (statusServer != null) {
             statusServer.shutdown();
         }
-        synchronized (tupleQueue) {
-            tupleQueue.notifyAll();
-        }
-        try {
-            if (processThread != null) {
+        tupleQueue.close();
+        for (Thread processThread : processThreads) {
+            if (processThread == Thread.currentThread()) {
+                continue;
+            }
+            try {
                 processThread.join(10000);
+            } catch (InterruptedException e) {
+                throw new VisalloException("Could not stop process thread: " + processThread.getName());
             }
-        } catch (InterruptedException e) {
-            throw new VisalloException("Could not stop process thread: " + processThread.getName());
         }
     }
 
@@ -194,6 +207,14 @@ public abstract class WorkerBase<TWorkerItem extends WorkerItem> {
         return shouldRun;
     }
 
+    /**
+     * The number of threads calling {@link #process(WorkerItem)} concurrently. Configured using
+     * <code>&lt;class name&gt;.processThreadCount</code>, defaults to 1.
+     */
+    protected int getProcessThreadCount() {
+        return processThreadCount;
+    }
+
     private class WorkerItemWrapper {
         private final TWorkerItem workerItem;
         private final WorkerTuple workerTuple;
@@ -8,9 +8,18 @@ import org.visallo.core.util.VisalloLoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class GraphReindexService {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(GraphReindexService.class);
+    static final String CHECKPOINT_METADATA_KEY_PREFIX = GraphReindexService.class.getName() + ".completedRanges.";
+    private static final String ID_RANGE_SPLIT_POINTS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final long PROGRESS_LOG_INTERVAL_MS = 30 * 1000;
     private final GraphWithSearchIndex graph;
 
     @Inject
@@ -61,9 +70,196 @@ public class GraphReindexService {
         }
     }
 
+    /**
+     * Splits the ids between startId (inclusive) and endId (exclusive), either of which may be null for no bound, into
+     * ranges by leading character and indexes the ranges on a pool of threads. Each thread sends one batch at a time.
+     * Completed ranges are recorded in the graph metadata so a later call with resume only indexes the remaining ones.
+     * The records are cleared once every range has been reindexed.
+     */
+    public void reindex(
+            ElementType elementType,
+            int batchSize,
+            int threads,
+            boolean resume,
+            String startId,
+            String endId,
+            Authorizations authorizations
+    ) {
+        List<IdRange> ranges = splitIdRange(startId, endId);
+        List<IdRange> remainingRanges = new ArrayList<>();
+        for (IdRange range : ranges) {
+            if (!resume) {
+                clearRangeCompleted(elementType, range);
+                remainingRanges.add(range);
+            } else if (!isRangeCompleted(elementType, range)) {
+                remainingRanges.add(range);
+            }
+        }
+        LOGGER.info("reindexing %s: %d of %d id ranges remaining, using %d threads", elementType, remainingRanges.size(), ranges.size(), threads);
+
+        ReindexProgress progress = new ReindexProgress(elementType, remainingRanges.size());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (IdRange range : remainingRanges) {
+            futures.add(executor.submit(() -> {
+                reindexRange(elementType, range, batchSize, progress, authorizations);
+                setRangeCompleted(elementType, range);
+                progress.rangeCompleted();
+            }));
+        }
+        executor.shutdown();
+
+        int failedRanges = 0;
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException ex) {
+                    LOGGER.error("Could not reindex %s range %s", elementType, remainingRanges.get(i), ex.getCause());
+                    failedRanges++;
+                }
+            }
+        } catch (InterruptedException ex) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new VisalloException("Interrupted while reindexing " + elementType, ex);
+        }
+        progress.log();
+
+        if (failedRanges > 0) {
+            throw new VisalloException(failedRanges + " " + elementType + " id ranges could not be reindexed, run again with resume to retry them");
+        }
+        for (IdRange range : ranges) {
+            clearRangeCompleted(elementType, range);
+        }
+    }
+
+    private void reindexRange(ElementType elementType, IdRange idRange, int batchSize, ReindexProgress progress, Authorizations authorizations) {
+        Range range = new Range(idRange.start, idRange.end);
+        Iterable<? extends Element> elements;
+        if (elementType == ElementType.VERTEX) {
+            elements = graph.getVerticesInRange(range, authorizations);
+        } else {
+            elements = graph.getEdgesInRange(range, authorizations);
+        }
+
+        long count = 0;
+        List<Element> batch = new ArrayList<>(batchSize);
+        for (Element element : elements) {
+            batch.add(element);
+            count++;
+            if (batch.size() == batchSize) {
+                progress.elementsIndexed(batch.size());
+                submitBatchOfElementsToSearchIndex(elementType, count, batch, authorizations);
+            }
+        }
+        if (batch.size() > 0) {
+            progress.elementsIndexed(batch.size());
+            submitBatchOfElementsToSearchIndex(elementType, count, batch, authorizations);
+        }
+    }
+
+    static List<IdRange> splitIdRange(String startId, String endId) {
+        List<IdRange> ranges = new ArrayList<>();
+        String rangeStart = startId;
+        for (char c : ID_RANGE_SPLIT_POINTS.toCharArray()) {
+            String splitPoint = String.valueOf(c);
+            if ((startId == null || splitPoint.compareTo(startId) > 0) && (endId == null || splitPoint.compareTo(endId) < 0)) {
+                ranges.add(new IdRange(rangeStart, splitPoint));
+                rangeStart = splitPoint;
+            }
+        }
+        ranges.add(new IdRange(rangeStart, endId));
+        return ranges;
+    }
+
+    /**
+     * Each range has its own metadata key, so processes reindexing different ranges at the same time don't overwrite
+     * each other's checkpoints.
+     */
+    private static String getCheckpointMetadataKey(ElementType elementType, IdRange range) {
+        return CHECKPOINT_METADATA_KEY_PREFIX + elementType + "." + range.getKey();
+    }
+
+    private boolean isRangeCompleted(ElementType elementType, IdRange range) {
+        return Boolean.TRUE.equals(graph.getMetadata(getCheckpointMetadataKey(elementType, range)));
+    }
+
+    private void setRangeCompleted(ElementType elementType, IdRange range) {
+        graph.setMetadata(getCheckpointMetadataKey(elementType, range), true);
+    }
+
+    private void clearRangeCompleted(ElementType elementType, IdRange range) {
+        if (isRangeCompleted(elementType, range)) {
+            graph.setMetadata(getCheckpointMetadataKey(elementType, range), false);
+        }
+    }
+
     private void submitBatchOfElementsToSearchIndex(ElementType elementType, long endIndex, List<Element> batch, Authorizations authorizations) {
         LOGGER.debug("indexing %s %d-%d", elementType, endIndex - batch.size(), endIndex);
         graph.getSearchIndex().addElements(graph, batch, authorizations);
         batch.clear();
     }
+
+    static class IdRange {
+        private final String start;
+        private final String end;
+
+        IdRange(String start, String end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        String getKey() {
+            return (start == null ? "" : start) + ":" + (end == null ? "" : end);
+        }
+
+        @Override
+        public String toString() {
+            return "[" + (start == null ? "" : start) + ", " + (end == null ? "" : end) + ")";
+        }
+    }
+
+    private static class ReindexProgress {
+        private final ElementType elementType;
+        private final int totalRanges;
+        private final long startTime = System.currentTimeMillis();
+        private final AtomicLong elementsIndexed = new AtomicLong();
+        private final AtomicInteger completedRanges = new AtomicInteger();
+        private final AtomicLong lastLogTime = new AtomicLong(startTime);
+
+        ReindexProgress(ElementType elementType, int totalRanges) {
+            this.elementType = elementType;
+            this.totalRanges = totalRanges;
+        }
+
+        void elementsIndexed(int count) {
+            elementsIndexed.addAndGet(count);
+            long now = System.currentTimeMillis();
+            long lastLog = lastLogTime.get();
+            if (now - lastLog >= PROGRESS_LOG_INTERVAL_MS && lastLogTime.compareAndSet(lastLog, now)) {
+                log();
+            }
+        }
+
+        void rangeCompleted() {
+            completedRanges.incrementAndGet();
+        }
+
+        void log() {
+            long elapsedMs = Math.max(System.currentTimeMillis() - startTime, 1);
+            long indexed = elementsIndexed.get();
+            int completed = completedRanges.get();
+            String eta = completed == 0 ? "unknown" : ((elapsedMs * (totalRanges - completed) / completed) / 1000) + "s";
+            LOGGER.info(
+                    "reindexed %d %ss (%d/s), %d of %d id ranges complete, eta %s",
+                    indexed,
+                    elementType.name().toLowerCase(),
+                    indexed * 1000 / elapsedMs,
+                    completed,
+                    totalRanges,
+                    eta
+            );
+        }
+    }
 }
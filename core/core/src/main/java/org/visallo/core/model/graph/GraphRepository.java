@@ -13,6 +13,7 @@ import org.visallo.core.model.termMention.TermMentionFor;
 import org.visallo.core.model.termMention.TermMentionRepository;
 import org.visallo.core.model.workQueue.Priority;
 import org.visallo.core.model.workQueue.WorkQueueRepository;
+import org.visallo.core.model.workspace.WorkspaceChangeIndex;
 import org.visallo.core.security.VisalloVisibility;
 import org.visallo.core.security.VisibilityTranslator;
 import org.visallo.core.user.User;
@@ -24,6 +25,7 @@ import org.visallo.web.clientapi.model.SandboxStatus;
 import org.visallo.web.clientapi.model.VisibilityJson;
 
 import java.util.Date;
+import java.util.List;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -36,6 +38,7 @@ public class GraphRepository {
     private final VisibilityTranslator visibilityTranslator;
     private final TermMentionRepository termMentionRepository;
     private final WorkQueueRepository workQueueRepository;
+    private WorkspaceChangeIndex workspaceChangeIndex;
 
     @Inject
     public GraphRepository(
@@ -50,6 +53,25 @@ public class GraphRepository {
         this.workQueueRepository = workQueueRepository;
     }
 
+    @Inject(optional = true)
+    public void setWorkspaceChangeIndex(WorkspaceChangeIndex workspaceChangeIndex) {
+        this.workspaceChangeIndex = workspaceChangeIndex;
+    }
+
+    private void recordWorkspaceChange(String workspaceId, Element element) {
+        if (workspaceChangeIndex != null) {
+            workspaceChangeIndex.recordChange(workspaceId, element);
+        }
+    }
+
+    private void recordWorkspaceChanges(VisibilityJson visibilityJson, Element element) {
+        if (workspaceChangeIndex != null && visibilityJson != null) {
+            for (String workspaceId : visibilityJson.getWorkspaces()) {
+                workspaceChangeIndex.recordChange(workspaceId, element);
+            }
+        }
+    }
+
     public void verifyVersion() {
         verifyVersion(VISALLO_VERSION);
     }
@@ -115,6 +137,7 @@ public class GraphRepository {
         }
 
         m.save(authorizations);
+        recordWorkspaceChange(workspaceId, element);
         return new VisibilityAndElementMutation<>(visalloVisibility, m);
     }
 
@@ -151,6 +174,7 @@ public class GraphRepository {
                 .alterPropertyVisibility(property, newVisibility);
         VisalloProperties.VISIBILITY_JSON_METADATA.setMetadata(m, property, newVisibilityJson, defaultVisibility);
         T newElement = m.save(authorizations);
+        recordWorkspaceChange(workspaceId, newElement);
 
         Property newProperty = newElement.getProperty(propertyKey, propertyName, newVisibility);
         checkNotNull(
@@ -276,6 +300,8 @@ public class GraphRepository {
         }
 
         elementMutation.addPropertyValue(propertyKey, propertyName, value, propertyMetadata, propertyVisibility);
+        // recorded before the caller saves the mutation, an entry without a change is pruned by the next diff
+        recordWorkspaceChange(workspaceId, element);
 
         return new VisibilityAndElementMutation<>(visalloVisibility, elementMutation);
     }
@@ -337,6 +363,7 @@ public class GraphRepository {
 
         Vertex vertex = vertexBuilder.save(authorizations);
         graph.flush();
+        recordWorkspaceChanges(visibilityJson, vertex);
 
         if (justificationAdded) {
             termMentionRepository.removeSourceInfoEdgeFromVertex(
@@ -427,6 +454,7 @@ public class GraphRepository {
         );
 
         Edge edge = edgeBuilder.save(authorizations);
+        recordWorkspaceChanges(visibilityJson, edge);
 
         if (justificationAdded) {
             termMentionRepository.removeSourceInfoEdgeFromEdge(edge, null, null, visalloVisibility, authorizations);
@@ -505,6 +533,7 @@ public class GraphRepository {
                 graph,
                 workQueueRepository,
                 visibilityTranslator,
+                workspaceChangeIndex,
                 priority,
                 user,
                 authorizations
@@ -512,15 +541,26 @@ public class GraphRepository {
     }
 
     private static class MyGraphUpdateContext extends GraphUpdateContext {
+        private final WorkspaceChangeIndex workspaceChangeIndex;
+
         protected MyGraphUpdateContext(
                 Graph graph,
                 WorkQueueRepository workQueueRepository,
                 VisibilityTranslator visibilityTranslator,
+                WorkspaceChangeIndex workspaceChangeIndex,
                 Priority priority,
                 User user,
                 Authorizations authorizations
         ) {
             super(graph, workQueueRepository, visibilityTranslator, priority, user, authorizations);
+            this.workspaceChangeIndex = workspaceChangeIndex;
+        }
+
+        @Override
+        protected void elementsSaved(List<Element> elements) {
+            if (workspaceChangeIndex != null) {
+                elements.forEach(workspaceChangeIndex::recordChanges);
+            }
         }
     }
 }
@@ -4,11 +4,13 @@ import org.vertexium.*;
 import org.vertexium.mutation.ElementMutation;
 import org.visallo.core.exception.VisalloException;
 import org.visallo.core.model.workQueue.Priority;
+import org.visallo.core.model.workQueue.WorkQueueBatch;
 import org.visallo.core.model.workQueue.WorkQueueRepository;
 import org.visallo.core.security.VisibilityTranslator;
 import org.visallo.core.user.User;
 import org.visallo.web.clientapi.model.VisibilityJson;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
@@ -85,13 +87,16 @@ public abstract class GraphUpdateContext implements AutoCloseable {
     }
 
     private void pushOutstandingUpdateFutures() {
-        outstandingFutures.forEach(f -> {
-            try {
-                workQueueRepository.pushGraphVisalloPropertyQueue(f.get(), f.getElementUpdateContext().getProperties(), priority);
-            } catch (Exception ex) {
-                throw new VisalloException("Could not push on queue", ex);
-            }
-        });
+        try (WorkQueueBatch batch = workQueueRepository.createBatch()) {
+            batch.setMaxSize(outstandingFutures.size());
+            outstandingFutures.forEach(f -> {
+                try {
+                    batch.pushGraphVisalloPropertyQueue(f.get(), f.getElementUpdateContext().getProperties(), priority);
+                } catch (Exception ex) {
+                    throw new VisalloException("Could not push on queue", ex);
+                }
+            });
+        }
     }
 
     protected void saveOutstandingUpdateFutures() {
@@ -102,12 +107,21 @@ public abstract class GraphUpdateContext implements AutoCloseable {
                 .map(f -> f.getElementUpdateContext().getMutation())
                 .collect(Collectors.toList());
         Iterable<Element> results = graph.saveElementMutations(mutations, authorizations);
+        List<Element> savedElements = new ArrayList<>(futures.size());
         int i = 0;
         for (Element result : results) {
             UpdateFuture future = futures.get(i);
             future.setElement(result);
+            savedElements.add(result);
             i++;
         }
+        elementsSaved(savedElements);
+    }
+
+    /**
+     * Called after each batch of outstanding updates has been saved.
+     */
+    protected void elementsSaved(List<Element> elements) {
     }
 
     /**
@@ -0,0 +1,13 @@
+package org.visallo.core.model.lock;
+
+public enum LockMode {
+    /**
+     * Held by any number of readers at once, excludes {@link #EXCLUSIVE} holders.
+     */
+    SHARED,
+
+    /**
+     * Held by a single writer, excludes every other holder.
+     */
+    EXCLUSIVE
+}
@@ -1,15 +1,40 @@
 package org.visallo.core.model.lock;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.inject.Inject;
+import org.visallo.core.exception.VisalloException;
+import org.visallo.core.status.MetricsManager;
 import org.visallo.core.util.VisalloLogger;
 import org.visallo.core.util.VisalloLoggerFactory;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public abstract class LockRepository {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(LockRepository.class);
-    protected final Map<String, Object> synchronizationObjects = new HashMap<>();
+
+    /**
+     * One lock per name for as long as a thread holds or waits on it. The values are weak so the table does not grow
+     * with every workspace or user ever locked, and the cache is segmented so unrelated names do not contend.
+     */
+    private final LoadingCache<String, ReentrantReadWriteLock> localLocks = CacheBuilder.newBuilder()
+            .weakValues()
+            .build(new CacheLoader<String, ReentrantReadWriteLock>() {
+                @Override
+                public ReentrantReadWriteLock load(String lockName) {
+                    return new ReentrantReadWriteLock();
+                }
+            });
+    private final Map<String, LockMetrics> lockMetrics = new ConcurrentHashMap<>();
+    private MetricsManager metricsManager;
+    private String metricsNamePrefix;
 
     public void lock(String lockName, final Runnable runnable) {
         lock(lockName, () -> {
@@ -19,33 +44,157 @@ public abstract class LockRepository {
     }
 
     public <T> T lock(String lockName, Callable<T> callable) {
-        LOGGER.debug("[thread: %s] acquiring lock: %s", Thread.currentThread().getName(), lockName);
-        try {
-            Object synchronizationObject = getSynchronizationObject(lockName);
-            //noinspection SynchronizationOnLocalVariableOrMethodParameter
-            synchronized (synchronizationObject) {
-                LOGGER.debug("[thread: %s] creating lock: %s", Thread.currentThread().getName(), lockName);
-                Lock lock = createLock(lockName);
-                LOGGER.debug("[thread: %s] running lock: %s", Thread.currentThread().getName(), lockName);
-                return lock.run(callable);
+        return lock(lockName, LockMode.EXCLUSIVE, callable);
+    }
+
+    public void lock(String lockName, LockMode mode, final Runnable runnable) {
+        lock(lockName, mode, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs the callable holding the named lock in the given mode. Callables holding the lock in {@link LockMode#SHARED}
+     * mode run at the same time, {@link LockMode#EXCLUSIVE} holders run alone. A thread holding the lock exclusively
+     * may take it again in either mode, a thread holding it shared may only take it shared again.
+     */
+    public <T> T lock(String lockName, LockMode mode, Callable<T> callable) {
+        LOGGER.debug("[thread: %s] acquiring %s lock: %s", Thread.currentThread().getName(), mode, lockName);
+        ReentrantReadWriteLock localLock = getLocalLock(lockName, mode);
+        if (!getModeLock(localLock, mode).tryLock()) {
+            long startTime = System.nanoTime();
+            getModeLock(localLock, mode).lock();
+            recordContention(lockName, mode, System.nanoTime() - startTime);
+        }
+        return runLocked(lockName, mode, localLock, callable);
+    }
+
+    /**
+     * Like {@link #lock(String, Callable)} but gives up with a {@link LockTimeoutException} if the lock is not
+     * acquired within the timeout.
+     */
+    public <T> T lock(String lockName, long timeout, TimeUnit unit, Callable<T> callable) {
+        return lock(lockName, LockMode.EXCLUSIVE, timeout, unit, callable);
+    }
+
+    /**
+     * Like {@link #lock(String, LockMode, Callable)} but gives up with a {@link LockTimeoutException} if the lock is
+     * not acquired within the timeout.
+     */
+    public <T> T lock(String lockName, LockMode mode, long timeout, TimeUnit unit, Callable<T> callable) {
+        LOGGER.debug("[thread: %s] acquiring %s lock: %s (timeout: %d %s)", Thread.currentThread().getName(), mode, lockName, timeout, unit);
+        ReentrantReadWriteLock localLock = getLocalLock(lockName, mode);
+        if (!getModeLock(localLock, mode).tryLock()) {
+            long startTime = System.nanoTime();
+            boolean acquired;
+            try {
+                acquired = getModeLock(localLock, mode).tryLock(timeout, unit);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new VisalloException("Interrupted while acquiring lock: " + lockName, ex);
             }
+            recordContention(lockName, mode, System.nanoTime() - startTime);
+            if (!acquired) {
+                LockMetrics metrics = getLockMetrics(lockName, mode);
+                if (metrics != null) {
+                    metrics.timeouts.inc();
+                }
+                throw new LockTimeoutException(lockName, timeout, unit);
+            }
+        }
+        return runLocked(lockName, mode, localLock, callable);
+    }
+
+    private <T> T runLocked(String lockName, LockMode mode, ReentrantReadWriteLock localLock, Callable<T> callable) {
+        try {
+            LOGGER.debug("[thread: %s] creating %s lock: %s", Thread.currentThread().getName(), mode, lockName);
+            Lock lock = createLock(lockName, mode);
+            LOGGER.debug("[thread: %s] running %s lock: %s", Thread.currentThread().getName(), mode, lockName);
+            return lock.run(callable);
         } finally {
-            LOGGER.debug("[thread: %s] released lock: %s", Thread.currentThread().getName(), lockName);
+            // unlocking through localLock keeps it reachable, the weak cache must not replace a held lock
+            getModeLock(localLock, mode).unlock();
+            LOGGER.debug("[thread: %s] released %s lock: %s", Thread.currentThread().getName(), mode, lockName);
         }
     }
 
-    protected Object getSynchronizationObject(String lockName) {
-        synchronized (synchronizationObjects) {
-            Object synchronizationObject = synchronizationObjects.get(lockName);
-            if (synchronizationObject == null) {
-                synchronizationObject = new Object();
-                synchronizationObjects.put(lockName, synchronizationObject);
-            }
-            return synchronizationObject;
+    protected ReentrantReadWriteLock getLocalLock(String lockName) {
+        return localLocks.getUnchecked(lockName);
+    }
+
+    /**
+     * A shared holder waiting for the exclusive lock would wait on itself forever, so that is refused instead.
+     */
+    protected ReentrantReadWriteLock getLocalLock(String lockName, LockMode mode) {
+        ReentrantReadWriteLock localLock = getLocalLock(lockName);
+        if (mode == LockMode.EXCLUSIVE && localLock.getReadHoldCount() > 0 && !localLock.isWriteLockedByCurrentThread()) {
+            throw new VisalloException("Cannot acquire exclusive lock while holding a shared lock: " + lockName);
+        }
+        return localLock;
+    }
+
+    protected static java.util.concurrent.locks.Lock getModeLock(ReentrantReadWriteLock localLock, LockMode mode) {
+        return mode == LockMode.SHARED ? localLock.readLock() : localLock.writeLock();
+    }
+
+    private void recordContention(String lockName, LockMode mode, long waitNanos) {
+        LockMetrics metrics = getLockMetrics(lockName, mode);
+        if (metrics != null) {
+            metrics.contended.inc();
+            metrics.waitTime.update(waitNanos, TimeUnit.NANOSECONDS);
         }
     }
 
+    private LockMetrics getLockMetrics(String lockName, LockMode mode) {
+        if (metricsManager == null) {
+            return null;
+        }
+        String metricsKey = getLockNamePrefix(lockName) + "." + mode.name().toLowerCase();
+        return lockMetrics.computeIfAbsent(metricsKey, key -> {
+            String namePrefix = metricsNamePrefix + key + ".";
+            return new LockMetrics(
+                    metricsManager.counter(namePrefix + "contended"),
+                    metricsManager.counter(namePrefix + "timeouts"),
+                    metricsManager.timer(namePrefix + "wait")
+            );
+        });
+    }
+
+    /**
+     * Metrics are kept per prefix so per workspace locks such as "WORKSPACE_abc" are reported together.
+     */
+    static String getLockNamePrefix(String lockName) {
+        int separatorIndex = lockName.indexOf('_');
+        return separatorIndex > 0 ? lockName.substring(0, separatorIndex) : lockName;
+    }
+
+    @Inject(optional = true)
+    public final void setMetricsManager(MetricsManager metricsManager) {
+        this.metricsNamePrefix = metricsManager.getNamePrefix(this);
+        this.metricsManager = metricsManager;
+    }
+
     public abstract Lock createLock(String lockName);
 
+    /**
+     * Implementations without shared locks take the exclusive lock for both modes, which is always safe.
+     */
+    public Lock createLock(String lockName, LockMode mode) {
+        return createLock(lockName);
+    }
+
     public abstract void leaderElection(String lockName, LeaderListener listener);
+
+    private static class LockMetrics {
+        private final Counter contended;
+        private final Counter timeouts;
+        private final Timer waitTime;
+
+        private LockMetrics(Counter contended, Counter timeouts, Timer waitTime) {
+            this.contended = contended;
+            this.timeouts = timeouts;
+            this.waitTime = waitTime;
+        }
+    }
 }
@@ -0,0 +1,18 @@
+package org.visallo.core.model.lock;
+
+import org.visallo.core.exception.VisalloException;
+
+import java.util.concurrent.TimeUnit;
+
+public class LockTimeoutException extends VisalloException {
+    private final String lockName;
+
+    public LockTimeoutException(String lockName, long timeout, TimeUnit unit) {
+        super("Timed out after " + timeout + " " + unit.name().toLowerCase() + " waiting for lock: " + lockName);
+        this.lockName = lockName;
+    }
+
+    public String getLockName() {
+        return lockName;
+    }
+}
@@ -8,6 +8,7 @@ import org.visallo.core.util.ShutdownService;
 
 import java.util.WeakHashMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class SingleJvmLockRepository extends LockRepository implements ShutdownListener {
     private WeakHashMap<Long, Thread> threads = new WeakHashMap<>();
@@ -25,16 +26,23 @@ public class SingleJvmLockRepository extends LockRepository implements ShutdownL
 
     @Override
     public Lock createLock(String lockName) {
-        final Object synchronizationObject = getSynchronizationObject(lockName);
+        return createLock(lockName, LockMode.EXCLUSIVE);
+    }
+
+    @Override
+    public Lock createLock(String lockName, LockMode mode) {
+        // reentrant, so this is only a hold count increment when called from lock()
+        final ReentrantReadWriteLock localLock = getLocalLock(lockName, mode);
         return new Lock(lockName) {
             @Override
             public <T> T run(Callable<T> callable) {
+                getModeLock(localLock, mode).lock();
                 try {
-                    synchronized (synchronizationObject) {
-                        return callable.call();
-                    }
+                    return callable.call();
                 } catch (Exception ex) {
                     throw new VisalloException("Failed to run in lock", ex);
+                } finally {
+                    getModeLock(localLock, mode).unlock();
                 }
             }
         };
@@ -42,14 +50,17 @@ public class SingleJvmLockRepository extends LockRepository implements ShutdownL
 
     @Override
     public void leaderElection(String lockName, final LeaderListener listener) {
-        final Object synchronizationObject = getSynchronizationObject(lockName);
+        final ReentrantReadWriteLock localLock = getLocalLock(lockName);
         Thread t = new Thread(() -> {
-            synchronized (synchronizationObject) {
+            try {
+                localLock.writeLock().lockInterruptibly();
                 try {
                     listener.isLeader();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
+                } finally {
+                    localLock.writeLock().unlock();
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
         });
         t.setName(SingleJvmLockRepository.class.getSimpleName() + "-LeaderElection-" + lockName);
@@ -42,6 +42,10 @@ public abstract class Notification {
         return id;
     }
 
+    void setId(String id) {
+        this.id = id;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -9,13 +9,23 @@ import org.visallo.core.util.VisalloLogger;
 import org.visallo.core.util.VisalloLoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * System notifications are few and read on every client poll, so they are served from an in memory snapshot. The
+ * snapshot is reloaded after a change made through this repository and at least every
+ * {@link #SNAPSHOT_MAX_AGE_MS} to pick up changes made by other servers.
+ */
 public class SystemNotificationRepository extends NotificationRepository {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(SystemNotificationRepository.class);
     private static final String VISIBILITY_STRING = "";
+    static final long SNAPSHOT_MAX_AGE_MS = 30 * 1000L;
     private final UserRepository userRepository;
+    private final AtomicLong changeCount = new AtomicLong();
+    private volatile Snapshot snapshot;
 
     @Inject
     public SystemNotificationRepository(
@@ -29,10 +39,7 @@ public class SystemNotificationRepository extends NotificationRepository {
     public List<SystemNotification> getActiveNotifications(User user) {
         Date now = new Date();
         List<SystemNotification> activeNotifications = new ArrayList<>();
-        for (SystemNotification notification : getSimpleOrmSession().findAll(
-                SystemNotification.class,
-                userRepository.getSimpleOrmContext(user)
-        )) {
+        for (SystemNotification notification : getSnapshot(user).notifications) {
             if (notification.getStartDate().before(now)) {
                 if (notification.getEndDate() == null || notification.getEndDate().after(now)) {
                     activeNotifications.add(notification);
@@ -43,6 +50,30 @@ public class SystemNotificationRepository extends NotificationRepository {
         return activeNotifications;
     }
 
+    private Snapshot getSnapshot(User user) {
+        Snapshot result = snapshot;
+        long now = System.currentTimeMillis();
+        long currentChangeCount = changeCount.get();
+        if (result == null
+                || result.changeCount != currentChangeCount
+                || now - result.loadedTime > SNAPSHOT_MAX_AGE_MS) {
+            List<SystemNotification> notifications = new ArrayList<>();
+            for (SystemNotification notification : getSimpleOrmSession().findAll(
+                    SystemNotification.class,
+                    userRepository.getSimpleOrmContext(user)
+            )) {
+                notifications.add(notification);
+            }
+            result = new Snapshot(currentChangeCount, now, notifications);
+            snapshot = result;
+        }
+        return result;
+    }
+
+    private void invalidateSnapshot() {
+        changeCount.incrementAndGet();
+    }
+
     public SystemNotification createNotification(
             SystemNotificationSeverity severity,
             String title,
@@ -61,6 +92,7 @@ public class SystemNotificationRepository extends NotificationRepository {
         notification.setStartDate(startDate);
         notification.setEndDate(endDate);
         getSimpleOrmSession().save(notification, VISIBILITY_STRING, userRepository.getSimpleOrmContext(user));
+        invalidateSnapshot();
         return notification;
     }
 
@@ -95,6 +127,7 @@ public class SystemNotificationRepository extends NotificationRepository {
 
     public SystemNotification updateNotification(SystemNotification notification, User user) {
         getSimpleOrmSession().save(notification, VISIBILITY_STRING, userRepository.getSimpleOrmContext(user));
+        invalidateSnapshot();
         return notification;
     }
 
@@ -106,10 +139,7 @@ public class SystemNotificationRepository extends NotificationRepository {
     public List<SystemNotification> getFutureNotifications(Date maxDate, User user) {
         Date now = new Date();
         List<SystemNotification> futureNotifications = new ArrayList<>();
-        for (SystemNotification notification : getSimpleOrmSession().findAll(
-                SystemNotification.class,
-                userRepository.getSimpleOrmContext(user)
-        )) {
+        for (SystemNotification notification : getSnapshot(user).notifications) {
             if (notification.getStartDate().after(now) && notification.getStartDate().before(maxDate)) {
                 futureNotifications.add(notification);
             }
@@ -117,4 +147,16 @@ public class SystemNotificationRepository extends NotificationRepository {
         LOGGER.debug("returning %d future system notifications", futureNotifications.size());
         return futureNotifications;
     }
+
+    private static class Snapshot {
+        private final long changeCount;
+        private final long loadedTime;
+        private final List<SystemNotification> notifications;
+
+        private Snapshot(long changeCount, long loadedTime, List<SystemNotification> notifications) {
+            this.changeCount = changeCount;
+            this.loadedTime = loadedTime;
+            this.notifications = Collections.unmodifiableList(notifications);
+        }
+    }
 }
@@ -55,7 +55,7 @@ public class UserNotification extends Notification {
             Date sentDate,
             ExpirationAge expirationAge
     ) {
-        super(createRowKey(sentDate), title, message, actionEvent, actionPayload);
+        super(createRowKey(userId, sentDate), title, message, actionEvent, actionPayload);
         this.userId = userId;
         this.sentDate = sentDate;
         this.markedRead = false;
@@ -66,8 +66,52 @@ public class UserNotification extends Notification {
         }
     }
 
-    private static String createRowKey(Date date) {
-        return Long.toString(date.getTime()) + ":" + UUID.randomUUID().toString();
+    /**
+     * Row keys start with the user id so a user's notifications can be read with a prefix scan, followed by the zero
+     * padded sent time so they are ordered by sent date.
+     */
+    private static String createRowKey(String userId, Date date) {
+        return createRowKey(userId, date, UUID.randomUUID().toString());
+    }
+
+    private static String createRowKey(String userId, Date date, String uuid) {
+        return getRowKeyPrefix(userId) + String.format("%019d", date.getTime()) + ":" + uuid;
+    }
+
+    static String getRowKeyPrefix(String userId) {
+        return userId + ":";
+    }
+
+    boolean hasLegacyRowKey() {
+        return !getId().startsWith(getRowKeyPrefix(getUserId()));
+    }
+
+    /**
+     * Moves a notification saved under the old "sentTime:uuid" row key to the user first row key. The uuid is kept,
+     * so every server migrating the same row computes the same new key.
+     */
+    void migrateLegacyRowKey() {
+        String legacyRowKey = getId();
+        String uuid = legacyRowKey.substring(legacyRowKey.indexOf(':') + 1);
+        setId(createRowKey(getUserId(), getSentDate(), uuid));
+    }
+
+    /**
+     * The row key {@link #migrateLegacyRowKey()} gives a notification of the user saved under the old "sentTime:uuid"
+     * row key, or null if the row key is not in the old format.
+     */
+    static String getMigratedRowKey(String legacyRowKey, String userId) {
+        int separatorIndex = legacyRowKey.indexOf(':');
+        if (separatorIndex <= 0) {
+            return null;
+        }
+        long sentTime;
+        try {
+            sentTime = Long.parseLong(legacyRowKey.substring(0, separatorIndex));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+        return createRowKey(userId, new Date(sentTime), legacyRowKey.substring(separatorIndex + 1));
     }
 
     public String getUserId() {
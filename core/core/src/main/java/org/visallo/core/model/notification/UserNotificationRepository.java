@@ -9,20 +9,26 @@ import org.visallo.core.bootstrap.InjectHelper;
 import org.visallo.core.model.user.UserRepository;
 import org.visallo.core.model.workQueue.WorkQueueRepository;
 import org.visallo.core.user.User;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.visallo.core.util.StreamUtil.stream;
 
 public class UserNotificationRepository extends NotificationRepository {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(UserNotificationRepository.class);
     private static final String VISIBILITY_STRING = "";
     private final WorkQueueRepository workQueueRepository;
     private UserRepository userRepository;
+    private volatile boolean legacyRowKeysMigrated;
 
     @Inject
     public UserNotificationRepository(
@@ -45,7 +51,7 @@ public class UserNotificationRepository extends NotificationRepository {
 
     public Stream<UserNotification> getActiveNotifications(User user) {
         Date now = new Date();
-        return findAll(user)
+        return findByUser(user)
                 .filter(notification ->
                                 user.getUserId().equals(notification.getUserId())
                                         && notification.getSentDate().before(now)
@@ -53,6 +59,48 @@ public class UserNotificationRepository extends NotificationRepository {
                 );
     }
 
+    /**
+     * Only reads the rows of the passed in user, see {@link UserNotification#getRowKeyPrefix(String)}.
+     */
+    private Stream<UserNotification> findByUser(User user) {
+        migrateLegacyRowKeys();
+        SimpleOrmContext ctx = getUserRepository().getSimpleOrmContext(user);
+        String rowKeyPrefix = UserNotification.getRowKeyPrefix(user.getUserId());
+        return stream(getSimpleOrmSession().findByIdStartsWith(UserNotification.class, rowKeyPrefix, ctx));
+    }
+
+    /**
+     * Notifications saved before row keys started with the user id are not found by {@link #findByUser(User)}.
+     * The first read rewrites them to the new row keys.
+     */
+    private void migrateLegacyRowKeys() {
+        if (legacyRowKeysMigrated) {
+            return;
+        }
+        synchronized (this) {
+            if (!legacyRowKeysMigrated) {
+                migrateLegacyRowKeysOnce();
+                legacyRowKeysMigrated = true;
+            }
+        }
+    }
+
+    private void migrateLegacyRowKeysOnce() {
+        SimpleOrmContext ctx = getUserRepository().getSimpleOrmContext(getUserRepository().getSystemUser());
+        List<UserNotification> legacyNotifications = stream(getSimpleOrmSession().findAll(UserNotification.class, ctx))
+                .filter(UserNotification::hasLegacyRowKey)
+                .collect(Collectors.toList());
+        for (UserNotification notification : legacyNotifications) {
+            String legacyRowKey = notification.getId();
+            notification.migrateLegacyRowKey();
+            getSimpleOrmSession().save(notification, VISIBILITY_STRING, ctx);
+            getSimpleOrmSession().delete(UserNotification.class, legacyRowKey, ctx);
+        }
+        if (legacyNotifications.size() > 0) {
+            LOGGER.info("migrated %d user notifications to user row keys", legacyNotifications.size());
+        }
+    }
+
     private Stream<UserNotification> findAll(User user) {
         SimpleOrmContext ctx = getUserRepository().getSimpleOrmContext(user);
         return stream(getSimpleOrmSession().findAll(UserNotification.class, ctx));
@@ -111,12 +159,20 @@ public class UserNotificationRepository extends NotificationRepository {
         workQueueRepository.pushUserNotification(notification);
     }
 
+    /**
+     * Clients may still hold ids pushed before the row keys were migrated, those are looked up under the migrated key.
+     */
     public UserNotification getNotification(String notificationId, User user) {
-        return getSimpleOrmSession().findById(
-                UserNotification.class,
-                notificationId,
-                getUserRepository().getSimpleOrmContext(user)
-        );
+        migrateLegacyRowKeys();
+        SimpleOrmContext ctx = getUserRepository().getSimpleOrmContext(user);
+        UserNotification notification = getSimpleOrmSession().findById(UserNotification.class, notificationId, ctx);
+        if (notification == null && !notificationId.startsWith(UserNotification.getRowKeyPrefix(user.getUserId()))) {
+            String migratedRowKey = UserNotification.getMigratedRowKey(notificationId, user.getUserId());
+            if (migratedRowKey != null) {
+                notification = getSimpleOrmSession().findById(UserNotification.class, migratedRowKey, ctx);
+            }
+        }
+        return notification;
     }
 
     /**
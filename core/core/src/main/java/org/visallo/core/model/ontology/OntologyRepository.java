@@ -59,6 +59,21 @@ public interface OntologyRepository {
 
     Set<Relationship> getRelationshipAndAllChildren(Relationship relationship);
 
+    /**
+     * @return the concept followed by its parent, its parent's parent and so on up to the root concept.
+     */
+    List<Concept> getConceptAndAllParents(Concept concept);
+
+    /**
+     * @return the concepts which declare the property.
+     */
+    Set<Concept> getConceptsWithProperty(String propertyIRI);
+
+    /**
+     * @return the relationships which declare the property.
+     */
+    Set<Relationship> getRelationshipsWithProperty(String propertyIRI);
+
     Concept getOrCreateConcept(Concept parent, String conceptIRI, String displayName, File inDir);
 
     Concept getOrCreateConcept(Concept parent, String conceptIRI, String displayName, File inDir, boolean isDeclaredInOntology);
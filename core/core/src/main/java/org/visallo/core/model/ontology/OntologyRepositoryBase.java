@@ -46,9 +46,9 @@ import org.visallo.web.clientapi.model.PropertyType;
 import java.io.*;
 import java.lang.reflect.Constructor;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -60,6 +60,8 @@ public abstract class OntologyRepositoryBase implements OntologyRepository {
     private static final String TOP_OBJECT_PROPERTY_IRI = "http://www.w3.org/2002/07/owl#topObjectProperty";
     private final Configuration configuration;
     private final LockRepository lockRepository;
+    private final AtomicInteger snapshotVersion = new AtomicInteger();
+    private volatile OntologySnapshot snapshot;
 
     @Inject
     protected OntologyRepositoryBase(
@@ -70,6 +72,30 @@ public abstract class OntologyRepositoryBase implements OntologyRepository {
         this.lockRepository = lockRepository;
     }
 
+    /**
+     * Discards the lookup tables built from {@link #getConceptsWithProperties()}, {@link #getProperties()} and
+     * {@link #getRelationships()}. Implementations which cache those must call this from their own clearCache.
+     */
+    @Override
+    public void clearCache() {
+        snapshotVersion.incrementAndGet();
+        snapshot = null;
+    }
+
+    /**
+     * Returns the lookup tables for the current ontology, building them if the cache was cleared since they were
+     * last built.
+     */
+    private OntologySnapshot getSnapshot() {
+        OntologySnapshot result = snapshot;
+        int version = snapshotVersion.get();
+        if (result == null || result.getVersion() != version) {
+            result = new OntologySnapshot(version, getConceptsWithProperties(), getProperties(), getRelationships());
+            snapshot = result;
+        }
+        return result;
+    }
+
     public void loadOntologies(Configuration config, Authorizations authorizations) throws Exception {
         lockRepository.lock("ontology", () -> {
             Concept rootConcept = getOrCreateConcept(null, ROOT_CONCEPT_IRI, "root", null);
@@ -936,12 +962,20 @@ public abstract class OntologyRepositoryBase implements OntologyRepository {
 
     @Override
     public Set<Concept> getConceptAndAllChildren(Concept concept) {
+        Set<Concept> result = getSnapshot().getConceptAndAllChildren(concept.getIRI());
+        if (result != null) {
+            return result;
+        }
+        return findConceptAndAllChildren(concept);
+    }
+
+    private Set<Concept> findConceptAndAllChildren(Concept concept) {
         List<Concept> childConcepts = getChildConcepts(concept);
         Set<Concept> result = Sets.newHashSet(concept);
         if (childConcepts.size() > 0) {
             List<Concept> childrenList = new ArrayList<>();
             for (Concept childConcept : childConcepts) {
-                Set<Concept> child = getConceptAndAllChildren(childConcept);
+                Set<Concept> child = findConceptAndAllChildren(childConcept);
                 childrenList.addAll(child);
             }
             result.addAll(childrenList);
@@ -953,12 +987,20 @@ public abstract class OntologyRepositoryBase implements OntologyRepository {
 
     @Override
     public Set<Relationship> getRelationshipAndAllChildren(Relationship relationship) {
+        Set<Relationship> result = getSnapshot().getRelationshipAndAllChildren(relationship.getIRI());
+        if (result != null) {
+            return result;
+        }
+        return findRelationshipAndAllChildren(relationship);
+    }
+
+    private Set<Relationship> findRelationshipAndAllChildren(Relationship relationship) {
         List<Relationship> childRelationships = getChildRelationships(relationship);
         Set<Relationship> result = Sets.newHashSet(relationship);
         if (childRelationships.size() > 0) {
             List<Relationship> childrenList = new ArrayList<>();
             for (Relationship childRelationship : childRelationships) {
-                Set<Relationship> child = getRelationshipAndAllChildren(childRelationship);
+                Set<Relationship> child = findRelationshipAndAllChildren(childRelationship);
                 childrenList.addAll(child);
             }
             result.addAll(childrenList);
@@ -968,6 +1010,29 @@ public abstract class OntologyRepositoryBase implements OntologyRepository {
 
     protected abstract List<Relationship> getChildRelationships(Relationship relationship);
 
+    @Override
+    public List<Concept> getConceptAndAllParents(Concept concept) {
+        List<Concept> result = getSnapshot().getConceptAndAllParents(concept.getIRI());
+        if (result != null) {
+            return result;
+        }
+        result = new ArrayList<>();
+        for (Concept c = concept; c != null; c = getParentConcept(c)) {
+            result.add(c);
+        }
+        return result;
+    }
+
+    @Override
+    public Set<Concept> getConceptsWithProperty(String propertyIRI) {
+        return getSnapshot().getConceptsWithProperty(propertyIRI);
+    }
+
+    @Override
+    public Set<Relationship> getRelationshipsWithProperty(String propertyIRI) {
+        return getSnapshot().getRelationshipsWithProperty(propertyIRI);
+    }
+
     @Override
     public void resolvePropertyIds(JSONArray filterJson) throws JSONException {
         for (int i = 0; i < filterJson.length(); i++) {
@@ -986,22 +1051,12 @@ public abstract class OntologyRepositoryBase implements OntologyRepository {
 
     @Override
     public Concept getConceptByIRI(String conceptIRI) {
-        for (Concept concept : getConceptsWithProperties()) {
-            if (concept.getIRI().equals(conceptIRI)) {
-                return concept;
-            }
-        }
-        return null;
+        return getSnapshot().getConceptByIri(conceptIRI);
     }
 
     @Override
     public OntologyProperty getPropertyByIRI(String propertyIRI) {
-        for (OntologyProperty prop : getProperties()) {
-            if (prop.getTitle().equals(propertyIRI)) {
-                return prop;
-            }
-        }
-        return null;
+        return getSnapshot().getPropertyByIri(propertyIRI);
     }
 
     @Override
@@ -1014,12 +1069,7 @@ public abstract class OntologyRepositoryBase implements OntologyRepository {
     }
 
     public Relationship getRelationshipByIRI(String relationshipIRI) {
-        for (Relationship rel : getRelationships()) {
-            if (rel.getIRI().equals(relationshipIRI)) {
-                return rel;
-            }
-        }
-        return null;
+        return getSnapshot().getRelationshipByIri(relationshipIRI);
     }
 
     public Concept getConceptByIntent(String intent) {
@@ -1082,14 +1132,7 @@ public abstract class OntologyRepositoryBase implements OntologyRepository {
     }
 
     private List<Concept> findLoadedConceptsByIntent(String intent) {
-        List<Concept> results = new ArrayList<>();
-        for (Concept concept : getConceptsWithProperties()) {
-            String[] conceptIntents = concept.getIntents();
-            if (Arrays.asList(conceptIntents).contains(intent)) {
-                results.add(concept);
-            }
-        }
-        return results;
+        return getSnapshot().getConceptsByIntent(intent);
     }
 
     public Relationship getRelationshipByIntent(String intent) {
@@ -1143,14 +1186,7 @@ public abstract class OntologyRepositoryBase implements OntologyRepository {
     }
 
     private List<Relationship> findLoadedRelationshipsByIntent(String intent) {
-        List<Relationship> results = new ArrayList<>();
-        for (Relationship relationship : getRelationships()) {
-            String[] relationshipIntents = relationship.getIntents();
-            if (Arrays.asList(relationshipIntents).contains(intent)) {
-                results.add(relationship);
-            }
-        }
-        return results;
+        return getSnapshot().getRelationshipsByIntent(intent);
     }
 
     public OntologyProperty getPropertyByIntent(String intent) {
@@ -1205,12 +1241,7 @@ public abstract class OntologyRepositoryBase implements OntologyRepository {
 
     @Override
     public OntologyProperty getDependentPropertyParent(String iri) {
-        for (OntologyProperty property : getProperties()) {
-            if (property.getDependentPropertyIris().contains(iri)) {
-                return property;
-            }
-        }
-        return null;
+        return getSnapshot().getDependentPropertyParent(iri);
     }
 
     @Override
@@ -1241,19 +1272,23 @@ public abstract class OntologyRepositoryBase implements OntologyRepository {
     }
 
     public List<OntologyProperty> getPropertiesByIntent(String intent) {
-        List<OntologyProperty> results = new ArrayList<>();
-        for (OntologyProperty property : getProperties()) {
-            String[] propertyIntents = property.getIntents();
-            if (Arrays.asList(propertyIntents).contains(intent)) {
-                results.add(property);
-            }
-        }
-        return results;
+        return new ArrayList<>(getSnapshot().getPropertiesByIntent(intent));
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public ClientApiOntology getClientApiObject() {
+        // the result is shared until the cache is cleared so callers can use its identity as the ontology version
+        OntologySnapshot snapshot = getSnapshot();
+        ClientApiOntology result = snapshot.getClientApiObject();
+        if (result == null) {
+            result = buildClientApiObject();
+            snapshot.setClientApiObject(result);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ClientApiOntology buildClientApiObject() {
         Object[] results = ExecutorServiceUtil.runAllAndWait(
                 () -> {
                     Iterable<Concept> concepts = getConceptsWithProperties();
@@ -1352,8 +1387,14 @@ public abstract class OntologyRepositoryBase implements OntologyRepository {
             conceptIds.add(concept.getIRI());
 
             if (filter.includeChildNodes) {
-                Set<Concept> childConcepts = getConceptAndAllChildren(concept);
-                conceptIds.addAll(childConcepts.stream().map(Concept::getIRI).collect(Collectors.toSet()));
+                Set<String> childIris = getSnapshot().getConceptAndAllChildrenIris(concept.getIRI());
+                if (childIris == null) {
+                    for (Concept childConcept : getConceptAndAllChildren(concept)) {
+                        conceptIds.add(childConcept.getIRI());
+                    }
+                } else {
+                    conceptIds.addAll(childIris);
+                }
             }
         }
 
@@ -1385,8 +1426,14 @@ public abstract class OntologyRepositoryBase implements OntologyRepository {
             edgeIds.add(relationship.getIRI());
 
             if (filter.includeChildNodes) {
-                Set<Relationship> childRelations = getRelationshipAndAllChildren(relationship);
-                edgeIds.addAll(childRelations.stream().map(Relationship::getIRI).collect(Collectors.toSet()));
+                Set<String> childIris = getSnapshot().getRelationshipAndAllChildrenIris(relationship.getIRI());
+                if (childIris == null) {
+                    for (Relationship childRelationship : getRelationshipAndAllChildren(relationship)) {
+                        edgeIds.add(childRelationship.getIRI());
+                    }
+                } else {
+                    edgeIds.addAll(childIris);
+                }
             }
         }
 
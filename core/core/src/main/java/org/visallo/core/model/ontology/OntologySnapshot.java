@@ -0,0 +1,266 @@
+package org.visallo.core.model.ontology;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.visallo.web.clientapi.model.ClientApiOntology;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Immutable lookup tables built from the concepts, properties and relationships of an
+ * {@link OntologyRepositoryBase}. A snapshot is built on first use after {@link OntologyRepository#clearCache()}
+ * and replaced as a whole, so lookups are hash map reads without locking.
+ */
+class OntologySnapshot {
+    private final int version;
+    private final Map<String, Concept> conceptsByIri;
+    private final Map<String, OntologyProperty> propertiesByIri;
+    private final Map<String, Relationship> relationshipsByIri;
+    private final Map<String, List<Concept>> conceptsByIntent;
+    private final Map<String, List<OntologyProperty>> propertiesByIntent;
+    private final Map<String, List<Relationship>> relationshipsByIntent;
+    private final Map<String, Set<Concept>> conceptAndAllChildren;
+    private final Map<String, Set<String>> conceptAndAllChildrenIris;
+    private final Map<String, List<Concept>> conceptAndAllParents;
+    private final Map<String, Set<Relationship>> relationshipAndAllChildren;
+    private final Map<String, Set<String>> relationshipAndAllChildrenIris;
+    private final Map<String, Set<Concept>> conceptsByPropertyIri;
+    private final Map<String, Set<Relationship>> relationshipsByPropertyIri;
+    private final Map<String, OntologyProperty> dependentPropertyParents;
+    private volatile ClientApiOntology clientApiObject;
+
+    OntologySnapshot(
+            int version,
+            Iterable<Concept> concepts,
+            Iterable<OntologyProperty> properties,
+            Iterable<Relationship> relationships
+    ) {
+        this.version = version;
+        this.conceptsByIri = indexByIri(concepts, Concept::getIRI);
+        this.propertiesByIri = indexByIri(properties, OntologyProperty::getTitle);
+        this.relationshipsByIri = indexByIri(relationships, Relationship::getIRI);
+        this.conceptsByIntent = indexByIntent(conceptsByIri.values(), Concept::getIntents);
+        this.propertiesByIntent = indexByIntent(propertiesByIri.values(), OntologyProperty::getIntents);
+        this.relationshipsByIntent = indexByIntent(relationshipsByIri.values(), Relationship::getIntents);
+
+        Map<String, List<Concept>> childConcepts = indexChildren(conceptsByIri.values(), Concept::getParentConceptIRI);
+        this.conceptAndAllChildren = indexAndAllChildren(conceptsByIri, childConcepts, Concept::getIRI);
+        this.conceptAndAllChildrenIris = toIris(conceptAndAllChildren, Concept::getIRI);
+        this.conceptAndAllParents = indexConceptAndAllParents(conceptsByIri);
+
+        Map<String, List<Relationship>> childRelationships = indexChildren(relationshipsByIri.values(), Relationship::getParentIRI);
+        this.relationshipAndAllChildren = indexAndAllChildren(relationshipsByIri, childRelationships, Relationship::getIRI);
+        this.relationshipAndAllChildrenIris = toIris(relationshipAndAllChildren, Relationship::getIRI);
+
+        this.conceptsByPropertyIri = indexByPropertyIri(conceptsByIri.values(), Concept::getProperties);
+        this.relationshipsByPropertyIri = indexByPropertyIri(relationshipsByIri.values(), Relationship::getProperties);
+        this.dependentPropertyParents = indexDependentPropertyParents(propertiesByIri.values());
+    }
+
+    private static <T> Map<String, T> indexByIri(Iterable<T> items, Function<T, String> getIri) {
+        // the first item wins to match the linear scans this replaces
+        Map<String, T> results = new LinkedHashMap<>();
+        for (T item : items) {
+            results.putIfAbsent(getIri.apply(item), item);
+        }
+        return Collections.unmodifiableMap(results);
+    }
+
+    private static <T> Map<String, List<T>> indexByIntent(Collection<T> items, Function<T, String[]> getIntents) {
+        Map<String, List<T>> results = new HashMap<>();
+        for (T item : items) {
+            String[] intents = getIntents.apply(item);
+            if (intents == null) {
+                continue;
+            }
+            for (String intent : intents) {
+                List<T> list = results.computeIfAbsent(intent, k -> new ArrayList<>());
+                if (!list.contains(item)) {
+                    list.add(item);
+                }
+            }
+        }
+        return freezeLists(results);
+    }
+
+    private static <T> Map<String, List<T>> indexChildren(Collection<T> items, Function<T, String> getParentIri) {
+        Map<String, List<T>> results = new HashMap<>();
+        for (T item : items) {
+            String parentIri = getParentIri.apply(item);
+            if (parentIri != null) {
+                results.computeIfAbsent(parentIri, k -> new ArrayList<>()).add(item);
+            }
+        }
+        return results;
+    }
+
+    private static <T> Map<String, Set<T>> indexAndAllChildren(
+            Map<String, T> itemsByIri,
+            Map<String, List<T>> children,
+            Function<T, String> getIri
+    ) {
+        Map<String, Set<T>> results = new HashMap<>();
+        for (T item : itemsByIri.values()) {
+            Set<T> itemAndAllChildren = new LinkedHashSet<>();
+            Deque<T> pending = new ArrayDeque<>();
+            pending.add(item);
+            while (!pending.isEmpty()) {
+                T next = pending.poll();
+                if (itemAndAllChildren.add(next)) {
+                    pending.addAll(children.getOrDefault(getIri.apply(next), Collections.emptyList()));
+                }
+            }
+            results.put(getIri.apply(item), ImmutableSet.copyOf(itemAndAllChildren));
+        }
+        return ImmutableMap.copyOf(results);
+    }
+
+    private static <T> Map<String, Set<String>> toIris(Map<String, Set<T>> itemsByIri, Function<T, String> getIri) {
+        Map<String, Set<String>> results = new HashMap<>();
+        for (Map.Entry<String, Set<T>> entry : itemsByIri.entrySet()) {
+            ImmutableSet.Builder<String> iris = ImmutableSet.builder();
+            for (T item : entry.getValue()) {
+                iris.add(getIri.apply(item));
+            }
+            results.put(entry.getKey(), iris.build());
+        }
+        return ImmutableMap.copyOf(results);
+    }
+
+    private static Map<String, List<Concept>> indexConceptAndAllParents(Map<String, Concept> conceptsByIri) {
+        Map<String, List<Concept>> results = new HashMap<>();
+        for (Concept concept : conceptsByIri.values()) {
+            List<Concept> conceptAndAllParents = new ArrayList<>();
+            Set<String> seen = new HashSet<>();
+            for (Concept c = concept; c != null && seen.add(c.getIRI()); ) {
+                conceptAndAllParents.add(c);
+                String parentIri = c.getParentConceptIRI();
+                c = parentIri == null ? null : conceptsByIri.get(parentIri);
+            }
+            results.put(concept.getIRI(), ImmutableList.copyOf(conceptAndAllParents));
+        }
+        return ImmutableMap.copyOf(results);
+    }
+
+    private static <T> Map<String, Set<T>> indexByPropertyIri(
+            Collection<T> items,
+            Function<T, Collection<OntologyProperty>> getProperties
+    ) {
+        Map<String, Set<T>> results = new HashMap<>();
+        for (T item : items) {
+            Collection<OntologyProperty> properties = getProperties.apply(item);
+            if (properties == null) {
+                continue;
+            }
+            for (OntologyProperty property : properties) {
+                results.computeIfAbsent(property.getTitle(), k -> new LinkedHashSet<>()).add(item);
+            }
+        }
+        Map<String, Set<T>> frozen = new HashMap<>();
+        for (Map.Entry<String, Set<T>> entry : results.entrySet()) {
+            frozen.put(entry.getKey(), ImmutableSet.copyOf(entry.getValue()));
+        }
+        return ImmutableMap.copyOf(frozen);
+    }
+
+    private static Map<String, OntologyProperty> indexDependentPropertyParents(Collection<OntologyProperty> properties) {
+        Map<String, OntologyProperty> results = new HashMap<>();
+        for (OntologyProperty property : properties) {
+            List<String> dependentPropertyIris = property.getDependentPropertyIris();
+            if (dependentPropertyIris == null) {
+                continue;
+            }
+            for (String dependentPropertyIri : dependentPropertyIris) {
+                results.putIfAbsent(dependentPropertyIri, property);
+            }
+        }
+        return Collections.unmodifiableMap(results);
+    }
+
+    private static <T> Map<String, List<T>> freezeLists(Map<String, List<T>> map) {
+        Map<String, List<T>> results = new HashMap<>();
+        for (Map.Entry<String, List<T>> entry : map.entrySet()) {
+            results.put(entry.getKey(), ImmutableList.copyOf(entry.getValue()));
+        }
+        return ImmutableMap.copyOf(results);
+    }
+
+    int getVersion() {
+        return version;
+    }
+
+    Concept getConceptByIri(String iri) {
+        return iri == null ? null : conceptsByIri.get(iri);
+    }
+
+    OntologyProperty getPropertyByIri(String iri) {
+        return iri == null ? null : propertiesByIri.get(iri);
+    }
+
+    Relationship getRelationshipByIri(String iri) {
+        return iri == null ? null : relationshipsByIri.get(iri);
+    }
+
+    List<Concept> getConceptsByIntent(String intent) {
+        return conceptsByIntent.getOrDefault(intent, Collections.emptyList());
+    }
+
+    List<OntologyProperty> getPropertiesByIntent(String intent) {
+        return propertiesByIntent.getOrDefault(intent, Collections.emptyList());
+    }
+
+    List<Relationship> getRelationshipsByIntent(String intent) {
+        return relationshipsByIntent.getOrDefault(intent, Collections.emptyList());
+    }
+
+    /**
+     * @return null if the concept is not part of this snapshot.
+     */
+    Set<Concept> getConceptAndAllChildren(String iri) {
+        return conceptAndAllChildren.get(iri);
+    }
+
+    Set<String> getConceptAndAllChildrenIris(String iri) {
+        return conceptAndAllChildrenIris.get(iri);
+    }
+
+    /**
+     * @return the concept followed by its parents, nearest first, or null if the concept is not part of this snapshot.
+     */
+    List<Concept> getConceptAndAllParents(String iri) {
+        return conceptAndAllParents.get(iri);
+    }
+
+    Set<Relationship> getRelationshipAndAllChildren(String iri) {
+        return relationshipAndAllChildren.get(iri);
+    }
+
+    Set<String> getRelationshipAndAllChildrenIris(String iri) {
+        return relationshipAndAllChildrenIris.get(iri);
+    }
+
+    Set<Concept> getConceptsWithProperty(String propertyIri) {
+        return conceptsByPropertyIri.getOrDefault(propertyIri, Collections.emptySet());
+    }
+
+    Set<Relationship> getRelationshipsWithProperty(String propertyIri) {
+        return relationshipsByPropertyIri.getOrDefault(propertyIri, Collections.emptySet());
+    }
+
+    OntologyProperty getDependentPropertyParent(String iri) {
+        return dependentPropertyParents.get(iri);
+    }
+
+    /**
+     * @return null until {@link #setClientApiObject(ClientApiOntology)} is called.
+     */
+    ClientApiOntology getClientApiObject() {
+        return clientApiObject;
+    }
+
+    void setClientApiObject(ClientApiOntology clientApiObject) {
+        this.clientApiObject = clientApiObject;
+    }
+}
@@ -1,5 +1,6 @@
 package org.visallo.core.model.search;
 
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import org.vertexium.*;
@@ -8,10 +9,14 @@ import org.visallo.core.model.ontology.OntologyRepository;
 import org.visallo.core.model.properties.VisalloProperties;
 import org.visallo.core.user.User;
 import org.visallo.core.util.ClientApiConverter;
+import org.visallo.core.util.VertexiumUtil;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class VertexFindRelatedSearchRunner extends SearchRunner {
@@ -71,27 +76,53 @@ public class VertexFindRelatedSearchRunner extends SearchRunner {
             long maxVerticesToReturn,
             Authorizations authorizations
     ) {
-        Set<String> visitedIds = new HashSet<>();
-        long count = visitedIds.size();
+        // only ids are read from the edge refs, vertices are loaded in batches below
+        Set<String> relatedVertexIds = new LinkedHashSet<>();
         Iterable<Vertex> vertices = graph.getVertices(Lists.newArrayList(graphVertexIds), FetchHint.EDGE_REFS, authorizations);
-        List<Vertex> elements = new ArrayList<>();
         for (Vertex v : vertices) {
-            Iterable<Vertex> relatedVertices = v.getVertices(Direction.BOTH, limitEdgeLabel, ClientApiConverter.SEARCH_FETCH_HINTS, authorizations);
-            for (Vertex vertex : relatedVertices) {
-                if (!visitedIds.add(vertex.getId())) {
-                    continue;
-                }
-                if (limitConceptIds.size() == 0 || !isLimited(vertex, limitConceptIds)) {
-                    if (count < maxVerticesToReturn) {
-                        elements.add(vertex);
-                    }
-                    count++;
-                }
-            }
+            Iterables.addAll(relatedVertexIds, v.getVertexIds(Direction.BOTH, limitEdgeLabel, authorizations));
         }
+
+        List<String> matchingVertexIds = limitConceptIds.size() == 0
+                ? getVisibleVertexIds(relatedVertexIds, authorizations)
+                : getVertexIdsWithConcept(relatedVertexIds, limitConceptIds, authorizations);
+        long count = matchingVertexIds.size();
+        List<String> vertexIdsToReturn = matchingVertexIds.subList(0, (int) Math.max(0, Math.min(count, maxVerticesToReturn)));
+        List<Vertex> elements = VertexiumUtil.getVerticesInOrder(
+                graph,
+                vertexIdsToReturn,
+                ClientApiConverter.SEARCH_FETCH_HINTS,
+                authorizations
+        );
         return new VertexFindRelatedSearchResults(elements, count);
     }
 
+    private List<String> getVisibleVertexIds(Set<String> vertexIds, Authorizations authorizations) {
+        List<String> results = new ArrayList<>();
+        if (vertexIds.isEmpty()) {
+            return results;
+        }
+        Map<String, Boolean> exists = graph.doVerticesExist(new ArrayList<>(vertexIds), authorizations);
+        for (String vertexId : vertexIds) {
+            if (Boolean.TRUE.equals(exists.get(vertexId))) {
+                results.add(vertexId);
+            }
+        }
+        return results;
+    }
+
+    private List<String> getVertexIdsWithConcept(Set<String> vertexIds, Set<String> limitConceptIds, Authorizations authorizations) {
+        Map<String, Vertex> verticesById = VertexiumUtil.getVerticesById(graph, vertexIds, EnumSet.of(FetchHint.PROPERTIES), authorizations);
+        List<String> results = new ArrayList<>();
+        for (String vertexId : vertexIds) {
+            Vertex vertex = verticesById.get(vertexId);
+            if (vertex != null && !isLimited(vertex, limitConceptIds)) {
+                results.add(vertexId);
+            }
+        }
+        return results;
+    }
+
     private boolean isLimited(Vertex vertex, Set<String> limitConceptIds) {
         String conceptId = VisalloProperties.CONCEPT_TYPE.getPropertyValue(vertex);
         return !limitConceptIds.contains(conceptId);
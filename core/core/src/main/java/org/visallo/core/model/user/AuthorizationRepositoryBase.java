@@ -1,27 +1,51 @@
 package org.visallo.core.model.user;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Inject;
 import org.vertexium.Graph;
 import org.visallo.core.bootstrap.InjectHelper;
+import org.visallo.core.status.MetricsManager;
 import org.visallo.core.user.User;
 
-import java.util.Collections;
 import java.util.Set;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 public abstract class AuthorizationRepositoryBase implements AuthorizationRepository {
     private final Graph graph;
+    private final PerUserCache<org.vertexium.Authorizations> graphAuthorizationsCache = new PerUserCache<>();
     private UserRepository userRepository;
 
     protected AuthorizationRepositoryBase(Graph graph) {
         this.graph = graph;
     }
 
+    @Inject(optional = true)
+    public final void setMetricsManager(MetricsManager metricsManager) {
+        registerMetrics(metricsManager, metricsManager.getNamePrefix(this));
+    }
+
+    protected void registerMetrics(MetricsManager metricsManager, String namePrefix) {
+        graphAuthorizationsCache.registerMetrics(metricsManager, namePrefix + "graph-authorizations-cache.");
+    }
+
+    /**
+     * The returned authorizations are shared between calls with the same user authorizations and additional
+     * authorizations.
+     */
     public org.vertexium.Authorizations getGraphAuthorizations(User user, String... additionalAuthorizations) {
         checkNotNull(user, "User cannot be null");
         Set<String> userAuthorizations = getAuthorizations(user);
-        Collections.addAll(userAuthorizations, additionalAuthorizations);
-        return graph.createAuthorizations(userAuthorizations);
+        GraphAuthorizationsKey key = new GraphAuthorizationsKey(userAuthorizations, additionalAuthorizations);
+        return graphAuthorizationsCache.get(user.getUserId(), key, () -> graph.createAuthorizations(key.getAll()));
+    }
+
+    /**
+     * Frees the cached graph authorizations of the user, call when the user's authorizations change.
+     */
+    protected void invalidateCachedAuthorizations(User user) {
+        graphAuthorizationsCache.invalidate(user.getUserId());
     }
 
     // Need to late bind since UserRepository injects AuthorizationRepository in constructor
@@ -31,4 +55,39 @@ public abstract class AuthorizationRepositoryBase implements AuthorizationReposi
         }
         return userRepository;
     }
+
+    private static class GraphAuthorizationsKey {
+        private final Set<String> userAuthorizations;
+        private final ImmutableList<String> additionalAuthorizations;
+
+        private GraphAuthorizationsKey(Set<String> userAuthorizations, String[] additionalAuthorizations) {
+            this.userAuthorizations = ImmutableSet.copyOf(userAuthorizations);
+            this.additionalAuthorizations = ImmutableList.copyOf(additionalAuthorizations);
+        }
+
+        private Set<String> getAll() {
+            return ImmutableSet.<String>builder()
+                    .addAll(userAuthorizations)
+                    .addAll(additionalAuthorizations)
+                    .build();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            GraphAuthorizationsKey other = (GraphAuthorizationsKey) o;
+            return userAuthorizations.equals(other.userAuthorizations)
+                    && additionalAuthorizations.equals(other.additionalAuthorizations);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * userAuthorizations.hashCode() + additionalAuthorizations.hashCode();
+        }
+    }
 }
@@ -0,0 +1,80 @@
+package org.visallo.core.model.user;
+
+import com.codahale.metrics.Gauge;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.visallo.core.status.MetricsManager;
+
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of values derived from a user, such as parsed privileges or graph authorizations. The key must
+ * include everything the value is derived from, so a changed user property can never return a stale value.
+ * {@link #invalidate(String)} only frees the entries of a user once they are known to be unused.
+ */
+class PerUserCache<V> {
+    private static final long DEFAULT_MAXIMUM_SIZE = 10000;
+    private final Cache<Key, V> cache;
+
+    PerUserCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    PerUserCache(long maximumSize) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    V get(String userId, Object key, Supplier<V> loader) {
+        if (userId == null) {
+            return loader.get();
+        }
+        Key cacheKey = new Key(userId, key);
+        V value = cache.getIfPresent(cacheKey);
+        if (value == null) {
+            value = loader.get();
+            if (value != null) {
+                cache.put(cacheKey, value);
+            }
+        }
+        return value;
+    }
+
+    void invalidate(String userId) {
+        cache.asMap().keySet().removeIf(key -> key.userId.equals(userId));
+    }
+
+    void registerMetrics(MetricsManager metricsManager, String namePrefix) {
+        metricsManager.gauge(namePrefix + "hit-rate", (Gauge<Double>) () -> cache.stats().hitRate());
+        metricsManager.gauge(namePrefix + "size", (Gauge<Long>) cache::size);
+    }
+
+    private static class Key {
+        private final String userId;
+        private final Object key;
+
+        private Key(String userId, Object key) {
+            this.userId = userId;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key other = (Key) o;
+            return userId.equals(other.userId) && (key == null ? other.key == null : key.equals(other.key));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * userId.hashCode() + (key == null ? 0 : key.hashCode());
+        }
+    }
+}
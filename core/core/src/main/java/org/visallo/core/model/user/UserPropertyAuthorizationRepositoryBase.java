@@ -3,7 +3,6 @@ package org.visallo.core.model.user;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
 import org.json.JSONObject;
 import org.vertexium.Graph;
 import org.vertexium.TextIndexHint;
@@ -17,6 +16,7 @@ import org.visallo.core.model.ontology.OntologyPropertyDefinition;
 import org.visallo.core.model.ontology.OntologyRepository;
 import org.visallo.core.model.workQueue.WorkQueueRepository;
 import org.visallo.core.security.VisalloVisibility;
+import org.visallo.core.status.MetricsManager;
 import org.visallo.core.user.SystemUser;
 import org.visallo.core.user.User;
 import org.visallo.core.util.VisalloLogger;
@@ -32,6 +32,8 @@ public abstract class UserPropertyAuthorizationRepositoryBase extends Authorizat
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(UserPropertyAuthorizationRepositoryBase.class);
     public static final String AUTHORIZATIONS_PROPERTY_IRI = "http://visallo.org/user#authorizations";
     private static final String SEPARATOR = ",";
+    private static final Set<String> SYSTEM_USER_AUTHORIZATIONS = ImmutableSet.of(VisalloVisibility.SUPER_USER_VISIBILITY_STRING);
+    private final PerUserCache<Set<String>> authorizationsCache = new PerUserCache<>();
     private final Configuration configuration;
     private final UserNotificationRepository userNotificationRepository;
     private final WorkQueueRepository workQueueRepository;
@@ -81,17 +83,34 @@ public abstract class UserPropertyAuthorizationRepositoryBase extends Authorizat
     public void updateUser(User user, AuthorizationContext authorizationContext) {
     }
 
+    /**
+     * @return an immutable set, parsed once per distinct value of the user's authorizations property.
+     */
     @Override
     public Set<String> getAuthorizations(User user) {
         if (user instanceof SystemUser) {
-            return Sets.newHashSet(VisalloVisibility.SUPER_USER_VISIBILITY_STRING);
+            return SYSTEM_USER_AUTHORIZATIONS;
         }
-        HashSet<String> authSet = new HashSet<>(getDefaultAuthorizations());
         String authorizations = (String) user.getProperty(AUTHORIZATIONS_PROPERTY_IRI);
-        if (authorizations != null) {
-            authSet.addAll(parseAuthorizations(authorizations));
-        }
-        return authSet;
+        return authorizationsCache.get(user.getUserId(), authorizations, () -> {
+            ImmutableSet.Builder<String> authSet = ImmutableSet.<String>builder().addAll(getDefaultAuthorizations());
+            if (authorizations != null) {
+                authSet.addAll(parseAuthorizations(authorizations));
+            }
+            return authSet.build();
+        });
+    }
+
+    @Override
+    protected void registerMetrics(MetricsManager metricsManager, String namePrefix) {
+        super.registerMetrics(metricsManager, namePrefix);
+        authorizationsCache.registerMetrics(metricsManager, namePrefix + "authorizations-cache.");
+    }
+
+    @Override
+    protected void invalidateCachedAuthorizations(User user) {
+        super.invalidateCachedAuthorizations(user);
+        authorizationsCache.invalidate(user.getUserId());
     }
 
     protected ImmutableSet<String> getDefaultAuthorizations() {
@@ -99,7 +118,7 @@ public abstract class UserPropertyAuthorizationRepositoryBase extends Authorizat
     }
 
     protected void addAuthorization(User user, String auth, User authUser) {
-        Set<String> auths = getAuthorizations(user);
+        Set<String> auths = new HashSet<>(getAuthorizations(user));
         if (!auths.contains(auth)) {
             LOGGER.info(
                     "Adding authorization '%s' to user '%s' by '%s'",
@@ -110,13 +129,14 @@ public abstract class UserPropertyAuthorizationRepositoryBase extends Authorizat
             auths.add(auth);
             authorizationRepository.addAuthorizationToGraph(auth);
             getUserRepository().setPropertyOnUser(user, AUTHORIZATIONS_PROPERTY_IRI, Joiner.on(SEPARATOR).join(auths));
+            invalidateCachedAuthorizations(user);
             sendNotificationToUserAboutAddAuthorization(user, auth, authUser);
             fireUserAddAuthorizationEvent(user, auth);
         }
     }
 
     protected void removeAuthorization(User user, String auth, User authUser) {
-        Set<String> auths = getAuthorizations(user);
+        Set<String> auths = new HashSet<>(getAuthorizations(user));
         if (auths.contains(auth)) {
             LOGGER.info(
                     "Removing authorization '%s' to user '%s' by '%s'",
@@ -126,6 +146,7 @@ public abstract class UserPropertyAuthorizationRepositoryBase extends Authorizat
             );
             auths.remove(auth);
             getUserRepository().setPropertyOnUser(user, AUTHORIZATIONS_PROPERTY_IRI, Joiner.on(SEPARATOR).join(auths));
+            invalidateCachedAuthorizations(user);
             sendNotificationToUserAboutRemoveAuthorization(user, auth, authUser);
             fireUserRemoveAuthorizationEvent(user, auth);
         }
@@ -145,6 +166,7 @@ public abstract class UserPropertyAuthorizationRepositoryBase extends Authorizat
 
         Set<String> currentAuthorizations = getAuthorizations(user);
         getUserRepository().setPropertyOnUser(user, AUTHORIZATIONS_PROPERTY_IRI, newAuthorizationsString);
+        invalidateCachedAuthorizations(user);
 
         Set<String> addedAuthorizations = new HashSet<>(newAuthorizations);
         addedAuthorizations.removeAll(currentAuthorizations);
@@ -2,7 +2,6 @@ package org.visallo.core.model.user;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 import org.json.JSONObject;
 import org.vertexium.TextIndexHint;
@@ -18,6 +17,7 @@ import org.visallo.core.model.ontology.OntologyRepository;
 import org.visallo.core.model.user.cli.PrivilegeRepositoryCliService;
 import org.visallo.core.model.user.cli.PrivilegeRepositoryWithCliSupport;
 import org.visallo.core.model.workQueue.WorkQueueRepository;
+import org.visallo.core.status.MetricsManager;
 import org.visallo.core.user.SystemUser;
 import org.visallo.core.user.User;
 import org.visallo.core.util.VisalloLogger;
@@ -35,6 +35,7 @@ public class UserPropertyPrivilegeRepository extends PrivilegeRepositoryBase imp
     private final Configuration configuration;
     private final UserNotificationRepository userNotificationRepository;
     private final WorkQueueRepository workQueueRepository;
+    private final PerUserCache<Set<String>> privilegesCache = new PerUserCache<>();
     private Collection<UserListener> userListeners;
 
     private static class Settings {
@@ -78,16 +79,28 @@ public class UserPropertyPrivilegeRepository extends PrivilegeRepositoryBase imp
     public void updateUser(User user, AuthorizationContext authorizationContext) {
     }
 
+    /**
+     * @return an immutable set, parsed once per distinct value of the user's privileges property.
+     */
     @Override
     public Set<String> getPrivileges(User user) {
         if (user instanceof SystemUser) {
-            return Sets.newHashSet();
+            return ImmutableSet.of();
         }
         String privileges = (String) user.getProperty(PRIVILEGES_PROPERTY_IRI);
         if (privileges == null) {
-            return new HashSet<>(defaultPrivileges);
+            return defaultPrivileges;
         }
-        return Privilege.stringToPrivileges(privileges);
+        return privilegesCache.get(
+                user.getUserId(),
+                privileges,
+                () -> ImmutableSet.copyOf(Privilege.stringToPrivileges(privileges))
+        );
+    }
+
+    @Inject(optional = true)
+    public void setMetricsManager(MetricsManager metricsManager) {
+        privilegesCache.registerMetrics(metricsManager, metricsManager.getNamePrefix(this) + "privileges-cache.");
     }
 
     public void setPrivileges(User user, Set<String> privileges, User authUser) {
@@ -100,6 +113,7 @@ public class UserPropertyPrivilegeRepository extends PrivilegeRepositoryBase imp
                     authUser.getUsername()
             );
             getUserRepository().setPropertyOnUser(user, PRIVILEGES_PROPERTY_IRI, privilegesString);
+            privilegesCache.invalidate(user.getUserId());
             sendNotificationToUserAboutPrivilegeChange(user, privileges, authUser);
             fireUserPrivilegesUpdatedEvent(user, privileges);
         }
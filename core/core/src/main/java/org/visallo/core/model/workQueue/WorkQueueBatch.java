@@ -0,0 +1,242 @@
+package org.visallo.core.model.workQueue;
+
+import org.vertexium.Element;
+import org.vertexium.Property;
+import org.visallo.core.ingest.graphProperty.ElementOrPropertyStatus;
+import org.visallo.core.ingest.graphProperty.GraphPropertyMessage;
+import org.visallo.core.model.properties.types.VisalloPropertyUpdate;
+
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Collects work queue messages and broadcasts so they can be published together. When the batch is flushed the
+ * graph is flushed once, the messages are handed to {@link WorkQueueRepository#pushOnQueue(String, List, Priority)}
+ * as one list per queue and priority, and then the broadcasts are sent.
+ * <p>
+ * The batch is flushed automatically once it holds {@link #getMaxSize()} messages. Instances are not thread safe.
+ * <p>
+ * Example
+ * <pre>
+ * {@code
+ * try (WorkQueueBatch batch = workQueueRepository.createBatch()) {
+ *   for (Vertex vertex : vertices) {
+ *     batch.pushElement(vertex, Priority.NORMAL);
+ *   }
+ * }
+ * }
+ * </pre>
+ */
+public class WorkQueueBatch implements AutoCloseable {
+    public static final int DEFAULT_MAX_SIZE = 1000;
+    private final WorkQueueRepository workQueueRepository;
+    private final Map<String, Map<Priority, List<byte[]>>> messages = new LinkedHashMap<>();
+    private final List<Runnable> broadcasts = new ArrayList<>();
+    private int size;
+    private int maxSize = DEFAULT_MAX_SIZE;
+
+    WorkQueueBatch(WorkQueueRepository workQueueRepository) {
+        this.workQueueRepository = workQueueRepository;
+    }
+
+    public WorkQueueBatch pushGraphVisalloPropertyQueue(
+            Element element,
+            Iterable<VisalloPropertyUpdate> properties,
+            Priority priority
+    ) {
+        return pushGraphVisalloPropertyQueue(element, properties, null, null, priority);
+    }
+
+    public WorkQueueBatch pushGraphVisalloPropertyQueue(
+            Element element,
+            Iterable<VisalloPropertyUpdate> properties,
+            String workspaceId,
+            String visibilitySource,
+            Priority priority
+    ) {
+        checkNotNull(element);
+        broadcasts.add(() -> workQueueRepository.broadcastGraphVisalloPropertyChanges(element, properties, workspaceId, priority));
+        GraphPropertyMessage data = workQueueRepository.createGraphVisalloPropertyMessage(
+                element,
+                properties,
+                workspaceId,
+                visibilitySource,
+                priority
+        );
+        if (data != null) {
+            pushGraphPropertyMessage(data, priority);
+        }
+        return this;
+    }
+
+    public WorkQueueBatch pushGraphPropertyQueue(Element element, Property property, Priority priority) {
+        checkNotNull(property, "property cannot be null");
+        return pushGraphPropertyQueue(element, property.getKey(), property.getName(), priority);
+    }
+
+    public WorkQueueBatch pushGraphPropertyQueue(
+            Element element,
+            String propertyKey,
+            String propertyName,
+            Priority priority
+    ) {
+        return pushGraphPropertyQueue(
+                element,
+                propertyKey,
+                propertyName,
+                null,
+                null,
+                ElementOrPropertyStatus.UPDATE,
+                null,
+                priority
+        );
+    }
+
+    public WorkQueueBatch pushGraphPropertyQueue(
+            Element element,
+            String propertyKey,
+            String propertyName,
+            String workspaceId,
+            String visibilitySource,
+            Priority priority
+    ) {
+        return pushGraphPropertyQueue(
+                element,
+                propertyKey,
+                propertyName,
+                workspaceId,
+                visibilitySource,
+                ElementOrPropertyStatus.UPDATE,
+                null,
+                priority
+        );
+    }
+
+    public WorkQueueBatch pushGraphPropertyQueue(
+            Element element,
+            String propertyKey,
+            String propertyName,
+            String workspaceId,
+            String visibilitySource,
+            ElementOrPropertyStatus status,
+            Long beforeActionTimestamp,
+            Priority priority
+    ) {
+        checkNotNull(element);
+        GraphPropertyMessage data = workQueueRepository.createGraphPropertyMessage(
+                element,
+                propertyKey,
+                propertyName,
+                workspaceId,
+                visibilitySource,
+                status,
+                beforeActionTimestamp,
+                priority
+        );
+        if (data != null) {
+            pushGraphPropertyMessage(data, priority);
+        }
+        broadcasts.add(() -> workQueueRepository.broadcastGraphPropertyChange(element, propertyKey, propertyName, workspaceId, priority));
+        return this;
+    }
+
+    public WorkQueueBatch pushElement(Element element, Priority priority) {
+        return pushGraphPropertyQueue(element, null, null, priority);
+    }
+
+    /**
+     * Adds a single message containing all of the elements, the same as
+     * {@link WorkQueueRepository#pushElements(Iterable, Priority)}.
+     */
+    public WorkQueueBatch pushElements(Iterable<? extends Element> elements, Priority priority) {
+        checkNotNull(elements);
+        GraphPropertyMessage data = workQueueRepository.createMultipleGraphPropertyMessage(
+                elements,
+                null,
+                null,
+                null,
+                null,
+                ElementOrPropertyStatus.UPDATE,
+                null,
+                priority
+        );
+        if (data != null) {
+            pushGraphPropertyMessage(data, priority);
+        }
+        for (Element element : elements) {
+            broadcasts.add(() -> workQueueRepository.broadcastGraphPropertyChange(element, null, null, null, priority));
+        }
+        return this;
+    }
+
+    public WorkQueueBatch broadcastElement(Element element, String workspaceId) {
+        broadcasts.add(() -> workQueueRepository.broadcastElement(element, workspaceId));
+        return this;
+    }
+
+    public WorkQueueBatch pushOnQueue(String queueName, byte[] data, Priority priority) {
+        messages.computeIfAbsent(queueName, k -> new LinkedHashMap<>())
+                .computeIfAbsent(priority, k -> new ArrayList<>())
+                .add(data);
+        size++;
+        if (size >= maxSize) {
+            flush();
+        }
+        return this;
+    }
+
+    private void pushGraphPropertyMessage(GraphPropertyMessage data, Priority priority) {
+        pushOnQueue(workQueueRepository.getWorkQueueNames().getGraphPropertyQueueName(), workQueueRepository.toBytes(data), priority);
+    }
+
+    /**
+     * Flushes the graph, publishes the collected messages and sends the collected broadcasts.
+     */
+    public void flush() {
+        if (size > 0) {
+            Map<String, Map<Priority, List<byte[]>>> pendingMessages = new LinkedHashMap<>(messages);
+            messages.clear();
+            size = 0;
+
+            workQueueRepository.getGraph().flush();
+            for (Map.Entry<String, Map<Priority, List<byte[]>>> queue : pendingMessages.entrySet()) {
+                for (Map.Entry<Priority, List<byte[]>> priorityMessages : queue.getValue().entrySet()) {
+                    workQueueRepository.pushOnQueue(queue.getKey(), priorityMessages.getValue(), priorityMessages.getKey());
+                }
+            }
+        }
+
+        if (broadcasts.size() > 0) {
+            List<Runnable> pendingBroadcasts = new ArrayList<>(broadcasts);
+            broadcasts.clear();
+            for (Runnable broadcast : pendingBroadcasts) {
+                broadcast.run();
+            }
+        }
+    }
+
+    /**
+     * The number of messages waiting to be published.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Sets the number of messages to collect before the batch is flushed automatically.
+     */
+    public WorkQueueBatch setMaxSize(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+        return this;
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+}
@@ -38,6 +38,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 public abstract class WorkQueueRepository {
     protected static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(WorkQueueRepository.class);
+    public static final String GRAPH_PROPERTY_MESSAGE_FORMAT = WorkQueueRepository.class.getName() + ".graphPropertyMessageFormat";
     private final Configuration configuration;
     private final WorkQueueNames workQueueNames;
     private final Graph graph;
@@ -45,6 +46,7 @@ public abstract class WorkQueueRepository {
     private AuthorizationRepository authorizationRepository;
     private WorkspaceRepository workspaceRepository;
     private UserRepository userRepository;
+    private final GraphPropertyMessage.Format graphPropertyMessageFormat;
 
     protected WorkQueueRepository(
             Graph graph,
@@ -54,6 +56,26 @@ public abstract class WorkQueueRepository {
         this.graph = graph;
         this.workQueueNames = workQueueNames;
         this.configuration = configuration;
+        this.graphPropertyMessageFormat = getGraphPropertyMessageFormat(configuration);
+    }
+
+    private static GraphPropertyMessage.Format getGraphPropertyMessageFormat(Configuration configuration) {
+        String format = configuration == null ? null : configuration.get(GRAPH_PROPERTY_MESSAGE_FORMAT, null);
+        if (format == null) {
+            return GraphPropertyMessage.Format.JSON;
+        }
+        try {
+            return GraphPropertyMessage.Format.valueOf(format.trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            throw new VisalloException("Invalid " + GRAPH_PROPERTY_MESSAGE_FORMAT + ": " + format, ex);
+        }
+    }
+
+    /**
+     * Serializes the message using the configured {@link #GRAPH_PROPERTY_MESSAGE_FORMAT}.
+     */
+    protected byte[] toBytes(GraphPropertyMessage message) {
+        return message.toBytes(graphPropertyMessageFormat);
     }
 
     public void pushGraphPropertyQueue(Element element, Property property, Priority priority) {
@@ -87,6 +109,34 @@ public abstract class WorkQueueRepository {
             String workspaceId,
             String visibilitySource,
             Priority priority
+    ) {
+        broadcastGraphVisalloPropertyChanges(element, properties, workspaceId, priority);
+
+        GraphPropertyMessage data = createGraphVisalloPropertyMessage(
+                element,
+                properties,
+                workspaceId,
+                visibilitySource,
+                priority
+        );
+        if (data != null) {
+            pushOnQueue(workQueueNames.getGraphPropertyQueueName(), toBytes(data), priority);
+        }
+    }
+
+    /**
+     * Creates a batch which collects messages and broadcasts until it is flushed or closed.
+     */
+    public WorkQueueBatch createBatch() {
+        return new WorkQueueBatch(this);
+    }
+
+    GraphPropertyMessage createGraphVisalloPropertyMessage(
+            Element element,
+            Iterable<VisalloPropertyUpdate> properties,
+            String workspaceId,
+            String visibilitySource,
+            Priority priority
     ) {
         GraphPropertyMessage data = new GraphPropertyMessage();
         data.setPriority(priority);
@@ -95,11 +145,6 @@ public abstract class WorkQueueRepository {
         for (VisalloPropertyUpdate propertyUpdate : properties) {
             String propertyKey = propertyUpdate.getPropertyKey();
             String propertyName = propertyUpdate.getPropertyName();
-
-            if (shouldBroadcastGraphPropertyChange(element, propertyKey, propertyName, workspaceId, priority)) {
-                broadcastPropertyChange(element, propertyKey, propertyName, workspaceId);
-            }
-
             ElementOrPropertyStatus status = ElementOrPropertyStatus.getStatus(propertyUpdate);
             if (canHandle(element, propertyKey, propertyName, status)) {
                 Long beforeDeleteTimestamp = propertyUpdate instanceof VisalloPropertyUpdateRemove
@@ -114,7 +159,7 @@ public abstract class WorkQueueRepository {
             }
         }
         if (messageProperties.size() == 0) {
-            return;
+            return null;
         }
         data.setProperties(messageProperties.toArray(new GraphPropertyMessage.Property[messageProperties.size()]));
 
@@ -124,8 +169,36 @@ public abstract class WorkQueueRepository {
             data.setWorkspaceId(workspaceId);
             data.setVisibilitySource(visibilitySource);
         }
+        return data;
+    }
 
-        pushOnQueue(workQueueNames.getGraphPropertyQueueName(), data.toBytes(), priority);
+    void broadcastGraphVisalloPropertyChanges(
+            Element element,
+            Iterable<VisalloPropertyUpdate> properties,
+            String workspaceId,
+            Priority priority
+    ) {
+        for (VisalloPropertyUpdate propertyUpdate : properties) {
+            broadcastGraphPropertyChange(
+                    element,
+                    propertyUpdate.getPropertyKey(),
+                    propertyUpdate.getPropertyName(),
+                    workspaceId,
+                    priority
+            );
+        }
+    }
+
+    void broadcastGraphPropertyChange(
+            Element element,
+            String propertyKey,
+            String propertyName,
+            String workspaceId,
+            Priority priority
+    ) {
+        if (shouldBroadcastGraphPropertyChange(element, propertyKey, propertyName, workspaceId, priority)) {
+            broadcastPropertyChange(element, propertyKey, propertyName, workspaceId);
+        }
     }
 
     private void addElementTypeToJson(GraphPropertyMessage data, Element element) {
@@ -331,6 +404,35 @@ public abstract class WorkQueueRepository {
 
         getGraph().flush();
 
+        GraphPropertyMessage data = createMultipleGraphPropertyMessage(
+                elements,
+                propertyKey,
+                propertyName,
+                workspaceId,
+                visibilitySource,
+                status,
+                beforeActionTimestamp,
+                priority
+        );
+        if (data != null) {
+            pushOnQueue(workQueueNames.getGraphPropertyQueueName(), toBytes(data), priority);
+        }
+
+        for (Element element : elements) {
+            broadcastGraphPropertyChange(element, propertyKey, propertyName, workspaceId, priority);
+        }
+    }
+
+    GraphPropertyMessage createMultipleGraphPropertyMessage(
+            Iterable<? extends Element> elements,
+            String propertyKey,
+            String propertyName,
+            String workspaceId,
+            String visibilitySource,
+            ElementOrPropertyStatus status,
+            Long beforeActionTimestamp,
+            Priority priority
+    ) {
         GraphPropertyMessage data = createPropertySpecificMessage(
                 propertyKey,
                 propertyName,
@@ -356,17 +458,12 @@ public abstract class WorkQueueRepository {
                 throw new VisalloException("Unexpected element type: " + element.getClass().getName());
             }
         }
-
+        if (vertices.size() == 0 && edges.size() == 0) {
+            return null;
+        }
         data.setGraphVertexId(vertices.toArray(new String[vertices.size()]));
         data.setGraphEdgeId(edges.toArray(new String[edges.size()]));
-
-        pushOnQueue(workQueueNames.getGraphPropertyQueueName(), data.toBytes(), priority);
-
-        for (Element element : elements) {
-            if (shouldBroadcastGraphPropertyChange(element, propertyKey, propertyName, workspaceId, priority)) {
-                broadcastPropertyChange(element, propertyKey, propertyName, workspaceId);
-            }
-        }
+        return data;
     }
 
     public void pushGraphPropertyQueue(
@@ -378,30 +475,18 @@ public abstract class WorkQueueRepository {
             ElementOrPropertyStatus status,
             Long beforeDeleteTimestamp
     ) {
-        getGraph().flush();
-        checkNotNull(element);
-        String propertyKey = property.getKey();
-        String propertyName = property.getName();
-
-        GraphPropertyMessage data = createPropertySpecificMessage(
-                propertyKey,
-                propertyName,
+        checkNotNull(property, "property cannot be null");
+        pushGraphPropertyQueue(
+                element,
+                property.getKey(),
+                property.getName(),
                 workspaceId,
                 visibilitySource,
+                priority,
                 status,
                 beforeDeleteTimestamp,
-                priority
+                FlushFlag.DEFAULT
         );
-
-        addElementTypeToJson(data, element);
-
-        if (canHandle(element, property, status)) {
-            pushOnQueue(workQueueNames.getGraphPropertyQueueName(), data.toBytes(), priority);
-        }
-
-        if (shouldBroadcastGraphPropertyChange(element, propertyKey, propertyName, workspaceId, priority)) {
-            broadcastPropertyChange(element, propertyKey, propertyName, workspaceId);
-        }
     }
 
     public void pushGraphPropertyQueue(
@@ -418,7 +503,8 @@ public abstract class WorkQueueRepository {
         getGraph().flush();
         checkNotNull(element);
 
-        GraphPropertyMessage data = createPropertySpecificMessage(
+        GraphPropertyMessage data = createGraphPropertyMessage(
+                element,
                 propertyKey,
                 propertyName,
                 workspaceId,
@@ -427,16 +513,40 @@ public abstract class WorkQueueRepository {
                 beforeDeleteTimestamp,
                 priority
         );
-
-        addElementTypeToJson(data, element);
-
-        if (canHandle(element, propertyKey, propertyName, status)) {
-            pushOnQueue(workQueueNames.getGraphPropertyQueueName(), data.toBytes(), priority);
+        if (data != null) {
+            pushOnQueue(workQueueNames.getGraphPropertyQueueName(), toBytes(data), priority);
         }
 
-        if (shouldBroadcastGraphPropertyChange(element, propertyKey, propertyName, workspaceId, priority)) {
-            broadcastPropertyChange(element, propertyKey, propertyName, workspaceId);
+        broadcastGraphPropertyChange(element, propertyKey, propertyName, workspaceId, priority);
+    }
+
+    /**
+     * @return the message or null if no graph property worker can handle the element/property.
+     */
+    GraphPropertyMessage createGraphPropertyMessage(
+            Element element,
+            String propertyKey,
+            String propertyName,
+            String workspaceId,
+            String visibilitySource,
+            ElementOrPropertyStatus status,
+            Long beforeActionTimestamp,
+            Priority priority
+    ) {
+        GraphPropertyMessage data = createPropertySpecificMessage(
+                propertyKey,
+                propertyName,
+                workspaceId,
+                visibilitySource,
+                status,
+                beforeActionTimestamp,
+                priority
+        );
+        addElementTypeToJson(data, element);
+        if (!canHandle(element, propertyKey, propertyName, status)) {
+            return null;
         }
+        return data;
     }
 
     private boolean canHandle(Element element, Property property, ElementOrPropertyStatus status) {
@@ -506,7 +616,7 @@ public abstract class WorkQueueRepository {
         }
 
         if (canHandle(element, null, null)) {
-            pushOnQueue(workQueueNames.getGraphPropertyQueueName(), data.toBytes(), priority);
+            pushOnQueue(workQueueNames.getGraphPropertyQueueName(), toBytes(data), priority);
         }
     }
 
@@ -520,7 +630,7 @@ public abstract class WorkQueueRepository {
         GraphPropertyMessage data = new GraphPropertyMessage();
         data.setPriority(priority);
         data.setGraphVertexId(new String[]{vertexId});
-        pushOnQueue(workQueueNames.getGraphPropertyQueueName(), data.toBytes(), priority);
+        pushOnQueue(workQueueNames.getGraphPropertyQueueName(), toBytes(data), priority);
     }
 
     protected boolean shouldBroadcastGraphPropertyChange(
@@ -1062,6 +1172,20 @@ public abstract class WorkQueueRepository {
             Priority priority
     );
 
+    /**
+     * Pushes multiple messages on the queue. Used by {@link WorkQueueBatch}, implementations which can publish a
+     * batch of messages in a single request should override this.
+     */
+    public void pushOnQueue(
+            String queueName,
+            List<byte[]> data,
+            Priority priority
+    ) {
+        for (byte[] item : data) {
+            pushOnQueue(queueName, item, priority);
+        }
+    }
+
     public void init(Map map) {
 
     }
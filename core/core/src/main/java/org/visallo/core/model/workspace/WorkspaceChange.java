@@ -0,0 +1,81 @@
+package org.visallo.core.model.workspace;
+
+import com.v5analytics.simpleorm.Entity;
+import com.v5analytics.simpleorm.Field;
+import com.v5analytics.simpleorm.Id;
+import org.vertexium.ElementType;
+
+import java.util.Date;
+
+/**
+ * One element of a workspace that may have sandboxed changes, see {@link WorkspaceChangeIndex}. The row without an
+ * element marks that the index of the workspace has been built.
+ */
+@Entity(tableName = "workspaceChanges")
+public class WorkspaceChange {
+    @Id
+    private String id;
+
+    @Field
+    private String workspaceId;
+
+    @Field
+    private ElementType elementType;
+
+    @Field
+    private String elementId;
+
+    @Field
+    private Date changedDate;
+
+    // Used by SimpleOrm to create instance
+    @SuppressWarnings("UnusedDeclaration")
+    protected WorkspaceChange() {
+    }
+
+    WorkspaceChange(String workspaceId, ElementType elementType, String elementId, Date changedDate) {
+        this.id = createRowKey(workspaceId, elementType, elementId);
+        this.workspaceId = workspaceId;
+        this.elementType = elementType;
+        this.elementId = elementId;
+        this.changedDate = changedDate;
+    }
+
+    /**
+     * Row keys start with the workspace id so the changes of a workspace can be read with a prefix scan.
+     */
+    static String createRowKey(String workspaceId, ElementType elementType, String elementId) {
+        if (elementType == null) {
+            return getRowKeyPrefix(workspaceId);
+        }
+        return getRowKeyPrefix(workspaceId) + elementType.name() + ":" + elementId;
+    }
+
+    static String getRowKeyPrefix(String workspaceId) {
+        return workspaceId + ":";
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getWorkspaceId() {
+        return workspaceId;
+    }
+
+    public ElementType getElementType() {
+        return elementType;
+    }
+
+    public String getElementId() {
+        return elementId;
+    }
+
+    public Date getChangedDate() {
+        return changedDate;
+    }
+
+    boolean isBuiltMarker() {
+        return elementType == null;
+    }
+}
@@ -0,0 +1,220 @@
+package org.visallo.core.model.workspace;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.v5analytics.simpleorm.SimpleOrmContext;
+import com.v5analytics.simpleorm.SimpleOrmSession;
+import org.vertexium.Authorizations;
+import org.vertexium.Element;
+import org.vertexium.ElementType;
+import org.vertexium.Property;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+import org.visallo.web.clientapi.model.VisibilityJson;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.visallo.core.util.StreamUtil.stream;
+
+/**
+ * Per workspace index of the elements which may have sandboxed changes, so a workspace diff only has to look at those
+ * elements instead of every entity and edge on the workspace. Workspace membership is only checked for the indexed
+ * elements, so the cost of a diff depends on the number of changed elements rather than the size of the workspace.
+ * <p>
+ * Sandboxed writes record the changed element. Entries of elements which no longer have changes, because they were
+ * published, undone or deleted, are pruned by {@link #removeUnchanged(String, ElementType, Collection, Date)}. The
+ * index of a workspace is only used once it has been built from the graph, see
+ * {@link #rebuild(String, Iterable, Authorizations)}. Writes which bypass {@link org.visallo.core.model.graph.GraphRepository}
+ * and {@link WorkspaceHelper} are not recorded, {@link WorkspaceRepository#rebuildChangeIndex}
+ * repairs the index after them.
+ */
+@Singleton
+public class WorkspaceChangeIndex {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(WorkspaceChangeIndex.class);
+    public static final String CONFIG_ENABLED = WorkspaceChangeIndex.class.getName() + ".enabled";
+    public static final boolean CONFIG_ENABLED_DEFAULT = false;
+    private static final String VISIBILITY_STRING = "";
+    private static final long PRUNE_GRACE_PERIOD_MILLIS = 60 * 1000;
+    private final SimpleOrmSession simpleOrmSession;
+    private final boolean enabled;
+
+    @Inject
+    public WorkspaceChangeIndex(SimpleOrmSession simpleOrmSession, Configuration configuration) {
+        this.simpleOrmSession = simpleOrmSession;
+        this.enabled = configuration.getBoolean(CONFIG_ENABLED, CONFIG_ENABLED_DEFAULT);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void recordChange(String workspaceId, ElementType elementType, String elementId) {
+        if (!enabled || workspaceId == null) {
+            return;
+        }
+        simpleOrmSession.save(new WorkspaceChange(workspaceId, elementType, elementId, new Date()), VISIBILITY_STRING, getContext());
+    }
+
+    public void recordChange(String workspaceId, Element element) {
+        recordChange(workspaceId, ElementType.getTypeFromElement(element), element.getId());
+    }
+
+    /**
+     * Records the element for every workspace found in the visibility json of the element or its properties.
+     */
+    public void recordChanges(Element element) {
+        if (!enabled || element == null) {
+            return;
+        }
+        for (String workspaceId : getWorkspaceIds(element)) {
+            recordChange(workspaceId, element);
+        }
+    }
+
+    private static Set<String> getWorkspaceIds(Element element) {
+        Set<String> workspaceIds = new HashSet<>();
+        VisibilityJson visibilityJson = VisalloProperties.VISIBILITY_JSON.getPropertyValue(element);
+        if (visibilityJson != null) {
+            workspaceIds.addAll(visibilityJson.getWorkspaces());
+        }
+        for (Property property : element.getProperties()) {
+            VisibilityJson propertyVisibilityJson = VisalloProperties.VISIBILITY_JSON_METADATA.getMetadataValue(property.getMetadata(), null);
+            if (propertyVisibilityJson != null) {
+                workspaceIds.addAll(propertyVisibilityJson.getWorkspaces());
+            }
+        }
+        return workspaceIds;
+    }
+
+    /**
+     * @return the indexed changes of the workspace, or null if the index is disabled or has not been built for it yet.
+     */
+    public Changes getChanges(String workspaceId) {
+        if (!enabled) {
+            return null;
+        }
+        boolean built = false;
+        Changes changes = new Changes();
+        Iterable<WorkspaceChange> rows = simpleOrmSession.findByIdStartsWith(
+                WorkspaceChange.class,
+                WorkspaceChange.getRowKeyPrefix(workspaceId),
+                getContext()
+        );
+        for (WorkspaceChange row : rows) {
+            if (!row.getWorkspaceId().equals(workspaceId)) {
+                continue;
+            }
+            if (row.isBuiltMarker()) {
+                built = true;
+            } else if (row.getElementType() == ElementType.VERTEX) {
+                changes.vertexIds.put(row.getElementId(), row.getChangedDate());
+            } else {
+                changes.edgeIds.put(row.getElementId(), row.getChangedDate());
+            }
+        }
+        return built ? changes : null;
+    }
+
+    /**
+     * Removes the entries of elements which no longer have changes on the workspace because they were published,
+     * undone or deleted. Entries recorded shortly before or after the diff started are kept, they may belong to a
+     * mutation which had not been saved when the diff read it.
+     */
+    public void removeUnchanged(String workspaceId, ElementType elementType, Collection<String> elementIds, Date diffStartDate) {
+        if (!enabled || elementIds.isEmpty()) {
+            return;
+        }
+        Changes changes = getChanges(workspaceId);
+        if (changes == null) {
+            return;
+        }
+        Map<String, Date> changedDates = elementType == ElementType.VERTEX ? changes.vertexIds : changes.edgeIds;
+        Date pruneBeforeDate = new Date(diffStartDate.getTime() - PRUNE_GRACE_PERIOD_MILLIS);
+        for (String elementId : elementIds) {
+            Date changedDate = changedDates.get(elementId);
+            if (changedDate != null && changedDate.before(pruneBeforeDate)) {
+                simpleOrmSession.delete(
+                        WorkspaceChange.class,
+                        WorkspaceChange.createRowKey(workspaceId, elementType, elementId),
+                        getContext()
+                );
+            }
+        }
+    }
+
+    /**
+     * Records the elements with changes on the workspace and marks the index of the workspace as built. Existing
+     * entries are kept so changes recorded while the elements were read are not lost.
+     */
+    public void rebuild(String workspaceId, Iterable<? extends Element> elements, Authorizations authorizations) {
+        if (!enabled) {
+            return;
+        }
+        Date now = new Date();
+        List<WorkspaceChange> rows = new ArrayList<>();
+        for (Element element : elements) {
+            if (hasWorkspaceChanges(element, workspaceId, authorizations)) {
+                rows.add(new WorkspaceChange(workspaceId, ElementType.getTypeFromElement(element), element.getId(), now));
+            }
+        }
+        rows.add(new WorkspaceChange(workspaceId, null, null, now));
+        simpleOrmSession.saveMany(rows, VISIBILITY_STRING, getContext());
+        LOGGER.debug("rebuilt change index of workspace %s (%d elements)", workspaceId, rows.size() - 1);
+    }
+
+    /**
+     * True if the element or one of its properties is sandboxed in, or hidden by, the workspace. The element must be
+     * fetched including hidden properties with authorizations which can read every sandboxed property.
+     */
+    public static boolean hasWorkspaceChanges(Element element, String workspaceId, Authorizations authorizations) {
+        if (getWorkspaceIds(element).contains(workspaceId) || element.isHidden(authorizations)) {
+            return true;
+        }
+        for (Property property : element.getProperties()) {
+            if (property.isHidden(authorizations)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes all entries of the workspace, the next diff of the workspace does a full scan and rebuilds the index.
+     */
+    public void clear(String workspaceId) {
+        if (!enabled) {
+            return;
+        }
+        List<String> rowKeys = stream(simpleOrmSession.findByIdStartsWith(
+                WorkspaceChange.class,
+                WorkspaceChange.getRowKeyPrefix(workspaceId),
+                getContext()
+        ))
+                .filter(row -> row.getWorkspaceId().equals(workspaceId))
+                .map(WorkspaceChange::getId)
+                .collect(Collectors.toList());
+        for (String rowKey : rowKeys) {
+            simpleOrmSession.delete(WorkspaceChange.class, rowKey, getContext());
+        }
+    }
+
+    private SimpleOrmContext getContext() {
+        return simpleOrmSession.createContext();
+    }
+
+    public static class Changes {
+        private final Map<String, Date> vertexIds = new HashMap<>();
+        private final Map<String, Date> edgeIds = new HashMap<>();
+
+        public Set<String> getVertexIds() {
+            return vertexIds.keySet();
+        }
+
+        public Set<String> getEdgeIds() {
+            return edgeIds.keySet();
+        }
+    }
+}
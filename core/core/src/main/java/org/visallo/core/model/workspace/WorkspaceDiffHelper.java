@@ -1,12 +1,16 @@
 package org.visallo.core.model.workspace;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
+import org.slf4j.MDC;
 import org.vertexium.*;
+import org.visallo.core.exception.VisalloException;
 import org.visallo.core.formula.FormulaEvaluator;
 import org.visallo.core.model.properties.VisalloProperties;
 import org.visallo.core.model.user.AuthorizationRepository;
 import org.visallo.core.model.user.UserRepository;
+import org.visallo.core.trace.Trace;
 import org.visallo.core.trace.Traced;
 import org.visallo.core.user.User;
 import org.visallo.core.util.JSONUtil;
@@ -16,11 +20,28 @@ import org.visallo.web.clientapi.model.ClientApiWorkspaceDiff;
 import org.visallo.web.clientapi.model.SandboxStatus;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.vertexium.util.IterableUtils.toList;
 
 public class WorkspaceDiffHelper {
+    private static final int DIFF_CHUNK_SIZE = 250;
+    private static final int DIFF_THREADS = Runtime.getRuntime().availableProcessors();
+    private static final AtomicInteger diffThreadCount = new AtomicInteger();
+    private static final ExecutorService diffExecutor = Executors.newFixedThreadPool(
+            DIFF_THREADS,
+            WorkspaceDiffHelper::createDiffThread
+    );
     private final Graph graph;
     private final UserRepository userRepository;
     private final AuthorizationRepository authorizationRepository;
@@ -53,27 +74,101 @@ public class WorkspaceDiffHelper {
                 workspace.getWorkspaceId()
         );
 
+        List<Vertex> entityVertices = getEntityVertices(workspaceEntities, authorizations);
+        List<EntityDiff> entityDiffs = diffInChunks(
+                workspace,
+                entityVertices,
+                vertex -> diffEntityVertex(workspace, vertex, authorizations)
+        );
+
+        List<Vertex> verticesNeedingTitles = entityDiffs.stream()
+                .filter(EntityDiff::hasVertexItem)
+                .map(entityDiff -> entityDiff.vertex)
+                .collect(Collectors.toList());
+        Iterator<String> titles = formulaEvaluator.evaluateTitleFormulas(verticesNeedingTitles, userContext, null).iterator();
+
         ClientApiWorkspaceDiff result = new ClientApiWorkspaceDiff();
-        for (WorkspaceEntity workspaceEntity : workspaceEntities) {
-            List<ClientApiWorkspaceDiff.Item> entityDiffs = diffWorkspaceEntity(
-                    workspace,
-                    workspaceEntity,
-                    userContext,
-                    authorizations
-            );
-            if (entityDiffs != null) {
-                result.addAll(entityDiffs);
+        for (EntityDiff entityDiff : entityDiffs) {
+            if (entityDiff.hasVertexItem()) {
+                result.getDiffs().add(createWorkspaceDiffVertexItem(
+                        entityDiff.vertex,
+                        titles.next(),
+                        entityDiff.sandboxStatus,
+                        entityDiff.isPublicDelete
+                ));
             }
+            result.addAll(entityDiff.propertyItems);
+        }
+
+        diffInChunks(workspace, toList(workspaceEdges), edge -> diffEdge(workspace, edge, authorizations))
+                .forEach(result::addAll);
+
+        return result;
+    }
+
+    /**
+     * Diffs the items in chunks on the diff threads and returns the results in the order of the items. The logging
+     * context and tracing of the calling thread are carried over to the diff threads.
+     */
+    private <T, R> List<R> diffInChunks(Workspace workspace, List<T> items, Function<T, R> diff) {
+        List<List<T>> chunks = Lists.partition(items, DIFF_CHUNK_SIZE);
+        if (chunks.size() <= 1) {
+            return items.stream().map(diff).collect(Collectors.toList());
+        }
+
+        Map<String, String> loggingContext = MDC.getCopyOfContextMap();
+        boolean traceEnabled = Trace.isEnabled();
+        List<Future<List<R>>> futures = new ArrayList<>(chunks.size());
+        for (List<T> chunk : chunks) {
+            futures.add(diffExecutor.submit(() -> diffChunk(workspace, chunk, diff, loggingContext, traceEnabled)));
         }
 
-        for (Edge workspaceEdge : workspaceEdges) {
-            List<ClientApiWorkspaceDiff.Item> entityDiffs = diffEdge(workspace, workspaceEdge, authorizations);
-            if (entityDiffs != null) {
-                result.addAll(entityDiffs);
+        List<R> results = new ArrayList<>(items.size());
+        try {
+            for (Future<List<R>> future : futures) {
+                results.addAll(future.get());
             }
+        } catch (InterruptedException ex) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new VisalloException("Interrupted while diffing workspace " + workspace.getWorkspaceId(), ex);
+        } catch (ExecutionException ex) {
+            futures.forEach(future -> future.cancel(true));
+            throw new VisalloException("Could not diff workspace " + workspace.getWorkspaceId(), ex.getCause());
         }
+        return results;
+    }
 
-        return result;
+    private static <T, R> List<R> diffChunk(
+            Workspace workspace,
+            List<T> chunk,
+            Function<T, R> diff,
+            Map<String, String> loggingContext,
+            boolean traceEnabled
+    ) {
+        if (loggingContext != null) {
+            MDC.setContextMap(loggingContext);
+        }
+        if (traceEnabled) {
+            Map<String, String> data = new HashMap<>();
+            data.put("workspaceId", workspace.getWorkspaceId());
+            data.put("size", Integer.toString(chunk.size()));
+            Trace.on("workspace diff chunk", data);
+        }
+        try {
+            return chunk.stream().map(diff).collect(Collectors.toList());
+        } finally {
+            if (traceEnabled) {
+                Trace.off();
+            }
+            MDC.clear();
+        }
+    }
+
+    private static Thread createDiffThread(Runnable runnable) {
+        Thread t = new Thread(runnable, "workspaceDiff-" + diffThreadCount.incrementAndGet());
+        t.setDaemon(true);
+        return t;
     }
 
     @Traced
@@ -130,6 +225,37 @@ public class WorkspaceDiffHelper {
         );
     }
 
+    /**
+     * Uses the vertices already loaded with the workspace entities and loads the others in a single batch. Vertices
+     * the user cannot access are left out.
+     */
+    private List<Vertex> getEntityVertices(Iterable<WorkspaceEntity> workspaceEntities, Authorizations authorizations) {
+        List<Vertex> vertices = new ArrayList<>();
+        List<String> vertexIdsToFetch = new ArrayList<>();
+        for (WorkspaceEntity workspaceEntity : workspaceEntities) {
+            if (workspaceEntity.getVertex() != null) {
+                vertices.add(workspaceEntity.getVertex());
+            } else {
+                vertexIdsToFetch.add(workspaceEntity.getEntityVertexId());
+            }
+        }
+        if (vertexIdsToFetch.size() > 0) {
+            vertices.addAll(toList(graph.getVertices(vertexIdsToFetch, FetchHint.ALL_INCLUDING_HIDDEN, authorizations)));
+        }
+        return vertices;
+    }
+
+    private EntityDiff diffEntityVertex(Workspace workspace, Vertex entityVertex, Authorizations authorizations) {
+        SandboxStatus sandboxStatus = SandboxStatusUtil.getSandboxStatus(entityVertex, workspace.getWorkspaceId());
+        boolean isPublicDelete = WorkspaceDiffHelper.isPublicDelete(entityVertex, authorizations);
+        List<ClientApiWorkspaceDiff.Item> propertyItems = new ArrayList<>();
+        // don't report properties individually when deleting the vertex
+        if (!isPublicDelete) {
+            diffProperties(workspace, entityVertex, propertyItems, authorizations);
+        }
+        return new EntityDiff(entityVertex, sandboxStatus, isPublicDelete, propertyItems);
+    }
+
     @Traced
     public List<ClientApiWorkspaceDiff.Item> diffWorkspaceEntity(
             Workspace workspace,
@@ -137,47 +263,41 @@ public class WorkspaceDiffHelper {
             FormulaEvaluator.UserContext userContext,
             Authorizations authorizations
     ) {
-        List<ClientApiWorkspaceDiff.Item> result = new ArrayList<>();
-
-        Vertex entityVertex = this.graph.getVertex(
-                workspaceEntity.getEntityVertexId(),
-                FetchHint.ALL_INCLUDING_HIDDEN,
-                authorizations
-        );
+        Vertex entityVertex = workspaceEntity.getVertex();
+        if (entityVertex == null) {
+            entityVertex = this.graph.getVertex(
+                    workspaceEntity.getEntityVertexId(),
+                    FetchHint.ALL_INCLUDING_HIDDEN,
+                    authorizations
+            );
+        }
 
         // vertex can be null if the user doesn't have access to the entity
         if (entityVertex == null) {
             return null;
         }
 
-        SandboxStatus sandboxStatus = SandboxStatusUtil.getSandboxStatus(entityVertex, workspace.getWorkspaceId());
-        boolean isPrivateChange = sandboxStatus != SandboxStatus.PUBLIC;
-        boolean isPublicDelete = WorkspaceDiffHelper.isPublicDelete(entityVertex, authorizations);
-        if (isPrivateChange || isPublicDelete) {
+        EntityDiff entityDiff = diffEntityVertex(workspace, entityVertex, authorizations);
+        List<ClientApiWorkspaceDiff.Item> result = new ArrayList<>();
+        if (entityDiff.hasVertexItem()) {
             result.add(createWorkspaceDiffVertexItem(
                     entityVertex,
-                    sandboxStatus,
-                    userContext,
-                    isPublicDelete
+                    formulaEvaluator.evaluateTitleFormula(entityVertex, userContext, null),
+                    entityDiff.sandboxStatus,
+                    entityDiff.isPublicDelete
             ));
         }
-
-        // don't report properties individually when deleting the vertex
-        if (!isPublicDelete) {
-            diffProperties(workspace, entityVertex, result, authorizations);
-        }
-
+        result.addAll(entityDiff.propertyItems);
         return result;
     }
 
     private ClientApiWorkspaceDiff.VertexItem createWorkspaceDiffVertexItem(
             Vertex vertex,
+            String title,
             SandboxStatus sandboxStatus,
-            FormulaEvaluator.UserContext userContext,
             boolean deleted
     ) {
         String vertexId = vertex.getId();
-        String title = formulaEvaluator.evaluateTitleFormula(vertex, userContext, null);
         String conceptType = VisalloProperties.CONCEPT_TYPE.getPropertyValue(vertex);
         Property visibilityJsonProperty = VisalloProperties.VISIBILITY_JSON.getProperty(vertex);
         JsonNode visibilityJson = visibilityJsonProperty == null ? null : JSONUtil.toJsonNode(JsonSerializer.toJsonProperty(
@@ -283,4 +403,27 @@ public class WorkspaceDiffHelper {
         }
         return false;
     }
+
+    private static class EntityDiff {
+        private final Vertex vertex;
+        private final SandboxStatus sandboxStatus;
+        private final boolean isPublicDelete;
+        private final List<ClientApiWorkspaceDiff.Item> propertyItems;
+
+        private EntityDiff(
+                Vertex vertex,
+                SandboxStatus sandboxStatus,
+                boolean isPublicDelete,
+                List<ClientApiWorkspaceDiff.Item> propertyItems
+        ) {
+            this.vertex = vertex;
+            this.sandboxStatus = sandboxStatus;
+            this.isPublicDelete = isPublicDelete;
+            this.propertyItems = propertyItems;
+        }
+
+        private boolean hasVertexItem() {
+            return sandboxStatus != SandboxStatus.PUBLIC || isPublicDelete;
+        }
+    }
 }
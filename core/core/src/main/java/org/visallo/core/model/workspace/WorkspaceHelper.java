@@ -45,6 +45,7 @@ public class WorkspaceHelper {
     private String entityHasImageIri;
     private final AuthorizationRepository authorizationRepository;
     private String artifactContainsImageOfEntityIri;
+    private WorkspaceChangeIndex workspaceChangeIndex;
 
     @Inject
     public WorkspaceHelper(
@@ -76,6 +77,17 @@ public class WorkspaceHelper {
         }
     }
 
+    @Inject(optional = true)
+    public void setWorkspaceChangeIndex(WorkspaceChangeIndex workspaceChangeIndex) {
+        this.workspaceChangeIndex = workspaceChangeIndex;
+    }
+
+    private void recordWorkspaceChange(String workspaceId, Element element) {
+        if (workspaceChangeIndex != null) {
+            workspaceChangeIndex.recordChange(workspaceId, element);
+        }
+    }
+
     public String getWorkspaceIdOrNullIfPublish(
             String workspaceId,
             boolean shouldPublish,
@@ -141,6 +153,7 @@ public class WorkspaceHelper {
         }
 
         graph.flush();
+        recordWorkspaceChange(workspaceId, e);
 
         workQueueRepository.pushGraphPropertyQueueHiddenOrDeleted(e, property, status, beforeActionTimestamp, workspaceId, priority);
     }
@@ -169,6 +182,7 @@ public class WorkspaceHelper {
             Visibility workspaceVisibility = new Visibility(workspaceId);
 
             graph.markEdgeHidden(edge, workspaceVisibility, authorizations);
+            recordWorkspaceChange(workspaceId, edge);
 
             if (edge.getLabel().equals(entityHasImageIri)) {
                 Property entityHasImage = outVertex.getProperty(VisalloProperties.ENTITY_IMAGE_VERTEX_ID.getPropertyName());
@@ -368,6 +382,7 @@ public class WorkspaceHelper {
         if (isPublicVertex) {
             Visibility workspaceVisibility = new Visibility(workspaceId);
             graph.markVertexHidden(vertex, workspaceVisibility, authorizations);
+            recordWorkspaceChange(workspaceId, vertex);
             graph.flush();
             workQueueRepository.pushVertexHidden(vertex, beforeActionTimestamp, Priority.HIGH);
         } else {
@@ -1,5 +1,6 @@
 package org.visallo.core.model.workspace;
 
+import com.google.inject.Inject;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -60,6 +61,7 @@ public abstract class WorkspaceRepository {
     private String entityHasImageIri;
     private final AuthorizationRepository authorizationRepository;
     private Collection<WorkspaceListener> workspaceListeners;
+    private WorkspaceChangeIndex workspaceChangeIndex;
 
     protected WorkspaceRepository(
             Graph graph,
@@ -84,6 +86,15 @@ public abstract class WorkspaceRepository {
         }
     }
 
+    @Inject(optional = true)
+    public void setWorkspaceChangeIndex(WorkspaceChangeIndex workspaceChangeIndex) {
+        this.workspaceChangeIndex = workspaceChangeIndex;
+    }
+
+    protected WorkspaceChangeIndex getWorkspaceChangeIndex() {
+        return workspaceChangeIndex;
+    }
+
     public static String getWorkspaceToEntityEdgeId(String workspaceVertexId, String entityVertexId) {
         return workspaceVertexId + TO_ENTITY_ID_SEPARATOR + entityVertexId;
     }
@@ -169,6 +180,13 @@ public abstract class WorkspaceRepository {
 
     public abstract ClientApiWorkspaceDiff getDiff(Workspace workspace, User user, FormulaEvaluator.UserContext userContext);
 
+    /**
+     * Repairs the {@link WorkspaceChangeIndex} of the workspace by discarding it and rebuilding it from the graph.
+     * Does nothing for implementations which don't use the change index.
+     */
+    public void rebuildChangeIndex(Workspace workspace, User user) {
+    }
+
     public String getCreatorUserId(String workspaceId, User user) {
         for (WorkspaceUser workspaceUser : findUsersWithAccess(workspaceId, user)) {
             if (workspaceUser.isCreator()) {
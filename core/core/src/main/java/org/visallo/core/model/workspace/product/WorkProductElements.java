@@ -20,7 +20,6 @@ import org.visallo.core.util.StreamUtil;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -124,14 +123,13 @@ public abstract class WorkProductElements implements WorkProduct, WorkProductHas
             List<String> ids = productVertexEdges.stream()
                     .map(edge -> edge.getOtherVertexId(id))
                     .collect(Collectors.toList());
-            Map<String, Vertex> othersById = StreamUtil.stream(graph.getVertices(ids, FetchHint.NONE, authorizations))
-                    .collect(Collectors.toMap(Vertex::getId, Function.identity()));
+            Map<String, Boolean> othersExist = graph.doVerticesExist(ids, authorizations);
 
             for (Edge propertyVertexEdge : productVertexEdges) {
                 String otherId = propertyVertexEdge.getOtherVertexId(id);
                 JSONObject vertex = new JSONObject();
                 vertex.put("id", otherId);
-                if (!othersById.containsKey(otherId)) {
+                if (!Boolean.TRUE.equals(othersExist.get(otherId))) {
                     vertex.put("unauthorized", true);
                 }
                 setEdgeJson(propertyVertexEdge, vertex);
@@ -4,8 +4,10 @@ import com.google.inject.Inject;
 import org.vertexium.Element;
 import org.vertexium.Property;
 import org.vertexium.Vertex;
+import org.visallo.core.ingest.graphProperty.ElementOrPropertyStatus;
 import org.visallo.core.ingest.graphProperty.GraphPropertyWorkData;
 import org.visallo.core.ingest.graphProperty.GraphPropertyWorker;
+import org.visallo.core.ingest.graphProperty.GraphPropertyWorkerInterest;
 import org.visallo.core.model.Description;
 import org.visallo.core.model.Name;
 import org.visallo.core.model.properties.VisalloProperties;
@@ -28,6 +30,14 @@ public class PingGraphPropertyWorker extends GraphPropertyWorker {
         pingUtil.gpwUpdate(vertex, getGraph(), getAuthorizations());
     }
 
+    @Override
+    public GraphPropertyWorkerInterest getInterest() {
+        return new GraphPropertyWorkerInterest()
+                .addConceptTypes(PingOntology.IRI_CONCEPT_PING)
+                .setEntireElementOnly(true)
+                .setStatuses(ElementOrPropertyStatus.UPDATE);
+    }
+
     @Override
     public boolean isHandled(Element element, Property property) {
         return element instanceof Vertex
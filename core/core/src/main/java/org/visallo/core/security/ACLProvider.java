@@ -1,5 +1,6 @@
 package org.visallo.core.security;
 
+import com.google.common.collect.Iterables;
 import com.google.inject.Inject;
 import org.vertexium.*;
 import org.visallo.core.exception.VisalloAccessDeniedException;
@@ -13,11 +14,15 @@ import org.visallo.core.util.VisalloLogger;
 import org.visallo.core.util.VisalloLoggerFactory;
 import org.visallo.web.clientapi.model.*;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.visallo.core.model.properties.VisalloProperties.CONCEPT_TYPE_THING;
@@ -212,22 +217,32 @@ public abstract class ACLProvider {
     public final ClientApiElementAcl elementACL(ClientApiElement clientApiElement, User user) {
         Set<String> privileges = privilegeRepository.getPrivileges(user);
         OntologyElement ontologyElement = getOntologyElement(clientApiElement);
-        return elementACL(clientApiElement, ontologyElement, privileges, user);
+        return elementACL(clientApiElement, ontologyElement, new AclContext(privileges, user));
     }
 
     private ClientApiElementAcl elementACL(
             ClientApiElement clientApiElement,
             OntologyElement ontologyElement,
-            Set<String> privileges,
-            User user
+            AclContext context
     ) {
         checkNotNull(clientApiElement, "clientApiElement is required");
         ClientApiElementAcl elementAcl = new ClientApiElementAcl();
         elementAcl.setAddable(true);
-        elementAcl.setUpdateable(internalCanUpdateElement(clientApiElement, ontologyElement, privileges, user));
-        elementAcl.setDeleteable(internalCanDeleteElement(clientApiElement, ontologyElement, privileges, user));
+        elementAcl.setUpdateable(context.canUpdateElement(clientApiElement, ontologyElement));
+        elementAcl.setDeleteable(context.canDeleteElement(clientApiElement, ontologyElement));
 
         List<ClientApiPropertyAcl> propertyAcls = elementAcl.getPropertyAcls();
+        for (HasOntologyProperties hasOntologyProperties : context.getOntologyHierarchy(clientApiElement)) {
+            populatePropertyAcls(hasOntologyProperties, clientApiElement, ontologyElement, context, propertyAcls);
+        }
+        return elementAcl;
+    }
+
+    /**
+     * Returns the concept or relationship of the element followed by its parents.
+     */
+    private List<HasOntologyProperties> findOntologyHierarchy(ClientApiElement clientApiElement) {
+        List<HasOntologyProperties> results = new ArrayList<>();
         if (clientApiElement instanceof ClientApiVertex) {
             String iri = VisalloProperties.CONCEPT_TYPE.getPropertyValue(clientApiElement);
             while (iri != null) {
@@ -236,7 +251,7 @@ public abstract class ACLProvider {
                     LOGGER.warn("Could not find concept: %s", iri);
                     break;
                 }
-                populatePropertyAcls(concept, clientApiElement, ontologyElement, privileges, user, propertyAcls);
+                results.add(concept);
                 iri = concept.getParentConceptIRI();
             }
         } else if (clientApiElement instanceof ClientApiEdge) {
@@ -247,41 +262,73 @@ public abstract class ACLProvider {
                     LOGGER.warn("Could not find relationship: %s", iri);
                     break;
                 }
-                populatePropertyAcls(relationship, clientApiElement, ontologyElement, privileges, user, propertyAcls);
+                results.add(relationship);
                 iri = relationship.getParentIRI();
             }
         } else {
             throw new VisalloException("unsupported ClientApiElement class " + clientApiElement.getClass().getName());
         }
-        return elementAcl;
+        return results;
     }
 
+    /**
+     * Sets the ACLs of the response and of every element in it. Decisions which only depend on the concept or
+     * relationship and the property are made once per response.
+     */
     public final ClientApiObject appendACL(ClientApiObject clientApiObject, User user) {
         if (user == null) {
             return clientApiObject;
         }
         Set<String> privileges = privilegeRepository.getPrivileges(user);
-        return appendACL(clientApiObject, privileges, user);
+        return appendACL(clientApiObject, new AclContext(privileges, user));
+    }
+
+    /**
+     * Sets the ACLs of each of the responses, sharing decisions between them as in
+     * {@link #appendACL(ClientApiObject, User)}.
+     */
+    public final void appendACL(Collection<? extends ClientApiObject> clientApiObjects, User user) {
+        if (user == null) {
+            return;
+        }
+        Set<String> privileges = privilegeRepository.getPrivileges(user);
+        appendACL(clientApiObjects, new AclContext(privileges, user));
     }
 
-    private ClientApiObject appendACL(ClientApiObject clientApiObject, Set<String> privileges, User user) {
+    /**
+     * Sets the ACLs of each element as the result is iterated, sharing decisions as in
+     * {@link #appendACL(ClientApiObject, User)}. Use this when elements are converted and written one at a time.
+     */
+    public final <T extends ClientApiElement> Iterable<T> appendACLLazily(Iterable<T> clientApiElements, User user) {
+        if (user == null) {
+            return clientApiElements;
+        }
+        Set<String> privileges = privilegeRepository.getPrivileges(user);
+        AclContext context = new AclContext(privileges, user);
+        return Iterables.transform(clientApiElements, clientApiElement -> {
+            appendACL(clientApiElement, context);
+            return clientApiElement;
+        });
+    }
+
+    private ClientApiObject appendACL(ClientApiObject clientApiObject, AclContext context) {
         if (clientApiObject instanceof ClientApiElement) {
-            appendACL((ClientApiElement) clientApiObject, privileges, user);
+            appendACL((ClientApiElement) clientApiObject, context);
         } else if (clientApiObject instanceof ClientApiWorkspaceVertices) {
-            appendACL(((ClientApiWorkspaceVertices) clientApiObject).getVertices(), user);
+            appendACL(((ClientApiWorkspaceVertices) clientApiObject).getVertices(), context);
         } else if (clientApiObject instanceof ClientApiVertexMultipleResponse) {
-            appendACL(((ClientApiVertexMultipleResponse) clientApiObject).getVertices(), user);
+            appendACL(((ClientApiVertexMultipleResponse) clientApiObject).getVertices(), context);
         } else if (clientApiObject instanceof ClientApiEdgeMultipleResponse) {
-            appendACL(((ClientApiEdgeMultipleResponse) clientApiObject).getEdges(), user);
+            appendACL(((ClientApiEdgeMultipleResponse) clientApiObject).getEdges(), context);
         } else if (clientApiObject instanceof ClientApiElementSearchResponse) {
-            appendACL(((ClientApiElementSearchResponse) clientApiObject).getElements(), user);
+            appendACL(((ClientApiElementSearchResponse) clientApiObject).getElements(), context);
         } else if (clientApiObject instanceof ClientApiEdgeSearchResponse) {
-            appendACL(((ClientApiEdgeSearchResponse) clientApiObject).getResults(), user);
+            appendACL(((ClientApiEdgeSearchResponse) clientApiObject).getResults(), context);
         } else if (clientApiObject instanceof ClientApiVertexEdges) {
             ClientApiVertexEdges vertexEdges = (ClientApiVertexEdges) clientApiObject;
-            appendACL(vertexEdges, privileges, user);
+            appendACL(vertexEdges, context);
         } else if (clientApiObject instanceof ClientApiElementFindRelatedResponse) {
-            appendACL(((ClientApiElementFindRelatedResponse) clientApiObject).getElements(), user);
+            appendACL(((ClientApiElementFindRelatedResponse) clientApiObject).getElements(), context);
         }
 
         return clientApiObject;
@@ -317,46 +364,52 @@ public abstract class ACLProvider {
         }
     }
 
-    private void appendACL(Collection<? extends ClientApiObject> clientApiObject, User user) {
-        Set<String> privileges = privilegeRepository.getPrivileges(user);
+    /**
+     * Returns true if the result of the can* methods for a {@link ClientApiElement} depends only on the ontology
+     * element, property and user and not on the element itself. {@link #appendACL(ClientApiObject, User)} then
+     * reuses decisions across the elements of a response and only checks comment authors per element.
+     */
+    protected boolean isElementIndependent() {
+        return false;
+    }
+
+    private void appendACL(Collection<? extends ClientApiObject> clientApiObject, AclContext context) {
         for (ClientApiObject apiObject : clientApiObject) {
-            appendACL(apiObject, privileges, user);
+            appendACL(apiObject, context);
         }
     }
 
-    private void appendACL(ClientApiElement clientApiElement, Set<String> privileges, User user) {
+    private void appendACL(ClientApiElement clientApiElement, AclContext context) {
         OntologyElement ontologyElement = getOntologyElement(clientApiElement);
-        appendACL(clientApiElement, ontologyElement, privileges, user);
+        appendACL(clientApiElement, ontologyElement, context);
     }
 
     private void appendACL(
             ClientApiElement clientApiElement,
             OntologyElement ontologyElement,
-            Set<String> privileges,
-            User user
+            AclContext context
     ) {
         for (ClientApiProperty apiProperty : clientApiElement.getProperties()) {
-            String key = apiProperty.getKey();
-            String name = apiProperty.getName();
-            apiProperty.setUpdateable(internalCanUpdateProperty(clientApiElement, ontologyElement, key, name, privileges, user));
-            apiProperty.setDeleteable(internalCanDeleteProperty(clientApiElement, ontologyElement, key, name, privileges, user));
-            apiProperty.setAddable(internalCanAddProperty(clientApiElement, ontologyElement, key, name, privileges, user));
+            ClientApiPropertyAcl acl = context.getPropertyAcl(clientApiElement, ontologyElement, apiProperty.getKey(), apiProperty.getName());
+            apiProperty.setUpdateable(acl.isUpdateable());
+            apiProperty.setDeleteable(acl.isDeleteable());
+            apiProperty.setAddable(acl.isAddable());
         }
-        clientApiElement.setUpdateable(internalCanUpdateElement(clientApiElement, ontologyElement, privileges, user));
-        clientApiElement.setDeleteable(internalCanDeleteElement(clientApiElement, ontologyElement, privileges, user));
+        clientApiElement.setUpdateable(context.canUpdateElement(clientApiElement, ontologyElement));
+        clientApiElement.setDeleteable(context.canDeleteElement(clientApiElement, ontologyElement));
 
-        clientApiElement.setAcl(elementACL(clientApiElement, ontologyElement, privileges, user));
+        clientApiElement.setAcl(elementACL(clientApiElement, ontologyElement, context));
 
         if (clientApiElement instanceof ClientApiEdgeWithVertexData) {
-            appendACL(((ClientApiEdgeWithVertexData) clientApiElement).getSource(), privileges, user);
-            appendACL(((ClientApiEdgeWithVertexData) clientApiElement).getTarget(), privileges, user);
+            appendACL(((ClientApiEdgeWithVertexData) clientApiElement).getSource(), context);
+            appendACL(((ClientApiEdgeWithVertexData) clientApiElement).getTarget(), context);
         }
     }
 
-    private void appendACL(ClientApiVertexEdges edges, Set<String> privileges, User user) {
+    private void appendACL(ClientApiVertexEdges edges, AclContext context) {
         for (ClientApiVertexEdges.Edge vertexEdge : edges.getRelationships()) {
-            appendACL(vertexEdge.getRelationship(), privileges, user);
-            appendACL(vertexEdge.getVertex(), privileges, user);
+            appendACL(vertexEdge.getRelationship(), context);
+            appendACL(vertexEdge.getVertex(), context);
         }
     }
 
@@ -364,8 +417,7 @@ public abstract class ACLProvider {
             HasOntologyProperties hasOntologyProperties,
             ClientApiElement clientApiElement,
             OntologyElement ontologyElement,
-            Set<String> privileges,
-            User user,
+            AclContext context,
             List<ClientApiPropertyAcl> propertyAcls
     ) {
         Collection<OntologyProperty> ontologyProperties = hasOntologyProperties.getProperties();
@@ -373,56 +425,33 @@ public abstract class ACLProvider {
         for (OntologyProperty ontologyProperty : ontologyProperties) {
             String propertyName = ontologyProperty.getTitle();
             for (ClientApiProperty property : clientApiElement.getProperties(propertyName)) {
-                ClientApiPropertyAcl acl = newClientApiPropertyAcl(
-                        clientApiElement,
-                        ontologyElement,
-                        property.getKey(),
-                        propertyName,
-                        privileges,
-                        user
-                );
-                ClientApiPropertyAcl defaultAcl = newClientApiPropertyAcl(
-                        null,
-                        ontologyElement,
-                        property.getKey(),
-                        propertyName,
-                        privileges,
-                        user
-                );
-                if (!acl.equals(defaultAcl)) {
-                    propertyAcls.add(acl);
-                }
+                addPropertyAclIfNotDefault(clientApiElement, ontologyElement, property.getKey(), propertyName, context, propertyAcls);
                 addedPropertyNames.add(propertyName);
             }
         }
 
         // for properties that don't exist on the clientApiElement, use the ontology property definition and omit the key.
-        propertyAcls.addAll(
-                ontologyProperties.stream()
-                        .filter(ontologyProperty -> !addedPropertyNames.contains(ontologyProperty.getTitle()))
-                        .map(ontologyProperty -> {
-                            String propertyName = ontologyProperty.getTitle();
-                            ClientApiPropertyAcl acl = newClientApiPropertyAcl(
-                                    clientApiElement,
-                                    ontologyElement,
-                                    null,
-                                    propertyName,
-                                    privileges,
-                                    user
-                            );
-                            ClientApiPropertyAcl defaultAcl = newClientApiPropertyAcl(
-                                    null,
-                                    ontologyElement,
-                                    null,
-                                    propertyName,
-                                    privileges,
-                                    user
-                            );
-                            return acl.equals(defaultAcl) ? null : acl;
-                        })
-                        .filter(acl -> acl != null)
-                        .collect(Collectors.toList())
-        );
+        for (OntologyProperty ontologyProperty : ontologyProperties) {
+            String propertyName = ontologyProperty.getTitle();
+            if (!addedPropertyNames.contains(propertyName)) {
+                addPropertyAclIfNotDefault(clientApiElement, ontologyElement, null, propertyName, context, propertyAcls);
+            }
+        }
+    }
+
+    private void addPropertyAclIfNotDefault(
+            ClientApiElement clientApiElement,
+            OntologyElement ontologyElement,
+            String key,
+            String name,
+            AclContext context,
+            List<ClientApiPropertyAcl> propertyAcls
+    ) {
+        ClientApiPropertyAcl defaultAcl = context.getPropertyAcl(null, ontologyElement, key, name);
+        ClientApiPropertyAcl acl = context.getPropertyAcl(clientApiElement, ontologyElement, key, name);
+        if (acl != defaultAcl && !acl.equals(defaultAcl)) {
+            propertyAcls.add(acl);
+        }
     }
 
     private ClientApiPropertyAcl newClientApiPropertyAcl(
@@ -613,4 +642,101 @@ public abstract class ACLProvider {
         }
         return ontologyRepository.getConceptByIRI(conceptType);
     }
+
+    /**
+     * Decisions made while appending ACLs to one response. Decisions without an element, and with an element if
+     * {@link #isElementIndependent()}, are cached by ontology element and property. Instances are not thread safe.
+     */
+    private class AclContext {
+        private final Set<String> privileges;
+        private final User user;
+        private final boolean elementIndependent = isElementIndependent();
+        private final Map<String, List<HasOntologyProperties>> ontologyHierarchies = new HashMap<>();
+        private final Map<PropertyAclKey, ClientApiPropertyAcl> propertyAcls = new HashMap<>();
+        private final Map<OntologyElement, Boolean> canUpdateElement = new IdentityHashMap<>();
+        private final Map<OntologyElement, Boolean> canDeleteElement = new IdentityHashMap<>();
+
+        private AclContext(Set<String> privileges, User user) {
+            this.privileges = privileges;
+            this.user = user;
+        }
+
+        private List<HasOntologyProperties> getOntologyHierarchy(ClientApiElement clientApiElement) {
+            String key;
+            if (clientApiElement instanceof ClientApiVertex) {
+                key = "concept:" + VisalloProperties.CONCEPT_TYPE.getPropertyValue(clientApiElement);
+            } else if (clientApiElement instanceof ClientApiEdge) {
+                key = "relationship:" + ((ClientApiEdge) clientApiElement).getLabel();
+            } else {
+                throw new VisalloException("unsupported ClientApiElement class " + clientApiElement.getClass().getName());
+            }
+            return ontologyHierarchies.computeIfAbsent(key, k -> findOntologyHierarchy(clientApiElement));
+        }
+
+        private ClientApiPropertyAcl getPropertyAcl(
+                ClientApiElement clientApiElement,
+                OntologyElement ontologyElement,
+                String key,
+                String name
+        ) {
+            if (clientApiElement != null && (!elementIndependent || isComment(name))) {
+                return newClientApiPropertyAcl(clientApiElement, ontologyElement, key, name, privileges, user);
+            }
+            return propertyAcls.computeIfAbsent(
+                    new PropertyAclKey(ontologyElement, key, name),
+                    k -> newClientApiPropertyAcl(null, ontologyElement, key, name, privileges, user)
+            );
+        }
+
+        private boolean canUpdateElement(ClientApiElement clientApiElement, OntologyElement ontologyElement) {
+            if (!elementIndependent) {
+                return internalCanUpdateElement(clientApiElement, ontologyElement, privileges, user);
+            }
+            return canUpdateElement.computeIfAbsent(
+                    ontologyElement,
+                    k -> internalCanUpdateElement(clientApiElement, ontologyElement, privileges, user)
+            );
+        }
+
+        private boolean canDeleteElement(ClientApiElement clientApiElement, OntologyElement ontologyElement) {
+            if (!elementIndependent) {
+                return internalCanDeleteElement(clientApiElement, ontologyElement, privileges, user);
+            }
+            return canDeleteElement.computeIfAbsent(
+                    ontologyElement,
+                    k -> internalCanDeleteElement(clientApiElement, ontologyElement, privileges, user)
+            );
+        }
+    }
+
+    private static class PropertyAclKey {
+        private final OntologyElement ontologyElement;
+        private final String key;
+        private final String name;
+
+        private PropertyAclKey(OntologyElement ontologyElement, String key, String name) {
+            this.ontologyElement = ontologyElement;
+            this.key = key;
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PropertyAclKey that = (PropertyAclKey) o;
+            return ontologyElement == that.ontologyElement
+                    && Objects.equals(key, that.key)
+                    && Objects.equals(name, that.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(ontologyElement), key, name);
+        }
+    }
 }
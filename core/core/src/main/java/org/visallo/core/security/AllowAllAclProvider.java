@@ -70,4 +70,12 @@ public class AllowAllAclProvider extends ACLProvider {
     public boolean canAddProperty(ClientApiElement clientApiElement, OntologyElement ontologyElement, String propertyKey, String propertyName, User user) {
         return true;
     }
+
+    /**
+     * Subclasses may override the can* methods with element specific checks, so only this class is element independent.
+     */
+    @Override
+    protected boolean isElementIndependent() {
+        return getClass() == AllowAllAclProvider.class;
+    }
 }
@@ -70,4 +70,12 @@ public class AllowNoneAclProvider extends ACLProvider {
     public boolean canAddProperty(ClientApiElement clientApiElement, OntologyElement ontologyElement, String propertyKey, String propertyName, User user) {
         return false;
     }
+
+    /**
+     * Subclasses may override the can* methods with element specific checks, so only this class is element independent.
+     */
+    @Override
+    protected boolean isElementIndependent() {
+        return getClass() == AllowNoneAclProvider.class;
+    }
 }
@@ -39,6 +39,11 @@ public class JmxMetricsManager implements MetricsManager {
         return REGISTRY.meter(name);
     }
 
+    @Override
+    public <T> Gauge<T> gauge(String name, Gauge<T> gauge) {
+        return REGISTRY.register(name, gauge);
+    }
+
     @Override
     public void removeMetric(String metricName) {
         REGISTRY.remove(metricName);
@@ -1,6 +1,7 @@
 package org.visallo.core.status;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.Timer;
 
@@ -13,5 +14,7 @@ public interface MetricsManager {
 
     Meter meter(String metricName);
 
+    <T> Gauge<T> gauge(String metricName, Gauge<T> gauge);
+
     void removeMetric(String metricName);
 }
@@ -15,4 +15,11 @@ public class QueueStatus extends Status {
         counterMetric.setCount(messages);
         metrics.put("messages", counterMetric);
     }
+
+    public QueueStatus addCounter(String name, long count) {
+        CounterMetric counterMetric = new CounterMetric();
+        counterMetric.setCount(count);
+        metrics.put(name, counterMetric);
+        return this;
+    }
 }
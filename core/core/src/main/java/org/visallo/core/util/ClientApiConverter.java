@@ -1,5 +1,6 @@
 package org.visallo.core.util;
 
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import org.vertexium.*;
 import org.vertexium.property.StreamingPropertyValue;
@@ -68,6 +69,18 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
         return clientApiElements;
     }
 
+    /**
+     * Converts each vertex as the result is iterated, so only one converted vertex needs to be in memory at a time
+     * when the result is written as it is iterated.
+     */
+    public static Iterable<ClientApiVertex> toClientApiVerticesLazily(
+            Iterable<? extends Vertex> vertices,
+            String workspaceId,
+            Authorizations authorizations
+    ) {
+        return Iterables.transform(vertices, v -> toClientApiVertex(v, workspaceId, authorizations));
+    }
+
     public static ClientApiVertexiumObject toClientApi(
             VertexiumObject vertexiumObject,
             String workspaceId,
@@ -189,7 +202,7 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
         clientApiElement.getExtendedDataTableNames().addAll(element.getExtendedDataTableNames());
         clientApiElement.setSandboxStatus(SandboxStatusUtil.getSandboxStatus(element, workspaceId));
 
-        VisibilityJson visibilityJson = VisalloProperties.VISIBILITY_JSON.getPropertyValue(element);
+        VisibilityJson visibilityJson = VisibilityJsonCache.getPropertyValue(element);
         if (visibilityJson != null) {
             clientApiElement.setVisibilitySource(visibilityJson.getSource());
         }
@@ -4,15 +4,25 @@ import org.visallo.core.exception.VisalloJsonParseException;
 import org.json.JSONObject;
 
 import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.CompletableFuture;
 
 public class FFprobeExecutor {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(FFprobeExecutor.class);
 
     public static JSONObject getJson(ProcessRunner processRunner, String absolutePath) {
+        return getJsonAsync(processRunner, absolutePath).join();
+    }
+
+    /**
+     * Runs ffprobe without blocking the caller. The future completes with null if ffprobe failed or its output could
+     * not be parsed.
+     */
+    public static CompletableFuture<JSONObject> getJsonAsync(ProcessRunner processRunner, String absolutePath) {
         ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        String output = null;
+        CompletableFuture<Process> processFuture;
         try {
-            processRunner.execute(
+            processFuture = processRunner.executeAsync(
                     "ffprobe",
                     new String[]{
                             "-v", "quiet",
@@ -24,14 +34,25 @@ public class FFprobeExecutor {
                     byteArrayOutputStream,
                     absolutePath + ": "
             );
-            output = new String(byteArrayOutputStream.toByteArray());
-            return JSONUtil.parse(output);
-        } catch (VisalloJsonParseException e) {
-            LOGGER.error("unable to parse ffprobe output: [%s]", output);
         } catch (Exception e) {
             LOGGER.error("exception running ffprobe", e);
+            return CompletableFuture.completedFuture(null);
         }
-
-        return null;
+        return processFuture.handle((process, ex) -> {
+            if (ex != null) {
+                LOGGER.error("exception running ffprobe", ex);
+                return null;
+            }
+            String output = null;
+            try {
+                output = byteArrayOutputStream.toString("UTF-8");
+                return JSONUtil.parse(output);
+            } catch (VisalloJsonParseException e) {
+                LOGGER.error("unable to parse ffprobe output: [%s]", output);
+            } catch (UnsupportedEncodingException e) {
+                LOGGER.error("exception reading ffprobe output", e);
+            }
+            return null;
+        });
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package org.visallo.core.util;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
 
 public abstract class MockProcessRunner extends ProcessRunner {
     @Override
@@ -9,5 +10,16 @@ public abstract class MockProcessRunner extends ProcessRunner {
         return onExecute(programName, programArgs, out);
     }
 
+    @Override
+    public CompletableFuture<Process> executeAsync(String programName, String[] programArgs, OutputStream out, String logPrefix) {
+        CompletableFuture<Process> future = new CompletableFuture<>();
+        try {
+            future.complete(onExecute(programName, programArgs, out));
+        } catch (Exception ex) {
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
     protected abstract Process onExecute(String programName, String[] programArgs, OutputStream out) throws IOException;
 }
@@ -1,20 +1,66 @@
 package org.visallo.core.util;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
 import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.slf4j.MDC;
+import org.visallo.core.config.Configuration;
 import org.visallo.core.exception.VisalloException;
+import org.visallo.core.status.MetricsManager;
 
-import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.IOException;
-import java.io.OutputStream;
+import java.io.*;
+import java.util.ArrayDeque;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.TreeMap;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Runs external programs such as ffprobe and ffmpeg. At most {@link #CONFIG_MAX_CONCURRENT_PROCESSES} processes of
+ * the same program run at once, further executions wait in a queue without holding a thread. A running process uses
+ * two threads of a shared pool, one waiting for it and draining its standard output, one draining its standard error.
+ * The pool is sized from the limits of the programs run so far, so it never holds more than two threads per process
+ * allowed to run.
+ */
+@Singleton
 public class ProcessRunner {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(ProcessRunner.class);
+    public static final String CONFIG_MAX_CONCURRENT_PROCESSES = ProcessRunner.class.getName() + ".maxConcurrentProcesses";
+    public static final int CONFIG_MAX_CONCURRENT_PROCESSES_DEFAULT = Runtime.getRuntime().availableProcessors();
+    public static final String CONFIG_TIMEOUT_SECONDS = ProcessRunner.class.getName() + ".timeoutSeconds";
+    public static final long CONFIG_TIMEOUT_SECONDS_DEFAULT = 0;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 16;
+    private static final long STREAM_DRAIN_TIMEOUT_MILLIS = 10000;
+    private static final BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<>(MAX_POOLED_BUFFERS);
+    private static final int THREADS_PER_PROCESS = 2;
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            0,
+            THREADS_PER_PROCESS,
+            60L,
+            TimeUnit.SECONDS,
+            new SynchronousQueue<>(),
+            runnable -> createDaemonThread(runnable, ProcessRunner.class.getSimpleName() + "-" + threadCount.incrementAndGet()),
+            (runnable, pool) -> {
+                // only reached if a finished process has not released its threads yet
+                LOGGER.warn("%s pool exhausted (%d threads), running outside the pool", ProcessRunner.class.getSimpleName(), pool.getMaximumPoolSize());
+                createDaemonThread(runnable, ProcessRunner.class.getSimpleName() + "-overflow").start();
+            }
+    );
+    private static final ScheduledExecutorService timeoutExecutor = Executors.newSingleThreadScheduledExecutor(
+            runnable -> createDaemonThread(runnable, ProcessRunner.class.getSimpleName() + "-timeout")
+    );
+    private final Map<String, ProgramQueue> programQueues = new ConcurrentHashMap<>();
+    private Configuration configuration;
+    private MetricsManager metricsManager;
+    private String metricsNamePrefix;
 
     public String executeToString(final String programName, final String[] programArgs) {
         try {
@@ -37,6 +83,48 @@ public class ProcessRunner {
             OutputStream out,
             final String logPrefix
     ) throws IOException, InterruptedException {
+        CompletableFuture<Process> future = executeAsync(workingDirectory, programName, programArgs, out, logPrefix, getTimeoutSeconds(), TimeUnit.SECONDS);
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            throw ex;
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new VisalloException("Could not run " + programName, cause);
+        }
+    }
+
+    public CompletableFuture<Process> executeAsync(String programName, String[] programArgs, OutputStream out, String logPrefix) {
+        return executeAsync(null, programName, programArgs, out, logPrefix, getTimeoutSeconds(), TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queues the program to run once fewer than the maximum number of its processes are running. The future
+     * completes with the exited process, or exceptionally if the program could not be started, timed out or exited
+     * with a non-zero return code. Cancelling the future kills the process.
+     *
+     * @param out     receives the standard output of the process, logged if null
+     * @param timeout the maximum time the process may run, not counting the time queued. 0 for no timeout.
+     */
+    public CompletableFuture<Process> executeAsync(
+            File workingDirectory,
+            String programName,
+            String[] programArgs,
+            OutputStream out,
+            String logPrefix,
+            long timeout,
+            TimeUnit unit
+    ) {
         final List<String> arguments = Lists.newArrayList(programName);
         for (String programArg : programArgs) {
             if (programArg == null) {
@@ -45,6 +133,52 @@ public class ProcessRunner {
             arguments.add(programArg);
         }
 
+        ProgramQueue programQueue = getProgramQueue(new File(programName).getName());
+        CompletableFuture<Process> future = new CompletableFuture<>();
+        long queuedTime = System.nanoTime();
+        Map<String, String> loggingContext = MDC.getCopyOfContextMap();
+        programQueue.submit(withLoggingContext(loggingContext, () -> {
+            if (future.isDone()) {
+                return;
+            }
+            update(programQueue.queueWaitTimer, System.nanoTime() - queuedTime);
+            try {
+                future.complete(run(workingDirectory, programName, programQueue, arguments, out, logPrefix, timeout, unit, future));
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            }
+        }));
+        return future;
+    }
+
+    /**
+     * Runs the task with the caller's logging context, the pool threads would otherwise log without the user and
+     * request the program was run for.
+     */
+    private static Runnable withLoggingContext(Map<String, String> loggingContext, Runnable task) {
+        return () -> {
+            if (loggingContext != null) {
+                MDC.setContextMap(loggingContext);
+            }
+            try {
+                task.run();
+            } finally {
+                MDC.clear();
+            }
+        };
+    }
+
+    private Process run(
+            File workingDirectory,
+            String programName,
+            ProgramQueue programQueue,
+            List<String> arguments,
+            OutputStream out,
+            String logPrefix,
+            long timeout,
+            TimeUnit unit,
+            CompletableFuture<Process> future
+    ) throws IOException, InterruptedException {
         final ProcessBuilder procBuilder = new ProcessBuilder(arguments);
         if (workingDirectory != null) {
             procBuilder.directory(workingDirectory);
@@ -62,43 +196,57 @@ public class ProcessRunner {
             LOGGER.info("%s Running program environment is empty", logPrefix);
         }
 
+        long startTime = System.nanoTime();
         final Process proc = procBuilder.start();
-
-        LoggingThread stderrThread = new LoggingThread(proc.getErrorStream(), LOGGER, logPrefix + programName + "(stderr): ");
-        stderrThread.start();
-
-        final Exception[] pipeException = new Exception[1];
-        Pipe pipe = null;
-        LoggingThread stdoutThread = null;
-        if (out == null) {
-            stdoutThread = new LoggingThread(proc.getInputStream(), LOGGER, logPrefix + programName + "(stdout): ");
-            stdoutThread.start();
-        } else {
-            Pipe.StatusHandler statusHandler = new Pipe.StatusHandler() {
-                @Override
-                public void handleException(Exception e) {
-                    pipeException[0] = e;
-                }
-
-            };
-            pipe = new Pipe().pipe(proc.getInputStream(), out, statusHandler);
+        future.whenComplete((result, ex) -> {
+            if (future.isCancelled()) {
+                proc.destroyForcibly();
+            }
+        });
+        AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> timeoutFuture = null;
+        if (timeout > 0) {
+            timeoutFuture = timeoutExecutor.schedule(() -> {
+                timedOut.set(true);
+                proc.destroyForcibly();
+            }, timeout, unit);
         }
 
-        // Pipe will ensure to some degree that we have started reading but if the process exits at
-        //  just the right time (after threadStarted = true but before the in.read occurs) we could miss the output
-        //  this sleep should be enough to prevent this happening.
-        Thread.sleep(100);
-
-        proc.waitFor();
-
-        stderrThread.join(10000);
+        // killing the process on timeout or cancellation ends the output, so this thread can drain stdout itself
+        Future<?> stderrFuture = executor.submit(withLoggingContext(
+                MDC.getCopyOfContextMap(),
+                () -> logLines(proc.getErrorStream(), logPrefix + programName + "(stderr): ")
+        ));
+        Exception pipeException = null;
+        try {
+            if (out == null) {
+                logLines(proc.getInputStream(), logPrefix + programName + "(stdout): ");
+            } else {
+                copy(proc.getInputStream(), out);
+            }
+        } catch (IOException ex) {
+            pipeException = ex;
+        }
 
-        if (stdoutThread != null) {
-            stdoutThread.join(10000);
+        try {
+            proc.waitFor();
+        } catch (InterruptedException ex) {
+            proc.destroyForcibly();
+            throw ex;
+        } finally {
+            if (timeoutFuture != null) {
+                timeoutFuture.cancel(false);
+            }
+            update(programQueue.runtimeTimer, System.nanoTime() - startTime);
+        }
+        if (timedOut.get()) {
+            inc(programQueue.timeoutsCounter);
+            throw new VisalloException("timed out after " + timeout + " " + unit.name().toLowerCase() + " for command " + arrayToString(arguments));
         }
 
-        if (pipe != null) {
-            pipe.waitForCompletion(10000, TimeUnit.MILLISECONDS);
+        Exception stderrException = waitForStream(stderrFuture);
+        if (stderrException != null) {
+            LOGGER.warn("%s Could not drain stderr of %s", logPrefix, programName, stderrException);
         }
 
         proc.getOutputStream().close(); // stdin
@@ -106,17 +254,115 @@ public class ProcessRunner {
         proc.getErrorStream().close();
 
         LOGGER.info(logPrefix + programName + "(returncode): " + proc.exitValue());
+        inc(programQueue.getExitCodeCounter(proc.exitValue()));
 
         if (proc.exitValue() != 0) {
             throw new VisalloException("unexpected return code: " + proc.exitValue() + " for command " + arrayToString(arguments));
         }
-        if (pipeException[0] != null) {
-            throw new VisalloException("pipe exception", pipeException[0]);
+        if (pipeException != null) {
+            throw new VisalloException("pipe exception", pipeException);
         }
 
         return proc;
     }
 
+    private static Exception waitForStream(Future<?> streamFuture) throws InterruptedException {
+        try {
+            streamFuture.get(STREAM_DRAIN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            return null;
+        } catch (ExecutionException ex) {
+            return ex.getCause() instanceof Exception ? (Exception) ex.getCause() : ex;
+        } catch (TimeoutException ex) {
+            return ex;
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = new byte[BUFFER_SIZE];
+        }
+        try {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } finally {
+            buffers.offer(buffer);
+        }
+    }
+
+    private static void logLines(InputStream in, String prefix) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                LOGGER.info("%s", prefix + line);
+            }
+        } catch (IOException ex) {
+            LOGGER.warn("Could not read process output: %s", prefix, ex);
+        }
+    }
+
+    private static Thread createDaemonThread(Runnable runnable, String name) {
+        Thread t = new Thread(runnable, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    private ProgramQueue getProgramQueue(String programKey) {
+        return programQueues.computeIfAbsent(programKey, key -> {
+            int maxConcurrentProcesses = getMaxConcurrentProcesses(key);
+            addThreads(maxConcurrentProcesses * THREADS_PER_PROCESS);
+            return new ProgramQueue(key, maxConcurrentProcesses);
+        });
+    }
+
+    private static synchronized void addThreads(int threads) {
+        executor.setMaximumPoolSize(executor.getMaximumPoolSize() + threads);
+    }
+
+    /**
+     * The limit of a program can be set with {@link #CONFIG_MAX_CONCURRENT_PROCESSES} followed by "." and the
+     * program name, e.g. "...maxConcurrentProcesses.ffmpeg".
+     */
+    private int getMaxConcurrentProcesses(String programKey) {
+        if (configuration == null) {
+            return CONFIG_MAX_CONCURRENT_PROCESSES_DEFAULT;
+        }
+        int maxConcurrentProcesses = configuration.getInt(CONFIG_MAX_CONCURRENT_PROCESSES, CONFIG_MAX_CONCURRENT_PROCESSES_DEFAULT);
+        return Math.max(1, configuration.getInt(CONFIG_MAX_CONCURRENT_PROCESSES + "." + programKey, maxConcurrentProcesses));
+    }
+
+    private long getTimeoutSeconds() {
+        if (configuration == null) {
+            return CONFIG_TIMEOUT_SECONDS_DEFAULT;
+        }
+        return configuration.getLong(CONFIG_TIMEOUT_SECONDS, CONFIG_TIMEOUT_SECONDS_DEFAULT);
+    }
+
+    private static void update(Timer timer, long nanos) {
+        if (timer != null) {
+            timer.update(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static void inc(Counter counter) {
+        if (counter != null) {
+            counter.inc();
+        }
+    }
+
+    @Inject(optional = true)
+    public final void setConfiguration(Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    @Inject(optional = true)
+    public final void setMetricsManager(MetricsManager metricsManager) {
+        this.metricsManager = metricsManager;
+        this.metricsNamePrefix = metricsManager.getNamePrefix(this);
+    }
+
     private static String arrayToString(List<String> arr) {
         StringBuilder result = new StringBuilder();
         for (String s : arr) {
@@ -124,5 +370,64 @@ public class ProcessRunner {
         }
         return result.toString();
     }
-}
 
+    /**
+     * Runs at most maxConcurrent tasks of a program at once. The thread of a finished task runs the next queued one,
+     * so a program never uses more threads than it may run processes.
+     */
+    private class ProgramQueue {
+        private final String programKey;
+        private final int maxConcurrent;
+        private final Queue<Runnable> queued = new ArrayDeque<>();
+        private final Map<Integer, Counter> exitCodeCounters = new ConcurrentHashMap<>();
+        private final Timer queueWaitTimer;
+        private final Timer runtimeTimer;
+        private final Counter timeoutsCounter;
+        private int running;
+
+        private ProgramQueue(String programKey, int maxConcurrent) {
+            this.programKey = programKey;
+            this.maxConcurrent = maxConcurrent;
+            this.queueWaitTimer = metricsManager == null ? null : metricsManager.timer(metricsNamePrefix + programKey + ".queueWait");
+            this.runtimeTimer = metricsManager == null ? null : metricsManager.timer(metricsNamePrefix + programKey + ".runtime");
+            this.timeoutsCounter = metricsManager == null ? null : metricsManager.counter(metricsNamePrefix + programKey + ".timeouts");
+        }
+
+        public void submit(Runnable task) {
+            synchronized (this) {
+                if (running >= maxConcurrent) {
+                    queued.add(task);
+                    return;
+                }
+                running++;
+            }
+            executor.execute(() -> runQueued(task));
+        }
+
+        private void runQueued(Runnable task) {
+            Runnable next = task;
+            while (next != null) {
+                try {
+                    next.run();
+                } finally {
+                    synchronized (this) {
+                        next = queued.poll();
+                        if (next == null) {
+                            running--;
+                        }
+                    }
+                }
+            }
+        }
+
+        private Counter getExitCodeCounter(int exitCode) {
+            if (metricsManager == null) {
+                return null;
+            }
+            return exitCodeCounters.computeIfAbsent(
+                    exitCode,
+                    code -> metricsManager.counter(metricsNamePrefix + programKey + ".exitCode." + code)
+            );
+        }
+    }
+}
@@ -7,42 +7,40 @@ import org.visallo.web.clientapi.model.SandboxStatus;
 import org.visallo.web.clientapi.model.VisibilityJson;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class SandboxStatusUtil {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(SandboxStatusUtil.class);
 
     public static SandboxStatus getSandboxStatus(Element element, String workspaceId) {
-        VisibilityJson visibilityJson = VisalloProperties.VISIBILITY_JSON.getPropertyValue(element);
+        VisibilityJson visibilityJson = VisibilityJsonCache.getPropertyValue(element);
         return SandboxStatus.getFromVisibilityJsonString(visibilityJson, workspaceId);
     }
 
+    /**
+     * A PRIVATE property is PUBLIC_CHANGED if a PUBLIC property with the same key and name exists. The properties are
+     * grouped by key and name so this is linear in the number of properties.
+     */
     public static SandboxStatus[] getPropertySandboxStatuses(List<Property> properties, String workspaceId) {
         SandboxStatus[] sandboxStatuses = new SandboxStatus[properties.size()];
+        Set<PropertyKeyName> publicProperties = new HashSet<>();
         for (int i = 0; i < properties.size(); i++) {
             Property property = properties.get(i);
-            Collection<VisibilityJson> visibilityJsons = VisalloProperties.VISIBILITY_JSON_METADATA.getMetadataValues(property.getMetadata());
+            Collection<VisibilityJson> visibilityJsons = VisibilityJsonCache.getMetadataValues(property.getMetadata());
             if (visibilityJsons.size() > 1) {
                 LOGGER.error("Multiple %s found on property %s. Choosing the best match.", VisalloProperties.VISIBILITY_JSON_METADATA.getMetadataKey(), property);
             }
             sandboxStatuses[i] = getMostExclusiveSandboxStatus(visibilityJsons, workspaceId);
-        }
-
-        for (int i = 0; i < properties.size(); i++) {
-            Property property = properties.get(i);
-            if (sandboxStatuses[i] != SandboxStatus.PRIVATE) {
-                continue;
+            if (sandboxStatuses[i] == SandboxStatus.PUBLIC) {
+                publicProperties.add(new PropertyKeyName(property));
             }
-            for (int j = 0; j < properties.size(); j++) {
-                Property p = properties.get(j);
-                if (i == j) {
-                    continue;
-                }
+        }
 
-                if (sandboxStatuses[j] == SandboxStatus.PUBLIC &&
-                        sandboxStatuses[i] == SandboxStatus.PRIVATE &&
-                        property.getKey().equals(p.getKey()) &&
-                        property.getName().equals(p.getName())) {
+        if (!publicProperties.isEmpty()) {
+            for (int i = 0; i < properties.size(); i++) {
+                if (sandboxStatuses[i] == SandboxStatus.PRIVATE && publicProperties.contains(new PropertyKeyName(properties.get(i)))) {
                     sandboxStatuses[i] = SandboxStatus.PUBLIC_CHANGED;
                 }
             }
@@ -64,4 +62,31 @@ public class SandboxStatusUtil {
         }
         return SandboxStatus.PUBLIC;
     }
+
+    private static class PropertyKeyName {
+        private final String key;
+        private final String name;
+
+        private PropertyKeyName(Property property) {
+            this.key = property.getKey();
+            this.name = property.getName();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PropertyKeyName that = (PropertyKeyName) o;
+            return key.equals(that.key) && name.equals(that.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * key.hashCode() + name.hashCode();
+        }
+    }
 }
@@ -0,0 +1,282 @@
+package org.visallo.core.util;
+
+import org.visallo.core.status.PausableTimerContext;
+import org.visallo.core.status.PausableTimerContextAware;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Splits a single source stream into multiple independent readers.
+ *
+ * Unlike {@link TeeInputStream} the producer never waits for the slowest reader. Source data is appended to an
+ * in-memory buffer and, once it grows past the spill threshold, to a temp file. Each reader keeps its own position
+ * and reads the temp file with positional {@link FileChannel} reads, so readers never copy through a shared buffer
+ * or contend on a lock while reading spilled data. Readers waiting for data are woken by the producer and the
+ * producer waiting in {@link #awaitReadersClosed()} is woken by the last reader to close, no polling is involved.
+ */
+public class StreamFanOut implements Closeable {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(StreamFanOut.class);
+    public static final int DEFAULT_SPILL_THRESHOLD = 1024 * 1024;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private final InputStream source;
+    private final Reader[] readers;
+    private final int spillThreshold;
+    private final String tempFileSuffix;
+    private byte[] memory = new byte[0];
+    private File file;
+    private RandomAccessFile randomAccessFile;
+    private FileChannel fileChannel;
+    private long written;
+    private boolean sourceComplete;
+    private IOException sourceError;
+    private int openReaderCount;
+
+    /**
+     * @param spillThreshold The number of bytes kept in memory before the data is written to a temp file.
+     * @param tempFileSuffix The suffix used when creating the temp file.
+     */
+    public StreamFanOut(InputStream source, String[] readerNames, int spillThreshold, String tempFileSuffix) {
+        this.source = source;
+        this.spillThreshold = Math.max(0, spillThreshold);
+        this.tempFileSuffix = tempFileSuffix;
+        this.readers = new Reader[readerNames.length];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Reader(readerNames[i]);
+        }
+        this.openReaderCount = readers.length;
+    }
+
+    public InputStream[] getReaders() {
+        return readers;
+    }
+
+    /**
+     * Reads the entire source into a temp file. After this returns {@link #getFile()} contains the complete data.
+     */
+    public File fillToFile() throws IOException {
+        synchronized (this) {
+            if (fileChannel == null) {
+                spill();
+            }
+        }
+        fill();
+        return file;
+    }
+
+    /**
+     * The temp file holding the data, or null if the data has not been spilled to disk.
+     */
+    public synchronized File getFile() {
+        return file;
+    }
+
+    /**
+     * Copies the source to the buffer/temp file, waking readers as data arrives. Never waits on readers.
+     */
+    public void fill() throws IOException {
+        synchronized (this) {
+            if (sourceComplete) {
+                return;
+            }
+        }
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        try {
+            int read;
+            while ((read = source.read(buffer)) != -1) {
+                if (read == 0) {
+                    continue;
+                }
+                FileChannel channel;
+                long position;
+                synchronized (this) {
+                    if (fileChannel == null && written + read > spillThreshold) {
+                        spill();
+                    }
+                    channel = fileChannel;
+                    position = written;
+                    if (channel == null) {
+                        appendToMemory(buffer, read);
+                        written += read;
+                        notifyAll();
+                        continue;
+                    }
+                }
+                writeFully(channel, ByteBuffer.wrap(buffer, 0, read), position);
+                synchronized (this) {
+                    written += read;
+                    notifyAll();
+                }
+            }
+        } catch (IOException ex) {
+            synchronized (this) {
+                sourceError = ex;
+                notifyAll();
+            }
+            throw ex;
+        } finally {
+            synchronized (this) {
+                sourceComplete = true;
+                notifyAll();
+            }
+            source.close();
+        }
+    }
+
+    /**
+     * Waits for every reader to be closed.
+     */
+    public synchronized void awaitReadersClosed() throws InterruptedException {
+        while (openReaderCount > 0) {
+            wait();
+        }
+    }
+
+    private void appendToMemory(byte[] buffer, int length) {
+        if (written + length > memory.length) {
+            int newLength = (int) Math.min(Math.max(memory.length * 2L, written + length), Math.max(spillThreshold, written + length));
+            byte[] newMemory = new byte[newLength];
+            System.arraycopy(memory, 0, newMemory, 0, (int) written);
+            memory = newMemory;
+        }
+        System.arraycopy(buffer, 0, memory, (int) written, length);
+    }
+
+    private void spill() throws IOException {
+        file = File.createTempFile("streamFanOut", tempFileSuffix);
+        randomAccessFile = new RandomAccessFile(file, "rw");
+        fileChannel = randomAccessFile.getChannel();
+        writeFully(fileChannel, ByteBuffer.wrap(memory, 0, (int) written), 0);
+        memory = null;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Reader reader : readers) {
+            reader.close();
+        }
+        synchronized (this) {
+            if (randomAccessFile != null) {
+                randomAccessFile.close();
+                randomAccessFile = null;
+                fileChannel = null;
+            }
+            if (file != null && !file.delete()) {
+                LOGGER.warn("Could not delete temp file %s", file.getAbsolutePath());
+            }
+            memory = null;
+        }
+    }
+
+    private class Reader extends InputStream implements PausableTimerContextAware {
+        private final String name;
+        private final byte[] singleByte = new byte[1];
+        private long position;
+        private boolean closed;
+        private PausableTimerContext pausableTimerContext;
+
+        private Reader(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = read(singleByte, 0, 1);
+            return read == -1 ? -1 : singleByte[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            FileChannel channel;
+            int readLength;
+            synchronized (StreamFanOut.this) {
+                if (closed) {
+                    return -1;
+                }
+                if (position >= written && !sourceComplete) {
+                    pauseTimer();
+                    try {
+                        while (position >= written && !sourceComplete && !closed) {
+                            StreamFanOut.this.wait();
+                        }
+                    } catch (InterruptedException ex) {
+                        throw new IOException("Interrupted waiting for data: " + name, ex);
+                    } finally {
+                        resumeTimer();
+                    }
+                }
+                if (sourceError != null) {
+                    throw new IOException("Failed reading source for: " + name, sourceError);
+                }
+                if (closed || position >= written) {
+                    return -1;
+                }
+                readLength = (int) Math.min(len, written - position);
+                channel = fileChannel;
+                if (channel == null) {
+                    System.arraycopy(memory, (int) position, b, off, readLength);
+                    position += readLength;
+                    return readLength;
+                }
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(b, off, readLength);
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position + buffer.position() - off);
+                if (read < 0) {
+                    break;
+                }
+            }
+            int read = buffer.position() - off;
+            position += read;
+            return read;
+        }
+
+        @Override
+        public int available() {
+            synchronized (StreamFanOut.this) {
+                return closed ? 0 : (int) Math.min(Integer.MAX_VALUE, written - position);
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized (StreamFanOut.this) {
+                if (closed) {
+                    return;
+                }
+                LOGGER.debug("Closing reader: %s", name);
+                closed = true;
+                openReaderCount--;
+                StreamFanOut.this.notifyAll();
+            }
+        }
+
+        @Override
+        public void setPausableTimerContext(PausableTimerContext pausableTimerContext) {
+            this.pausableTimerContext = pausableTimerContext;
+        }
+
+        private void pauseTimer() {
+            if (this.pausableTimerContext != null) {
+                this.pausableTimerContext.pause();
+            }
+        }
+
+        private void resumeTimer() {
+            if (this.pausableTimerContext != null) {
+                this.pausableTimerContext.resume();
+            }
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package org.visallo.core.util;
 
+import org.vertexium.Authorizations;
 import org.vertexium.Direction;
 import org.vertexium.Edge;
+import org.vertexium.FetchHint;
+import org.vertexium.Graph;
 import org.vertexium.Vertex;
 
 import java.util.*;
@@ -15,6 +18,44 @@ public class VertexiumUtil {
         return results;
     }
 
+    /**
+     * Loads the vertices with a single call to the graph rather than one call per id.
+     *
+     * @return the vertices keyed by id, vertices which do not exist or are not visible are left out.
+     */
+    public static Map<String, Vertex> getVerticesById(
+            Graph graph,
+            Collection<String> vertexIds,
+            EnumSet<FetchHint> fetchHints,
+            Authorizations authorizations
+    ) {
+        if (vertexIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        return verticesToMapById(graph.getVertices(new LinkedHashSet<>(vertexIds), fetchHints, authorizations));
+    }
+
+    /**
+     * Same as {@link #getVerticesById(Graph, Collection, EnumSet, Authorizations)} but returns the vertices in the
+     * order of the ids.
+     */
+    public static List<Vertex> getVerticesInOrder(
+            Graph graph,
+            Collection<String> vertexIds,
+            EnumSet<FetchHint> fetchHints,
+            Authorizations authorizations
+    ) {
+        Map<String, Vertex> verticesById = getVerticesById(graph, vertexIds, fetchHints, authorizations);
+        List<Vertex> results = new ArrayList<>(verticesById.size());
+        for (String vertexId : new LinkedHashSet<>(vertexIds)) {
+            Vertex vertex = verticesById.get(vertexId);
+            if (vertex != null) {
+                results.add(vertex);
+            }
+        }
+        return results;
+    }
+
     public static Set<String> getAllVertexIdsOnEdges(List<Edge> edges) {
         Set<String> results = new HashSet<>();
         for (Edge edge : edges) {
@@ -0,0 +1,51 @@
+package org.visallo.core.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.vertexium.Element;
+import org.vertexium.Metadata;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.web.clientapi.model.VisibilityJson;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Parsed {@link VisibilityJson} values keyed by their raw json string. Elements and properties share a small number
+ * of distinct visibility json values, so this saves parsing the same json for every property of every element.
+ * <p>
+ * The returned instances are shared between callers and must not be modified. Code which changes a visibility json
+ * must read it through {@link VisalloProperties#VISIBILITY_JSON} or {@link VisalloProperties#VISIBILITY_JSON_METADATA}.
+ */
+public class VisibilityJsonCache {
+    private static final int MAXIMUM_SIZE = 10000;
+    private static final Cache<String, VisibilityJson> CACHE = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .build();
+
+    public static VisibilityJson get(Object value) {
+        if (value == null) {
+            return null;
+        }
+        String valueStr = value instanceof String ? (String) value : value.toString();
+        VisibilityJson visibilityJson = CACHE.getIfPresent(valueStr);
+        if (visibilityJson == null) {
+            visibilityJson = ClientApiConverter.toClientApi(valueStr, VisibilityJson.class);
+            CACHE.put(valueStr, visibilityJson);
+        }
+        return visibilityJson;
+    }
+
+    public static VisibilityJson getPropertyValue(Element element) {
+        return get(element.getPropertyValue(VisalloProperties.VISIBILITY_JSON.getPropertyName()));
+    }
+
+    public static Collection<VisibilityJson> getMetadataValues(Metadata metadata) {
+        List<VisibilityJson> results = new ArrayList<>();
+        for (Object value : metadata.getValues(VisalloProperties.VISIBILITY_JSON_METADATA.getMetadataKey())) {
+            results.add(get(value));
+        }
+        return results;
+    }
+}
@@ -73,6 +73,19 @@ require(['util/vertex/formatters'], function(F) {
     window.evaluatePropertyFormulaJson = function(json, propertyKey, propertyName) {
         return F.vertex['prop'](JSON.parse(json), propertyName, propertyKey);
     }
+
+    window.evaluateTitleFormula = function(vertex) {
+        return F.vertex.title(vertex);
+    };
+    window.evaluateTimeFormula = function(vertex) {
+        return F.vertex.time(vertex);
+    };
+    window.evaluateSubtitleFormula = function(vertex) {
+        return F.vertex.subtitle(vertex);
+    };
+    window.evaluatePropertyFormula = function(vertex, propertyKey, propertyName) {
+        return F.vertex.prop(vertex, propertyName, propertyKey);
+    };
 });
 
 timerLoop();
@@ -0,0 +1,246 @@
+package org.visallo.model.queue.file;
+
+import org.visallo.core.ingest.WorkerTuple;
+import org.visallo.core.model.workQueue.Priority;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A named durable queue with one {@link SegmentLog} per {@link Priority}. Messages are delivered from the highest
+ * priority log first and in order within a log.
+ * <p>
+ * A delivered message stays in flight until it is acknowledged. The committed offset of a log only moves past a
+ * message once it and every message before it have been acknowledged, so after a restart everything which was in
+ * flight is delivered again. Failed messages are delivered again immediately until they have been delivered
+ * maxDeliveries times, after that they are logged and dropped.
+ */
+class FileQueue {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(FileQueue.class);
+    private static final Priority[] PRIORITIES = Priority.values();
+    private final String queueName;
+    private final boolean syncOnWrite;
+    private final int maxDeliveries;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final PriorityLog[] logs = new PriorityLog[PRIORITIES.length];
+
+    FileQueue(String queueName, File directory, int segmentSize, boolean syncOnWrite, int maxDeliveries) {
+        this.queueName = queueName;
+        this.syncOnWrite = syncOnWrite;
+        this.maxDeliveries = Math.max(1, maxDeliveries);
+        for (Priority priority : PRIORITIES) {
+            File logDirectory = new File(directory, priority.name().toLowerCase());
+            logs[priority.ordinal()] = new PriorityLog(priority, new SegmentLog(logDirectory, segmentSize));
+        }
+    }
+
+    void push(byte[] data, Priority priority) {
+        PriorityLog log = logs[(priority == null ? Priority.NORMAL : priority).ordinal()];
+        lock.lock();
+        try {
+            log.segmentLog.append(data);
+            log.depth++;
+            if (syncOnWrite) {
+                log.segmentLog.force();
+            }
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the next message, waiting up to the timeout for one to arrive.
+     *
+     * @return null if no message arrived within the timeout.
+     */
+    WorkerTuple poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                for (int i = logs.length - 1; i >= 0; i--) {
+                    WorkerTuple tuple = logs[i].next();
+                    if (tuple != null) {
+                        return tuple;
+                    }
+                }
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void ack(MessageId messageId) {
+        lock.lock();
+        try {
+            logs[messageId.getPriority().ordinal()].ack(messageId.getOffset());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void fail(MessageId messageId) {
+        lock.lock();
+        try {
+            logs[messageId.getPriority().ordinal()].fail(messageId.getOffset());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops all messages, including those in flight.
+     */
+    void clear() {
+        lock.lock();
+        try {
+            for (PriorityLog log : logs) {
+                log.clear();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void force() {
+        lock.lock();
+        try {
+            for (PriorityLog log : logs) {
+                log.segmentLog.force();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The number of messages which have not been acknowledged, including those in flight.
+     */
+    int size(Priority priority) {
+        lock.lock();
+        try {
+            return logs[priority.ordinal()].depth;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getInFlightCount() {
+        lock.lock();
+        try {
+            int count = 0;
+            for (PriorityLog log : logs) {
+                count += log.inFlight.size();
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getSegmentCount(Priority priority) {
+        lock.lock();
+        try {
+            return logs[priority.ordinal()].segmentLog.getSegmentCount();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private class PriorityLog {
+        private final Priority priority;
+        private final SegmentLog segmentLog;
+        private final TreeSet<Long> inFlight = new TreeSet<>();
+        private final Deque<Long> redeliveries = new ArrayDeque<>();
+        private final Map<Long, Integer> failures = new HashMap<>();
+        private long readOffset;
+        private int depth;
+
+        private PriorityLog(Priority priority, SegmentLog segmentLog) {
+            this.priority = priority;
+            this.segmentLog = segmentLog;
+            this.readOffset = segmentLog.getCommittedOffset();
+            this.depth = segmentLog.countRecords(readOffset);
+        }
+
+        private WorkerTuple next() {
+            Long offset = redeliveries.poll();
+            if (offset == null) {
+                offset = segmentLog.seek(readOffset);
+                if (offset >= segmentLog.getEndOffset()) {
+                    readOffset = offset;
+                    return null;
+                }
+                readOffset = segmentLog.nextOffset(offset);
+                inFlight.add(offset);
+            }
+            return new WorkerTuple(new MessageId(priority, offset), segmentLog.read(offset));
+        }
+
+        private void ack(long offset) {
+            if (!inFlight.remove(offset)) {
+                return;
+            }
+            failures.remove(offset);
+            depth--;
+            segmentLog.commit(inFlight.isEmpty() ? readOffset : inFlight.first());
+        }
+
+        private void fail(long offset) {
+            if (!inFlight.contains(offset) || redeliveries.contains(offset)) {
+                return;
+            }
+            int deliveries = failures.merge(offset, 1, Integer::sum);
+            if (deliveries >= maxDeliveries) {
+                LOGGER.error("Dropping message %d on queue %s (%s) after %d deliveries", offset, queueName, priority, deliveries);
+                ack(offset);
+                return;
+            }
+            redeliveries.add(offset);
+            notEmpty.signal();
+        }
+
+        private void clear() {
+            inFlight.clear();
+            redeliveries.clear();
+            failures.clear();
+            readOffset = segmentLog.getEndOffset();
+            depth = 0;
+            segmentLog.commit(readOffset);
+        }
+    }
+
+    static class MessageId {
+        private final Priority priority;
+        private final long offset;
+
+        MessageId(Priority priority, long offset) {
+            this.priority = priority;
+            this.offset = offset;
+        }
+
+        Priority getPriority() {
+            return priority;
+        }
+
+        long getOffset() {
+            return offset;
+        }
+
+        @Override
+        public String toString() {
+            return priority + ":" + offset;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package org.visallo.model.queue.file;
+
+import com.google.inject.Inject;
+import org.json.JSONObject;
+import org.vertexium.Graph;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.exception.VisalloException;
+import org.visallo.core.ingest.WorkerSpout;
+import org.visallo.core.ingest.WorkerTuple;
+import org.visallo.core.model.WorkQueueNames;
+import org.visallo.core.model.workQueue.Priority;
+import org.visallo.core.model.workQueue.WorkQueueRepository;
+import org.visallo.core.status.model.QueueStatus;
+import org.visallo.core.status.model.Status;
+import org.visallo.core.util.ShutdownListener;
+import org.visallo.core.util.ShutdownService;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Work queue repository which stores each queue in append only, memory mapped segment files in a local directory so
+ * messages survive a restart. Messages which were delivered but not acknowledged before a restart are delivered
+ * again, consumers must tolerate duplicates. Segments are deleted once all of their messages have been acknowledged.
+ * <p>
+ * Writes go to the page cache and survive the process dying. Set {@link #SYNC_ON_WRITE} to also survive the machine
+ * going down at the cost of a disk sync per message, otherwise data is synced on {@link #flush()} and shutdown.
+ * <p>
+ * Broadcasts are delivered to consumers in this JVM only, so this repository is for single node deployments. The
+ * directory is locked while the repository is open.
+ */
+public class FileWorkQueueRepository extends WorkQueueRepository implements ShutdownListener {
+    public static final String DIRECTORY = FileWorkQueueRepository.class.getName() + ".directory";
+    public static final String SEGMENT_SIZE = FileWorkQueueRepository.class.getName() + ".segmentSize";
+    public static final String SYNC_ON_WRITE = FileWorkQueueRepository.class.getName() + ".syncOnWrite";
+    public static final String MAX_DELIVERIES = FileWorkQueueRepository.class.getName() + ".maxDeliveries";
+    public static final String NEXT_TUPLE_TIMEOUT_MS = FileWorkQueueRepository.class.getName() + ".nextTupleTimeoutMs";
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    public static final int DEFAULT_MAX_DELIVERIES = 3;
+    public static final long DEFAULT_NEXT_TUPLE_TIMEOUT_MS = 1000L;
+    private static final String LOCK_FILE_NAME = ".lock";
+    private final ConcurrentMap<String, FileQueue> queues = new ConcurrentHashMap<>();
+    private final List<BroadcastConsumer> broadcastConsumers = new CopyOnWriteArrayList<>();
+    private final File directory;
+    private final int segmentSize;
+    private final boolean syncOnWrite;
+    private final int maxDeliveries;
+    private final long nextTupleTimeoutMs;
+    private final RandomAccessFile lockFile;
+    private final FileLock lock;
+
+    @Inject
+    public FileWorkQueueRepository(
+            Graph graph,
+            WorkQueueNames workQueueNames,
+            Configuration configuration,
+            ShutdownService shutdownService
+    ) {
+        super(graph, workQueueNames, configuration);
+        String directoryName = configuration.get(DIRECTORY, null);
+        if (directoryName == null) {
+            throw new VisalloException("Missing configuration: " + DIRECTORY);
+        }
+        this.directory = new File(directoryName);
+        this.segmentSize = configuration.getInt(SEGMENT_SIZE, DEFAULT_SEGMENT_SIZE);
+        this.syncOnWrite = configuration.getBoolean(SYNC_ON_WRITE, false);
+        this.maxDeliveries = configuration.getInt(MAX_DELIVERIES, DEFAULT_MAX_DELIVERIES);
+        this.nextTupleTimeoutMs = configuration.getLong(NEXT_TUPLE_TIMEOUT_MS, DEFAULT_NEXT_TUPLE_TIMEOUT_MS);
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new VisalloException("Could not create directory: " + directory.getAbsolutePath());
+        }
+        File file = new File(directory, LOCK_FILE_NAME);
+        try {
+            lockFile = new RandomAccessFile(file, "rw");
+            FileChannel channel = lockFile.getChannel();
+            lock = tryLock(channel);
+            if (lock == null) {
+                lockFile.close();
+                throw new VisalloException("Work queue directory is in use: " + directory.getAbsolutePath());
+            }
+        } catch (IOException ex) {
+            throw new VisalloException("Could not lock: " + file.getAbsolutePath(), ex);
+        }
+        shutdownService.register(this);
+    }
+
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException ex) {
+            return null;
+        }
+    }
+
+    @Override
+    protected void broadcastJson(JSONObject json) {
+        for (BroadcastConsumer consumer : broadcastConsumers) {
+            consumer.broadcastReceived(json);
+        }
+    }
+
+    @Override
+    public void pushOnQueue(String queueName, byte[] data, Priority priority) {
+        LOGGER.debug("push on queue: %s: %s", queueName, data);
+        getQueue(queueName).push(data, priority);
+    }
+
+    @Override
+    public void flush() {
+        for (FileQueue queue : queues.values()) {
+            queue.force();
+        }
+    }
+
+    @Override
+    protected void deleteQueue(String queueName) {
+        // queues are emptied rather than removed so existing worker spouts keep working
+        getQueue(queueName).clear();
+    }
+
+    @Override
+    public void subscribeToBroadcastMessages(BroadcastConsumer broadcastConsumer) {
+        broadcastConsumers.add(broadcastConsumer);
+    }
+
+    @Override
+    public WorkerSpout createWorkerSpout(String queueName) {
+        final FileQueue queue = getQueue(queueName);
+        return new WorkerSpout() {
+            @Override
+            public WorkerTuple nextTuple() throws Exception {
+                return queue.poll(nextTupleTimeoutMs, TimeUnit.MILLISECONDS);
+            }
+
+            @Override
+            public void ack(WorkerTuple workerTuple) {
+                queue.ack((FileQueue.MessageId) workerTuple.getMessageId());
+            }
+
+            @Override
+            public void fail(WorkerTuple workerTuple) {
+                queue.fail((FileQueue.MessageId) workerTuple.getMessageId());
+            }
+        };
+    }
+
+    @Override
+    public Map<String, Status> getQueuesStatus() {
+        Map<String, Status> results = new HashMap<>();
+        for (Map.Entry<String, FileQueue> entry : queues.entrySet()) {
+            FileQueue queue = entry.getValue();
+            int messages = 0;
+            QueueStatus status = new QueueStatus(0);
+            for (Priority priority : Priority.values()) {
+                int size = queue.size(priority);
+                messages += size;
+                status.addCounter("messages." + priority.name().toLowerCase(), size);
+            }
+            status.addCounter("messages", messages);
+            status.addCounter("inFlight", queue.getInFlightCount());
+            results.put(entry.getKey(), status);
+        }
+        return results;
+    }
+
+    FileQueue getQueue(String queueName) {
+        return queues.computeIfAbsent(queueName, k -> new FileQueue(
+                queueName,
+                new File(directory, queueName),
+                segmentSize,
+                syncOnWrite,
+                maxDeliveries
+        ));
+    }
+
+    @Override
+    public void shutdown() {
+        flush();
+        try {
+            lock.release();
+            lockFile.close();
+        } catch (IOException ex) {
+            LOGGER.error("Could not release lock on %s", directory.getAbsolutePath(), ex);
+        }
+    }
+}
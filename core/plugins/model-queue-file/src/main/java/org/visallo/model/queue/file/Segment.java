@@ -0,0 +1,205 @@
+package org.visallo.model.queue.file;
+
+import org.visallo.core.exception.VisalloException;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * A memory mapped file holding a contiguous run of records. Each record is a 4 byte length, a 4 byte CRC32 of the
+ * data and the data. The length is stored plus one, the file is preallocated so a zero marks the end of the records
+ * and an empty record can't be mistaken for it. The length is written
+ * after the data so a record is only visible once it is complete, a record torn by a crash fails the CRC check and
+ * ends the segment when it is reopened.
+ */
+class Segment {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(Segment.class);
+    static final String FILE_EXTENSION = ".segment";
+    static final int HEADER_SIZE = 8;
+    private final File file;
+    private final long baseOffset;
+    private final MappedByteBuffer buffer;
+    private int size;
+
+    private Segment(File file, long baseOffset, MappedByteBuffer buffer) {
+        this.file = file;
+        this.baseOffset = baseOffset;
+        this.buffer = buffer;
+    }
+
+    static Segment create(File directory, long baseOffset, int capacity) {
+        File file = new File(directory, String.format("%020d%s", baseOffset, FILE_EXTENSION));
+        if (file.exists()) {
+            throw new VisalloException("Segment already exists: " + file.getAbsolutePath());
+        }
+        return new Segment(file, baseOffset, map(file, capacity));
+    }
+
+    static Segment open(File file) {
+        String name = file.getName();
+        long baseOffset;
+        try {
+            baseOffset = Long.parseLong(name.substring(0, name.length() - FILE_EXTENSION.length()));
+        } catch (NumberFormatException ex) {
+            throw new VisalloException("Invalid segment file name: " + file.getAbsolutePath(), ex);
+        }
+        Segment segment = new Segment(file, baseOffset, map(file, (int) file.length()));
+        segment.size = segment.scan();
+        return segment;
+    }
+
+    private static MappedByteBuffer map(File file, int capacity) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        } catch (IOException ex) {
+            throw new VisalloException("Could not map segment: " + file.getAbsolutePath(), ex);
+        }
+    }
+
+    /**
+     * Finds the end of the valid records.
+     */
+    private int scan() {
+        int position = 0;
+        while (position + HEADER_SIZE <= buffer.capacity()) {
+            if (buffer.getInt(position) <= 0) {
+                break;
+            }
+            int length = getLength(position);
+            if (position + HEADER_SIZE + length > buffer.capacity()
+                    || crc(position + HEADER_SIZE, length) != buffer.getInt(position + 4)) {
+                LOGGER.warn("Ignoring torn record at %d in %s", baseOffset + position, file.getAbsolutePath());
+                break;
+            }
+            position += HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    private int crc(int position, int length) {
+        ByteBuffer data = buffer.duplicate();
+        data.position(position);
+        data.limit(position + length);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    boolean hasRoomFor(int length) {
+        return (long) size + HEADER_SIZE + length <= buffer.capacity();
+    }
+
+    /**
+     * @return the offset of the new record.
+     */
+    long append(byte[] data) {
+        int position = size;
+        int end = position + HEADER_SIZE + data.length;
+        if (end + HEADER_SIZE <= buffer.capacity()) {
+            // clear any torn record left behind a crash so it can't be mistaken for the next record
+            buffer.putInt(end, 0);
+        }
+        ByteBuffer out = buffer.duplicate();
+        out.position(position + HEADER_SIZE);
+        out.put(data);
+        buffer.putInt(position + 4, crc(position + HEADER_SIZE, data.length));
+        buffer.putInt(position, data.length + 1);
+        size = end;
+        return baseOffset + position;
+    }
+
+    byte[] read(long offset) {
+        int position = (int) (offset - baseOffset);
+        byte[] data = new byte[getLength(position)];
+        ByteBuffer in = buffer.duplicate();
+        in.position(position + HEADER_SIZE);
+        in.get(data);
+        return data;
+    }
+
+    long nextOffset(long offset) {
+        return offset + HEADER_SIZE + getLength((int) (offset - baseOffset));
+    }
+
+    private int getLength(int position) {
+        return buffer.getInt(position) - 1;
+    }
+
+    int countRecords(long fromOffset) {
+        int count = 0;
+        long offset = Math.max(fromOffset, baseOffset);
+        while (offset < getEndOffset()) {
+            offset = nextOffset(offset);
+            count++;
+        }
+        return count;
+    }
+
+    long getBaseOffset() {
+        return baseOffset;
+    }
+
+    long getEndOffset() {
+        return baseOffset + size;
+    }
+
+    boolean contains(long offset) {
+        return offset >= baseOffset && offset < getEndOffset();
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Unmaps the segment instead of waiting for the buffer to be garbage collected, which keeps the memory and, for
+     * a deleted segment, the disk space in use. The segment must not be used afterwards.
+     */
+    void close() {
+        try {
+            unmap(buffer);
+        } catch (Exception ex) {
+            LOGGER.warn("Could not unmap %s, it is unmapped when garbage collected", file.getAbsolutePath(), ex);
+        }
+    }
+
+    private static void unmap(MappedByteBuffer buffer) throws Exception {
+        Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+        try {
+            // java 9 and later
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+        } catch (NoSuchMethodException ex) {
+            // java 8
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        }
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    @Override
+    public String toString() {
+        return "Segment{" +
+                "file=" + file +
+                ", size=" + size +
+                '}';
+    }
+}
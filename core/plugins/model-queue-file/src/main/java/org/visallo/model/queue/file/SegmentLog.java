@@ -0,0 +1,179 @@
+package org.visallo.model.queue.file;
+
+import org.visallo.core.exception.VisalloException;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An append only log of records stored in a directory of {@link Segment}s. Records are addressed by offset, the
+ * offset of the first record of a segment is in its file name.
+ * <p>
+ * The committed offset is the offset of the first record which has not been acknowledged. It is stored in a memory
+ * mapped file next to the segments and segments which end at or before it are deleted. Instances are not thread
+ * safe.
+ */
+class SegmentLog {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(SegmentLog.class);
+    static final String COMMITTED_FILE_NAME = "committed";
+    private final File directory;
+    private final int segmentSize;
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final MappedByteBuffer committedBuffer;
+    private long committedOffset;
+
+    SegmentLog(File directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new VisalloException("Could not create directory: " + directory.getAbsolutePath());
+        }
+
+        File committedFile = new File(directory, COMMITTED_FILE_NAME);
+        try (RandomAccessFile raf = new RandomAccessFile(committedFile, "rw")) {
+            committedBuffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, 8);
+        } catch (IOException ex) {
+            throw new VisalloException("Could not map: " + committedFile.getAbsolutePath(), ex);
+        }
+        committedOffset = committedBuffer.getLong(0);
+
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(Segment.FILE_EXTENSION));
+        if (files != null) {
+            for (File file : files) {
+                Segment segment = Segment.open(file);
+                segments.put(segment.getBaseOffset(), segment);
+            }
+        }
+        if (segments.isEmpty() || committedOffset > getEndOffset()) {
+            roll(Math.max(committedOffset, getEndOffset()), 0);
+        }
+        if (committedOffset < segments.firstKey()) {
+            committedOffset = segments.firstKey();
+        }
+    }
+
+    /**
+     * @return the offset of the new record.
+     */
+    long append(byte[] data) {
+        Segment segment = segments.lastEntry().getValue();
+        if (!segment.hasRoomFor(data.length)) {
+            if (segment.getEndOffset() == segment.getBaseOffset()) {
+                // an empty segment too small for the record is replaced by a larger one at the same offset
+                segments.remove(segment.getBaseOffset());
+                segment.close();
+                if (!segment.getFile().delete()) {
+                    throw new VisalloException("Could not delete segment: " + segment.getFile().getAbsolutePath());
+                }
+            }
+            segment = roll(segment.getEndOffset(), data.length);
+        }
+        return segment.append(data);
+    }
+
+    private Segment roll(long baseOffset, int recordLength) {
+        Segment segment = Segment.create(directory, baseOffset, Math.max(segmentSize, Segment.HEADER_SIZE + recordLength));
+        segments.put(baseOffset, segment);
+        return segment;
+    }
+
+    /**
+     * Returns the offset of the first record at or after the given offset, or the end offset if there is none.
+     */
+    long seek(long offset) {
+        Map.Entry<Long, Segment> entry = segments.floorEntry(offset);
+        if (entry != null && entry.getValue().contains(offset)) {
+            return offset;
+        }
+        // the offset is at the end of a segment, records continue in the next segment
+        Map.Entry<Long, Segment> next = segments.higherEntry(offset);
+        while (next != null) {
+            if (next.getValue().getEndOffset() > next.getKey()) {
+                return next.getKey();
+            }
+            next = segments.higherEntry(next.getKey());
+        }
+        return getEndOffset();
+    }
+
+    /**
+     * @param offset the offset of a record, as returned by {@link #seek(long)}
+     */
+    byte[] read(long offset) {
+        return getSegment(offset).read(offset);
+    }
+
+    long nextOffset(long offset) {
+        return getSegment(offset).nextOffset(offset);
+    }
+
+    private Segment getSegment(long offset) {
+        Map.Entry<Long, Segment> entry = segments.floorEntry(offset);
+        if (entry == null || !entry.getValue().contains(offset)) {
+            throw new VisalloException("No record at offset " + offset + " in " + directory.getAbsolutePath());
+        }
+        return entry.getValue();
+    }
+
+    long getEndOffset() {
+        return segments.isEmpty() ? 0 : segments.lastEntry().getValue().getEndOffset();
+    }
+
+    long getCommittedOffset() {
+        return committedOffset;
+    }
+
+    int countRecords(long fromOffset) {
+        int count = 0;
+        for (Segment segment : segments.values()) {
+            if (segment.getEndOffset() > fromOffset) {
+                count += segment.countRecords(fromOffset);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Stores the committed offset and deletes segments which only hold records before it. The last segment is
+     * always kept so new records can be appended to it.
+     */
+    void commit(long offset) {
+        if (offset == committedOffset) {
+            return;
+        }
+        committedOffset = offset;
+        committedBuffer.putLong(0, offset);
+
+        Iterator<Segment> it = segments.values().iterator();
+        while (it.hasNext()) {
+            Segment segment = it.next();
+            if (segment == segments.lastEntry().getValue() || segment.getEndOffset() > offset) {
+                break;
+            }
+            it.remove();
+            segment.close();
+            if (!segment.getFile().delete()) {
+                LOGGER.warn("Could not delete segment: %s", segment.getFile().getAbsolutePath());
+            }
+        }
+    }
+
+    int getSegmentCount() {
+        return segments.size();
+    }
+
+    void force() {
+        for (Segment segment : segments.values()) {
+            segment.force();
+        }
+        committedBuffer.force();
+    }
+}
@@ -0,0 +1,216 @@
+package org.visallo.model.queue.file;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.vertexium.Graph;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.config.HashMapConfigurationLoader;
+import org.visallo.core.exception.VisalloException;
+import org.visallo.core.ingest.WorkerSpout;
+import org.visallo.core.ingest.WorkerTuple;
+import org.visallo.core.model.WorkQueueNames;
+import org.visallo.core.model.workQueue.Priority;
+import org.visallo.core.status.model.QueueStatus;
+import org.visallo.core.status.model.Status;
+import org.visallo.core.util.ShutdownService;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class FileWorkQueueRepositoryTest {
+    private static final String QUEUE_NAME = "test";
+    private File directory;
+    private FileWorkQueueRepository workQueueRepository;
+
+    @Before
+    public void before() throws Exception {
+        directory = Files.createTempDirectory(FileWorkQueueRepositoryTest.class.getSimpleName()).toFile();
+        workQueueRepository = createWorkQueueRepository();
+    }
+
+    @After
+    public void after() throws Exception {
+        workQueueRepository.shutdown();
+        FileUtils.deleteDirectory(directory);
+    }
+
+    private FileWorkQueueRepository createWorkQueueRepository() {
+        Map<String, String> config = new HashMap<>();
+        config.put(FileWorkQueueRepository.DIRECTORY, directory.getAbsolutePath());
+        config.put(FileWorkQueueRepository.SEGMENT_SIZE, "64");
+        config.put(FileWorkQueueRepository.NEXT_TUPLE_TIMEOUT_MS, "10");
+        Configuration configuration = new HashMapConfigurationLoader(config).createConfiguration();
+        return new FileWorkQueueRepository(
+                mock(Graph.class),
+                mock(WorkQueueNames.class),
+                configuration,
+                new ShutdownService()
+        );
+    }
+
+    private FileWorkQueueRepository restart() {
+        workQueueRepository.shutdown();
+        workQueueRepository = createWorkQueueRepository();
+        return workQueueRepository;
+    }
+
+    @Test
+    public void testPriorityOrder() throws Exception {
+        workQueueRepository.pushOnQueue(QUEUE_NAME, new byte[]{1}, Priority.LOW);
+        workQueueRepository.pushOnQueue(QUEUE_NAME, new byte[]{2}, Priority.NORMAL);
+        workQueueRepository.pushOnQueue(QUEUE_NAME, new byte[]{3}, Priority.HIGH);
+        workQueueRepository.pushOnQueue(QUEUE_NAME, new byte[]{4}, Priority.HIGH);
+
+        WorkerSpout spout = workQueueRepository.createWorkerSpout(QUEUE_NAME);
+        assertArrayEquals(new byte[]{3}, spout.nextTuple().getData());
+        assertArrayEquals(new byte[]{4}, spout.nextTuple().getData());
+        assertArrayEquals(new byte[]{2}, spout.nextTuple().getData());
+        assertArrayEquals(new byte[]{1}, spout.nextTuple().getData());
+        assertNull(spout.nextTuple());
+    }
+
+    @Test
+    public void testMessagesSurviveRestart() throws Exception {
+        workQueueRepository.pushOnQueue(QUEUE_NAME, new byte[]{1}, Priority.NORMAL);
+        workQueueRepository.pushOnQueue(QUEUE_NAME, new byte[]{2}, Priority.NORMAL);
+
+        WorkerSpout spout = restart().createWorkerSpout(QUEUE_NAME);
+        assertArrayEquals(new byte[]{1}, spout.nextTuple().getData());
+        assertArrayEquals(new byte[]{2}, spout.nextTuple().getData());
+        assertNull(spout.nextTuple());
+    }
+
+    @Test
+    public void testEmptyMessageSurvivesRestart() throws Exception {
+        workQueueRepository.pushOnQueue(QUEUE_NAME, new byte[]{1}, Priority.NORMAL);
+        workQueueRepository.pushOnQueue(QUEUE_NAME, new byte[0], Priority.NORMAL);
+        workQueueRepository.pushOnQueue(QUEUE_NAME, new byte[]{2}, Priority.NORMAL);
+
+        WorkerSpout spout = restart().createWorkerSpout(QUEUE_NAME);
+        assertArrayEquals(new byte[]{1}, spout.nextTuple().getData());
+        assertArrayEquals(new byte[0], spout.nextTuple().getData());
+        assertArrayEquals(new byte[]{2}, spout.nextTuple().getData());
+        assertNull(spout.nextTuple());
+    }
+
+    @Test
+    public void testUnackedMessagesAreRedeliveredAfterRestart() throws Exception {
+        workQueueRepository.pushOnQueue(QUEUE_NAME, new byte[]{1}, Priority.NORMAL);
+        workQueueRepository.pushOnQueue(QUEUE_NAME, new byte[]{2}, Priority.NORMAL);
+        workQueueRepository.pushOnQueue(QUEUE_NAME, new byte[]{3}, Priority.NORMAL);
+
+        WorkerSpout spout = workQueueRepository.createWorkerSpout(QUEUE_NAME);
+        WorkerTuple tuple1 = spout.nextTuple();
+        WorkerTuple tuple2 = spout.nextTuple();
+        spout.nextTuple();
+        spout.ack(tuple1);
+        spout.ack(tuple2);
+
+        spout = restart().createWorkerSpout(QUEUE_NAME);
+        assertArrayEquals(new byte[]{3}, spout.nextTuple().getData());
+        assertNull(spout.nextTuple());
+    }
+
+    @Test
+    public void testAckOutOfOrder() throws Exception {
+        workQueueRepository.pushOnQueue(QUEUE_NAME, new byte[]{1}, Priority.NORMAL);
+        workQueueRepository.pushOnQueue(QUEUE_NAME, new byte[]{2}, Priority.NORMAL);
+
+        WorkerSpout spout = workQueueRepository.createWorkerSpout(QUEUE_NAME);
+        spout.nextTuple();
+        spout.ack(spout.nextTuple());
+
+        // the first message was never acknowledged so both are delivered again
+        spout = restart().createWorkerSpout(QUEUE_NAME);
+        assertArrayEquals(new byte[]{1}, spout.nextTuple().getData());
+        assertArrayEquals(new byte[]{2}, spout.nextTuple().getData());
+    }
+
+    @Test
+    public void testFailRedelivers() throws Exception {
+        workQueueRepository.pushOnQueue(QUEUE_NAME, new byte[]{1}, Priority.NORMAL);
+
+        WorkerSpout spout = workQueueRepository.createWorkerSpout(QUEUE_NAME);
+        for (int i = 0; i < FileWorkQueueRepository.DEFAULT_MAX_DELIVERIES; i++) {
+            WorkerTuple tuple = spout.nextTuple();
+            assertArrayEquals(new byte[]{1}, tuple.getData());
+            spout.fail(tuple);
+        }
+        assertNull(spout.nextTuple());
+        assertEquals(0, getCount(QUEUE_NAME, "messages"));
+    }
+
+    @Test
+    public void testAckedSegmentsAreDeleted() throws Exception {
+        WorkerSpout spout = workQueueRepository.createWorkerSpout(QUEUE_NAME);
+        for (int i = 0; i < 20; i++) {
+            workQueueRepository.pushOnQueue(QUEUE_NAME, new byte[20], Priority.NORMAL);
+        }
+        FileQueue queue = workQueueRepository.getQueue(QUEUE_NAME);
+        assertTrue(queue.getSegmentCount(Priority.NORMAL) > 1);
+
+        WorkerTuple tuple;
+        while ((tuple = spout.nextTuple()) != null) {
+            spout.ack(tuple);
+        }
+        assertEquals(1, queue.getSegmentCount(Priority.NORMAL));
+        assertEquals(1, new File(directory, QUEUE_NAME + "/normal").list((dir, name) -> name.endsWith(Segment.FILE_EXTENSION)).length);
+
+        workQueueRepository.pushOnQueue(QUEUE_NAME, new byte[]{1}, Priority.NORMAL);
+        spout = restart().createWorkerSpout(QUEUE_NAME);
+        assertArrayEquals(new byte[]{1}, spout.nextTuple().getData());
+        assertNull(spout.nextTuple());
+    }
+
+    @Test
+    public void testMessageLargerThanSegment() throws Exception {
+        byte[] data = new byte[1000];
+        data[999] = 1;
+        workQueueRepository.pushOnQueue(QUEUE_NAME, data, Priority.NORMAL);
+        workQueueRepository.pushOnQueue(QUEUE_NAME, new byte[]{2}, Priority.NORMAL);
+
+        WorkerSpout spout = restart().createWorkerSpout(QUEUE_NAME);
+        assertArrayEquals(data, spout.nextTuple().getData());
+        assertArrayEquals(new byte[]{2}, spout.nextTuple().getData());
+    }
+
+    @Test
+    public void testQueuesStatus() throws Exception {
+        workQueueRepository.pushOnQueue(QUEUE_NAME, new byte[]{1}, Priority.HIGH);
+        workQueueRepository.pushOnQueue(QUEUE_NAME, new byte[]{2}, Priority.LOW);
+        workQueueRepository.createWorkerSpout(QUEUE_NAME).nextTuple();
+
+        assertEquals(2, getCount(QUEUE_NAME, "messages"));
+        assertEquals(1, getCount(QUEUE_NAME, "messages.high"));
+        assertEquals(1, getCount(QUEUE_NAME, "messages.low"));
+        assertEquals(1, getCount(QUEUE_NAME, "inFlight"));
+    }
+
+    @Test
+    public void testFormat() throws Exception {
+        WorkerSpout spout = workQueueRepository.createWorkerSpout(QUEUE_NAME);
+        workQueueRepository.pushOnQueue(QUEUE_NAME, new byte[]{1}, Priority.NORMAL);
+        workQueueRepository.deleteQueue(QUEUE_NAME);
+        assertNull(spout.nextTuple());
+
+        workQueueRepository.pushOnQueue(QUEUE_NAME, new byte[]{2}, Priority.NORMAL);
+        assertArrayEquals(new byte[]{2}, spout.nextTuple().getData());
+    }
+
+    @Test(expected = VisalloException.class)
+    public void testDirectoryIsLocked() {
+        createWorkQueueRepository();
+    }
+
+    private long getCount(String queueName, String name) {
+        QueueStatus status = (QueueStatus) workQueueRepository.getQueuesStatus().get(queueName);
+        return ((Status.CounterMetric) status.getMetrics().get(name)).getCount();
+    }
+}
@@ -0,0 +1,120 @@
+package org.visallo.model.queue.inmemory;
+
+import org.visallo.core.model.workQueue.Priority;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A single named queue with one concurrent deque per {@link Priority}. Messages are taken from the highest priority
+ * deque which is not empty and in FIFO order within a priority.
+ * <p>
+ * Consumers block on a semaphore counting the available messages, so a waiting consumer is woken as soon as a
+ * message is pushed. If the queue has a capacity producers block on a second semaphore counting the free space.
+ */
+class InMemoryQueue {
+    private static final Priority[] PRIORITIES = Priority.values();
+    private final ConcurrentLinkedDeque<byte[]>[] deques;
+    private final AtomicInteger[] depths;
+    private final Semaphore available = new Semaphore(0);
+    private final Semaphore space;
+    private final int capacity;
+
+    /**
+     * @param capacity The maximum number of messages in the queue, 0 or less for an unbounded queue.
+     */
+    @SuppressWarnings("unchecked")
+    InMemoryQueue(int capacity) {
+        this.capacity = Math.max(0, capacity);
+        this.space = this.capacity > 0 ? new Semaphore(this.capacity) : null;
+        this.deques = new ConcurrentLinkedDeque[PRIORITIES.length];
+        this.depths = new AtomicInteger[PRIORITIES.length];
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            deques[i] = new ConcurrentLinkedDeque<>();
+            depths[i] = new AtomicInteger();
+        }
+    }
+
+    /**
+     * Adds the message, waiting up to the timeout for space if the queue is bounded.
+     *
+     * @return false if the queue stayed full for the entire timeout.
+     */
+    boolean push(byte[] data, Priority priority, long timeout, TimeUnit unit) throws InterruptedException {
+        if (space != null && !space.tryAcquire(timeout, unit)) {
+            return false;
+        }
+        int index = (priority == null ? Priority.NORMAL : priority).ordinal();
+        depths[index].incrementAndGet();
+        deques[index].add(data);
+        available.release();
+        return true;
+    }
+
+    /**
+     * Takes the next message, waiting up to the timeout for one to arrive.
+     *
+     * @return null if no message arrived within the timeout.
+     */
+    byte[] poll(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!available.tryAcquire(timeout, unit)) {
+            return null;
+        }
+        // Every permit is released after its message is added so a message is guaranteed to be in one of the
+        // deques, the loop only guards against a producer which has not finished adding yet.
+        while (true) {
+            byte[] data = pollHighestPriority();
+            if (data != null) {
+                return data;
+            }
+            Thread.yield();
+        }
+    }
+
+    private byte[] pollHighestPriority() {
+        for (int i = PRIORITIES.length - 1; i >= 0; i--) {
+            byte[] data = deques[i].poll();
+            if (data != null) {
+                depths[i].decrementAndGet();
+                if (space != null) {
+                    space.release();
+                }
+                return data;
+            }
+        }
+        return null;
+    }
+
+    void clear() {
+        while (available.tryAcquire()) {
+            pollHighestPriority();
+        }
+    }
+
+    int size() {
+        return available.availablePermits();
+    }
+
+    int size(Priority priority) {
+        return depths[priority.ordinal()].get();
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * A snapshot of the messages in the order they would be taken.
+     */
+    List<byte[]> toList() {
+        List<byte[]> results = new ArrayList<>();
+        for (int i = PRIORITIES.length - 1; i >= 0; i--) {
+            results.addAll(deques[i]);
+        }
+        return results;
+    }
+}
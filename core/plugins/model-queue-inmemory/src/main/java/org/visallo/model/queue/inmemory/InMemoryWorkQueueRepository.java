@@ -4,6 +4,7 @@ import com.google.inject.Inject;
 import org.json.JSONObject;
 import org.vertexium.Graph;
 import org.visallo.core.config.Configuration;
+import org.visallo.core.exception.VisalloException;
 import org.visallo.core.ingest.WorkerSpout;
 import org.visallo.core.ingest.WorkerTuple;
 import org.visallo.core.model.WorkQueueNames;
@@ -13,10 +14,32 @@ import org.visallo.core.status.model.QueueStatus;
 import org.visallo.core.status.model.Status;
 
 import java.util.*;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Work queue repository which keeps every queue in memory. Each queue has a deque per {@link Priority} so higher
+ * priority messages are always taken first and messages of the same priority are taken in the order they were
+ * pushed. Worker spouts block until a message arrives rather than polling.
+ * <p>
+ * Queues are unbounded by default. Set {@link #CAPACITY} to limit the number of messages in each queue, producers
+ * then wait up to {@link #PUSH_TIMEOUT_MS} for space before failing. Queues are shared by all instances in the JVM
+ * and are created with the capacity of the instance which first used them.
+ */
 public class InMemoryWorkQueueRepository extends WorkQueueRepository {
-    private static Map<String, List<byte[]>> queues = new HashMap<>();
-    private List<BroadcastConsumer> broadcastConsumers = new ArrayList<>();
+    public static final String CAPACITY = InMemoryWorkQueueRepository.class.getName() + ".capacity";
+    public static final String PUSH_TIMEOUT_MS = InMemoryWorkQueueRepository.class.getName() + ".pushTimeoutMs";
+    public static final String NEXT_TUPLE_TIMEOUT_MS = InMemoryWorkQueueRepository.class.getName() + ".nextTupleTimeoutMs";
+    public static final int DEFAULT_CAPACITY = 0;
+    public static final long DEFAULT_PUSH_TIMEOUT_MS = 60 * 1000L;
+    public static final long DEFAULT_NEXT_TUPLE_TIMEOUT_MS = 1000L;
+    private static final ConcurrentMap<String, InMemoryQueue> queues = new ConcurrentHashMap<>();
+    private final List<BroadcastConsumer> broadcastConsumers = new CopyOnWriteArrayList<>();
+    private final int capacity;
+    private final long pushTimeoutMs;
+    private final long nextTupleTimeoutMs;
 
     @Inject
     public InMemoryWorkQueueRepository(
@@ -25,6 +48,19 @@ public class InMemoryWorkQueueRepository extends WorkQueueRepository {
             Configuration configuration
     ) {
         super(graph, workQueueNames, configuration);
+        this.capacity = getInt(configuration, CAPACITY, DEFAULT_CAPACITY);
+        this.pushTimeoutMs = getLong(configuration, PUSH_TIMEOUT_MS, DEFAULT_PUSH_TIMEOUT_MS);
+        this.nextTupleTimeoutMs = getLong(configuration, NEXT_TUPLE_TIMEOUT_MS, DEFAULT_NEXT_TUPLE_TIMEOUT_MS);
+    }
+
+    private static int getInt(Configuration configuration, String key, int defaultValue) {
+        Integer value = configuration == null ? null : configuration.getInt(key, defaultValue);
+        return value == null ? defaultValue : value;
+    }
+
+    private static long getLong(Configuration configuration, String key, long defaultValue) {
+        Long value = configuration == null ? null : configuration.getLong(key, defaultValue);
+        return value == null ? defaultValue : value;
     }
 
     @Override
@@ -41,16 +77,19 @@ public class InMemoryWorkQueueRepository extends WorkQueueRepository {
     }
 
     public void addToQueue(String queueName, byte[] data, Priority priority) {
-        final List<byte[]> queue = getQueue(queueName);
-        // getQueue - only returns static variables
-        //noinspection SynchronizationOnLocalVariableOrMethodParameter
-        synchronized (queue) {
-            if (priority == Priority.HIGH) {
-                queue.add(0, data);
-            } else {
-                queue.add(data);
+        InMemoryQueue queue = getInMemoryQueue(queueName, capacity);
+        try {
+            if (!queue.push(data, priority, pushTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new VisalloException(String.format(
+                        "Timed out after %dms waiting for space on queue %s (capacity %d)",
+                        pushTimeoutMs,
+                        queueName,
+                        queue.getCapacity()
+                ));
             }
-            queue.notifyAll();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new VisalloException("Interrupted while pushing on queue " + queueName, ex);
         }
     }
 
@@ -71,22 +110,15 @@ public class InMemoryWorkQueueRepository extends WorkQueueRepository {
 
     @Override
     public WorkerSpout createWorkerSpout(String queueName) {
-        final List<byte[]> queue = getQueue(queueName);
+        final InMemoryQueue queue = getInMemoryQueue(queueName, capacity);
         return new WorkerSpout() {
             @Override
             public WorkerTuple nextTuple() throws Exception {
-                synchronized (queue) {
-                    if (queue.size() == 0) {
-                        Thread.sleep(100);
-                        return null;
-                    }
-                    byte[] entry = queue.remove(0);
-                    if (entry == null) {
-                        Thread.sleep(100);
-                        return null;
-                    }
-                    return new WorkerTuple("", entry);
+                byte[] entry = queue.poll(nextTupleTimeoutMs, TimeUnit.MILLISECONDS);
+                if (entry == null) {
+                    return null;
                 }
+                return new WorkerTuple("", entry);
             }
         };
     }
@@ -94,27 +126,44 @@ public class InMemoryWorkQueueRepository extends WorkQueueRepository {
     @Override
     public Map<String, Status> getQueuesStatus() {
         Map<String, Status> results = new HashMap<>();
-        for (Map.Entry<String, List<byte[]>> queue : queues.entrySet()) {
-            results.put(queue.getKey(), new QueueStatus(queue.getValue().size()));
+        for (Map.Entry<String, InMemoryQueue> entry : queues.entrySet()) {
+            InMemoryQueue queue = entry.getValue();
+            QueueStatus status = new QueueStatus(queue.size());
+            for (Priority priority : Priority.values()) {
+                status.addCounter("messages." + priority.name().toLowerCase(), queue.size(priority));
+            }
+            results.put(entry.getKey(), status);
         }
         return results;
     }
 
+    /**
+     * Removes all messages from all queues. The queues themselves are kept so existing worker spouts continue to
+     * receive new messages.
+     */
     public static void clearQueue() {
-        queues.clear();
+        for (InMemoryQueue queue : queues.values()) {
+            queue.clear();
+        }
     }
 
     @Override
     protected void deleteQueue(String queueName) {
-        queues.remove(queueName);
+        InMemoryQueue queue = queues.get(queueName);
+        if (queue != null) {
+            queue.clear();
+        }
     }
 
+    /**
+     * A snapshot of the messages on the queue in the order they will be taken. Changes to the returned list are not
+     * reflected in the queue.
+     */
     public static List<byte[]> getQueue(String queueName) {
-        List<byte[]> queue = queues.get(queueName);
-        if (queue == null) {
-            queue = new LinkedList<>();
-            queues.put(queueName, queue);
-        }
-        return queue;
+        return getInMemoryQueue(queueName, DEFAULT_CAPACITY).toList();
+    }
+
+    private static InMemoryQueue getInMemoryQueue(String queueName, int capacity) {
+        return queues.computeIfAbsent(queueName, k -> new InMemoryQueue(capacity));
     }
 }
@@ -54,6 +54,7 @@ public class InMemoryOntologyRepository extends OntologyRepositoryBase {
     ) throws IOException {
         InMemoryConcept concept = (InMemoryConcept) super.importOntologyClass(o, ontologyClass, inDir, authorizations);
         conceptsCache.put(concept.getIRI(), concept);
+        clearCache();
         return concept;
     }
 
@@ -69,6 +70,7 @@ public class InMemoryOntologyRepository extends OntologyRepositoryBase {
                 authorizations
         );
         relationshipsCache.put(relationship.getIRI(), relationship);
+        clearCache();
         return relationship;
     }
 
@@ -130,6 +132,7 @@ public class InMemoryOntologyRepository extends OntologyRepositoryBase {
     public void updatePropertyDependentIris(OntologyProperty property, Collection<String> dependentPropertyIris) {
         InMemoryOntologyProperty inMemoryOntologyProperty = (InMemoryOntologyProperty) property;
         inMemoryOntologyProperty.setDependentPropertyIris(dependentPropertyIris);
+        clearCache();
     }
 
     @Override
@@ -239,6 +242,7 @@ public class InMemoryOntologyRepository extends OntologyRepositoryBase {
             relationship.getProperties().add(property);
         }
         checkNotNull(property, "Could not find property: " + propertyIri);
+        clearCache();
         return property;
     }
 
@@ -255,6 +259,7 @@ public class InMemoryOntologyRepository extends OntologyRepositoryBase {
         for (String domainIri : domainIris) {
             getConceptByIRI(domainIri).getProperties().add(property);
         }
+        clearCache();
     }
 
     @Override
@@ -268,7 +273,10 @@ public class InMemoryOntologyRepository extends OntologyRepositoryBase {
 
     @Override
     public void clearCache() {
-        // do nothing it's all in memory already.
+        // the concepts, properties and relationships are all in memory already, only the lookup tables built from
+        // them need to be discarded. This is also called after every change since callers don't expect to clear
+        // the cache themselves.
+        super.clearCache();
     }
 
     @Override
@@ -310,7 +318,7 @@ public class InMemoryOntologyRepository extends OntologyRepositoryBase {
 
     @Override
     public InMemoryConcept getConceptByIRI(String conceptIRI) {
-        return (InMemoryConcept) super.getConceptByIRI(conceptIRI);
+        return conceptsCache.get(conceptIRI);
     }
 
     @Override
@@ -335,12 +343,8 @@ public class InMemoryOntologyRepository extends OntologyRepositoryBase {
 
     @Override
     public Concept getParentConcept(Concept concept) {
-        for (String key : conceptsCache.keySet()) {
-            if (key.equals(concept.getParentConceptIRI())) {
-                return conceptsCache.get(key);
-            }
-        }
-        return null;
+        String parentConceptIRI = concept.getParentConceptIRI();
+        return parentConceptIRI == null ? null : conceptsCache.get(parentConceptIRI);
     }
 
     @Override
@@ -393,6 +397,7 @@ public class InMemoryOntologyRepository extends OntologyRepositoryBase {
         concept.setProperty(OntologyProperties.TITLE.getPropertyName(), conceptIRI, null);
         concept.setProperty(OntologyProperties.DISPLAY_NAME.getPropertyName(), displayName, null);
         conceptsCache.put(conceptIRI, concept);
+        clearCache();
 
         return concept;
     }
@@ -447,6 +452,7 @@ public class InMemoryOntologyRepository extends OntologyRepositoryBase {
                 properties
         );
         relationshipsCache.put(relationshipIRI, inMemRelationship);
+        clearCache();
         return inMemRelationship;
     }
 
@@ -484,6 +490,7 @@ public class InMemoryOntologyRepository extends OntologyRepositoryBase {
                 property.setProperty(propertyName, null, null);
             }
         }
+        clearCache();
     }
 
     @Override
@@ -509,5 +516,6 @@ public class InMemoryOntologyRepository extends OntologyRepositoryBase {
                 }
             }
         }
+        clearCache();
     }
 }
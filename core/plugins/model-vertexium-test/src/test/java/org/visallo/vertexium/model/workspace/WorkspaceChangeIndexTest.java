@@ -0,0 +1,338 @@
+package org.visallo.vertexium.model.workspace;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.vertexium.*;
+import org.vertexium.inmemory.InMemoryAuthorizations;
+import org.vertexium.mutation.ElementMutation;
+import org.visallo.core.formula.FormulaEvaluator;
+import org.visallo.core.model.graph.GraphUpdateContext;
+import org.visallo.core.model.ontology.Concept;
+import org.visallo.core.model.ontology.Relationship;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.model.properties.types.PropertyMetadata;
+import org.visallo.core.model.user.UserPropertyAuthorizationRepository;
+import org.visallo.core.model.workQueue.Priority;
+import org.visallo.core.model.workspace.*;
+import org.visallo.core.user.User;
+import org.visallo.core.util.SandboxStatusUtil;
+import org.visallo.core.util.VisalloInMemoryTestBase;
+import org.visallo.web.clientapi.model.*;
+import org.visallo.web.clientapi.model.ClientApiPublishItem.Action;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class WorkspaceChangeIndexTest extends VisalloInMemoryTestBase {
+    private static final String WORKSPACE_ID = "testWorkspaceId";
+    private static final String SECRET_VISIBILITY_SOURCE = "secret";
+    private static final int PUBLIC_VERTEX_COUNT = 5;
+    private static final int EDIT_COUNT = 40;
+
+    private User user;
+    private Workspace workspace;
+    private Authorizations workspaceAuthorizations;
+    private FormulaEvaluator.UserContext userContext;
+    private WorkspaceHelper workspaceHelper;
+    private WorkspaceUndoHelper workspaceUndoHelper;
+    private WorkspaceRepository fullDiffWorkspaceRepository;
+    private List<String> vertexIds = new ArrayList<>();
+    private int nextId;
+
+    @Override
+    protected HashMap getConfigurationMap() {
+        HashMap config = super.getConfigurationMap();
+        config.put(WorkspaceChangeIndex.CONFIG_ENABLED, "true");
+        return config;
+    }
+
+    @Before
+    public void before() {
+        super.before();
+
+        user = getUserRepository().findOrAddUser("junit", "Junit", "junit@visallo.com", "password");
+        User systemUser = getUserRepository().getSystemUser();
+        Authorizations systemUserAuth = getAuthorizationRepository().getGraphAuthorizations(systemUser);
+        UserPropertyAuthorizationRepository authorizationRepository = (UserPropertyAuthorizationRepository) getAuthorizationRepository();
+        authorizationRepository.addAuthorization(user, SECRET_VISIBILITY_SOURCE, systemUser);
+
+        Concept thing = getOntologyRepository().getEntityConcept();
+        Relationship hasEntityRel = getOntologyRepository().getOrCreateRelationshipType(null, Collections.singleton(thing), Collections.singleton(thing), "has-entity-iri", true);
+        hasEntityRel.addIntent("entityHasImage", systemUserAuth);
+
+        workspace = getWorkspaceRepository().add(WORKSPACE_ID, "testWorkspaceTitle", user);
+        workspaceAuthorizations = new InMemoryAuthorizations(WORKSPACE_ID, SECRET_VISIBILITY_SOURCE);
+        userContext = new FormulaEvaluator.UserContext(Locale.US, null, TimeZone.getDefault().getID(), WORKSPACE_ID);
+
+        Visibility publicVisibility = getVisibilityTranslator().toVisibility(new VisibilityJson("")).getVisibility();
+        Vertex previousVertex = null;
+        for (int i = 0; i < PUBLIC_VERTEX_COUNT; i++) {
+            Vertex vertex = getGraph().prepareVertex("public" + i, publicVisibility)
+                    .addPropertyValue("key1", "prop1", "value" + i, new Metadata(), publicVisibility)
+                    .save(systemUserAuth);
+            vertexIds.add(vertex.getId());
+            if (previousVertex != null) {
+                getGraph().prepareEdge("publicEdge" + i, previousVertex, vertex, "label1", publicVisibility).save(systemUserAuth);
+            }
+            previousVertex = vertex;
+        }
+        getGraph().flush();
+        getWorkspaceRepository().updateEntitiesOnWorkspace(workspace, vertexIds, user);
+
+        workspaceHelper = new WorkspaceHelper(
+                getTermMentionRepository(),
+                getWorkQueueRepository(),
+                getGraph(),
+                getOntologyRepository(),
+                getWorkspaceRepository(),
+                getPrivilegeRepository(),
+                authorizationRepository
+        );
+        workspaceHelper.setWorkspaceChangeIndex(getWorkspaceChangeIndex());
+        workspaceUndoHelper = new WorkspaceUndoHelper(getGraph(), workspaceHelper, getWorkQueueRepository());
+
+        fullDiffWorkspaceRepository = new VertexiumWorkspaceRepository(
+                getGraph(),
+                getConfiguration(),
+                getGraphRepository(),
+                getUserRepository(),
+                getGraphAuthorizationRepository(),
+                getWorkspaceDiffHelper(),
+                getLockRepository(),
+                getVisibilityTranslator(),
+                getTermMentionRepository(),
+                getOntologyRepository(),
+                getWorkQueueRepository(),
+                getAuthorizationRepository()
+        );
+    }
+
+    @Test
+    public void testIndexedDiffMatchesFullDiffOnRandomEdits() {
+        for (long seed = 0; seed < 3; seed++) {
+            Random random = new Random(seed);
+            assertDiffsMatch("initial, seed " + seed);
+            assertNotNull(getWorkspaceChangeIndex().getChanges(WORKSPACE_ID));
+
+            for (int i = 0; i < EDIT_COUNT; i++) {
+                String edit = applyRandomEdit(random);
+                assertDiffsMatch(edit + ", seed " + seed + ", edit " + i);
+            }
+        }
+    }
+
+    @Test
+    public void testRebuildChangeIndex() {
+        setPropertyOnWorkspace(getVertex("public0"), "changed");
+        getWorkspaceChangeIndex().clear(WORKSPACE_ID);
+
+        getWorkspaceRepository().rebuildChangeIndex(workspace, user);
+
+        WorkspaceChangeIndex.Changes changes = getWorkspaceChangeIndex().getChanges(WORKSPACE_ID);
+        assertNotNull(changes);
+        assertEquals(Collections.singleton("public0"), changes.getVertexIds());
+        assertEquals(0, changes.getEdgeIds().size());
+        assertDiffsMatch("rebuilt");
+    }
+
+    @Test
+    public void testIndexedDiffSkipsElementsNotOnTheWorkspace() {
+        assertDiffsMatch("initial");
+        Vertex vertex = getGraphRepository().addVertex(
+                "notOnWorkspace",
+                "http://visallo.org/test#concept1",
+                "",
+                WORKSPACE_ID,
+                null,
+                null,
+                user,
+                workspaceAuthorizations
+        );
+        getGraphRepository().addEdge("edgeNotOnWorkspace", getVertex("public0"), vertex, "label1", null, null, "", WORKSPACE_ID, user, workspaceAuthorizations);
+        getGraph().flush();
+
+        assertTrue(getWorkspaceChangeIndex().getChanges(WORKSPACE_ID).getVertexIds().contains("notOnWorkspace"));
+        assertDiffsMatch("element not on the workspace");
+    }
+
+    private String applyRandomEdit(Random random) {
+        Vertex vertex = getVertex(vertexIds.get(random.nextInt(vertexIds.size())));
+        switch (random.nextInt(8)) {
+            case 0:
+                if (vertex != null) {
+                    setPropertyOnWorkspace(vertex, "value" + random.nextInt(100));
+                }
+                return "set property";
+            case 1:
+                if (vertex != null && vertex.getProperty("key1", "prop1") != null) {
+                    workspaceHelper.deleteProperties(vertex, "key1", "prop1", null, WORKSPACE_ID, workspaceAuthorizations, user);
+                }
+                return "delete property";
+            case 2:
+                Vertex newVertex = getGraphRepository().addVertex(
+                        "new" + nextId++,
+                        "http://visallo.org/test#concept1",
+                        random.nextBoolean() ? "" : SECRET_VISIBILITY_SOURCE,
+                        WORKSPACE_ID,
+                        null,
+                        null,
+                        user,
+                        workspaceAuthorizations
+                );
+                vertexIds.add(newVertex.getId());
+                getWorkspaceRepository().updateEntityOnWorkspace(workspace, newVertex.getId(), user);
+                return "add vertex";
+            case 3:
+                Vertex inVertex = getVertex(vertexIds.get(random.nextInt(vertexIds.size())));
+                if (vertex != null && inVertex != null) {
+                    getGraphRepository().addEdge("newEdge" + nextId++, vertex, inVertex, "label1", null, null, "", WORKSPACE_ID, user, workspaceAuthorizations);
+                    getGraph().flush();
+                }
+                return "add edge";
+            case 4:
+                addVertexInGraphUpdate();
+                return "add vertex in graph update";
+            case 5:
+                if (vertex != null) {
+                    boolean isPublic = SandboxStatusUtil.getSandboxStatus(vertex, WORKSPACE_ID) == SandboxStatus.PUBLIC;
+                    workspaceHelper.deleteVertex(vertex, WORKSPACE_ID, isPublic, Priority.HIGH, workspaceAuthorizations, user);
+                }
+                return "delete vertex";
+            case 6:
+                publishAll();
+                return "publish";
+            default:
+                undoAll();
+                return "undo";
+        }
+    }
+
+    private void setPropertyOnWorkspace(Vertex vertex, String value) {
+        getGraphRepository().setProperty(
+                vertex,
+                "prop1",
+                "key1",
+                value,
+                new Metadata(),
+                "",
+                "",
+                WORKSPACE_ID,
+                "",
+                null,
+                user,
+                workspaceAuthorizations
+        ).elementMutation.save(workspaceAuthorizations);
+        getGraph().flush();
+    }
+
+    private void addVertexInGraphUpdate() {
+        String vertexId = "new" + nextId++;
+        VisibilityJson visibilityJson = VisibilityJson.updateVisibilitySourceAndAddWorkspaceId(null, "", WORKSPACE_ID);
+        Visibility visibility = getVisibilityTranslator().toVisibility(visibilityJson).getVisibility();
+        PropertyMetadata metadata = new PropertyMetadata(new Date(), user, visibilityJson, visibility);
+        try (GraphUpdateContext ctx = getGraphRepository().beginGraphUpdate(Priority.NORMAL, user, workspaceAuthorizations)) {
+            ElementMutation<Vertex> m = getGraph().prepareVertex(vertexId, visibility);
+            ctx.update(m, new Date(), visibilityJson, "http://visallo.org/test#concept1", updateContext -> {
+                VisalloProperties.FILE_NAME.updateProperty(updateContext, "key1", vertexId + ".txt", metadata);
+            });
+        }
+        vertexIds.add(vertexId);
+        getWorkspaceRepository().updateEntityOnWorkspace(workspace, vertexId, user);
+    }
+
+    private void publishAll() {
+        List<ClientApiPublishItem> publishItems = new ArrayList<>();
+        for (ClientApiWorkspaceDiff.Item diff : getFullDiff().getDiffs()) {
+            ClientApiPublishItem publishItem;
+            if (diff instanceof ClientApiWorkspaceDiff.VertexItem) {
+                ClientApiVertexPublishItem vertexPublishItem = new ClientApiVertexPublishItem();
+                vertexPublishItem.setVertexId(((ClientApiWorkspaceDiff.VertexItem) diff).getVertexId());
+                publishItem = vertexPublishItem;
+            } else if (diff instanceof ClientApiWorkspaceDiff.EdgeItem) {
+                ClientApiRelationshipPublishItem edgePublishItem = new ClientApiRelationshipPublishItem();
+                edgePublishItem.setEdgeId(((ClientApiWorkspaceDiff.EdgeItem) diff).getEdgeId());
+                publishItem = edgePublishItem;
+            } else {
+                ClientApiWorkspaceDiff.PropertyItem propertyDiff = (ClientApiWorkspaceDiff.PropertyItem) diff;
+                ClientApiPropertyPublishItem propertyPublishItem = new ClientApiPropertyPublishItem();
+                propertyPublishItem.setElementId(propertyDiff.getElementId());
+                propertyPublishItem.setKey(propertyDiff.getKey());
+                propertyPublishItem.setName(propertyDiff.getName());
+                propertyPublishItem.setVisibilityString(propertyDiff.getVisibilityString());
+                publishItem = propertyPublishItem;
+            }
+            publishItem.setAction(diff.isDeleted() ? Action.DELETE : Action.ADD_OR_UPDATE);
+            publishItems.add(publishItem);
+        }
+        getWorkspaceRepository().publish(
+                publishItems.toArray(new ClientApiPublishItem[publishItems.size()]),
+                WORKSPACE_ID,
+                workspaceAuthorizations
+        );
+    }
+
+    private void undoAll() {
+        List<ClientApiUndoItem> undoItems = new ArrayList<>();
+        for (ClientApiWorkspaceDiff.Item diff : getFullDiff().getDiffs()) {
+            if (diff instanceof ClientApiWorkspaceDiff.VertexItem) {
+                ClientApiVertexUndoItem item = new ClientApiVertexUndoItem();
+                item.setVertexId(((ClientApiWorkspaceDiff.VertexItem) diff).getVertexId());
+                undoItems.add(item);
+            } else if (diff instanceof ClientApiWorkspaceDiff.EdgeItem) {
+                ClientApiRelationshipUndoItem item = new ClientApiRelationshipUndoItem();
+                item.setEdgeId(((ClientApiWorkspaceDiff.EdgeItem) diff).getEdgeId());
+                undoItems.add(item);
+            } else {
+                ClientApiWorkspaceDiff.PropertyItem propertyDiff = (ClientApiWorkspaceDiff.PropertyItem) diff;
+                ClientApiPropertyUndoItem item = new ClientApiPropertyUndoItem();
+                if (ElementType.valueOf(propertyDiff.getElementType().toUpperCase()) == ElementType.VERTEX) {
+                    item.setVertexId(propertyDiff.getElementId());
+                } else {
+                    item.setEdgeId(propertyDiff.getElementId());
+                }
+                item.setElementId(propertyDiff.getElementId());
+                item.setKey(propertyDiff.getKey());
+                item.setName(propertyDiff.getName());
+                item.setVisibilityString(propertyDiff.getVisibilityString());
+                undoItems.add(item);
+            }
+        }
+        ClientApiWorkspaceUndoResponse response = new ClientApiWorkspaceUndoResponse();
+        workspaceUndoHelper.undo(undoItems, response, WORKSPACE_ID, user, workspaceAuthorizations);
+    }
+
+    private void assertDiffsMatch(String message) {
+        Set<String> expected = toDiffKeys(getFullDiff());
+        Set<String> actual = toDiffKeys(getWorkspaceRepository().getDiff(workspace, user, userContext));
+        assertEquals(message, expected, actual);
+    }
+
+    private ClientApiWorkspaceDiff getFullDiff() {
+        return fullDiffWorkspaceRepository.getDiff(workspace, user, userContext);
+    }
+
+    private static Set<String> toDiffKeys(ClientApiWorkspaceDiff diff) {
+        Set<String> keys = new TreeSet<>();
+        for (ClientApiWorkspaceDiff.Item item : diff.getDiffs()) {
+            String key;
+            if (item instanceof ClientApiWorkspaceDiff.VertexItem) {
+                key = "vertex " + ((ClientApiWorkspaceDiff.VertexItem) item).getVertexId();
+            } else if (item instanceof ClientApiWorkspaceDiff.EdgeItem) {
+                key = "edge " + ((ClientApiWorkspaceDiff.EdgeItem) item).getEdgeId();
+            } else {
+                ClientApiWorkspaceDiff.PropertyItem propertyItem = (ClientApiWorkspaceDiff.PropertyItem) item;
+                key = "property " + propertyItem.getElementId() + " " + propertyItem.getKey() + " "
+                        + propertyItem.getName() + " " + propertyItem.getVisibilityString();
+            }
+            keys.add(key + " " + item.getSandboxStatus() + " " + item.isDeleted());
+        }
+        return keys;
+    }
+
+    private Vertex getVertex(String vertexId) {
+        return getGraph().getVertex(vertexId, workspaceAuthorizations);
+    }
+}
@@ -238,6 +238,7 @@ public class VertexiumOntologyRepository extends OntologyRepositoryBase {
         this.allConceptsWithPropertiesCache.invalidateAll();
         this.allPropertiesCache.invalidateAll();
         this.relationshipLabelsCache.invalidateAll();
+        super.clearCache();
     }
 
     @Override
@@ -5,6 +5,7 @@ import com.google.common.base.Function;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.inject.Inject;
@@ -27,6 +28,7 @@ import org.visallo.core.formula.FormulaEvaluator;
 import org.visallo.core.model.graph.ElementUpdateContext;
 import org.visallo.core.model.graph.GraphRepository;
 import org.visallo.core.model.graph.GraphUpdateContext;
+import org.visallo.core.model.lock.LockMode;
 import org.visallo.core.model.lock.LockRepository;
 import org.visallo.core.model.ontology.OntologyRepository;
 import org.visallo.core.model.properties.VisalloProperties;
@@ -170,6 +172,10 @@ public class VertexiumWorkspaceRepository extends WorkspaceRepository {
 
             graphAuthorizationRepository.removeAuthorizationFromGraph(workspace.getWorkspaceId());
         });
+
+        if (getWorkspaceChangeIndex() != null) {
+            getWorkspaceChangeIndex().clear(workspace.getWorkspaceId());
+        }
     }
 
     private String getLockName(Workspace workspace) {
@@ -428,6 +434,7 @@ public class VertexiumWorkspaceRepository extends WorkspaceRepository {
 
         return lockRepository.lock(
                 getLockName(workspace),
+                LockMode.SHARED,
                 () -> findEntitiesNoLock(workspace, false, fetchVertices, user)
         );
     }
@@ -1477,11 +1484,167 @@ public class VertexiumWorkspaceRepository extends WorkspaceRepository {
             );
         }
 
-        return lockRepository.lock(getLockName(workspace), () -> {
-            List<WorkspaceEntity> workspaceEntities = findEntitiesNoLock(workspace, true, true, user);
-            Iterable<Edge> workspaceEdges = findModifiedEdges(workspace, workspaceEntities, true, user);
-            return workspaceDiff.diff(workspace, workspaceEntities, workspaceEdges, userContext, user);
+        WorkspaceChangeIndex workspaceChangeIndex = getWorkspaceChangeIndex();
+        WorkspaceChangeIndex.Changes changes = workspaceChangeIndex == null
+                ? null
+                : workspaceChangeIndex.getChanges(workspace.getWorkspaceId());
+        if (changes == null) {
+            ClientApiWorkspaceDiff diff = getFullDiff(workspace, user, userContext);
+            if (workspaceChangeIndex != null && workspaceChangeIndex.isEnabled()) {
+                buildChangeIndex(workspace, workspaceChangeIndex, user);
+            }
+            return diff;
+        }
+        return getIndexedDiff(workspace, changes, workspaceChangeIndex, user, userContext);
+    }
+
+    @Override
+    public void rebuildChangeIndex(Workspace workspace, User user) {
+        WorkspaceChangeIndex workspaceChangeIndex = getWorkspaceChangeIndex();
+        if (workspaceChangeIndex == null || !workspaceChangeIndex.isEnabled()) {
+            return;
+        }
+        workspaceChangeIndex.clear(workspace.getWorkspaceId());
+        buildChangeIndex(workspace, workspaceChangeIndex, user);
+    }
+
+    private void buildChangeIndex(Workspace workspace, WorkspaceChangeIndex workspaceChangeIndex, User user) {
+        List<String> entityVertexIds = lockRepository.lock(
+                getLockName(workspace),
+                LockMode.SHARED,
+                () -> findEntitiesNoLock(workspace, true, false, user).stream()
+                        .map(WorkspaceEntity::getEntityVertexId)
+                        .collect(Collectors.toList())
+        );
+
+        Authorizations authorizations = getChangeIndexAuthorizations(workspace, user);
+        List<Vertex> vertices = Lists.newArrayList(getGraph().getVertices(
+                entityVertexIds,
+                FetchHint.ALL_INCLUDING_HIDDEN,
+                authorizations
+        ));
+        Iterable<String> edgeIds = getGraph().findRelatedEdgeIdsForVertices(vertices, authorizations);
+        Iterable<Edge> edges = getGraph().getEdges(edgeIds, FetchHint.ALL_INCLUDING_HIDDEN, authorizations);
+        workspaceChangeIndex.rebuild(workspace.getWorkspaceId(), Iterables.concat(vertices, edges), authorizations);
+    }
+
+    /**
+     * The change index must not depend on the user reading it, so it is maintained with authorizations which can
+     * read every sandboxed element and property of the workspace.
+     */
+    private Authorizations getChangeIndexAuthorizations(Workspace workspace, User user) {
+        return getAuthorizationRepository().getGraphAuthorizations(
+                user,
+                VISIBILITY_STRING,
+                VisalloVisibility.SUPER_USER_VISIBILITY_STRING,
+                workspace.getWorkspaceId()
+        );
+    }
+
+    private ClientApiWorkspaceDiff getFullDiff(
+            Workspace workspace,
+            User user,
+            FormulaEvaluator.UserContext userContext
+    ) {
+        // only the snapshot of the workspace needs the lock, the loaded elements do not change while diffing
+        List<WorkspaceEntity> workspaceEntities = new ArrayList<>();
+        List<Edge> workspaceEdges = new ArrayList<>();
+        lockRepository.lock(getLockName(workspace), LockMode.SHARED, () -> {
+            workspaceEntities.addAll(findEntitiesNoLock(workspace, true, true, user));
+            Iterables.addAll(workspaceEdges, findModifiedEdges(workspace, workspaceEntities, true, user));
         });
+        return workspaceDiff.diff(workspace, workspaceEntities, workspaceEdges, userContext, user);
+    }
+
+    /**
+     * Diffs only the entities and edges of the workspace found in the change index, the same elements a full diff
+     * would report on since the index holds every element with a sandboxed write. Membership of the workspace is read
+     * only for the indexed vertices and the ends of the indexed edges.
+     */
+    private ClientApiWorkspaceDiff getIndexedDiff(
+            Workspace workspace,
+            WorkspaceChangeIndex.Changes changes,
+            WorkspaceChangeIndex workspaceChangeIndex,
+            User user,
+            FormulaEvaluator.UserContext userContext
+    ) {
+        Date diffStartDate = new Date();
+        List<WorkspaceEntity> changedEntities = new ArrayList<>();
+        List<Edge> changedEdges = new ArrayList<>();
+        lockRepository.lock(getLockName(workspace), LockMode.SHARED, () -> {
+            Authorizations authorizations = getAuthorizationRepository().getGraphAuthorizations(
+                    user,
+                    VISIBILITY_STRING,
+                    workspace.getWorkspaceId()
+            );
+            List<Edge> edges = Lists.newArrayList(getGraph().getEdges(
+                    changes.getEdgeIds(),
+                    FetchHint.ALL_INCLUDING_HIDDEN,
+                    authorizations
+            ));
+            Set<String> candidateVertexIds = new HashSet<>(changes.getVertexIds());
+            for (Edge edge : edges) {
+                candidateVertexIds.add(edge.getVertexId(Direction.OUT));
+                candidateVertexIds.add(edge.getVertexId(Direction.IN));
+            }
+            Set<String> entityVertexIds = findEntityVertexIdsNoLock(workspace, candidateVertexIds, authorizations);
+
+            changes.getVertexIds().stream()
+                    .filter(entityVertexIds::contains)
+                    .forEach(entityVertexId -> changedEntities.add(new WorkspaceEntity(entityVertexId, null)));
+            edges.stream()
+                    .filter(edge -> entityVertexIds.contains(edge.getVertexId(Direction.OUT))
+                            && entityVertexIds.contains(edge.getVertexId(Direction.IN)))
+                    .forEach(changedEdges::add);
+        });
+        ClientApiWorkspaceDiff diff = workspaceDiff.diff(workspace, changedEntities, changedEdges, userContext, user);
+
+        // elements without items for this user may still have changes another user can see
+        Set<String> unchangedVertexIds = new HashSet<>(changes.getVertexIds());
+        Set<String> unchangedEdgeIds = new HashSet<>(changes.getEdgeIds());
+        for (ClientApiWorkspaceDiff.Item item : diff.getDiffs()) {
+            if (item instanceof ClientApiWorkspaceDiff.VertexItem) {
+                unchangedVertexIds.remove(((ClientApiWorkspaceDiff.VertexItem) item).getVertexId());
+            } else if (item instanceof ClientApiWorkspaceDiff.EdgeItem) {
+                unchangedEdgeIds.remove(((ClientApiWorkspaceDiff.EdgeItem) item).getEdgeId());
+            } else if (item instanceof ClientApiWorkspaceDiff.PropertyItem) {
+                String elementId = ((ClientApiWorkspaceDiff.PropertyItem) item).getElementId();
+                unchangedVertexIds.remove(elementId);
+                unchangedEdgeIds.remove(elementId);
+            }
+        }
+        Authorizations authorizations = getChangeIndexAuthorizations(workspace, user);
+        getGraph().getVertices(unchangedVertexIds, FetchHint.ALL_INCLUDING_HIDDEN, authorizations).forEach(vertex -> {
+            if (WorkspaceChangeIndex.hasWorkspaceChanges(vertex, workspace.getWorkspaceId(), authorizations)) {
+                unchangedVertexIds.remove(vertex.getId());
+            }
+        });
+        getGraph().getEdges(unchangedEdgeIds, FetchHint.ALL_INCLUDING_HIDDEN, authorizations).forEach(edge -> {
+            if (WorkspaceChangeIndex.hasWorkspaceChanges(edge, workspace.getWorkspaceId(), authorizations)) {
+                unchangedEdgeIds.remove(edge.getId());
+            }
+        });
+        workspaceChangeIndex.removeUnchanged(workspace.getWorkspaceId(), ElementType.VERTEX, unchangedVertexIds, diffStartDate);
+        workspaceChangeIndex.removeUnchanged(workspace.getWorkspaceId(), ElementType.EDGE, unchangedEdgeIds, diffStartDate);
+        return diff;
+    }
+
+    /**
+     * Returns the ids of the passed in vertices which are entities of the workspace, by reading only their workspace
+     * to entity edges instead of every entity of the workspace.
+     */
+    private Set<String> findEntityVertexIdsNoLock(
+            Workspace workspace,
+            Collection<String> vertexIds,
+            Authorizations authorizations
+    ) {
+        List<String> workspaceToEntityEdgeIds = vertexIds.stream()
+                .map(vertexId -> getWorkspaceToEntityEdgeId(workspace.getWorkspaceId(), vertexId))
+                .collect(Collectors.toList());
+        return stream(getGraph().getEdges(workspaceToEntityEdgeIds, authorizations))
+                .filter(edge -> WORKSPACE_TO_ENTITY_RELATIONSHIP_IRI.equals(edge.getLabel()))
+                .map(edge -> edge.getOtherVertexId(workspace.getWorkspaceId()))
+                .collect(Collectors.toSet());
     }
 
     private class ProductPreview {
@@ -5,8 +5,10 @@ import org.vertexium.Metadata;
 import org.vertexium.Property;
 import org.vertexium.mutation.ExistingElementMutation;
 import org.visallo.core.exception.VisalloException;
+import org.visallo.core.ingest.graphProperty.ElementOrPropertyStatus;
 import org.visallo.core.ingest.graphProperty.GraphPropertyWorkData;
 import org.visallo.core.ingest.graphProperty.GraphPropertyWorker;
+import org.visallo.core.ingest.graphProperty.GraphPropertyWorkerInterest;
 import org.visallo.core.ingest.graphProperty.GraphPropertyWorkerPrepareData;
 import org.visallo.core.model.Description;
 import org.visallo.core.model.Name;
@@ -121,6 +123,14 @@ public class MimeTypeOntologyMapperGraphPropertyWorker extends GraphPropertyWork
         );
     }
 
+    @Override
+    public GraphPropertyWorkerInterest getInterest() {
+        return new GraphPropertyWorkerInterest()
+                .addPropertyNames(VisalloProperties.RAW.getPropertyName())
+                .setPropertyRequired(true)
+                .setStatuses(ElementOrPropertyStatus.UPDATE);
+    }
+
     @Override
     public boolean isHandled(Element element, Property property) {
         if (property == null) {
@@ -4,8 +4,10 @@ import org.vertexium.Element;
 import org.vertexium.GraphWithSearchIndex;
 import org.vertexium.Property;
 import org.vertexium.search.SearchIndex;
+import org.visallo.core.ingest.graphProperty.ElementOrPropertyStatus;
 import org.visallo.core.ingest.graphProperty.GraphPropertyWorkData;
 import org.visallo.core.ingest.graphProperty.GraphPropertyWorker;
+import org.visallo.core.ingest.graphProperty.GraphPropertyWorkerInterest;
 import org.visallo.core.model.Description;
 import org.visallo.core.model.Name;
 
@@ -22,6 +24,13 @@ public class ReIndexGraphPropertyWorker extends GraphPropertyWorker {
         }
     }
 
+    @Override
+    public GraphPropertyWorkerInterest getInterest() {
+        return new GraphPropertyWorkerInterest()
+                .setEntireElementOnly(true)
+                .setStatuses(ElementOrPropertyStatus.UPDATE);
+    }
+
     @Override
     public boolean isHandled(Element element, Property property) {
         if (property == null) {
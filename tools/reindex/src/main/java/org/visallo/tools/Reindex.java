@@ -3,13 +3,20 @@ package org.visallo.tools;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
 import com.google.inject.Inject;
+import org.vertexium.ElementType;
 import org.vertexium.GraphWithSearchIndex;
 import org.visallo.core.cmdline.CommandLineTool;
 import org.visallo.core.model.graph.GraphReindexService;
+import org.visallo.core.model.workspace.Workspace;
+import org.visallo.core.model.workspace.WorkspaceRepository;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
 
 @Parameters(commandDescription = "Reindex elements")
 public class Reindex extends CommandLineTool {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(Reindex.class);
     private GraphReindexService graphReindexService;
+    private WorkspaceRepository workspaceRepository;
 
     @Parameter(names = {"--vertices", "-v"}, description = "Include all vertices")
     private boolean vertices = false;
@@ -23,6 +30,18 @@ public class Reindex extends CommandLineTool {
     @Parameter(names = {"--batchSize"}, description = "Batch size of elements to send for reindexing")
     private int batchSize = 100;
 
+    @Parameter(names = {"--threads"}, description = "Number of id ranges to reindex concurrently")
+    private int threads = 4;
+
+    @Parameter(names = {"--resume"}, description = "Skip the id ranges completed by a previous run")
+    private boolean resume = false;
+
+    @Parameter(names = {"--range"}, description = "Only reindex ids in the range start:end (start inclusive, end exclusive, either may be empty)")
+    private String range;
+
+    @Parameter(names = {"--workspaceChanges"}, description = "Rebuild the change index of every workspace")
+    private boolean workspaceChanges = false;
+
     public static void main(String[] args) throws Exception {
         CommandLineTool.main(new Reindex(), args);
     }
@@ -34,24 +53,52 @@ public class Reindex extends CommandLineTool {
             return -1;
         }
 
-        if (!vertices && !edges && !all) {
-            System.err.println("You must specify something to index (--vertices, --edges, or --all)");
+        if (!vertices && !edges && !all && !workspaceChanges) {
+            System.err.println("You must specify something to index (--vertices, --edges, --all, or --workspaceChanges)");
             return -1;
         }
 
+        String startId = null;
+        String endId = null;
+        if (range != null) {
+            int separatorIndex = range.indexOf(':');
+            if (separatorIndex < 0) {
+                System.err.println("--range must be in the form start:end");
+                return -1;
+            }
+            startId = emptyToNull(range.substring(0, separatorIndex));
+            endId = emptyToNull(range.substring(separatorIndex + 1));
+        }
+
         if (vertices || all) {
-            graphReindexService.reindexVertices(batchSize, getAuthorizations());
+            graphReindexService.reindex(ElementType.VERTEX, batchSize, threads, resume, startId, endId, getAuthorizations());
         }
 
         if (edges || all) {
-            graphReindexService.reindexEdges(batchSize, getAuthorizations());
+            graphReindexService.reindex(ElementType.EDGE, batchSize, threads, resume, startId, endId, getAuthorizations());
+        }
+
+        if (workspaceChanges) {
+            for (Workspace workspace : workspaceRepository.findAll(getUser())) {
+                LOGGER.info("rebuilding change index of workspace %s", workspace.getWorkspaceId());
+                workspaceRepository.rebuildChangeIndex(workspace, getUser());
+            }
         }
 
         return 0;
     }
 
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
     @Inject
     public void setGraphReindexService(GraphReindexService graphReindexService) {
         this.graphReindexService = graphReindexService;
     }
+
+    @Inject
+    public void setWorkspaceRepository(WorkspaceRepository workspaceRepository) {
+        this.workspaceRepository = workspaceRepository;
+    }
 }
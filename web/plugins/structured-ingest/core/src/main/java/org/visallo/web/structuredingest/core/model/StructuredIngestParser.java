@@ -12,4 +12,11 @@ public interface StructuredIngestParser {
     void ingest(InputStream inputStream, ParseOptions parseOptions, BaseStructuredFileParserHandler parserHandler) throws Exception;
 
     ClientApiAnalysis analyze(InputStream inputStream) throws Exception;
+
+    /**
+     * @param totalBytes size of the input or -1 if unknown, used by parsers which estimate the total rows
+     */
+    default ClientApiAnalysis analyze(InputStream inputStream, long totalBytes) throws Exception {
+        return analyze(inputStream);
+    }
 }
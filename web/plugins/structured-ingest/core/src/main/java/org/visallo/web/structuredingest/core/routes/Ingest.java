@@ -42,6 +42,7 @@ import java.io.InputStream;
 
 public class Ingest implements ParameterizedHandler {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(Ingest.class);
+    private static final int DRY_RUN_BATCH_SIZE = 1000;
 
     private final LongRunningProcessRepository longRunningProcessRepository;
     private final OntologyRepository ontologyRepository;
@@ -157,9 +158,12 @@ public class Ingest implements ParameterizedHandler {
                 reporter);
 
         parserHandler.dryRun = true;
+        parserHandler.batchSize = DRY_RUN_BATCH_SIZE;
+        parserHandler.setTotalBytes(rawPropertyValue.getLength());
         ParseOptions parseOptions = new ParseOptions(optionsJson);
 
         parse(vertex, rawPropertyValue, parseOptions, parserHandler);
+        parserHandler.flush();
 
         if (parserHandler.hasErrors()) {
             return parserHandler.parseErrors;
@@ -8,6 +8,8 @@ import java.util.TreeMap;
 
 public class BaseStructuredFileParserHandler {
     private long totalRows = -1;
+    private long totalBytes = -1;
+
     public void newSheet(String name) {
     }
 
@@ -42,4 +44,16 @@ public class BaseStructuredFileParserHandler {
     public long getTotalRows() {
         return totalRows;
     }
+
+    /**
+     * Size of the input if known, which parsers use to estimate the total rows as they go instead of reading the
+     * input twice.
+     */
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
 }
@@ -1,12 +1,12 @@
 package org.visallo.web.structuredingest.core.util;
 
 import com.google.common.base.Charsets;
-import com.google.common.collect.Lists;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.HashFunction;
 import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import org.vertexium.*;
+import org.vertexium.mutation.ElementMutation;
 import org.visallo.core.exception.VisalloException;
 import org.visallo.core.model.graph.GraphRepository;
 import org.visallo.core.model.properties.VisalloProperties;
@@ -36,8 +36,12 @@ import org.visallo.web.structuredingest.core.util.mapping.VertexMapping;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.visallo.core.model.properties.VisalloProperties.VISIBILITY_JSON_METADATA;
@@ -70,8 +74,20 @@ public class GraphBuilderParserHandler extends BaseStructuredFileParserHandler {
     public boolean dryRun = true;
     public ClientApiParseErrors parseErrors = new ClientApiParseErrors();
     public ClientApiIngestPreview clientApiIngestPreview;
-    public List<String> createdVertexIds;
-    public List<String> createdEdgeIds;
+    public Set<String> createdVertexIds;
+    public Set<String> createdEdgeIds;
+
+    /**
+     * Number of rows whose mutations, existence checks, flush and workspace update are combined. Callers which set
+     * this above 1 must call {@link #flush()} after the last row.
+     */
+    public int batchSize = 1;
+    private final List<ElementMutation> pendingVertexMutations = new ArrayList<>();
+    private final List<ElementMutation> pendingEdgeMutations = new ArrayList<>();
+    private final Map<String, VertexMapping> pendingNewVertexIds = new LinkedHashMap<>();
+    private final Map<String, EdgeMapping> pendingNewEdgeIds = new LinkedHashMap<>();
+    private final Set<String> pendingWorkspaceUpdates = new LinkedHashSet<>();
+    private int pendingRows;
 
     public GraphBuilderParserHandler(
             Graph graph,
@@ -107,8 +123,8 @@ public class GraphBuilderParserHandler extends BaseStructuredFileParserHandler {
         }
 
         clientApiIngestPreview = new ClientApiIngestPreview();
-        createdVertexIds = Lists.newArrayList();
-        createdEdgeIds = Lists.newArrayList();
+        createdVertexIds = new HashSet<>();
+        createdEdgeIds = new HashSet<>();
         visibilityJson = VisalloProperties.VISIBILITY_JSON.getPropertyValue(structuredFileVertex);
         checkNotNull(visibilityJson);
 
@@ -140,6 +156,7 @@ public class GraphBuilderParserHandler extends BaseStructuredFileParserHandler {
         clientApiIngestPreview = new ClientApiIngestPreview();
         createdVertexIds.clear();
         createdEdgeIds.clear();
+        clearPending();
     }
 
     public boolean hasErrors() {
@@ -163,8 +180,6 @@ public class GraphBuilderParserHandler extends BaseStructuredFileParserHandler {
         }
         clientApiIngestPreview.processedRows = rowCount;
 
-        Visibility defaultVisibility = visibilityTranslator.getDefaultVisibility();
-
         // Since we only handle the first sheet currently, bail if this isn't it.
         if (sheetNumber != 0) {
             return false;
@@ -173,18 +188,14 @@ public class GraphBuilderParserHandler extends BaseStructuredFileParserHandler {
         try {
             List<String> newVertexIds = new ArrayList<>();
             List<VertexBuilder> vertexBuilders = new ArrayList<>();
-            List<String> workspaceUpdates = new ArrayList<>();
             long vertexNum = 0;
             for (VertexMapping vertexMapping : parseMapping.vertexMappings) {
                 VertexBuilder vertexBuilder = createVertex(vertexMapping, row, rowNum, vertexNum);
                 if (vertexBuilder != null) {
-                    boolean alreadyCreated = createdVertexIds.contains(vertexBuilder.getVertexId());
                     vertexBuilders.add(vertexBuilder);
                     newVertexIds.add(vertexBuilder.getVertexId());
-                    createdVertexIds.add(vertexBuilder.getVertexId());
-                    workspaceUpdates.add(vertexBuilder.getVertexId());
-                    if (!alreadyCreated) {
-                        incrementConcept(vertexMapping, !graph.doesVertexExist(vertexBuilder.getVertexId(), authorizations));
+                    if (createdVertexIds.add(vertexBuilder.getVertexId())) {
+                        pendingNewVertexIds.put(vertexBuilder.getVertexId(), vertexMapping);
                     }
                 } else {
                     newVertexIds.add(SKIPPED_VERTEX_ID);
@@ -196,50 +207,30 @@ public class GraphBuilderParserHandler extends BaseStructuredFileParserHandler {
             for (EdgeMapping edgeMapping : parseMapping.edgeMappings) {
                 EdgeBuilderByVertexId edgeBuilder = createEdge(edgeMapping, newVertexIds);
                 if (edgeBuilder != null) {
-                    boolean alreadyCreated = createdEdgeIds.contains(edgeBuilder.getEdgeId());
-                    createdEdgeIds.add(edgeBuilder.getEdgeId());
                     edgeBuilders.add(edgeBuilder);
-                    if (!alreadyCreated) {
-                        incrementEdges(edgeMapping, !graph.doesEdgeExist(edgeBuilder.getEdgeId(), authorizations));
+                    if (createdEdgeIds.add(edgeBuilder.getEdgeId())) {
+                        pendingNewEdgeIds.put(edgeBuilder.getEdgeId(), edgeMapping);
                     }
                 }
             }
 
             if (!dryRun) {
-                HashFunction hash = Hashing.sha1();
                 for (VertexBuilder vertexBuilder : vertexBuilders) {
-                    Vertex newVertex = vertexBuilder.save(authorizations);
-                    EdgeBuilder hasSourceEdgeBuilder = graph.prepareEdge(
-                            hash.newHasher()
-                                    .putString(newVertex.getId())
-                                    .putString(structuredFileVertex.getId())
-                                    .hash()
-                                    .toString(),
-                            newVertex,
-                            structuredFileVertex,
-                            StructuredIngestOntology.ELEMENT_HAS_SOURCE_IRI,
-                            visibility
-                    );
-                    VisalloProperties.VISIBILITY_JSON.setProperty(hasSourceEdgeBuilder, visibilityJson, defaultVisibility);
-                    VisalloProperties.MODIFIED_BY.setProperty(hasSourceEdgeBuilder, user.getUserId(), defaultVisibility);
-                    VisalloProperties.MODIFIED_DATE.setProperty(hasSourceEdgeBuilder, new Date(), defaultVisibility);
-                    hasSourceEdgeBuilder.save(authorizations);
-                }
-
-                for (EdgeBuilderByVertexId edgeBuilder : edgeBuilders) {
-                    edgeBuilder.save(authorizations);
-                }
-
-                graph.flush();
-
-                if (!this.publish && workspaceUpdates.size() > 0) {
-                    workspaceRepository.updateEntitiesOnWorkspace(workspace, workspaceUpdates, user);
+                    pendingVertexMutations.add(vertexBuilder);
+                    pendingEdgeMutations.add(createHasSourceEdge(vertexBuilder.getVertexId()));
+                    pendingWorkspaceUpdates.add(vertexBuilder.getVertexId());
                 }
+                pendingEdgeMutations.addAll(edgeBuilders);
             }
         } catch (SkipRowException sre) {
             // Skip the row and keep going
         }
 
+        pendingRows++;
+        if (pendingRows >= batchSize) {
+            flush();
+        }
+
         if (progressReporter != null) {
             progressReporter.finishedRow(rowNum, getTotalRows());
         }
@@ -247,6 +238,68 @@ public class GraphBuilderParserHandler extends BaseStructuredFileParserHandler {
         return !dryRun || maxParseErrors <= 0 || parseErrors.errors.size() < maxParseErrors;
     }
 
+    /**
+     * Checks which of the vertices and edges first seen since the last flush already exist, then saves the pending
+     * mutations with one call to the graph, flushes and updates the workspace once.
+     */
+    public void flush() {
+        if (!pendingNewVertexIds.isEmpty()) {
+            Map<String, Boolean> exists = graph.doVerticesExist(new ArrayList<>(pendingNewVertexIds.keySet()), authorizations);
+            for (Map.Entry<String, VertexMapping> entry : pendingNewVertexIds.entrySet()) {
+                incrementConcept(entry.getValue(), !Boolean.TRUE.equals(exists.get(entry.getKey())));
+            }
+        }
+        if (!pendingNewEdgeIds.isEmpty()) {
+            Map<String, Boolean> exists = graph.doEdgesExist(new ArrayList<>(pendingNewEdgeIds.keySet()), authorizations);
+            for (Map.Entry<String, EdgeMapping> entry : pendingNewEdgeIds.entrySet()) {
+                incrementEdges(entry.getValue(), !Boolean.TRUE.equals(exists.get(entry.getKey())));
+            }
+        }
+
+        if (!dryRun && (!pendingVertexMutations.isEmpty() || !pendingEdgeMutations.isEmpty())) {
+            // vertices are saved before the edges which reference them
+            List<ElementMutation> mutations = new ArrayList<>(pendingVertexMutations.size() + pendingEdgeMutations.size());
+            mutations.addAll(pendingVertexMutations);
+            mutations.addAll(pendingEdgeMutations);
+            graph.saveElementMutations(mutations, authorizations);
+            graph.flush();
+
+            if (!this.publish && pendingWorkspaceUpdates.size() > 0) {
+                workspaceRepository.updateEntitiesOnWorkspace(workspace, new ArrayList<>(pendingWorkspaceUpdates), user);
+            }
+        }
+
+        clearPending();
+    }
+
+    private void clearPending() {
+        pendingVertexMutations.clear();
+        pendingEdgeMutations.clear();
+        pendingNewVertexIds.clear();
+        pendingNewEdgeIds.clear();
+        pendingWorkspaceUpdates.clear();
+        pendingRows = 0;
+    }
+
+    private EdgeBuilderByVertexId createHasSourceEdge(String vertexId) {
+        Visibility defaultVisibility = visibilityTranslator.getDefaultVisibility();
+        EdgeBuilderByVertexId hasSourceEdgeBuilder = graph.prepareEdge(
+                Hashing.sha1().newHasher()
+                        .putString(vertexId)
+                        .putString(structuredFileVertex.getId())
+                        .hash()
+                        .toString(),
+                vertexId,
+                structuredFileVertex.getId(),
+                StructuredIngestOntology.ELEMENT_HAS_SOURCE_IRI,
+                visibility
+        );
+        VisalloProperties.VISIBILITY_JSON.setProperty(hasSourceEdgeBuilder, visibilityJson, defaultVisibility);
+        VisalloProperties.MODIFIED_BY.setProperty(hasSourceEdgeBuilder, user.getUserId(), defaultVisibility);
+        VisalloProperties.MODIFIED_DATE.setProperty(hasSourceEdgeBuilder, new Date(), defaultVisibility);
+        return hasSourceEdgeBuilder;
+    }
+
     private void incrementConcept(VertexMapping vertexMapping, boolean isNew) {
         for (PropertyMapping mapping : vertexMapping.propertyMappings) {
             if (VisalloProperties.CONCEPT_TYPE.getPropertyName().equals(mapping.name)) {
@@ -458,6 +511,10 @@ public class GraphBuilderParserHandler extends BaseStructuredFileParserHandler {
      * it since prepareVertex with same id won't change the visibility.
      */
     private boolean shouldAddWorkspaceToId(String vertexId) {
+        if (createdVertexIds.contains(vertexId)) {
+            // already part of this import so the user can access it
+            return false;
+        }
         boolean vertexExistsForUser = graph.doesVertexExist(vertexId, authorizations);
         if (!vertexExistsForUser) {
             boolean vertexExistsInSystem = graph.doesVertexExist(vertexId, visalloUserAuths);
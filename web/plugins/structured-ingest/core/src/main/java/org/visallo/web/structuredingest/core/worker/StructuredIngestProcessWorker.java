@@ -35,6 +35,8 @@ import java.text.NumberFormat;
 @Description("Extracts structured data from csv, and excel")
 public class StructuredIngestProcessWorker extends LongRunningProcessWorker {
     public static final String TYPE = "org-visallo-structured-ingest";
+    public static final String CONFIG_BATCH_SIZE = StructuredIngestProcessWorker.class.getName() + ".batchSize";
+    public static final int DEFAULT_BATCH_SIZE = 500;
     private OntologyRepository ontologyRepository;
     private VisibilityTranslator visibilityTranslator;
     private PrivilegeRepository privilegeRepository;
@@ -90,9 +92,12 @@ public class StructuredIngestProcessWorker extends LongRunningProcessWorker {
         parserHandler.cleanUpExistingImport();
 
         parserHandler.dryRun = false;
+        parserHandler.batchSize = configuration.getInt(CONFIG_BATCH_SIZE, DEFAULT_BATCH_SIZE);
         parserHandler.reset();
+        parserHandler.setTotalBytes(rawPropertyValue.getLength());
         try {
             parse(vertex, rawPropertyValue, parserHandler, structuredIngestQueueItem);
+            parserHandler.flush();
         } catch (Exception e) {
             throw new VisalloException("Unable to ingest vertex: " + vertex, e);
         }
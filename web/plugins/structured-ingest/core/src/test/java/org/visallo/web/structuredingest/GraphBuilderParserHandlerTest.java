@@ -299,6 +299,17 @@ public class GraphBuilderParserHandlerTest {
         assertEquals("Expected no new vertices to be created", 1, Iterables.size(vertices)); // CSV only
     }
 
+    @Test
+    public void testAddRowBatched() throws Exception {
+        parserHandler.batchSize = 10;
+        doParse(false, true, 0, new String[]{"John Smith", "3/13/2015", "yes"});
+        assertEquals("Expected rows to be buffered until the batch is flushed", 0, getGenerated().size());
+
+        parserHandler.flush();
+        assertEquals("Should have created 2 entities", 2, getGenerated().size());
+        assertEquals("Found the source and created edges", 3, Iterables.size(graph.getEdges(authorizations)));
+    }
+
     @Test
     public void testAddRowWithTooManyErrors() throws Exception {
         parserHandler.maxParseErrors = 1;
@@ -1,11 +1,6 @@
 package org.visallo.web.structuredingest.spreadsheet;
 
-import au.com.bytecode.opencsv.CSVReader;
 import org.apache.commons.lang.StringUtils;
-import org.visallo.core.exception.VisalloException;
-import org.visallo.web.structuredingest.core.model.ParseOptions;
-
-import java.io.*;
 
 public abstract class BaseParser {
 
@@ -18,24 +13,21 @@ public abstract class BaseParser {
         return allBlank;
     }
 
-    protected int getTotalRows(InputStream in, ParseOptions options) {
-        try (Reader reader = new InputStreamReader(in)) {
-            int row = 0;
-            try (CSVReader csvReader = new CSVReader(reader, options.separator, options.quoteChar)) {
-                String[] columnValues;
-                while ((columnValues = csvReader.readNext()) != null) {
-                    if (rowIsBlank(columnValues)) {
-                        continue;
-                    }
-                    row++;
-                }
-                in.reset();
-                return row;
-            }
-        } catch (IOException e) {
-            throw new VisalloException("Could not read csv", e);
+    /**
+     * Approximate number of characters a parsed record took in the input, ignoring quoting.
+     */
+    protected long getRecordLength(String[] columnValues) {
+        long length = columnValues.length; // separators and line break
+        for (String columnValue : columnValues) {
+            length += columnValue.length();
         }
-
+        return length;
     }
 
+    protected long estimateTotalRows(long rowsRead, long charsRead, long totalBytes) {
+        if (rowsRead == 0 || charsRead == 0 || totalBytes <= 0) {
+            return -1;
+        }
+        return Math.max(rowsRead, Math.round((double) rowsRead * totalBytes / charsRead));
+    }
 }
@@ -29,7 +29,13 @@ public class CsvParser extends BaseParser implements StructuredIngestParser {
 
     @Override
     public ClientApiAnalysis analyze(InputStream inputStream) throws Exception {
+        return analyze(inputStream, -1);
+    }
+
+    @Override
+    public ClientApiAnalysis analyze(InputStream inputStream, long totalBytes) throws Exception {
         StructuredFileParserHandler handler = new StructuredFileParserHandler();
+        handler.setTotalBytes(totalBytes);
         handler.getHints().sendColumnIndices = true;
         handler.getHints().allowHeaderSelection = true;
 
@@ -42,19 +48,30 @@ public class CsvParser extends BaseParser implements StructuredIngestParser {
     private void parseCsvSheet(InputStream in, ParseOptions options, BaseStructuredFileParserHandler handler) {
         handler.newSheet("");
 
-        handler.setTotalRows(getTotalRows(in, options));
-
+        // the total is estimated from the characters consumed so the input is only read once
+        long totalBytes = handler.getTotalBytes();
+        long charsRead = 0;
+        long nonBlankRows = 0;
         try (Reader reader = new InputStreamReader(in)) {
             int row = 0;
             try (CSVReader csvReader = new CSVReader(reader, options.separator, options.quoteChar)) {
                 String[] columnValues;
 
                 while ((columnValues = csvReader.readNext()) != null) {
+                    charsRead += getRecordLength(columnValues);
+                    boolean blank = rowIsBlank(columnValues);
+                    if (!blank) {
+                        nonBlankRows++;
+                        if (totalBytes > 0) {
+                            handler.setTotalRows(estimateTotalRows(nonBlankRows, charsRead, totalBytes));
+                        }
+                    }
+
                     if (row < options.startRowIndex) {
                         row++;
                         continue;
                     }
-                    if (rowIsBlank(columnValues)) {
+                    if (blank) {
                         continue;
                     }
 
@@ -64,11 +81,12 @@ public class CsvParser extends BaseParser implements StructuredIngestParser {
                         }
                     } else {
                         if (!handler.addRow(Arrays.asList(columnValues), row)) {
-                            break;
+                            return;
                         }
                     }
                     row++;
                 }
+                handler.setTotalRows(nonBlankRows);
             }
         } catch (IOException ex) {
             throw new VisalloException("Could not read csv", ex);
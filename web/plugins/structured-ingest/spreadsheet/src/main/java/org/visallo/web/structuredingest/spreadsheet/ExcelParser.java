@@ -1,22 +1,47 @@
 package org.visallo.web.structuredingest.spreadsheet;
 
 import com.google.common.collect.Sets;
+import org.apache.poi.POIXMLDocument;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.SAXHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
 import org.visallo.core.exception.VisalloException;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
 import org.visallo.web.structuredingest.core.model.ClientApiAnalysis;
 import org.visallo.web.structuredingest.core.util.StructuredFileParserHandler;
 import org.visallo.web.structuredingest.core.model.StructuredIngestParser;
 import org.visallo.web.structuredingest.core.util.BaseStructuredFileParserHandler;
 import org.visallo.web.structuredingest.core.model.ParseOptions;
 
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
 public class ExcelParser extends BaseParser implements StructuredIngestParser {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(ExcelParser.class);
 
     @Override
     public Set<String> getSupportedMimeTypes() {
@@ -46,47 +71,97 @@ public class ExcelParser extends BaseParser implements StructuredIngestParser {
 
     private void parseExcel(InputStream in, ParseOptions options, BaseStructuredFileParserHandler handler) {
         try {
-            Workbook workbook = WorkbookFactory.create(in);
-            FormulaEvaluator evaluator = workbook.getCreationHelper().createFormulaEvaluator();
-            DataFormatter formatter = new DataFormatter(true);
-
-            int numSheets = workbook.getNumberOfSheets();
-            for(int i = 0; i < numSheets; i++) {
-                if (options.sheetIndex != null && i != options.sheetIndex) continue;
-                Sheet excelSheet = workbook.getSheetAt(i);
-                handler.newSheet(excelSheet.getSheetName());
-
-                if(excelSheet.getPhysicalNumberOfRows() > 0) {
-                    int lastRowNum = excelSheet.getLastRowNum();
-                    handler.setTotalRows(lastRowNum);
-                    for(int j = 0, rowIndex = 0; j <= lastRowNum; j++) {
-                        if (rowIndex < options.startRowIndex) {
-                            rowIndex++;
-                            continue;
+            InputStream bufferedIn = new BufferedInputStream(in);
+            if (POIXMLDocument.hasOOXMLHeader(bufferedIn)) {
+                parseXlsx(bufferedIn, options, handler);
+            } else {
+                parseWorkbook(bufferedIn, options, handler);
+            }
+        } catch (IOException | OpenXML4JException | SAXException | ParserConfigurationException ex) {
+            throw new VisalloException("Could not read excel workbook", ex);
+        }
+    }
+
+    /**
+     * Reads .xlsx sheets with the streaming event model so memory use does not grow with the number of rows. The
+     * package is spooled to a temporary file because opening it from a stream would load every part into memory.
+     */
+    private void parseXlsx(InputStream in, ParseOptions options, BaseStructuredFileParserHandler handler)
+            throws IOException, OpenXML4JException, SAXException, ParserConfigurationException {
+        File tempFile = File.createTempFile("structured-ingest-", ".xlsx");
+        try {
+            Files.copy(in, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            OPCPackage pkg = OPCPackage.open(tempFile, PackageAccess.READ);
+            try {
+                XSSFReader xssfReader = new XSSFReader(pkg);
+                ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+                StylesTable styles = xssfReader.getStylesTable();
+                DataFormatter formatter = new DataFormatter(true);
+
+                XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) xssfReader.getSheetsData();
+                for (int i = 0; sheets.hasNext(); i++) {
+                    try (InputStream sheetIn = sheets.next()) {
+                        if (options.sheetIndex != null && i != options.sheetIndex) continue;
+                        handler.newSheet(sheets.getSheetName());
+
+                        XlsxSheetHandler sheetHandler = new XlsxSheetHandler(options, handler);
+                        XMLReader sheetReader = new DimensionFilter(SAXHelper.newXMLReader(), handler);
+                        sheetReader.setContentHandler(new XSSFSheetXMLHandler(styles, strings, sheetHandler, formatter, false));
+                        try {
+                            sheetReader.parse(new InputSource(sheetIn));
+                        } catch (StopSheetException ex) {
+                            // the handler does not want any more rows from this sheet
                         }
+                    }
+                }
+            } finally {
+                pkg.revert();
+            }
+        } finally {
+            if (!tempFile.delete()) {
+                LOGGER.warn("Could not delete temporary file: %s", tempFile.getAbsolutePath());
+            }
+        }
+    }
 
-                        Row row = excelSheet.getRow(j);
-                        List<Object> parsedRow = parseExcelRow(row, evaluator, formatter);
-                        if(parsedRow.size() > 0) {
-                            if(rowIndex == options.startRowIndex && options.hasHeaderRow) {
-                                for (int k = 0; k < parsedRow.size(); k++) {
-                                    handler.addColumn(parsedRow.get(k).toString());
-                                }
-                            } else {
-                                if(!handler.addRow(parsedRow, j)) {
-                                    break;
-                                }
-                            }
+    private void parseWorkbook(InputStream in, ParseOptions options, BaseStructuredFileParserHandler handler)
+            throws IOException, InvalidFormatException {
+        Workbook workbook = WorkbookFactory.create(in);
+        FormulaEvaluator evaluator = workbook.getCreationHelper().createFormulaEvaluator();
+        DataFormatter formatter = new DataFormatter(true);
+
+        int numSheets = workbook.getNumberOfSheets();
+        for(int i = 0; i < numSheets; i++) {
+            if (options.sheetIndex != null && i != options.sheetIndex) continue;
+            Sheet excelSheet = workbook.getSheetAt(i);
+            handler.newSheet(excelSheet.getSheetName());
+
+            if(excelSheet.getPhysicalNumberOfRows() > 0) {
+                int lastRowNum = excelSheet.getLastRowNum();
+                handler.setTotalRows(lastRowNum);
+                for(int j = 0, rowIndex = 0; j <= lastRowNum; j++) {
+                    if (rowIndex < options.startRowIndex) {
+                        rowIndex++;
+                        continue;
+                    }
 
-                            rowIndex++;
+                    Row row = excelSheet.getRow(j);
+                    List<Object> parsedRow = parseExcelRow(row, evaluator, formatter);
+                    if(parsedRow.size() > 0) {
+                        if(rowIndex == options.startRowIndex && options.hasHeaderRow) {
+                            for (int k = 0; k < parsedRow.size(); k++) {
+                                handler.addColumn(parsedRow.get(k).toString());
+                            }
+                        } else {
+                            if(!handler.addRow(parsedRow, j)) {
+                                break;
+                            }
                         }
+
+                        rowIndex++;
                     }
                 }
             }
-        } catch (IOException ex) {
-            throw new VisalloException("Could not read excel workbook", ex);
-        } catch (InvalidFormatException e) {
-            throw new VisalloException("Could not read excel workbook", e);
         }
     }
 
@@ -114,4 +189,80 @@ public class ExcelParser extends BaseParser implements StructuredIngestParser {
         return parsedRow;
     }
 
+    /**
+     * Mirrors the row handling of {@link #parseWorkbook} for rows delivered by {@link XSSFSheetXMLHandler}, which
+     * skips missing rows and empty cells.
+     */
+    private static class XlsxSheetHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final ParseOptions options;
+        private final BaseStructuredFileParserHandler handler;
+        private final List<Object> parsedRow = new ArrayList<>();
+        private boolean headerPending;
+
+        XlsxSheetHandler(ParseOptions options, BaseStructuredFileParserHandler handler) {
+            this.options = options;
+            this.handler = handler;
+            this.headerPending = options.hasHeaderRow;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            parsedRow.clear();
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference == null ? parsedRow.size() : new CellReference(cellReference).getCol();
+            while (parsedRow.size() < column) {
+                parsedRow.add("");
+            }
+            parsedRow.add(formattedValue == null ? "" : formattedValue);
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (rowNum < options.startRowIndex || parsedRow.size() == 0) {
+                return;
+            }
+            if (headerPending) {
+                headerPending = false;
+                for (Object column : parsedRow) {
+                    handler.addColumn(column.toString());
+                }
+            } else if (!handler.addRow(new ArrayList<>(parsedRow), rowNum)) {
+                throw new StopSheetException();
+            }
+        }
+
+        @Override
+        public void headerFooter(String text, boolean isHeader, String tagName) {
+        }
+    }
+
+    /**
+     * Reports the last row number from the sheet's dimension element, which precedes the sheet data, as the total.
+     */
+    private static class DimensionFilter extends XMLFilterImpl {
+        private final BaseStructuredFileParserHandler handler;
+
+        DimensionFilter(XMLReader parent, BaseStructuredFileParserHandler handler) {
+            super(parent);
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+            if ("dimension".equals(localName)) {
+                String ref = atts.getValue("ref");
+                if (ref != null) {
+                    String lastCell = ref.substring(ref.indexOf(':') + 1);
+                    handler.setTotalRows(new CellReference(lastCell).getRow());
+                }
+            }
+            super.startElement(uri, localName, qName, atts);
+        }
+    }
+
+    private static class StopSheetException extends RuntimeException {
+    }
 }
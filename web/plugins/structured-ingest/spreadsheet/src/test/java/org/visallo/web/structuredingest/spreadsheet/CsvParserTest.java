@@ -9,6 +9,7 @@ import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class CsvParserTest {
 
@@ -63,4 +64,33 @@ public class CsvParserTest {
         assertEquals("Appleseed", sheet.parsedRows.get(0).columns.get(0));
         assertEquals("Johnny", sheet.parsedRows.get(0).columns.get(1));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testTotalRowsAreEstimatedWithoutReadingAhead() throws Exception {
+        StringBuilder data = new StringBuilder("last,first\n");
+        for (int i = 0; i < 100; i++) {
+            data.append("Last").append(i).append(",First").append(i).append("\n");
+        }
+        byte[] bytes = data.toString().getBytes("UTF-8");
+        StructuredFileParserHandler parserHandler = new StructuredFileParserHandler();
+        parserHandler.setTotalBytes(bytes.length);
+        new CsvParser().ingest(new ByteArrayInputStream(bytes), new ParseOptions(), parserHandler);
+        ClientApiAnalysis.Sheet sheet = parserHandler.getResult().sheets.get(0);
+
+        assertEquals(10, sheet.parsedRows.size());
+        assertTrue("Unexpected estimate: " + sheet.totalRows, sheet.totalRows > 90 && sheet.totalRows < 110);
+    }
+
+    @Test
+    public void testTotalRowsAreExactAfterReadingEverything() throws Exception {
+        String data = "last,first\n"
+                + "Appleseed,Johnny\n"
+                + "\n"
+                + "B.,Jill";
+        StructuredFileParserHandler parserHandler = new StructuredFileParserHandler();
+        parserHandler.setTotalBytes(data.length());
+        new CsvParser().ingest(toStream(data), new ParseOptions(), parserHandler);
+
+        assertEquals(3, parserHandler.getResult().sheets.get(0).totalRows);
+    }
+}
@@ -0,0 +1,42 @@
+package org.visallo.web.routes.ontology;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.visallo.web.PreparedJsonResponse;
+import org.visallo.web.clientapi.model.ClientApiOntology;
+import org.visallo.web.routes.RouteTestBase;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OntologyTest extends RouteTestBase {
+    private Ontology route;
+
+    @Before
+    public void before() throws IOException {
+        super.before();
+        route = new Ontology(ontologyRepository);
+    }
+
+    @Test
+    public void testResponseIsPreparedOncePerOntology() throws Exception {
+        ClientApiOntology ontology = new ClientApiOntology();
+        when(ontologyRepository.getClientApiObject()).thenReturn(ontology);
+        PreparedJsonResponse response = route.handle();
+        assertSame(response, route.handle());
+
+        ClientApiOntology changedOntology = new ClientApiOntology();
+        changedOntology.getConcepts().add(new ClientApiOntology.Concept());
+        when(ontologyRepository.getClientApiObject()).thenReturn(changedOntology);
+        PreparedJsonResponse changedResponse = route.handle();
+        assertNotSame(response, changedResponse);
+        assertNotEquals(response.getETag(), changedResponse.getETag());
+    }
+}
@@ -1,5 +1,7 @@
 package org.visallo.web.routes.vertex;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -9,12 +11,18 @@ import org.vertexium.Authorizations;
 import org.vertexium.Vertex;
 import org.visallo.core.exception.VisalloAccessDeniedException;
 import org.visallo.core.model.user.AuthorizationRepository;
+import org.visallo.core.model.user.PrivilegeRepository;
+import org.visallo.core.security.ACLProvider;
+import org.visallo.core.security.AllowAllAclProvider;
+import org.visallo.core.util.ClientApiConverter;
 import org.visallo.web.clientapi.model.ClientApiVertex;
 import org.visallo.web.clientapi.model.ClientApiVertexMultipleResponse;
 import org.visallo.web.clientapi.model.VisibilityJson;
+import org.visallo.web.clientapi.util.ObjectMapperFactory;
 import org.visallo.web.routes.RouteTestBase;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
@@ -35,6 +43,10 @@ public class VertexMultipleTest extends RouteTestBase {
     @Mock
     private AuthorizationRepository authorizationRepository;
 
+    @Mock
+    private PrivilegeRepository privilegeRepository;
+
+    private ACLProvider aclProvider;
     private Vertex publicVertex;
     private Vertex sandboxedVertex;
 
@@ -51,7 +63,8 @@ public class VertexMultipleTest extends RouteTestBase {
         visibilityJson.addWorkspace(WORKSPACE_ID);
         sandboxedVertex = graph.addVertex("v2", visibilityTranslator.toVisibility(visibilityJson).getVisibility(), workspaceAuthorizations);
 
-        route = new VertexMultiple(graph, userRepository, workspaceRepository, authorizationRepository);
+        aclProvider = new AllowAllAclProvider(graph, userRepository, ontologyRepository, privilegeRepository);
+        route = new VertexMultiple(graph, userRepository, workspaceRepository, authorizationRepository, aclProvider);
     }
 
     @Test
@@ -59,11 +72,11 @@ public class VertexMultipleTest extends RouteTestBase {
         when(authorizationRepository.getGraphAuthorizations(user)).thenReturn(userAuthorizations);
         when(request.getAttribute(eq(WORKSPACE_ID_ATTRIBUTE_NAME))).thenReturn(null);
 
-        ClientApiVertexMultipleResponse response = route.handle(request, new String[]{publicVertex.getId()}, true, user);
+        ClientApiVertexMultipleStreamingResponse response = route.handle(request, new String[]{publicVertex.getId()}, true, user);
 
         assertFalse(response.isRequiredFallback());
-        assertEquals(1, response.getVertices().size());
-        assertEquals(publicVertex.getId(), response.getVertices().get(0).getId());
+        assertEquals(1, getVertices(response).size());
+        assertEquals(publicVertex.getId(), getVertices(response).get(0).getId());
     }
 
     @Test(expected = VisalloAccessDeniedException.class)
@@ -81,11 +94,11 @@ public class VertexMultipleTest extends RouteTestBase {
         when(request.getAttribute(USER_REQUEST_ATTRIBUTE_NAME)).thenReturn(user);
         when(workspaceRepository.hasReadPermissions(WORKSPACE_ID, user)).thenReturn(false);
 
-        ClientApiVertexMultipleResponse response = route.handle(request, new String[]{publicVertex.getId(), sandboxedVertex.getId()}, true, user);
+        ClientApiVertexMultipleStreamingResponse response = route.handle(request, new String[]{publicVertex.getId(), sandboxedVertex.getId()}, true, user);
 
         assertTrue(response.isRequiredFallback());
-        assertEquals(1, response.getVertices().size());
-        assertEquals(publicVertex.getId(), response.getVertices().get(0).getId());
+        assertEquals(1, getVertices(response).size());
+        assertEquals(publicVertex.getId(), getVertices(response).get(0).getId());
     }
 
     @Test
@@ -94,12 +107,12 @@ public class VertexMultipleTest extends RouteTestBase {
         when(request.getAttribute(USER_REQUEST_ATTRIBUTE_NAME)).thenReturn(user);
         when(workspaceRepository.hasReadPermissions(WORKSPACE_ID, user)).thenReturn(true);
 
-        ClientApiVertexMultipleResponse response = route.handle(request, new String[]{publicVertex.getId(), sandboxedVertex.getId()}, true, user);
+        ClientApiVertexMultipleStreamingResponse response = route.handle(request, new String[]{publicVertex.getId(), sandboxedVertex.getId()}, true, user);
 
         assertFalse(response.isRequiredFallback());
-        assertEquals(2, response.getVertices().size());
-        assertTrue(response.getVertices().stream().map(ClientApiVertex::getId).collect(Collectors.toList()).contains(publicVertex.getId()));
-        assertTrue(response.getVertices().stream().map(ClientApiVertex::getId).collect(Collectors.toList()).contains(sandboxedVertex.getId()));
+        assertEquals(2, getVertices(response).size());
+        assertTrue(getVertices(response).stream().map(ClientApiVertex::getId).collect(Collectors.toList()).contains(publicVertex.getId()));
+        assertTrue(getVertices(response).stream().map(ClientApiVertex::getId).collect(Collectors.toList()).contains(sandboxedVertex.getId()));
     }
 
     @Test
@@ -108,10 +121,10 @@ public class VertexMultipleTest extends RouteTestBase {
         when(request.getAttribute(USER_REQUEST_ATTRIBUTE_NAME)).thenReturn(user);
         when(workspaceRepository.hasReadPermissions(WORKSPACE_ID, user)).thenReturn(true);
 
-        ClientApiVertexMultipleResponse response = route.handle(request, new String[]{"no-vertex-id"}, true, user);
+        ClientApiVertexMultipleStreamingResponse response = route.handle(request, new String[]{"no-vertex-id"}, true, user);
 
         assertFalse(response.isRequiredFallback());
-        assertEquals(0, response.getVertices().size());
+        assertEquals(0, getVertices(response).size());
     }
     @Test
     public void testGetVerticesWithNoneSpecified() throws Exception {
@@ -119,9 +132,36 @@ public class VertexMultipleTest extends RouteTestBase {
         when(request.getAttribute(USER_REQUEST_ATTRIBUTE_NAME)).thenReturn(user);
         when(workspaceRepository.hasReadPermissions(WORKSPACE_ID, user)).thenReturn(true);
 
-        ClientApiVertexMultipleResponse response = route.handle(request, new String[]{}, true, user);
+        ClientApiVertexMultipleStreamingResponse response = route.handle(request, new String[]{}, true, user);
 
         assertFalse(response.isRequiredFallback());
-        assertEquals(0, response.getVertices().size());
+        assertEquals(0, getVertices(response).size());
+    }
+
+    @Test
+    public void testStreamingResponseJsonMatchesVertexMultipleResponse() throws Exception {
+        when(authorizationRepository.getGraphAuthorizations(user, WORKSPACE_ID)).thenReturn(workspaceAuthorizations);
+        when(request.getAttribute(USER_REQUEST_ATTRIBUTE_NAME)).thenReturn(user);
+        when(workspaceRepository.hasReadPermissions(WORKSPACE_ID, user)).thenReturn(true);
+
+        ClientApiVertexMultipleStreamingResponse response = route.handle(request, new String[]{publicVertex.getId(), sandboxedVertex.getId()}, true, user);
+
+        ClientApiVertexMultipleResponse expected = new ClientApiVertexMultipleResponse();
+        expected.setRequiredFallback(false);
+        for (ClientApiVertex vertex : getVertices(response)) {
+            Vertex v = graph.getVertex(vertex.getId(), workspaceAuthorizations);
+            expected.getVertices().add(ClientApiConverter.toClientApiVertex(v, WORKSPACE_ID, workspaceAuthorizations));
+        }
+        aclProvider.appendACL(expected, user);
+
+        ObjectMapper objectMapper = ObjectMapperFactory.getInstance();
+        assertEquals(
+                objectMapper.readTree(objectMapper.writeValueAsString(expected)),
+                objectMapper.readTree(objectMapper.writeValueAsString(response))
+        );
+    }
+
+    private static List<ClientApiVertex> getVertices(ClientApiVertexMultipleStreamingResponse response) {
+        return Lists.newArrayList(response.getVertices());
     }
 }
@@ -0,0 +1,81 @@
+package org.visallo.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.json.JSONObject;
+import org.visallo.core.exception.VisalloException;
+import org.visallo.web.clientapi.model.ClientApiObject;
+import org.visallo.web.clientapi.util.ObjectMapperFactory;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JSON which is serialized, compressed and hashed once so it can be written to many responses. Routes return an
+ * instance, typically cached until the data changes, and {@link VisalloDefaultResultWriterFactory} answers
+ * If-None-Match requests with the ETag and otherwise writes the stored bytes.
+ */
+public class PreparedJsonResponse {
+    private final byte[] json;
+    private final byte[] gzipJson;
+    private final String eTag;
+
+    public PreparedJsonResponse(byte[] json) {
+        this.json = json;
+        this.gzipJson = gzip(json);
+        this.eTag = DigestUtils.md5Hex(json);
+    }
+
+    public static PreparedJsonResponse fromClientApiObject(ClientApiObject clientApiObject) {
+        try {
+            return new PreparedJsonResponse(ObjectMapperFactory.getInstance().writeValueAsBytes(clientApiObject));
+        } catch (JsonProcessingException e) {
+            throw new VisalloException("Could not write json", e);
+        }
+    }
+
+    public static PreparedJsonResponse fromJson(JSONObject json) {
+        return new PreparedJsonResponse(json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(data);
+        } catch (IOException e) {
+            throw new VisalloException("Could not compress json", e);
+        }
+        return out.toByteArray();
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    void write(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        VisalloResponse visalloResponse = new VisalloResponse(request, response);
+        if (visalloResponse.testEtagHeaders(eTag)) {
+            return;
+        }
+        visalloResponse.addETagHeader(eTag);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.addHeader("Vary", "Accept-Encoding");
+        byte[] body = json;
+        if (acceptsGzip(request)) {
+            response.setHeader("Content-Encoding", "gzip");
+            body = gzipJson;
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+}
@@ -1,6 +1,9 @@
 package org.visallo.web;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Inject;
 import com.v5analytics.webster.resultWriters.ResultWriter;
 import com.v5analytics.webster.resultWriters.ResultWriterBase;
@@ -47,6 +50,7 @@ public class VisalloDefaultResultWriterFactory implements ResultWriterFactory {
         return new ResultWriterBase(handleMethod) {
             private boolean resultIsClientApiObject;
             private boolean resultIsInputStream;
+            private boolean resultIsPreparedJson;
 
             @Override
             protected String getContentType(Method handleMethod) {
@@ -57,6 +61,10 @@ public class VisalloDefaultResultWriterFactory implements ResultWriterFactory {
                     resultIsClientApiObject = true;
                     return "application/json";
                 }
+                if (PreparedJsonResponse.class.isAssignableFrom(handleMethod.getReturnType())) {
+                    resultIsPreparedJson = true;
+                    return "application/json";
+                }
                 if (InputStream.class.isAssignableFrom(handleMethod.getReturnType())) {
                     resultIsInputStream = true;
                 }
@@ -79,19 +87,17 @@ public class VisalloDefaultResultWriterFactory implements ResultWriterFactory {
                         response.addHeader("Pragma", "no-cache");
                         response.addHeader("Expires", "0");
                     }
-                    if (resultIsClientApiObject) {
+                    if (resultIsPreparedJson) {
+                        // the response may be stored as long as it is revalidated with the ETag
+                        response.addHeader("Cache-Control", "no-cache");
+                        ((PreparedJsonResponse) result).write(request, response);
+                    } else if (resultIsClientApiObject) {
                         ClientApiObject clientApiObject = (ClientApiObject) result;
                         User user = VisalloBaseParameterProvider.getUser(request, userRepository);
                         try (TraceSpan ignored = Trace.start("aclProvider.appendACL")) {
                             clientApiObject = aclProvider.appendACL(clientApiObject, user);
                         }
-                        String jsonObject;
-                        try {
-                            jsonObject = ObjectMapperFactory.getInstance().writeValueAsString(clientApiObject);
-                        } catch (JsonProcessingException e) {
-                            throw new VisalloException("Could not convert clientApiObject to string", e);
-                        }
-                        response.getWriter().write(jsonObject);
+                        writeClientApiObject(response, clientApiObject);
                     } else if (resultIsInputStream) {
                         try (InputStream in = (InputStream) result) {
                             IOUtils.copy(in, response.getOutputStream());
@@ -105,4 +111,19 @@ public class VisalloDefaultResultWriterFactory implements ResultWriterFactory {
             }
         };
     }
+
+    /**
+     * Writes the object straight to the response. Iterable properties are serialized as they are iterated, so
+     * responses built from lazily converted elements never hold all of the elements or their JSON in memory.
+     */
+    private static void writeClientApiObject(HttpServletResponse response, ClientApiObject clientApiObject)
+            throws IOException {
+        ObjectMapper objectMapper = ObjectMapperFactory.getInstance();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream(), JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            objectMapper.writeValue(generator, clientApiObject);
+        } catch (JsonProcessingException e) {
+            throw new VisalloException("Could not write clientApiObject", e);
+        }
+    }
 }
@@ -3,20 +3,56 @@ package org.visallo.web.routes.config;
 import com.google.inject.Inject;
 import com.v5analytics.webster.ParameterizedHandler;
 import com.v5analytics.webster.annotations.Handle;
-import org.json.JSONObject;
+import org.visallo.core.model.ontology.OntologyRepository;
+import org.visallo.web.PreparedJsonResponse;
+import org.visallo.web.WebApp;
+import org.visallo.web.clientapi.model.ClientApiOntology;
 
-import java.util.ResourceBundle;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Configuration implements ParameterizedHandler {
+    private static final int MAX_CACHED_LOCALES = 100;
     private final org.visallo.core.config.Configuration configuration;
+    private final OntologyRepository ontologyRepository;
+    private final Map<Locale, CachedConfiguration> cachedConfigurations = new ConcurrentHashMap<>();
 
     @Inject
-    public Configuration(final org.visallo.core.config.Configuration configuration) {
+    public Configuration(
+            final org.visallo.core.config.Configuration configuration,
+            final OntologyRepository ontologyRepository
+    ) {
         this.configuration = configuration;
+        this.ontologyRepository = ontologyRepository;
     }
 
     @Handle
-    public JSONObject handle(ResourceBundle resourceBundle) throws Exception {
-        return this.configuration.toJSON(resourceBundle);
+    public PreparedJsonResponse handle(Locale locale, WebApp webApp) throws Exception {
+        // the configuration includes the ontology intents, the repository returns the same instance until they change
+        ClientApiOntology ontology = ontologyRepository.getClientApiObject();
+        CachedConfiguration result = cachedConfigurations.get(locale);
+        if (result == null || result.ontology != ontology) {
+            result = new CachedConfiguration(
+                    ontology,
+                    PreparedJsonResponse.fromJson(this.configuration.toJSON(webApp.getBundle(locale)))
+            );
+            if (cachedConfigurations.size() >= MAX_CACHED_LOCALES) {
+                // locales come from the request, don't let unusual ones grow the cache without bound
+                cachedConfigurations.clear();
+            }
+            cachedConfigurations.put(locale, result);
+        }
+        return result.response;
+    }
+
+    private static class CachedConfiguration {
+        private final ClientApiOntology ontology;
+        private final PreparedJsonResponse response;
+
+        private CachedConfiguration(ClientApiOntology ontology, PreparedJsonResponse response) {
+            this.ontology = ontology;
+            this.response = response;
+        }
     }
 }
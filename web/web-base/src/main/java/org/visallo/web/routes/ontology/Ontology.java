@@ -4,12 +4,12 @@ import com.google.inject.Inject;
 import com.v5analytics.webster.ParameterizedHandler;
 import com.v5analytics.webster.annotations.Handle;
 import org.visallo.core.model.ontology.OntologyRepository;
-import org.visallo.web.VisalloResponse;
+import org.visallo.web.PreparedJsonResponse;
 import org.visallo.web.clientapi.model.ClientApiOntology;
-import org.visallo.web.clientapi.util.ObjectMapperFactory;
 
 public class Ontology implements ParameterizedHandler {
     private final OntologyRepository ontologyRepository;
+    private volatile CachedOntology cachedOntology;
 
     @Inject
     public Ontology(final OntologyRepository ontologyRepository) {
@@ -17,16 +17,24 @@ public class Ontology implements ParameterizedHandler {
     }
 
     @Handle
-    public ClientApiOntology handle(VisalloResponse response) throws Exception {
-        ClientApiOntology result = ontologyRepository.getClientApiObject();
-
-        String json = ObjectMapperFactory.getInstance().writeValueAsString(result);
-        String eTag = response.generateETag(json.getBytes());
-        if (response.testEtagHeaders(eTag)) {
-            return result;
+    public PreparedJsonResponse handle() throws Exception {
+        // the repository returns the same instance until OntologyRepository.clearCache is called
+        ClientApiOntology ontology = ontologyRepository.getClientApiObject();
+        CachedOntology result = cachedOntology;
+        if (result == null || result.ontology != ontology) {
+            result = new CachedOntology(ontology, PreparedJsonResponse.fromClientApiObject(ontology));
+            cachedOntology = result;
         }
+        return result.response;
+    }
 
-        response.addETagHeader(eTag);
-        return result;
+    private static class CachedOntology {
+        private final ClientApiOntology ontology;
+        private final PreparedJsonResponse response;
+
+        private CachedOntology(ClientApiOntology ontology, PreparedJsonResponse response) {
+            this.ontology = ontology;
+            this.response = response;
+        }
     }
 }
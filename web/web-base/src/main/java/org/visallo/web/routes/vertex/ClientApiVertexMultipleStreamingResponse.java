@@ -0,0 +1,27 @@
+package org.visallo.web.routes.vertex;
+
+import org.visallo.web.clientapi.model.ClientApiObject;
+import org.visallo.web.clientapi.model.ClientApiVertex;
+import org.visallo.web.clientapi.model.ClientApiVertexMultipleResponse;
+
+/**
+ * Serializes to the same JSON as {@link ClientApiVertexMultipleResponse} but the vertices are only iterated while the
+ * response is written, so they can be converted one at a time.
+ */
+public class ClientApiVertexMultipleStreamingResponse implements ClientApiObject {
+    private final boolean requiredFallback;
+    private final Iterable<ClientApiVertex> vertices;
+
+    public ClientApiVertexMultipleStreamingResponse(boolean requiredFallback, Iterable<ClientApiVertex> vertices) {
+        this.requiredFallback = requiredFallback;
+        this.vertices = vertices;
+    }
+
+    public boolean isRequiredFallback() {
+        return requiredFallback;
+    }
+
+    public Iterable<ClientApiVertex> getVertices() {
+        return vertices;
+    }
+}
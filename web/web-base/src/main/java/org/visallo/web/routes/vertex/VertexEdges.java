@@ -1,6 +1,7 @@
 package org.visallo.web.routes.vertex;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.v5analytics.webster.ParameterizedHandler;
 import com.v5analytics.webster.annotations.Handle;
@@ -13,10 +14,15 @@ import org.visallo.core.exception.VisalloResourceNotFoundException;
 import org.visallo.core.trace.Trace;
 import org.visallo.core.trace.TraceSpan;
 import org.visallo.core.util.ClientApiConverter;
+import org.visallo.core.util.VertexiumUtil;
 import org.visallo.web.clientapi.model.ClientApiVertex;
 import org.visallo.web.clientapi.model.ClientApiVertexEdges;
 import org.visallo.web.parameterProviders.ActiveWorkspaceId;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 public class VertexEdges implements ParameterizedHandler {
     private final Graph graph;
 
@@ -72,9 +78,18 @@ public class VertexEdges implements ParameterizedHandler {
 
         ClientApiVertexEdges result = new ClientApiVertexEdges();
 
-        for (Edge edge : edges) {
-            String otherVertexId = edge.getOtherVertexId(graphVertexId);
-            Vertex otherVertex = graph.getVertex(otherVertexId, authorizations);
+        List<Edge> edgeList = Lists.newArrayList(edges);
+        List<String> otherVertexIds = new ArrayList<>(edgeList.size());
+        for (Edge edge : edgeList) {
+            otherVertexIds.add(edge.getOtherVertexId(graphVertexId));
+        }
+        Map<String, Vertex> otherVertices;
+        try (TraceSpan trace = Trace.start("getOtherVertices").data("count", Integer.toString(otherVertexIds.size()))) {
+            otherVertices = VertexiumUtil.getVerticesById(graph, otherVertexIds, FetchHint.ALL, authorizations);
+        }
+
+        for (Edge edge : edgeList) {
+            Vertex otherVertex = otherVertices.get(edge.getOtherVertexId(graphVertexId));
             if (otherVertex == null) {
                 continue;
             }
@@ -13,9 +13,10 @@ import org.visallo.core.exception.VisalloAccessDeniedException;
 import org.visallo.core.model.user.AuthorizationRepository;
 import org.visallo.core.model.user.UserRepository;
 import org.visallo.core.model.workspace.WorkspaceRepository;
+import org.visallo.core.security.ACLProvider;
 import org.visallo.core.user.User;
 import org.visallo.core.util.ClientApiConverter;
-import org.visallo.web.clientapi.model.ClientApiVertexMultipleResponse;
+import org.visallo.web.clientapi.model.ClientApiVertex;
 import org.visallo.web.parameterProviders.VisalloBaseParameterProvider;
 
 import javax.servlet.http.HttpServletRequest;
@@ -25,36 +26,38 @@ public class VertexMultiple implements ParameterizedHandler {
     private final UserRepository userRepository;
     private final WorkspaceRepository workspaceRepository;
     private final AuthorizationRepository authorizationRepository;
+    private final ACLProvider aclProvider;
 
     @Inject
     public VertexMultiple(
             Graph graph,
             UserRepository userRepository,
             WorkspaceRepository workspaceRepository,
-            AuthorizationRepository authorizationRepository
+            AuthorizationRepository authorizationRepository,
+            ACLProvider aclProvider
     ) {
         this.graph = graph;
         this.userRepository = userRepository;
         this.workspaceRepository = workspaceRepository;
         this.authorizationRepository = authorizationRepository;
+        this.aclProvider = aclProvider;
     }
 
     @Handle
-    public ClientApiVertexMultipleResponse handle(
+    public ClientApiVertexMultipleStreamingResponse handle(
             HttpServletRequest request,
             @Required(name = "vertexIds[]") String[] vertexIdsParam,
             @Optional(name = "fallbackToPublic", defaultValue = "false") boolean fallbackToPublic,
             User user
     ) throws Exception {
-        ClientApiVertexMultipleResponse result = new ClientApiVertexMultipleResponse();
-
+        boolean requiredFallback;
         String workspaceId = null;
         try {
             workspaceId = VisalloBaseParameterProvider.getActiveWorkspaceIdOrDefault(request, workspaceRepository, userRepository);
-            result.setRequiredFallback(false);
+            requiredFallback = false;
         } catch (VisalloAccessDeniedException ex) {
             if (fallbackToPublic) {
-                result.setRequiredFallback(true);
+                requiredFallback = true;
             } else {
                 throw ex;
             }
@@ -70,13 +73,8 @@ public class VertexMultiple implements ParameterizedHandler {
                 authorizations
         );
 
-        for (Vertex v : graphVertices) {
-            result.getVertices().add(ClientApiConverter.toClientApiVertex(
-                    v,
-                    workspaceId,
-                    authorizations
-            ));
-        }
-        return result;
+        // vertices are converted and their ACLs appended one at a time while the response is written
+        Iterable<ClientApiVertex> vertices = ClientApiConverter.toClientApiVerticesLazily(graphVertices, workspaceId, authorizations);
+        return new ClientApiVertexMultipleStreamingResponse(requiredFallback, aclProvider.appendACLLazily(vertices, user));
     }
 }